@@ -0,0 +1,60 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the benchmarks with the JMH command line, and always adds the GC
+ * profiler so that every result comes with its allocation rate, see the
+ * gc.alloc.rate.norm rows. Options that don't run benchmarks, such as
+ * -l or -h, are handled by JMH itself.
+ *
+ * Run with: java -jar benchmarks/target/benchmarks.jar [JMH options] [regexp]
+ */
+public class BenchmarkMain {
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    if (cmdOptions.shouldHelp() || cmdOptions.shouldList() || cmdOptions.shouldListWithParams()
+        || cmdOptions.shouldListProfilers() || cmdOptions.shouldListResultFormats()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    OptionsBuilder builder = new OptionsBuilder();
+    builder.parent(cmdOptions);
+    if (!hasGcProfiler(cmdOptions)) {
+      builder.addProfiler(GCProfiler.class);
+    }
+    Options options = builder.build();
+    new Runner(options).run();
+  }
+
+  private static boolean hasGcProfiler(Options options) {
+    for (ProfilerConfig profiler : options.getProfilers()) {
+      if (profiler.getKlass().equals(GCProfiler.class.getName())
+          || profiler.getKlass().equals("gc")) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,83 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.cloudera.config.ValidatorKit;
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.validation.SyntheticDescriptors;
+import com.cloudera.csd.validation.references.ReferenceValidator;
+import com.cloudera.validation.DescriptorValidatorImpl;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ConstraintViolation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validates a generated SDL with the bean validation constraints and
+ * with the reference validator, separately. The SDL is valid, so every
+ * constraint and every reference is checked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DescriptorValidationBenchmark {
+
+  @Param({"100", "2000"})
+  public int params;
+
+  private DescriptorValidatorImpl<ServiceDescriptor> beanValidator;
+  private ReferenceValidator referenceValidator;
+  private ServiceDescriptor descriptor;
+
+  @Setup
+  public void setUp() throws IOException {
+    ValidatorKit kit = new ValidatorKit();
+    beanValidator = new DescriptorValidatorImpl<ServiceDescriptor>(kit.getValidator(), "service");
+    referenceValidator = kit.getReferenceValidator();
+    descriptor = kit.getSdlParser().parse(
+        SyntheticDescriptors.bytes(SyntheticDescriptors.sdl(params, 25)));
+    Preconditions.checkState(beanValidator.validate(descriptor).isEmpty());
+    Preconditions.checkState(referenceValidator.validate(descriptor).isEmpty());
+  }
+
+  @Benchmark
+  public Set<String> beanValidation() {
+    return beanValidator.validate(descriptor);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<ServiceDescriptor>> referenceValidation() {
+    return referenceValidator.validate(descriptor);
+  }
+}
@@ -0,0 +1,88 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.cloudera.config.ValidatorKit;
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.validation.SyntheticDescriptors;
+import com.cloudera.csd.validation.references.DescriptorPath;
+import com.cloudera.csd.validation.references.components.DescriptorVisitorImpl;
+import com.cloudera.csd.validation.references.components.DescriptorVisitorImpl.AbstractNodeProcessor;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ElementKind;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Walks a generated SDL and asks for the bean-only view of every path,
+ * as the reference validator does. Returns the number of nodes, so the
+ * allocation rate per node follows from gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DescriptorWalkBenchmark {
+
+  @Param({"100", "5000"})
+  public int params;
+
+  private DescriptorVisitorImpl visitor;
+  private ServiceDescriptor descriptor;
+
+  @Setup
+  public void setUp() throws IOException {
+    ValidatorKit kit = new ValidatorKit();
+    visitor = new DescriptorVisitorImpl();
+    descriptor = kit.getSdlParser().parse(
+        SyntheticDescriptors.bytes(SyntheticDescriptors.sdl(params, 25)));
+  }
+
+  @Benchmark
+  public Long walk() {
+    return visitor.visit(descriptor, new CountingProcessor());
+  }
+
+  private static class CountingProcessor extends AbstractNodeProcessor<Long> {
+    private long nodes;
+
+    @Override
+    public void beforeNode(Object obj, DescriptorPath path) {
+      nodes++;
+      path.onlyInclude(ElementKind.BEAN);
+    }
+
+    @Override
+    public Long getResult() {
+      return nodes;
+    }
+  }
+}
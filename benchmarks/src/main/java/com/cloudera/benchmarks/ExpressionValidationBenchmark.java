@@ -0,0 +1,125 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.cloudera.config.ValidatorKit;
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.descriptors.parameters.Parameter;
+import com.cloudera.csd.validation.SyntheticDescriptors;
+import com.cloudera.csd.validation.constraints.Expression;
+import com.cloudera.csd.validation.constraints.components.ExpressionValidatorImpl;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Checks the @Expression constraints of a generated SDL whose parameters
+ * all have bounds. One benchmark evaluates every expression of every
+ * parameter once, the other runs the full bean validation of the SDL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionValidationBenchmark {
+
+  @Param({"100", "3000"})
+  public int params;
+
+  private final List<ExpressionValidatorImpl> expressionValidators = Lists.newArrayList();
+  private final List<Object> beans = Lists.newArrayList();
+  private Validator validator;
+  private ServiceDescriptor descriptor;
+
+  @Setup
+  public void setUp() throws IOException {
+    ValidatorKit kit = new ValidatorKit();
+    validator = kit.getValidator();
+    descriptor = kit.getSdlParser().parse(
+        SyntheticDescriptors.bytes(SyntheticDescriptors.boundedSdl(params)));
+    for (Parameter<?> parameter : descriptor.getParameters()) {
+      for (Class<?> type : parameter.getClass().getInterfaces()) {
+        addValidators(type, parameter);
+      }
+    }
+    Preconditions.checkState(evaluate() == expressionValidators.size());
+    Preconditions.checkState(validator.validate(descriptor).isEmpty());
+  }
+
+  @Benchmark
+  public int expressions() {
+    return evaluate();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<ServiceDescriptor>> beanValidation() {
+    return validator.validate(descriptor);
+  }
+
+  /**
+   * @return the number of expressions that hold.
+   */
+  private int evaluate() {
+    int valid = 0;
+    for (int i = 0; i < expressionValidators.size(); i++) {
+      if (expressionValidators.get(i).isValid(beans.get(i), null)) {
+        valid++;
+      }
+    }
+    return valid;
+  }
+
+  private void addValidators(Class<?> type, Object bean) {
+    List<Expression> expressions = Lists.newArrayList();
+    if (type.getAnnotation(Expression.class) != null) {
+      expressions.add(type.getAnnotation(Expression.class));
+    }
+    if (type.getAnnotation(Expression.List.class) != null) {
+      expressions.addAll(Arrays.asList(type.getAnnotation(Expression.List.class).value()));
+    }
+    for (Expression expression : expressions) {
+      ExpressionValidatorImpl expressionValidator = new ExpressionValidatorImpl();
+      expressionValidator.initialize(expression);
+      expressionValidators.add(expressionValidator);
+      beans.add(bean);
+    }
+    for (Class<?> parent : type.getInterfaces()) {
+      addValidators(parent, bean);
+    }
+  }
+}
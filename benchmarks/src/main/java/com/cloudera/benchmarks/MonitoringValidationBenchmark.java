@@ -0,0 +1,82 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.cloudera.config.ValidatorKit;
+import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
+import com.cloudera.csd.validation.SyntheticDescriptors;
+import com.cloudera.csd.validation.components.ServiceMonitoringDefinitionsDescriptorValidatorImpl;
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validates a generated MDL, including the monitoring checks, on the
+ * given number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonitoringValidationBenchmark {
+
+  @Param({"1000", "20000"})
+  public int metrics;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private ValidatorKit kit;
+  private ServiceMonitoringDefinitionsDescriptorValidatorImpl validator;
+  private ServiceMonitoringDefinitionsDescriptor descriptor;
+
+  @Setup
+  public void setUp() throws IOException {
+    kit = new ValidatorKit();
+    validator = kit.getServiceMonitoringDefinitionsDescriptorValidator();
+    validator.setParallelism(threads);
+    descriptor = kit.getMdlParser().parse(
+        SyntheticDescriptors.bytes(SyntheticDescriptors.mdl(metrics, 10, 10)));
+    Preconditions.checkState(validator.validate(descriptor).isEmpty());
+  }
+
+  @TearDown
+  public void tearDown() {
+    kit.close();
+  }
+
+  @Benchmark
+  public Set<String> validate() {
+    return validator.validate(descriptor);
+  }
+}
@@ -0,0 +1,85 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.cloudera.cli.validator.KitRunnerFactory;
+import com.cloudera.cli.validator.components.CommandLineOptions.Mode;
+import com.cloudera.config.ValidatorKit;
+import com.cloudera.validation.ValidationRunner;
+import com.google.common.base.Preconditions;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validates generated parcel files with an increasing number of entries
+ * of 4 KB each. The parcels are written to a temporary directory once
+ * per trial. There is no result cache, so every invocation reads and
+ * hashes the whole parcel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParcelFileRunnerBenchmark {
+
+  private static final int ENTRY_SIZE = 4096;
+
+  @Param({"100", "1000", "10000"})
+  public int entries;
+
+  private File directory;
+  private String parcel;
+  private ValidationRunner runner;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDir();
+    parcel = SyntheticParcels.write(directory, entries, ENTRY_SIZE).getPath();
+    runner = new KitRunnerFactory(new ValidatorKit(), null).getRunner(Mode.PARCEL_FILE);
+    StringWriter output = new StringWriter();
+    Preconditions.checkState(runner.run(parcel, output), output);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public boolean run() throws IOException {
+    return runner.run(parcel, new NullWriter());
+  }
+}
@@ -0,0 +1,77 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.cloudera.common.Parser;
+import com.cloudera.config.ValidatorKit;
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
+import com.cloudera.csd.validation.SyntheticDescriptors;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses generated SDLs and MDLs. The size is the number of parameters
+ * of the SDL and the number of metrics of the MDL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+  @Param({"10", "20000"})
+  public int size;
+
+  private Parser<ServiceDescriptor> sdlParser;
+  private Parser<ServiceMonitoringDefinitionsDescriptor> mdlParser;
+  private byte[] sdl;
+  private byte[] mdl;
+
+  @Setup
+  public void setUp() {
+    ValidatorKit kit = new ValidatorKit();
+    sdlParser = kit.getSdlParser();
+    mdlParser = kit.getMdlParser();
+    sdl = SyntheticDescriptors.bytes(SyntheticDescriptors.sdl(size, 25));
+    mdl = SyntheticDescriptors.bytes(SyntheticDescriptors.mdl(size, 10, 10));
+  }
+
+  @Benchmark
+  public ServiceDescriptor parseSdl() throws IOException {
+    return sdlParser.parse(sdl);
+  }
+
+  @Benchmark
+  public ServiceMonitoringDefinitionsDescriptor parseMdl() throws IOException {
+    return mdlParser.parse(mdl);
+  }
+}
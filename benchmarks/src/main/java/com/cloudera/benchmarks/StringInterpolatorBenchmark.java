@@ -0,0 +1,72 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.cloudera.csd.StringInterpolator;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Interpolates a template with the given number of variables, the way
+ * the reference validator and the message interpolator use it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringInterpolatorBenchmark {
+
+  @Param({"0", "1", "10"})
+  public int variables;
+
+  private StringInterpolator interpolator;
+  private String template;
+  private Map<String, String> values;
+
+  @Setup
+  public void setUp() {
+    interpolator = new StringInterpolator();
+    values = Maps.newHashMap();
+    StringBuilder sb = new StringBuilder("--config");
+    for (int i = 0; i < variables; i++) {
+      String name = "synthetic_parameter_" + i;
+      sb.append(" --").append(name).append("=${").append(name).append('}');
+      values.put(name, "value_" + i);
+    }
+    template = sb.toString();
+  }
+
+  @Benchmark
+  public String interpolate() {
+    return interpolator.interpolate(template, values);
+  }
+}
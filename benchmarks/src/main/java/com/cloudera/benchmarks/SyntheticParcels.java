@@ -0,0 +1,111 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.benchmarks;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes valid, gzip compressed parcels with any number of entries. The
+ * metadata is a parcel.json, its environment script and a
+ * permissions.json. The rest are files of random bytes, a hundred per
+ * directory. The same arguments always give the same parcel.
+ */
+public final class SyntheticParcels {
+
+  public static final String NAME = "SYNTHETIC";
+  public static final String VERSION = "1.0";
+  public static final String DISTRO = "el6";
+
+  private static final String DIR = NAME + "-" + VERSION;
+  private static final int FILES_PER_DIR = 100;
+  private static final long SEED = 42;
+
+  private static final String PARCEL_JSON =
+      "{\"schema_version\":1,\"name\":\"" + NAME + "\",\"version\":\"" + VERSION + "\"," +
+      "\"setActiveSymlink\":true,\"scripts\":{\"defines\":\"synthetic_env.sh\"}," +
+      "\"packages\":[],\"components\":[],\"provides\":[\"synthetic\"]," +
+      "\"users\":{\"synthetic\":{\"longname\":\"Synthetic\",\"home\":\"/var/lib/synthetic\"," +
+      "\"shell\":\"/bin/bash\",\"extra_groups\":[]}},\"groups\":[\"synthetic\"]}";
+
+  private static final String PERMISSIONS_JSON =
+      "{\"lib/dir_0/file_0\":{\"user\":\"root\",\"group\":\"synthetic\"," +
+      "\"permissions\":\"4754\"}}";
+
+  private SyntheticParcels() {}
+
+  /**
+   * @param directory the directory to write the parcel to.
+   * @param entries the number of files in the parcel, besides its
+   *     metadata.
+   * @param entrySize the size of each file, in bytes.
+   * @return the parcel file.
+   */
+  public static File write(File directory, int entries, int entrySize) throws IOException {
+    Preconditions.checkArgument(entries > 0);
+    Preconditions.checkArgument(entrySize >= 0);
+    File parcel = new File(directory, DIR + "-" + DISTRO + ".parcel");
+    Random random = new Random(SEED);
+    byte[] data = new byte[entrySize];
+    TarArchiveOutputStream out = new TarArchiveOutputStream(new GzipCompressorOutputStream(
+        new BufferedOutputStream(new FileOutputStream(parcel))));
+    try {
+      putDirectory(out, DIR);
+      putDirectory(out, DIR + "/meta");
+      putFile(out, DIR + "/meta/parcel.json", PARCEL_JSON.getBytes(Charsets.UTF_8));
+      putFile(out, DIR + "/meta/synthetic_env.sh", "#!/bin/bash\n".getBytes(Charsets.UTF_8));
+      putFile(out, DIR + "/meta/permissions.json", PERMISSIONS_JSON.getBytes(Charsets.UTF_8));
+      putDirectory(out, DIR + "/lib");
+      for (int i = 0; i < entries; i++) {
+        String dir = DIR + "/lib/dir_" + (i / FILES_PER_DIR);
+        if (i % FILES_PER_DIR == 0) {
+          putDirectory(out, dir);
+        }
+        random.nextBytes(data);
+        putFile(out, dir + "/file_" + (i % FILES_PER_DIR), data);
+      }
+      out.finish();
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+    return parcel;
+  }
+
+  private static void putDirectory(TarArchiveOutputStream out, String name) throws IOException {
+    out.putArchiveEntry(new TarArchiveEntry(name + "/"));
+    out.closeArchiveEntry();
+  }
+
+  private static void putFile(TarArchiveOutputStream out, String name, byte[] data)
+      throws IOException {
+    TarArchiveEntry entry = new TarArchiveEntry(name);
+    entry.setSize(data.length);
+    out.putArchiveEntry(entry);
+    out.write(data);
+    out.closeArchiveEntry();
+  }
+}
@@ -0,0 +1,129 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.common;
+
+import com.cloudera.common.apt.ImplementationProcessor;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.base.Optional;
+
+import java.io.IOException;
+
+import javax.annotation.Nullable;
+
+/**
+ * A Jackson module that deserializes descriptor interfaces into the
+ * implementations generated by the
+ * {@link ImplementationProcessor}. Interfaces without a generated
+ * implementation are left to the other modules, so register this one
+ * along with the MrBean module.
+ */
+@SuppressWarnings("serial")
+public class GeneratedImplementationsModule extends SimpleModule {
+
+  private static final ClassValue<Optional<Class<?>>> IMPLEMENTATIONS =
+      new ClassValue<Optional<Class<?>>>() {
+        @Override
+        protected Optional<Class<?>> computeValue(Class<?> type) {
+          return Optional.<Class<?>>fromNullable(findImplementation(type));
+        }
+      };
+
+  public GeneratedImplementationsModule() {
+    super("GeneratedImplementationsModule");
+  }
+
+  @Override
+  public void setupModule(SetupContext context) {
+    super.setupModule(context);
+    context.addDeserializers(new Deserializers.Base() {
+      @Override
+      public JsonDeserializer<?> findBeanDeserializer(JavaType type,
+                                                      DeserializationConfig config,
+                                                      BeanDescription beanDesc) {
+        Class<?> implementation = implementationOf(type.getRawClass());
+        if (implementation == null) {
+          return null;
+        }
+        return new ImplementationDeserializer(config.constructType(implementation));
+      }
+    });
+  }
+
+  /**
+   * @param type a descriptor interface.
+   * @return the generated implementation of the interface, or null.
+   */
+  @Nullable
+  public static Class<?> implementationOf(Class<?> type) {
+    return IMPLEMENTATIONS.get(type).orNull();
+  }
+
+  @Nullable
+  private static Class<?> findImplementation(Class<?> type) {
+    if (!type.isInterface() || type.getPackage() == null) {
+      return null;
+    }
+    StringBuilder name = new StringBuilder();
+    for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+      name.insert(0, c.getSimpleName());
+    }
+    name.insert(0, ImplementationProcessor.PREFIX)
+        .insert(0, type.getPackage().getName() + ".");
+    try {
+      Class<?> implementation = Class.forName(name.toString(), true, type.getClassLoader());
+      return type.isAssignableFrom(implementation) ? implementation : null;
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Deserializes an interface with the bean deserializer of its
+   * implementation.
+   */
+  private static final class ImplementationDeserializer
+      extends JsonDeserializer<Object> implements ContextualDeserializer {
+
+    private final JavaType implementation;
+
+    private ImplementationDeserializer(JavaType implementation) {
+      this.implementation = implementation;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext ctxt,
+                                                BeanProperty property)
+        throws JsonMappingException {
+      return ctxt.findContextualValueDeserializer(implementation, property);
+    }
+
+    @Override
+    public Object deserialize(JsonParser jp, DeserializationContext ctxt)
+        throws IOException {
+      return ctxt.findRootValueDeserializer(implementation).deserialize(jp, ctxt);
+    }
+  }
+}
@@ -0,0 +1,265 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.common.apt;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates an implementation of every descriptor interface
+ * in the packages marked with {@link GenerateImplementations}, so that
+ * the descriptors don't have to be materialized at runtime.
+ *
+ * A descriptor interface is a public interface without type parameters
+ * whose methods are all getters. The implementation of an interface
+ * Foo is the final class GeneratedFoo in the same package, and that of
+ * a nested interface Foo.Bar is GeneratedFooBar. It has a field and a
+ * getter for every property, and a private setter and constructor for
+ * Jackson. The setters wrap collections in unmodifiable views, so the
+ * collections can't be changed through the getters. The objects are
+ * not immutable though: Jackson fills in the fields after construction.
+ * Like the materialized classes, they don't override equals and
+ * hashCode, so two descriptors with the same values are still distinct
+ * members of a set.
+ *
+ * Interfaces that are not descriptor interfaces are skipped with a
+ * note, and are still materialized at runtime.
+ */
+@SupportedAnnotationTypes("com.cloudera.common.apt.GenerateImplementations")
+public class ImplementationProcessor extends AbstractProcessor {
+
+  /** The prefix of the simple name of the implementations. */
+  public static final String PREFIX = "Generated";
+
+  private static final Map<String, String> UNMODIFIABLE = new LinkedHashMap<String, String>();
+  static {
+    UNMODIFIABLE.put("java.util.List", "unmodifiableList");
+    UNMODIFIABLE.put("java.util.SortedSet", "unmodifiableSortedSet");
+    UNMODIFIABLE.put("java.util.Set", "unmodifiableSet");
+    UNMODIFIABLE.put("java.util.SortedMap", "unmodifiableSortedMap");
+    UNMODIFIABLE.put("java.util.Map", "unmodifiableMap");
+    UNMODIFIABLE.put("java.util.Collection", "unmodifiableCollection");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(GenerateImplementations.class)) {
+      if (element.getKind() != ElementKind.PACKAGE) {
+        error(element, "@GenerateImplementations only applies to packages");
+        continue;
+      }
+      List<TypeElement> interfaces = new ArrayList<TypeElement>();
+      collectInterfaces(element, interfaces);
+      for (TypeElement type : interfaces) {
+        List<Property> properties = properties(type);
+        if (properties != null) {
+          generate(type, properties);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the simple name of the implementation of the interface.
+   */
+  static String implementationName(TypeElement type) {
+    StringBuilder sb = new StringBuilder();
+    for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+      sb.insert(0, e.getSimpleName());
+    }
+    return sb.insert(0, PREFIX).toString();
+  }
+
+  private void collectInterfaces(Element element, List<TypeElement> interfaces) {
+    for (TypeElement type : ElementFilter.typesIn(element.getEnclosedElements())) {
+      if (type.getKind() == ElementKind.INTERFACE) {
+        interfaces.add(type);
+      }
+      collectInterfaces(type, interfaces);
+    }
+  }
+
+  /**
+   * @return the properties of the interface, or null if it is not a
+   *     descriptor interface.
+   */
+  private List<Property> properties(TypeElement type) {
+    if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+      return null;
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      note(type, "has type parameters");
+      return null;
+    }
+    DeclaredType declared = (DeclaredType) type.asType();
+    Map<String, Property> properties = new LinkedHashMap<String, Property>();
+    for (ExecutableElement method :
+        ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+      Set<Modifier> modifiers = method.getModifiers();
+      if (!modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.STATIC)) {
+        continue;
+      }
+      String name = method.getSimpleName().toString();
+      String suffix = getterSuffix(name);
+      if (suffix == null
+          || !method.getParameters().isEmpty()
+          || !method.getTypeParameters().isEmpty()
+          || method.getReturnType().getKind() == TypeKind.VOID) {
+        note(type, "has a method that is not a getter: " + name);
+        return null;
+      }
+      TypeMirror returnType =
+          ((ExecutableType) processingEnv.getTypeUtils().asMemberOf(declared, method))
+              .getReturnType();
+      Property existing = properties.get(name);
+      if (existing == null
+          || processingEnv.getTypeUtils().isSubtype(returnType, existing.type)) {
+        properties.put(name, new Property(name, suffix, returnType));
+      }
+    }
+    return new ArrayList<Property>(properties.values());
+  }
+
+  private static String getterSuffix(String name) {
+    for (String prefix : new String[] { "get", "is" }) {
+      if (name.length() > prefix.length()
+          && name.startsWith(prefix)
+          && Character.isUpperCase(name.charAt(prefix.length()))) {
+        return name.substring(prefix.length());
+      }
+    }
+    return null;
+  }
+
+  private void generate(TypeElement type, List<Property> properties) {
+    String packageName = processingEnv.getElementUtils().getPackageOf(type)
+        .getQualifiedName().toString();
+    String simpleName = implementationName(type);
+    String interfaceName = type.getQualifiedName().toString();
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("// Generated by ").append(ImplementationProcessor.class.getName())
+      .append(" from ").append(interfaceName).append(". Do not edit.\n");
+    sb.append("package ").append(packageName).append(";\n\n");
+    sb.append("/**\n * A generated implementation of {@link ").append(interfaceName)
+      .append("}.\n */\n");
+    sb.append("public final class ").append(simpleName)
+      .append(" implements ").append(interfaceName).append(" {\n\n");
+
+    for (Property p : properties) {
+      sb.append("  private ").append(p.type).append(' ').append(p.field).append(";\n");
+    }
+    sb.append("\n  private ").append(simpleName).append("() {\n  }\n");
+
+    for (Property p : properties) {
+      sb.append("\n  @Override\n  public ").append(p.type).append(' ').append(p.getter)
+        .append("() {\n    return ").append(p.field).append(";\n  }\n");
+    }
+
+    for (Property p : properties) {
+      sb.append("\n  @com.fasterxml.jackson.annotation.JsonProperty\n")
+        .append("  private void set").append(p.suffix).append('(').append(p.type)
+        .append(" value) {\n");
+      String wrapper = unmodifiable(p.type);
+      if (wrapper != null) {
+        sb.append("    this.").append(p.field).append(" = (value == null) ? null : ")
+          .append("java.util.Collections.").append(wrapper).append("(value);\n");
+      } else {
+        sb.append("    this.").append(p.field).append(" = value;\n");
+      }
+      sb.append("  }\n");
+    }
+
+    sb.append("\n  @Override\n  public String toString() {\n")
+      .append("    return com.google.common.base.Objects.toStringHelper(this)");
+    for (Property p : properties) {
+      sb.append("\n        .add(\"").append(p.field).append("\", ").append(p.field).append(')');
+    }
+    sb.append("\n        .toString();\n  }\n}\n");
+
+    try {
+      Writer writer = processingEnv.getFiler()
+          .createSourceFile(packageName + "." + simpleName, type)
+          .openWriter();
+      try {
+        writer.write(sb.toString());
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      error(type, "Could not generate " + simpleName + ": " + e.getMessage());
+    }
+  }
+
+  private String unmodifiable(TypeMirror type) {
+    String erasure = processingEnv.getTypeUtils().erasure(type).toString();
+    return UNMODIFIABLE.get(erasure);
+  }
+
+  private void note(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+        "Not generating an implementation, the interface " + message, element);
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+  /**
+   * A property of a descriptor interface.
+   */
+  private static final class Property {
+    private final String getter;
+    private final String suffix;
+    private final String field;
+    private final TypeMirror type;
+
+    private Property(String getter, String suffix, TypeMirror type) {
+      this.getter = getter;
+      this.suffix = suffix;
+      this.type = type;
+      String field = Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+      this.field = SourceVersion.isKeyword(field) ? field + "Value" : field;
+    }
+  }
+}
@@ -0,0 +1,164 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.config;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Set;
+
+/**
+ * The names that the validators know about without being told.
+ */
+public final class BuiltIns {
+
+  /** The service types that Cloudera Manager knows about. */
+  public static final Set<String> SERVICE_TYPES = ImmutableSet.of(
+      "HDFS",
+      "MAPREDUCE",
+      "HBASE",
+      "OOZIE",
+      "ZOOKEEPER",
+      "HUE",
+      "YARN",
+      "IMPALA",
+      "FLUME",
+      "HIVE",
+      "SOLR",
+      "SQOOP",
+      "KS_INDEXER",
+      "SENTRY",
+      "MGMT");
+
+  /** The role types of the built-in services. */
+  public static final Set<String> ROLE_TYPES = ImmutableSet.of(
+      "ACTIVITYMONITOR",
+      "AGENT",
+      "ALERTPUBLISHER",
+      "BALANCER",
+      "BEESWAX_SERVER",
+      "CATALOGSERVER",
+      "DATANODE",
+      "EVENTSERVER",
+      "FAILOVERCONTROLLER",
+      "GATEWAY",
+      "HBASERESTSERVER",
+      "HBASETHRIFTSERVER",
+      "HBASE_INDEXER",
+      "HIVEMETASTORE",
+      "HIVESERVER2",
+      "HOSTMONITOR",
+      "HTTPFS",
+      "HUE_SERVER",
+      "HUE_LOAD_BALANCER",
+      "IMPALAD",
+      "JOBHISTORY",
+      "JOBSUBD",
+      "JOBTRACKER",
+      "JOURNALNODE",
+      "KT_RENEWER",
+      "LLAMA",
+      "MASTER",
+      "NAMENODE",
+      "NAVIGATOR",
+      "NAVIGATORMETASERVER",
+      "NFSGATEWAY",
+      "NODEMANAGER",
+      "OOZIE_SERVER",
+      "REGIONSERVER",
+      "REPORTSMANAGER",
+      "RESOURCEMANAGER",
+      "SECONDARYNAMENODE",
+      "SERVER",
+      "SERVICEMONITOR",
+      "SOLR_SERVER",
+      "SQOOP_SERVER",
+      "STATESTORE",
+      "TASKTRACKER",
+      "WEBHCAT",
+      "SENTRY_SERVER");
+
+  /** The names of the built-in cross entity aggregate metrics. */
+  public static final Set<String> NAMES_FOR_CROSS_ENTITY_AGGREGATE_METRICS = ImmutableSet.of(
+      "cmservers",
+      "time_series_tables",
+      "servicemonitors",
+      "hostmonitors",
+      "activitymonitors",
+      "eventservers",
+      "reportsmanagers",
+      "impalads",
+      "statestores",
+      "catalogservers",
+      "llamas");
+
+  /** The attributes of the built-in metric entities. */
+  public static final Set<String> METRIC_ENTITY_ATTRIBUTES = ImmutableSet.of(
+      "entityName",
+      "category",
+      "version",
+      "active",
+      "roleName",
+      "roleType",
+      "roleState",
+      "roleConfigGroup",
+      "serviceName",
+      "serviceDisplayName",
+      "serviceType",
+      "serviceState",
+      "userName",
+      "groupName",
+      "ownerName",
+      "queueName",
+      "poolName",
+      "path",
+      "expired",
+      "clusterId",
+      "clusterName",
+      "clusterDisplayName",
+      "rackId",
+      "hostId",
+      "hostname",
+      "interface",
+      "device",
+      "logicalPartition",
+      "partition",
+      "mountpoint",
+      "mountOptions",
+      "nameserviceName",
+      "cacheId",
+      "hnamespaceName",
+      "htableName",
+      "systemTable",
+      "hregionName",
+      "hbaseReplicationPeerId",
+      "hbaseReplicationPeerClusterKey",
+      "timeSeriesTableName",
+      "timeSeriesApplicationName",
+      "rollup",
+      "agentName",
+      "componentName",
+      "schedulerType",
+      "solrCollectionName",
+      "solrShardName",
+      "solrReplicaName",
+      "filesystemType");
+
+  /** The built-in metric entity types that are not role or service types. */
+  public static final Set<String> METRIC_ENTITY_TYPES = ImmutableSet.of(
+      "TIME_SERIES_TABLE", "IMPALA_POOL");
+
+  private BuiltIns() {}
+}
@@ -0,0 +1,162 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.config;
+
+import com.cloudera.csd.validation.constraints.AutoConfigSharesValidValidator;
+import com.cloudera.csd.validation.constraints.ExistingRoleTypeValidator;
+import com.cloudera.csd.validation.constraints.ExistingServiceTypeValidator;
+import com.cloudera.csd.validation.constraints.ExpressionValidator;
+import com.cloudera.csd.validation.constraints.UniqueFieldValidator;
+import com.cloudera.csd.validation.constraints.UniqueFieldsValidator;
+import com.cloudera.csd.validation.constraints.UniqueRoleTypeValidator;
+import com.cloudera.csd.validation.constraints.UniqueServiceTypeValidator;
+import com.cloudera.csd.validation.constraints.ValidServiceDependencyValidator;
+import com.cloudera.csd.validation.constraints.components.AutoConfigSharesValidValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.ExistingRoleTypeValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.ExistingServiceTypeValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.ExpressionValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.UniqueFieldValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.UniqueFieldsValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.UniqueRoleTypeValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.UniqueServiceTypeValidatorImpl;
+import com.cloudera.csd.validation.constraints.components.ValidServiceDependencyValidatorImpl;
+import com.cloudera.csd.validation.monitoring.components.MetricNameFormatValidatorImpl;
+import com.cloudera.csd.validation.monitoring.components.NameForCrossEntityAggregatesFormatValidatorImpl;
+import com.cloudera.csd.validation.monitoring.constraints.MetricNameFormatValidator;
+import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesFormatValidator;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.validation.ConstraintValidator;
+
+/**
+ * The constraint validators of the descriptors, by the validator type
+ * that their constraints name. The prototype beans of
+ * {@link DefaultValidatorConfiguration} and the validators of
+ * {@link ValidatorKit} are both created from this table.
+ */
+public final class ConstraintValidators {
+
+  /**
+   * Creates a validator from the service and role types that it may
+   * need to know.
+   */
+  public abstract static class Factory {
+    public abstract ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                     Set<String> roleTypes);
+  }
+
+  /** The factories, by validator type. */
+  public static final Map<Class<?>, Factory> FACTORIES =
+      ImmutableMap.<Class<?>, Factory>builder()
+          .put(UniqueFieldValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new UniqueFieldValidatorImpl();
+            }
+          })
+          .put(UniqueFieldsValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new UniqueFieldsValidatorImpl();
+            }
+          })
+          .put(ValidServiceDependencyValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new ValidServiceDependencyValidatorImpl(serviceTypes);
+            }
+          })
+          .put(UniqueServiceTypeValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new UniqueServiceTypeValidatorImpl(serviceTypes);
+            }
+          })
+          .put(UniqueRoleTypeValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new UniqueRoleTypeValidatorImpl(roleTypes);
+            }
+          })
+          .put(ExistingServiceTypeValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new ExistingServiceTypeValidatorImpl(serviceTypes);
+            }
+          })
+          .put(ExistingRoleTypeValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new ExistingRoleTypeValidatorImpl(roleTypes);
+            }
+          })
+          .put(ExpressionValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new ExpressionValidatorImpl();
+            }
+          })
+          .put(AutoConfigSharesValidValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new AutoConfigSharesValidValidatorImpl();
+            }
+          })
+          .put(MetricNameFormatValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new MetricNameFormatValidatorImpl();
+            }
+          })
+          .put(NameForCrossEntityAggregatesFormatValidator.class, new Factory() {
+            @Override
+            public ConstraintValidator<?, ?> create(Set<String> serviceTypes,
+                                                    Set<String> roleTypes) {
+              return new NameForCrossEntityAggregatesFormatValidatorImpl();
+            }
+          })
+          .build();
+
+  private ConstraintValidators() {}
+
+  /**
+   * @param type the validator type.
+   * @param serviceTypes the known service types.
+   * @param roleTypes the known role types.
+   * @return a new validator, or null if the type has no factory.
+   */
+  @Nullable
+  public static <T extends ConstraintValidator<?, ?>> T create(Class<T> type,
+                                                               Set<String> serviceTypes,
+                                                               Set<String> roleTypes) {
+    Factory factory = FACTORIES.get(type);
+    return (factory == null) ? null : type.cast(factory.create(serviceTypes, roleTypes));
+  }
+}
@@ -22,6 +22,7 @@ import com.cloudera.csd.components.JsonSdlObjectMapper;
 import com.cloudera.csd.components.JsonSdlParser;
 import com.cloudera.csd.descriptors.ServiceDescriptor;
 import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
+import com.cloudera.csd.validation.components.IncrementalServiceDescriptorValidator;
 import com.cloudera.csd.validation.components.ServiceDescriptorValidatorImpl;
 import com.cloudera.csd.validation.components.ServiceMonitoringDefinitionsDescriptorValidatorImpl;
 import com.cloudera.csd.validation.constraints.AutoConfigSharesValidValidator;
@@ -29,19 +30,11 @@ import com.cloudera.csd.validation.constraints.ExistingRoleTypeValidator;
 import com.cloudera.csd.validation.constraints.ExistingServiceTypeValidator;
 import com.cloudera.csd.validation.constraints.ExpressionValidator;
 import com.cloudera.csd.validation.constraints.UniqueFieldValidator;
+import com.cloudera.csd.validation.constraints.UniqueFieldsValidator;
 import com.cloudera.csd.validation.constraints.UniqueRoleTypeValidator;
 import com.cloudera.csd.validation.constraints.UniqueServiceTypeValidator;
 import com.cloudera.csd.validation.constraints.ValidServiceDependencyValidator;
-import com.cloudera.csd.validation.constraints.components.AutoConfigSharesValidValidatorImpl;
-import com.cloudera.csd.validation.constraints.components.ExistingRoleTypeValidatorImpl;
-import com.cloudera.csd.validation.constraints.components.ExistingServiceTypeValidatorImpl;
-import com.cloudera.csd.validation.constraints.components.ExpressionValidatorImpl;
-import com.cloudera.csd.validation.constraints.components.UniqueFieldValidatorImpl;
-import com.cloudera.csd.validation.constraints.components.UniqueRoleTypeValidatorImpl;
-import com.cloudera.csd.validation.constraints.components.UniqueServiceTypeValidatorImpl;
-import com.cloudera.csd.validation.constraints.components.ValidServiceDependencyValidatorImpl;
-import com.cloudera.csd.validation.monitoring.components.MetricNameFormatValidatorImpl;
-import com.cloudera.csd.validation.monitoring.components.NameForCrossEntityAggregatesFormatValidatorImpl;
+import com.cloudera.csd.validation.monitoring.MonitoringValidatorPipeline;
 import com.cloudera.csd.validation.monitoring.constraints.MetricNameFormatValidator;
 import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesFormatValidator;
 import com.cloudera.csd.validation.references.DescriptorVisitor;
@@ -61,14 +54,16 @@ import com.cloudera.parcel.validation.components.ManifestDescriptorValidatorImpl
 import com.cloudera.parcel.validation.components.ParcelDescriptorValidatorImpl;
 import com.cloudera.parcel.validation.components.PermissionsDescriptorValidatorImpl;
 import com.cloudera.validation.BeanConstraintValidatorFactory;
+import com.cloudera.validation.CatalogMessageInterpolator;
 import com.cloudera.validation.DescriptorValidator;
-import com.cloudera.validation.MessageSourceInterpolator;
-import com.cloudera.validation.TemplateMessageInterpolator;
-import com.google.common.collect.ImmutableSet;
+import com.cloudera.validation.MessageCatalog;
+import com.cloudera.validation.ValidationMetrics;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 
 import java.util.Set;
 
+import javax.validation.ConstraintValidator;
 import javax.validation.MessageInterpolator;
 import javax.validation.Validation;
 import javax.validation.Validator;
@@ -106,230 +101,126 @@ public class DefaultValidatorConfiguration {
       "builtInMetricEntityAttributes";
   public static final String BUILTIN_METRIC_ENTITY_TYPES =
       "builtInMetricEntityTypes";
+  /**
+   * The name under which a {@link ValidationMetrics} singleton can be
+   * registered before the context is refreshed, for the validators to
+   * report to.
+   */
+  public static final String VALIDATION_METRICS_BEAN_NAME = "validationMetrics";
   public static final String CMD_EXTRA_SERVICE_TYPE_FILE = "service-type-file";
   public static final String CMD_EXTRA_SERVICE_TYPE_LIST = "service-type-list";
 
+  /**
+   * @return the registered metrics, or {@link ValidationMetrics#DISABLED}.
+   */
+  protected ValidationMetrics getValidationMetrics() {
+    if (ctx.containsBean(VALIDATION_METRICS_BEAN_NAME)) {
+      return ctx.getBean(VALIDATION_METRICS_BEAN_NAME, ValidationMetrics.class);
+    }
+    return ValidationMetrics.DISABLED;
+  }
+
   @Bean(name = BUILTIN_SERVICE_TYPES_BEAN_NAME)
   public Set<String> builtInServiceTypes() {
-    Set<String> serviceTypes = Sets.newHashSet(
-      "HDFS",
-      "MAPREDUCE",
-      "HBASE",
-      "OOZIE",
-      "ZOOKEEPER",
-      "HUE",
-      "YARN",
-      "IMPALA",
-      "FLUME",
-      "HIVE",
-      "SOLR",
-      "SQOOP",
-      "KS_INDEXER",
-      "SENTRY",
-      "MGMT"
-    );
-    return serviceTypes;
+    return Sets.newHashSet(BuiltIns.SERVICE_TYPES);
   }
 
   @Bean(name = BUILTIN_ROLE_TYPES_BEAN_NAME)
   public Set<String> builtInRoleTypes() {
-    return ImmutableSet.of(
-      "ACTIVITYMONITOR",
-      "AGENT",
-      "ALERTPUBLISHER",
-      "BALANCER",
-      "BEESWAX_SERVER",
-      "CATALOGSERVER",
-      "DATANODE",
-      "EVENTSERVER",
-      "FAILOVERCONTROLLER",
-      "GATEWAY",
-      "HBASERESTSERVER",
-      "HBASETHRIFTSERVER",
-      "HBASE_INDEXER",
-      "HIVEMETASTORE",
-      "HIVESERVER2",
-      "HOSTMONITOR",
-      "HTTPFS",
-      "HUE_SERVER",
-      "HUE_LOAD_BALANCER",
-      "IMPALAD",
-      "JOBHISTORY",
-      "JOBSUBD",
-      "JOBTRACKER",
-      "JOURNALNODE",
-      "KT_RENEWER",
-      "LLAMA",
-      "MASTER",
-      "NAMENODE",
-      "NAVIGATOR",
-      "NAVIGATORMETASERVER",
-      "NFSGATEWAY",
-      "NODEMANAGER",
-      "OOZIE_SERVER",
-      "REGIONSERVER",
-      "REPORTSMANAGER",
-      "RESOURCEMANAGER",
-      "SECONDARYNAMENODE",
-      "SERVER",
-      "SERVICEMONITOR",
-      "SOLR_SERVER",
-      "SQOOP_SERVER",
-      "STATESTORE",
-      "TASKTRACKER",
-      "WEBHCAT",
-      "SENTRY_SERVER"
-    );
+    return BuiltIns.ROLE_TYPES;
   }
 
   @Bean(name = BUILTIN_NAMES_FOR_CROSS_ENTITY_AGGREGATE_METRICS)
   public Set<String> builtInNamesForCrossEntityAggregateMetrics() {
-    return ImmutableSet.of(
-      "cmservers",
-      "time_series_tables",
-      "servicemonitors",
-      "hostmonitors",
-      "activitymonitors",
-      "eventservers",
-      "reportsmanagers",
-      "impalads",
-      "statestores",
-      "catalogservers",
-      "llamas");
+    return BuiltIns.NAMES_FOR_CROSS_ENTITY_AGGREGATE_METRICS;
   }
 
   @Bean(name = BUILTIN_METRIC_ENTITY_ATTRIBUTES)
   public Set<String> builtInMetricEntityAttributes() {
-    return ImmutableSet.of(
-        "entityName",
-        "category",
-        "version",
-        "active",
-        "roleName",
-        "roleType",
-        "roleState",
-        "roleConfigGroup",
-        "serviceName",
-        "serviceDisplayName",
-        "serviceType",
-        "serviceState",
-        "userName",
-        "groupName",
-        "ownerName",
-        "queueName",
-        "poolName",
-        "path",
-        "expired",
-        "clusterId",
-        "clusterName",
-        "clusterDisplayName",
-        "rackId",
-        "hostId",
-        "hostname",
-        "interface",
-        "device",
-        "logicalPartition",
-        "partition",
-        "mountpoint",
-        "mountOptions",
-        "nameserviceName",
-        "cacheId",
-        "hnamespaceName",
-        "htableName",
-        "systemTable",
-        "hregionName",
-        "hbaseReplicationPeerId",
-        "hbaseReplicationPeerClusterKey",
-        "timeSeriesTableName",
-        "timeSeriesApplicationName",
-        "rollup",
-        "agentName",
-        "componentName",
-        "schedulerType",
-        "solrCollectionName",
-        "solrShardName",
-        "solrReplicaName",
-        "filesystemType");
+    return BuiltIns.METRIC_ENTITY_ATTRIBUTES;
   }
 
   @Bean(name = BUILTIN_METRIC_ENTITY_TYPES)
   public Set<String> builtInMetricEntityTypes() {
-    return ImmutableSet.of(
-      "TIME_SERIES_TABLE", "IMPALA_POOL");
+    return BuiltIns.METRIC_ENTITY_TYPES;
+  }
+
+  /**
+   * Creates the constraint validators of {@link ConstraintValidators}
+   * with the service and role types of this configuration.
+   */
+  @SuppressWarnings("unchecked")
+  protected <T extends ConstraintValidator<?, ?>> T newConstraintValidator(Class<T> type) {
+    Set<String> serviceTypes = (Set<String>)ctx.getBean(BUILTIN_SERVICE_TYPES_BEAN_NAME);
+    Set<String> roleTypes = (Set<String>)ctx.getBean(BUILTIN_ROLE_TYPES_BEAN_NAME);
+    T validator = ConstraintValidators.create(type, serviceTypes, roleTypes);
+    Preconditions.checkArgument(validator != null, "No constraint validator for %s", type);
+    return validator;
   }
 
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public UniqueFieldValidator uniqueFieldValidator() {
-    return new UniqueFieldValidatorImpl();
+    return newConstraintValidator(UniqueFieldValidator.class);
+  }
+
+  @Bean
+  @Scope(BeanDefinition.SCOPE_PROTOTYPE)
+  public UniqueFieldsValidator uniqueFieldsValidator() {
+    return newConstraintValidator(UniqueFieldsValidator.class);
   }
 
-  @SuppressWarnings("unchecked")
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public ValidServiceDependencyValidator validServiceDependencyValidator() {
-    Set<String> validServiceTypes =
-        (Set<String>)ctx.getBean(BUILTIN_SERVICE_TYPES_BEAN_NAME);
-    return new ValidServiceDependencyValidatorImpl(validServiceTypes);
+    return newConstraintValidator(ValidServiceDependencyValidator.class);
   }
 
-  @SuppressWarnings("unchecked")
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public UniqueServiceTypeValidator uniqueServiceTypeValidator() {
-    Set<String> serviceTypes = (Set<String>)ctx.getBean(BUILTIN_SERVICE_TYPES_BEAN_NAME);
-    return new UniqueServiceTypeValidatorImpl(serviceTypes);
+    return newConstraintValidator(UniqueServiceTypeValidator.class);
   }
 
-  @SuppressWarnings("unchecked")
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public UniqueRoleTypeValidator uniqueRoleTypeValidator() {
-    Set<String> roleTypes = (Set<String>)ctx.getBean(BUILTIN_ROLE_TYPES_BEAN_NAME);
-    return new UniqueRoleTypeValidatorImpl(roleTypes);
+    return newConstraintValidator(UniqueRoleTypeValidator.class);
   }
 
-  @SuppressWarnings("unchecked")
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public ExistingServiceTypeValidator existingServiceTypeValidator() {
-    Set<String> serviceTypes =
-        (Set<String>)ctx.getBean(BUILTIN_SERVICE_TYPES_BEAN_NAME);
-    return new ExistingServiceTypeValidatorImpl(serviceTypes);
+    return newConstraintValidator(ExistingServiceTypeValidator.class);
   }
 
-  @SuppressWarnings("unchecked")
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public ExistingRoleTypeValidator existingRoleTypeValidator() {
-    Set<String> roleTypes =
-        (Set<String>)ctx.getBean(BUILTIN_ROLE_TYPES_BEAN_NAME);
-    return new ExistingRoleTypeValidatorImpl(roleTypes);
+    return newConstraintValidator(ExistingRoleTypeValidator.class);
   }
 
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public ExpressionValidator expressionValidator() {
-    return new ExpressionValidatorImpl();
+    return newConstraintValidator(ExpressionValidator.class);
   }
 
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public AutoConfigSharesValidValidator autoConfigSharesValidValidator() {
-    return new AutoConfigSharesValidValidatorImpl();
+    return newConstraintValidator(AutoConfigSharesValidValidator.class);
   }
 
   public MessageInterpolator defaultInterpolator() {
     return Validation.byDefaultProvider().configure().getDefaultMessageInterpolator();
   }
 
-  public TemplateMessageInterpolator templateMessageInterpolator() {
-    return new TemplateMessageInterpolator(defaultInterpolator(), stringInterpolator());
-  }
-
   @Bean
   public MessageInterpolator messageInterpolator() {
-    return new MessageSourceInterpolator(templateMessageInterpolator());
+    return new CatalogMessageInterpolator(MessageCatalog.getDefault(),
+                                          stringInterpolator(),
+                                          defaultInterpolator());
   }
 
   @Bean
@@ -387,14 +278,26 @@ public class DefaultValidatorConfiguration {
     return new ServiceDescriptorValidatorImpl(
         validator,
         referenceValidator,
-        enforceDependencyCheck);
+        enforceDependencyCheck,
+        getValidationMetrics());
   }
 
+  /**
+   * An incremental validator keeps the results of the last descriptor
+   * it validated, so every caller gets its own.
+   */
   @Bean
-  public DescriptorValidator<ServiceMonitoringDefinitionsDescriptor>
-      serviceMonitoringDefinitionsDescriptorValidator() {
-    Validator validator = ctx.getBean(Validator.class);
-    ReferenceValidator referenceValidator = ctx.getBean(ReferenceValidator.class);
+  @Scope(BeanDefinition.SCOPE_PROTOTYPE)
+  public IncrementalServiceDescriptorValidator incrementalServiceDescriptorValidator() {
+    return new IncrementalServiceDescriptorValidator(
+        ctx.getBean(Validator.class),
+        ctx.getBean(DescriptorVisitor.class),
+        ctx.getBean(StringInterpolator.class),
+        true);
+  }
+
+  @Bean
+  public MonitoringValidatorPipeline monitoringValidatorPipeline() {
     @SuppressWarnings("unchecked")
     Set<String> builtInRoleTypes =
         (Set<String>)ctx.getBean(BUILTIN_ROLE_TYPES_BEAN_NAME);
@@ -408,15 +311,25 @@ public class DefaultValidatorConfiguration {
     @SuppressWarnings("unchecked")
     Set<String> builtInAttributes =
         (Set<String>)ctx.getBean(BUILTIN_METRIC_ENTITY_ATTRIBUTES);
-    return new ServiceMonitoringDefinitionsDescriptorValidatorImpl(
-        validator,
-        referenceValidator,
+    return new MonitoringValidatorPipeline(
         builtInRoleTypes,
         builtInNamesForCrossEntityAggregateMetrics,
         builtInEntityTypes,
         builtInAttributes);
   }
 
+  @Bean(destroyMethod = "close")
+  public DescriptorValidator<ServiceMonitoringDefinitionsDescriptor>
+      serviceMonitoringDefinitionsDescriptorValidator() {
+    Validator validator = ctx.getBean(Validator.class);
+    ReferenceValidator referenceValidator = ctx.getBean(ReferenceValidator.class);
+    return new ServiceMonitoringDefinitionsDescriptorValidatorImpl(
+        validator,
+        referenceValidator,
+        ctx.getBean(MonitoringValidatorPipeline.class),
+        getValidationMetrics());
+  }
+
   @Bean
   public DescriptorVisitor descriptorVisitor() {
     return new DescriptorVisitorImpl();
@@ -426,31 +339,31 @@ public class DefaultValidatorConfiguration {
   public ReferenceValidator referenceValidator() {
     DescriptorVisitor visitor = ctx.getBean(DescriptorVisitor.class);
     StringInterpolator interpolator = ctx.getBean(StringInterpolator.class);
-    return new ReferenceValidatorImpl(visitor, interpolator);
+    return new ReferenceValidatorImpl(visitor, interpolator, getValidationMetrics());
   }
 
   @Bean
   public DescriptorValidator<ParcelDescriptor> parcelDescriptorValidator() {
     Validator validator = ctx.getBean(Validator.class);
-    return new ParcelDescriptorValidatorImpl(validator);
+    return new ParcelDescriptorValidatorImpl(validator, getValidationMetrics());
   }
 
   @Bean
   public DescriptorValidator<AlternativesDescriptor> alternativesDescriptorValidator() {
     Validator validator = ctx.getBean(Validator.class);
-    return new AlternativesDescriptorValidatorImpl(validator);
+    return new AlternativesDescriptorValidatorImpl(validator, getValidationMetrics());
   }
 
   @Bean
   public DescriptorValidator<PermissionsDescriptor> permissionsDescriptorValidator() {
     Validator validator = ctx.getBean(Validator.class);
-    return new PermissionsDescriptorValidatorImpl(validator);
+    return new PermissionsDescriptorValidatorImpl(validator, getValidationMetrics());
   }
 
   @Bean
   public DescriptorValidator<ManifestDescriptor> manifestDescriptorValidator() {
     Validator validator = ctx.getBean(Validator.class);
-    return new ManifestDescriptorValidatorImpl(validator);
+    return new ManifestDescriptorValidatorImpl(validator, getValidationMetrics());
   }
 
   @Bean
@@ -482,14 +395,14 @@ public class DefaultValidatorConfiguration {
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public MetricNameFormatValidator metricNameFormatValidator() {
-    return new MetricNameFormatValidatorImpl();
+    return newConstraintValidator(MetricNameFormatValidator.class);
   }
 
   @Bean
   @Scope(BeanDefinition.SCOPE_PROTOTYPE)
   public NameForCrossEntityAggregatesFormatValidator
       nameForCrossEntityAggregateFormatValidator() {
-    return new NameForCrossEntityAggregatesFormatValidatorImpl();
+    return newConstraintValidator(NameForCrossEntityAggregatesFormatValidator.class);
   }
 
   @Bean(name = OBJECT_MAPPER_BEAN_NAME)
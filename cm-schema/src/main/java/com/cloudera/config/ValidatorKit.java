@@ -0,0 +1,345 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.config;
+
+import com.cloudera.common.Parser;
+import com.cloudera.csd.StringInterpolator;
+import com.cloudera.csd.components.JsonMdlParser;
+import com.cloudera.csd.components.JsonSdlObjectMapper;
+import com.cloudera.csd.components.JsonSdlParser;
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
+import com.cloudera.csd.validation.components.ServiceDescriptorValidatorImpl;
+import com.cloudera.csd.validation.components.ServiceMonitoringDefinitionsDescriptorValidatorImpl;
+import com.cloudera.csd.validation.monitoring.MonitoringValidatorPipeline;
+import com.cloudera.csd.validation.references.DescriptorVisitor;
+import com.cloudera.csd.validation.references.ReferenceValidator;
+import com.cloudera.csd.validation.references.components.DescriptorVisitorImpl;
+import com.cloudera.csd.validation.references.components.ReferenceValidatorImpl;
+import com.cloudera.parcel.components.JsonAlternativesParser;
+import com.cloudera.parcel.components.JsonManifestParser;
+import com.cloudera.parcel.components.JsonParcelParser;
+import com.cloudera.parcel.components.JsonPermissionsParser;
+import com.cloudera.parcel.descriptors.AlternativesDescriptor;
+import com.cloudera.parcel.descriptors.ManifestDescriptor;
+import com.cloudera.parcel.descriptors.ParcelDescriptor;
+import com.cloudera.parcel.descriptors.PermissionsDescriptor;
+import com.cloudera.parcel.validation.components.AlternativesDescriptorValidatorImpl;
+import com.cloudera.parcel.validation.components.ManifestDescriptorValidatorImpl;
+import com.cloudera.parcel.validation.components.ParcelDescriptorValidatorImpl;
+import com.cloudera.parcel.validation.components.PermissionsDescriptorValidatorImpl;
+import com.cloudera.validation.CatalogMessageInterpolator;
+import com.cloudera.validation.DescriptorValidator;
+import com.cloudera.validation.MessageCatalog;
+import com.cloudera.validation.ValidationMetrics;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.Closeable;
+import java.util.Set;
+
+import javax.validation.Configuration;
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorFactory;
+import javax.validation.MessageInterpolator;
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+/**
+ * Builds the same parsers and validators as
+ * {@link DefaultValidatorConfiguration}, wired by hand instead of by an
+ * application context. This is for command line tools, which validate a
+ * few files and exit: they don't pay for scanning the configuration,
+ * proxying it and looking up every constraint validator by type.
+ * <p>
+ * Every component is built the first time it is asked for, so a run that
+ * only validates an SDL never loads the parcel or monitoring validators.
+ * The components are shared and thread safe, like the singleton beans of
+ * the configuration. Close the kit when done with it, like the context.
+ */
+public class ValidatorKit implements Closeable {
+
+  private final Set<String> serviceTypes;
+  private final boolean failOnUnknownProperties;
+  private final ValidationMetrics metrics;
+
+  private JsonSdlObjectMapper objectMapper;
+  private Validator validator;
+  private StringInterpolator stringInterpolator;
+  private DescriptorVisitor descriptorVisitor;
+  private ReferenceValidator referenceValidator;
+  private Parser<ServiceDescriptor> sdlParser;
+  private Parser<ServiceMonitoringDefinitionsDescriptor> mdlParser;
+  private Parser<ParcelDescriptor> parcelParser;
+  private Parser<AlternativesDescriptor> alternativesParser;
+  private Parser<PermissionsDescriptor> permissionsParser;
+  private Parser<ManifestDescriptor> manifestParser;
+  private DescriptorValidator<ServiceDescriptor> serviceDescriptorValidatorWithDependencyCheck;
+  private DescriptorValidator<ServiceDescriptor> serviceDescriptorValidatorWithoutDependencyCheck;
+  private ServiceMonitoringDefinitionsDescriptorValidatorImpl
+      serviceMonitoringDefinitionsDescriptorValidator;
+  private DescriptorValidator<ParcelDescriptor> parcelDescriptorValidator;
+  private DescriptorValidator<AlternativesDescriptor> alternativesDescriptorValidator;
+  private DescriptorValidator<PermissionsDescriptor> permissionsDescriptorValidator;
+  private DescriptorValidator<ManifestDescriptor> manifestDescriptorValidator;
+
+  /**
+   * A kit that knows the built-in service types and ignores unknown
+   * elements of SDLs and MDLs.
+   */
+  public ValidatorKit() {
+    this(BuiltIns.SERVICE_TYPES, false);
+  }
+
+  /**
+   * @param serviceTypes the service types that services may depend on
+   *     and must not be named like.
+   * @param failOnUnknownProperties whether to reject unknown elements
+   *     of SDLs and MDLs.
+   */
+  public ValidatorKit(Set<String> serviceTypes, boolean failOnUnknownProperties) {
+    this(serviceTypes, failOnUnknownProperties, ValidationMetrics.DISABLED);
+  }
+
+  /**
+   * @param serviceTypes the service types that services may depend on
+   *     and must not be named like.
+   * @param failOnUnknownProperties whether to reject unknown elements
+   *     of SDLs and MDLs.
+   * @param metrics the metrics the validators report to.
+   */
+  public ValidatorKit(Set<String> serviceTypes,
+                      boolean failOnUnknownProperties,
+                      ValidationMetrics metrics) {
+    Preconditions.checkNotNull(serviceTypes);
+    Preconditions.checkNotNull(metrics);
+    this.serviceTypes = ImmutableSet.copyOf(serviceTypes);
+    this.failOnUnknownProperties = failOnUnknownProperties;
+    this.metrics = metrics;
+  }
+
+  public Set<String> getServiceTypes() {
+    return serviceTypes;
+  }
+
+  public ValidationMetrics getMetrics() {
+    return metrics;
+  }
+
+  public synchronized JsonSdlObjectMapper getObjectMapper() {
+    if (objectMapper == null) {
+      objectMapper = new JsonSdlObjectMapper();
+      objectMapper.setFailOnUnknownProperties(failOnUnknownProperties);
+    }
+    return objectMapper;
+  }
+
+  /**
+   * @return the bean validator, with the message interpolation and the
+   *     constraint validators of {@link DefaultValidatorConfiguration}.
+   */
+  public synchronized Validator getValidator() {
+    if (validator == null) {
+      Configuration<?> configuration = Validation.byDefaultProvider().configure();
+      MessageInterpolator messageInterpolator = new CatalogMessageInterpolator(
+          MessageCatalog.getDefault(),
+          getStringInterpolator(),
+          configuration.getDefaultMessageInterpolator());
+      validator = configuration
+          .messageInterpolator(messageInterpolator)
+          .constraintValidatorFactory(new KitConstraintValidatorFactory(
+              serviceTypes,
+              configuration.getDefaultConstraintValidatorFactory()))
+          .buildValidatorFactory()
+          .getValidator();
+    }
+    return validator;
+  }
+
+  public synchronized StringInterpolator getStringInterpolator() {
+    if (stringInterpolator == null) {
+      stringInterpolator = new StringInterpolator();
+    }
+    return stringInterpolator;
+  }
+
+  public synchronized DescriptorVisitor getDescriptorVisitor() {
+    if (descriptorVisitor == null) {
+      descriptorVisitor = new DescriptorVisitorImpl();
+    }
+    return descriptorVisitor;
+  }
+
+  public synchronized ReferenceValidator getReferenceValidator() {
+    if (referenceValidator == null) {
+      referenceValidator = new ReferenceValidatorImpl(
+          getDescriptorVisitor(), getStringInterpolator(), metrics);
+    }
+    return referenceValidator;
+  }
+
+  public synchronized Parser<ServiceDescriptor> getSdlParser() {
+    if (sdlParser == null) {
+      sdlParser = new JsonSdlParser(getObjectMapper());
+    }
+    return sdlParser;
+  }
+
+  public synchronized Parser<ServiceMonitoringDefinitionsDescriptor> getMdlParser() {
+    if (mdlParser == null) {
+      mdlParser = new JsonMdlParser(getObjectMapper());
+    }
+    return mdlParser;
+  }
+
+  public synchronized Parser<ParcelDescriptor> getParcelParser() {
+    if (parcelParser == null) {
+      parcelParser = new JsonParcelParser();
+    }
+    return parcelParser;
+  }
+
+  public synchronized Parser<AlternativesDescriptor> getAlternativesParser() {
+    if (alternativesParser == null) {
+      alternativesParser = new JsonAlternativesParser();
+    }
+    return alternativesParser;
+  }
+
+  public synchronized Parser<PermissionsDescriptor> getPermissionsParser() {
+    if (permissionsParser == null) {
+      permissionsParser = new JsonPermissionsParser();
+    }
+    return permissionsParser;
+  }
+
+  public synchronized Parser<ManifestDescriptor> getManifestParser() {
+    if (manifestParser == null) {
+      manifestParser = new JsonManifestParser();
+    }
+    return manifestParser;
+  }
+
+  /**
+   * @param enforceDependencyCheck whether services may only depend on
+   *     known service types.
+   */
+  public synchronized DescriptorValidator<ServiceDescriptor>
+      getServiceDescriptorValidator(boolean enforceDependencyCheck) {
+    if (enforceDependencyCheck) {
+      if (serviceDescriptorValidatorWithDependencyCheck == null) {
+        serviceDescriptorValidatorWithDependencyCheck = new ServiceDescriptorValidatorImpl(
+            getValidator(), getReferenceValidator(), true, metrics);
+      }
+      return serviceDescriptorValidatorWithDependencyCheck;
+    }
+    if (serviceDescriptorValidatorWithoutDependencyCheck == null) {
+      serviceDescriptorValidatorWithoutDependencyCheck = new ServiceDescriptorValidatorImpl(
+          getValidator(), getReferenceValidator(), false, metrics);
+    }
+    return serviceDescriptorValidatorWithoutDependencyCheck;
+  }
+
+  public synchronized ServiceMonitoringDefinitionsDescriptorValidatorImpl
+      getServiceMonitoringDefinitionsDescriptorValidator() {
+    if (serviceMonitoringDefinitionsDescriptorValidator == null) {
+      serviceMonitoringDefinitionsDescriptorValidator =
+          new ServiceMonitoringDefinitionsDescriptorValidatorImpl(
+              getValidator(),
+              getReferenceValidator(),
+              new MonitoringValidatorPipeline(
+                  BuiltIns.ROLE_TYPES,
+                  BuiltIns.NAMES_FOR_CROSS_ENTITY_AGGREGATE_METRICS,
+                  BuiltIns.METRIC_ENTITY_TYPES,
+                  BuiltIns.METRIC_ENTITY_ATTRIBUTES),
+              metrics);
+    }
+    return serviceMonitoringDefinitionsDescriptorValidator;
+  }
+
+  /**
+   * Releases the threads of the components that have any.
+   */
+  @Override
+  public synchronized void close() {
+    if (serviceMonitoringDefinitionsDescriptorValidator != null) {
+      serviceMonitoringDefinitionsDescriptorValidator.close();
+    }
+  }
+
+  public synchronized DescriptorValidator<ParcelDescriptor> getParcelDescriptorValidator() {
+    if (parcelDescriptorValidator == null) {
+      parcelDescriptorValidator = new ParcelDescriptorValidatorImpl(getValidator(), metrics);
+    }
+    return parcelDescriptorValidator;
+  }
+
+  public synchronized DescriptorValidator<AlternativesDescriptor>
+      getAlternativesDescriptorValidator() {
+    if (alternativesDescriptorValidator == null) {
+      alternativesDescriptorValidator =
+          new AlternativesDescriptorValidatorImpl(getValidator(), metrics);
+    }
+    return alternativesDescriptorValidator;
+  }
+
+  public synchronized DescriptorValidator<PermissionsDescriptor>
+      getPermissionsDescriptorValidator() {
+    if (permissionsDescriptorValidator == null) {
+      permissionsDescriptorValidator =
+          new PermissionsDescriptorValidatorImpl(getValidator(), metrics);
+    }
+    return permissionsDescriptorValidator;
+  }
+
+  public synchronized DescriptorValidator<ManifestDescriptor> getManifestDescriptorValidator() {
+    if (manifestDescriptorValidator == null) {
+      manifestDescriptorValidator = new ManifestDescriptorValidatorImpl(getValidator(), metrics);
+    }
+    return manifestDescriptorValidator;
+  }
+
+  /**
+   * Creates the constraint validators of {@link ConstraintValidators},
+   * like {@link DefaultValidatorConfiguration}, and leaves the others to
+   * the default factory of the provider.
+   */
+  private static class KitConstraintValidatorFactory implements ConstraintValidatorFactory {
+
+    private final Set<String> serviceTypes;
+    private final ConstraintValidatorFactory delegate;
+
+    KitConstraintValidatorFactory(Set<String> serviceTypes,
+                                  ConstraintValidatorFactory delegate) {
+      this.serviceTypes = serviceTypes;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public <T extends ConstraintValidator<?, ?>> T getInstance(Class<T> key) {
+      T instance = ConstraintValidators.create(key, serviceTypes, BuiltIns.ROLE_TYPES);
+      if (instance == null) {
+        return delegate.getInstance(key);
+      }
+      return instance;
+    }
+
+    @Override
+    public void releaseInstance(ConstraintValidator<?, ?> instance) {
+      delegate.releaseInstance(instance);
+    }
+  }
+}
@@ -17,18 +17,18 @@ package com.cloudera.csd;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
 
@@ -38,14 +38,25 @@ import javax.annotation.Nullable;
  * "My name is ${name}" when provided:
  * name -> "Bob" then this string gets interpolated
  * to: "My name is Bob"
+ *
+ * Templates are split into literals and variables once, see
+ * {@link #compile(String)}, and rendered in a single pass. Values
+ * are inserted as they are.
  */
 public class StringInterpolator {
 
-  private static final String START_TOKEN = "\\$\\{";
-  private static final String END_TOKEN = "\\}";
+  private static final String START_TOKEN = "${";
+  private static final char END_TOKEN = '}';
+  private static final int MAX_CACHED_TEMPLATES = 10000;
 
-  private static final String REGEX = START_TOKEN + "([^}]+)" + END_TOKEN;
-  private static final Pattern PATTERN = Pattern.compile(REGEX);
+  private final LoadingCache<String, Template> templates = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_TEMPLATES)
+      .build(new CacheLoader<String, Template>() {
+        @Override
+        public Template load(String template) {
+          return new Template(template);
+        }
+      });
 
   /**
    * An interface that facilitates getting
@@ -57,6 +68,110 @@ public class StringInterpolator {
 
   }
 
+  /**
+   * A template split into its literal text and its variables. A
+   * template is immutable and can be rendered any number of times.
+   */
+  public static final class Template {
+    private final String template;
+    // literals[i] comes before variables[i], the last literal comes
+    // after the last variable.
+    private final String[] literals;
+    private final String[] variables;
+    private final Set<String> variableSet;
+
+    private Template(String template) {
+      List<String> literalList = Lists.newArrayList();
+      List<String> variableList = Lists.newArrayList();
+      int position = 0;
+      int start = template.indexOf(START_TOKEN);
+      while (start >= 0) {
+        int end = template.indexOf(END_TOKEN, start + START_TOKEN.length());
+        if (end < 0) {
+          break;
+        }
+        if (end == start + START_TOKEN.length()) {
+          // "${}" is not a variable.
+          start = template.indexOf(START_TOKEN, start + 1);
+          continue;
+        }
+        literalList.add(template.substring(position, start));
+        variableList.add(template.substring(start + START_TOKEN.length(), end));
+        position = end + 1;
+        start = template.indexOf(START_TOKEN, position);
+      }
+      literalList.add(template.substring(position));
+
+      this.template = template;
+      this.literals = literalList.toArray(new String[literalList.size()]);
+      this.variables = variableList.toArray(new String[variableList.size()]);
+      this.variableSet = ImmutableSet.copyOf(variableList);
+    }
+
+    /**
+     * @return the variables in the template.
+     */
+    public Set<String> getVariables() {
+      return variableSet;
+    }
+
+    /**
+     * Substitutes the variables of the template.
+     *
+     * @param provider the variable provider.
+     * @return the converted template.
+     * @throws IllegalArgumentException if a variable has no value.
+     */
+    public String render(VariableProvider provider) {
+      if (variables.length == 0) {
+        return template;
+      }
+      StringBuilder sb = new StringBuilder(template.length() + 16 * variables.length);
+      renderTo(sb, provider);
+      return sb.toString();
+    }
+
+    /**
+     * Substitutes the variables of the template and appends the
+     * result. Values are appended as they are, they are not
+     * interpolated again.
+     *
+     * @param sb where the result is appended.
+     * @param provider the variable provider.
+     * @throws IllegalArgumentException if a variable has no value.
+     */
+    public void renderTo(StringBuilder sb, VariableProvider provider) {
+      for (int i = 0; i < variables.length; i++) {
+        sb.append(literals[i]);
+        String value = provider.provide(variables[i]);
+        if (value == null) {
+          String msg = String.format(
+              "The variable [${%s}] does not have a corresponding value.", variables[i]);
+          throw new IllegalArgumentException(msg);
+        }
+        sb.append(value);
+      }
+      sb.append(literals[variables.length]);
+    }
+
+    @Override
+    public String toString() {
+      return template;
+    }
+  }
+
+  /**
+   * Returns the compiled form of a template. Compiled templates are
+   * cached.
+   *
+   * @param template the template.
+   * @return the compiled template.
+   */
+  public Template compile(String template) {
+    Preconditions.checkNotNull(template);
+    return templates.getUnchecked(template);
+  }
+
   /**
    * A convenience method for
    * {@link #interpolate(String,
@@ -88,20 +203,7 @@ public class StringInterpolator {
    */
   public String interpolate(String template,
                             VariableProvider provider) {
-    Matcher m = PATTERN.matcher(template);
-    String result = template;
-    while (m.find()) {
-      String var = m.group(); // This will be: ${myVar}
-      String varName = m.group(1); // This will be: myVar
-      String value = provider.provide(varName);
-      if (value == null) {
-        String msg = String.format(
-            "The variable [%s] does not have a corresponding value.", var);
-        throw new IllegalArgumentException(msg);
-      }
-      result = result.replaceFirst(REGEX, value);
-    }
-    return result;
+    return compile(template).render(provider);
   }
 
   /**
@@ -112,12 +214,7 @@ public class StringInterpolator {
    * @return the set of variables in the template.
    */
   public Set<String> getVariables(String template) {
-    Set<String> variables = Sets.newHashSet();
-    Matcher m = PATTERN.matcher(template);
-    while (m.find()) {
-      variables.add(m.group(1));
-    }
-    return ImmutableSet.copyOf(variables);
+    return compile(template).getVariables();
   }
 
   /**
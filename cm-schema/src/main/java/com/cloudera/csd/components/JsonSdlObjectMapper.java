@@ -15,6 +15,7 @@
 // limitations under the License.
 package com.cloudera.csd.components;
 
+import com.cloudera.common.GeneratedImplementationsModule;
 import com.cloudera.csd.components.JsonSdlParser.DependencyExtensionMixin;
 import com.cloudera.csd.components.JsonSdlParser.GeneratorMixin;
 import com.cloudera.csd.components.JsonSdlParser.ParameterMixin;
@@ -33,6 +34,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.module.mrbean.MrBeanModule;
 
@@ -46,6 +48,12 @@ public class JsonSdlObjectMapper {
 
   private final ObjectMapper mapper = createObjectMapper();
 
+  /**
+   * The mapper itself is never reconfigured after creation, so it can
+   * be shared by threads. This flag is applied per read instead.
+   */
+  private volatile boolean failOnUnknownProperties = false;
+
   /**
    * We construct a new jackson object mapper for the parser since we want to
    * add some configuration that we don't want to apply to our global object
@@ -54,10 +62,12 @@ public class JsonSdlObjectMapper {
    * 1. Does not fail if there is an unknown element in the json file, by default.
    * It simply ignores the element and continues reading. This can be reconfigured.
    *
-   * 2. We use Mr. Bean for bean materialization during deserialization. Mr Bean
-   * uses ASM to create classes at runtime that conform to your abstract class
-   * or interface. This allows us to define an immutable interface for the
-   * service descriptor and not have to write out all the concrete classes.
+   * 2. The descriptor interfaces are deserialized into the
+   * implementations generated at build time, see
+   * {@link GeneratedImplementationsModule}. Interfaces without one fall back
+   * to Mr. Bean, which uses ASM to create classes at runtime that conform to
+   * your abstract class or interface. Either way we only define the
+   * interfaces and don't have to write out all the concrete classes.
    *
    * 3. We add mixin classes to the object mapper to let jackson know of
    * property name remaps.
@@ -83,6 +93,7 @@ public class JsonSdlObjectMapper {
       }
     });
     m.registerModule(new MrBeanModule());
+    m.registerModule(new GeneratedImplementationsModule());
     m.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
             false);
     m.configure(Feature.ALLOW_COMMENTS, true);
@@ -90,17 +101,23 @@ public class JsonSdlObjectMapper {
   }
 
   public void setFailOnUnknownProperties(boolean fail) {
-    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
-                     fail);
+    this.failOnUnknownProperties = fail;
   }
 
   public <T> T readValue(byte[] src, Class<T> valueType)
       throws JsonParseException, JsonMappingException, IOException {
-    return mapper.readValue(src, valueType);
+    return configure(mapper.reader(valueType)).readValue(src);
   }
 
   public <T> T readValue(byte[] src, TypeReference<T> valueTypeRef)
       throws JsonParseException, JsonMappingException, IOException {
-    return mapper.readValue(src, valueTypeRef);
+    return configure(mapper.reader(valueTypeRef)).readValue(src);
+  }
+
+  private ObjectReader configure(ObjectReader reader) {
+    if (failOnUnknownProperties) {
+      return reader.with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+    return reader;
   }
 }
@@ -16,7 +16,7 @@
 package com.cloudera.csd.descriptors;
 
 import com.cloudera.csd.descriptors.parameters.Parameter;
-import com.cloudera.csd.validation.constraints.UniqueField;
+import com.cloudera.csd.validation.constraints.UniqueFields;
 
 import java.util.List;
 
@@ -47,10 +47,7 @@ public interface GatewayDescriptor {
   @Valid
   RunnerDescriptor getScriptRunner();
 
-  @UniqueField.List({
-    @UniqueField("name"),
-    @UniqueField("configName")
-  })
+  @UniqueFields({ "name", "configName" })
   @Valid
   List<Parameter<?>> getParameters();
 
@@ -20,6 +20,7 @@ import com.cloudera.csd.descriptors.parameters.Parameter;
 import com.cloudera.csd.validation.constraints.AutoConfigSharesValid;
 import com.cloudera.csd.validation.constraints.EntityTypeFormat;
 import com.cloudera.csd.validation.constraints.UniqueField;
+import com.cloudera.csd.validation.constraints.UniqueFields;
 import com.cloudera.csd.validation.constraints.UniqueRoleType;
 import com.cloudera.csd.validation.references.annotations.Named;
 import com.cloudera.csd.validation.references.annotations.ReferenceType;
@@ -80,10 +81,7 @@ public interface RoleDescriptor {
   TopologyDescriptor getTopology();
 
   @AutoConfigSharesValid
-  @UniqueField.List({
-    @UniqueField("name"),
-    @UniqueField("configName")
-  })
+  @UniqueFields({ "name", "configName" })
   @Valid
   List<Parameter<?>> getParameters();
 
@@ -22,6 +22,7 @@ import com.cloudera.csd.descriptors.dependencyExtension.DependencyExtension;
 import com.cloudera.csd.descriptors.parameters.Parameter;
 import com.cloudera.csd.validation.constraints.EntityTypeFormat;
 import com.cloudera.csd.validation.constraints.UniqueField;
+import com.cloudera.csd.validation.constraints.UniqueFields;
 import com.cloudera.csd.validation.constraints.UniqueServiceType;
 import com.cloudera.csd.validation.references.annotations.AvailableSubstitutions;
 import com.cloudera.csd.validation.references.annotations.Named;
@@ -96,10 +97,7 @@ public interface ServiceDescriptor {
   @Valid
   List<RoleDescriptor> getRoles();
 
-  @UniqueField.List({
-    @UniqueField("name"),
-    @UniqueField("configName")
-  })
+  @UniqueFields({ "name", "configName" })
   @Valid
   List<Parameter<?>> getParameters();
 
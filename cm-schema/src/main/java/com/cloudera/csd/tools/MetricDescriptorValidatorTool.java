@@ -17,6 +17,7 @@ package com.cloudera.csd.tools;
 
 import com.cloudera.common.Parser;
 import com.cloudera.config.DefaultValidatorConfiguration;
+import com.cloudera.config.ValidatorKit;
 import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
 import com.cloudera.csd.tools.MetricTools.MetricTool;
 import com.cloudera.validation.DescriptorRunner;
@@ -56,8 +57,17 @@ public class MetricDescriptorValidatorTool implements MetricTool {
       .isRequired(false)
       .create();
 
+  @SuppressWarnings({ "AccessStaticViaInstance", "static-access" })
+  private static final Option OPT_FAST_START = OptionBuilder
+      .withLongOpt("fast-start")
+      .withDescription("Wire the validator directly instead of starting an " +
+          "application context.")
+      .isRequired(false)
+      .create();
+
   public static void addToolOptions(Options options) {
     options.addOption(OPT_MDL);
+    options.addOption(OPT_FAST_START);
   }
 
   @Override
@@ -69,15 +79,25 @@ public class MetricDescriptorValidatorTool implements MetricTool {
 
     Writer writer = new OutputStreamWriter(out, "UTF-8");
     try {
-      ApplicationContext ctx = new AnnotationConfigApplicationContext(
-          DefaultValidatorConfiguration.class);
-      @SuppressWarnings("unchecked")
-      Parser<ServiceMonitoringDefinitionsDescriptor> parser =
-        ctx.getBean("mdlParser", Parser.class);
-      @SuppressWarnings("unchecked")
-      DescriptorValidator<ServiceMonitoringDefinitionsDescriptor> validator =
-        ctx.getBean("serviceMonitoringDefinitionsDescriptorValidator",
-                    DescriptorValidator.class);
+      Parser<ServiceMonitoringDefinitionsDescriptor> parser;
+      DescriptorValidator<ServiceMonitoringDefinitionsDescriptor> validator;
+      if (cmdLine.hasOption(OPT_FAST_START.getLongOpt())) {
+        ValidatorKit kit = new ValidatorKit();
+        parser = kit.getMdlParser();
+        validator = kit.getServiceMonitoringDefinitionsDescriptorValidator();
+      } else {
+        ApplicationContext ctx = new AnnotationConfigApplicationContext(
+            DefaultValidatorConfiguration.class);
+        @SuppressWarnings("unchecked")
+        Parser<ServiceMonitoringDefinitionsDescriptor> ctxParser =
+            ctx.getBean("mdlParser", Parser.class);
+        parser = ctxParser;
+        @SuppressWarnings("unchecked")
+        DescriptorValidator<ServiceMonitoringDefinitionsDescriptor> ctxValidator =
+            ctx.getBean("serviceMonitoringDefinitionsDescriptorValidator",
+                        DescriptorValidator.class);
+        validator = ctxValidator;
+      }
       ValidationRunner runner =
           new DescriptorRunner<ServiceMonitoringDefinitionsDescriptor>(
               parser, validator);
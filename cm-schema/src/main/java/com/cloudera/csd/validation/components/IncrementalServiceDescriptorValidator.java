@@ -0,0 +1,835 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.components;
+
+import com.cloudera.csd.StringInterpolator;
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.validation.constraints.ServiceDependencyValidationGroup;
+import com.cloudera.csd.validation.references.DescriptorPath;
+import com.cloudera.csd.validation.references.DescriptorPath.DescriptorNode;
+import com.cloudera.csd.validation.references.DescriptorPath.PropertyDescriptorNode;
+import com.cloudera.csd.validation.references.DescriptorVisitor;
+import com.cloudera.csd.validation.references.ReferenceConstraint;
+import com.cloudera.csd.validation.references.annotations.Named;
+import com.cloudera.csd.validation.references.annotations.ReferenceType;
+import com.cloudera.csd.validation.references.components.ClassMetadata;
+import com.cloudera.csd.validation.references.components.ClassMetadata.Getter;
+import com.cloudera.csd.validation.references.components.DescriptorWalk;
+import com.cloudera.csd.validation.references.components.ReferenceValidatorImpl.ConstraintViolationCollector;
+import com.cloudera.csd.validation.references.components.ReferenceValidatorImpl.ReferenceCollector;
+import com.cloudera.csd.validation.references.components.ReflectionHelper;
+import com.cloudera.csd.validation.references.constraints.ReferencedEntityConstraint;
+import com.cloudera.csd.validation.references.constraints.SubstitutionConstraint;
+import com.cloudera.validation.DescriptorValidator;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.validation.ConstraintViolation;
+import javax.validation.ElementKind;
+import javax.validation.Valid;
+import javax.validation.Validator;
+
+/**
+ * A validator for a service descriptor that is validated again after
+ * every edit, e.g. by an editor or a watch loop. It keeps the results
+ * of the previous version of the descriptor and only validates the
+ * parts of the new version that changed.
+ *
+ * The descriptor is split into units: the service, and every bean in
+ * a list, like the roles, the parameters and the commands. The units
+ * are matched with those of the previous version by name, or by
+ * position if they have none. A unit whose own properties changed is
+ * validated again with everything below it, and a list whose elements
+ * changed has its own constraints, like unique names, validated
+ * again. The references are checked again for the changed units and
+ * for the units in the scope of references that were added, removed
+ * or renamed.
+ *
+ * The results are the same as those of
+ * {@link ServiceDescriptorValidatorImpl}. Descriptors must not be
+ * modified once they are validated, so parse every version into a new
+ * descriptor. The validator keeps the results of the last version, so
+ * it is not thread safe. Use one per edited descriptor.
+ */
+public class IncrementalServiceDescriptorValidator
+    implements DescriptorValidator<ServiceDescriptor> {
+
+  private static final ClassValue<Boolean> DESCRIPTOR_BEANS = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return !Enum.class.isAssignableFrom(type) && isClouderaType(type);
+    }
+  };
+
+  private final Validator validator;
+  private final DescriptorVisitor visitor;
+  private final StringInterpolator interpolator;
+  private final boolean enforceDependencyCheck;
+
+  /** The units of the previous version, by key. */
+  private Map<String, UnitState> states = Maps.newHashMap();
+  /** The unit keys of the lists of the previous version, by list key. */
+  private Map<String, List<String>> lists = Maps.newHashMap();
+  /** The references when they were last checked, or null. */
+  @Nullable
+  private List<Reference> checkedReferences;
+  /** The units that changed since the references were last checked. */
+  private Set<String> uncheckedUnits = Sets.newHashSet();
+
+  private int validatedUnits;
+  private int checkedUnits;
+
+  public IncrementalServiceDescriptorValidator(Validator validator,
+                                               DescriptorVisitor visitor,
+                                               StringInterpolator interpolator,
+                                               boolean enforceDependencyCheck) {
+    this.validator = Preconditions.checkNotNull(validator);
+    this.visitor = Preconditions.checkNotNull(visitor);
+    this.interpolator = Preconditions.checkNotNull(interpolator);
+    this.enforceDependencyCheck = enforceDependencyCheck;
+  }
+
+  /**
+   * Validates the descriptor, reusing the results of the previous
+   * version for the parts that didn't change.
+   */
+  @Override
+  public Set<String> validate(ServiceDescriptor descriptor) {
+    Preconditions.checkNotNull(descriptor);
+    try {
+      return validateChanges(descriptor);
+    } catch (RuntimeException e) {
+      reset();
+      throw e;
+    }
+  }
+
+  /**
+   * Forgets the previous version, so that the next descriptor is
+   * validated completely.
+   */
+  public void reset() {
+    states = Maps.newHashMap();
+    lists = Maps.newHashMap();
+    checkedReferences = null;
+    uncheckedUnits = Sets.newHashSet();
+  }
+
+  /**
+   * @return the number of units whose bean constraints were validated
+   *     by the last call to {@link #validate(ServiceDescriptor)}.
+   */
+  public int getValidatedUnits() {
+    return validatedUnits;
+  }
+
+  /**
+   * @return the number of units whose references were checked by the
+   *     last call to {@link #validate(ServiceDescriptor)}.
+   */
+  public int getCheckedUnits() {
+    return checkedUnits;
+  }
+
+  private Set<String> validateChanges(ServiceDescriptor descriptor) {
+    DescriptorWalk walk = visitor.visit(descriptor, new DescriptorWalk());
+    Tree tree = new Tree(walk);
+
+    validatedUnits = 0;
+    for (Unit unit : tree.units) {
+      if (unit.changed && !unit.recomputed) {
+        validateUnit(unit, tree.walk);
+      }
+    }
+    for (UnitList list : tree.unitLists) {
+      if (list.changed && !list.owner.recomputed) {
+        validateList(list);
+      }
+    }
+
+    Map<String, UnitState> newStates = Maps.newHashMapWithExpectedSize(tree.units.size());
+    for (Unit unit : tree.units) {
+      newStates.put(unit.key, unit.state);
+      if (unit.changed) {
+        uncheckedUnits.add(unit.key);
+      }
+    }
+    Map<String, List<String>> newLists = Maps.newHashMapWithExpectedSize(tree.unitLists.size());
+    for (UnitList list : tree.unitLists) {
+      newLists.put(list.key, list.members);
+    }
+    states = newStates;
+    lists = newLists;
+
+    ImmutableSet.Builder<String> violations = ImmutableSet.builder();
+    boolean valid = true;
+    for (Unit unit : tree.units) {
+      for (Violation violation : unit.state.violations) {
+        violations.add(ServiceDescriptorValidatorImpl.formatViolation(
+            join(unit.prefix, violation.path), violation.message));
+        valid = false;
+      }
+    }
+
+    checkedUnits = 0;
+    if (valid) {
+      checkReferences(tree);
+      for (Unit unit : tree.units) {
+        violations.addAll(unit.state.referenceViolations);
+      }
+    }
+    for (Unit unit : tree.units) {
+      for (Violation violation : unit.state.dependencyViolations) {
+        violations.add(ServiceDescriptorValidatorImpl.formatDependencyViolation(
+            join(unit.prefix, violation.path), violation.message));
+      }
+    }
+    return violations.build();
+  }
+
+  /**
+   * Validates a unit and everything below it, and hands the violations
+   * out to the units they belong to.
+   */
+  private void validateUnit(Unit root, DescriptorWalk walk) {
+    Map<String, Unit> units = Maps.newHashMap();
+    Deque<Unit> pending = new ArrayDeque<Unit>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      Unit unit = pending.pop();
+      unit.recomputed = true;
+      unit.state = new UnitState(unit.content, unit.state);
+      units.put(unit.prefix, unit);
+      pending.addAll(unit.children);
+      validatedUnits++;
+    }
+
+    Object bean = walk.getObject(root.node);
+    for (ConstraintViolation<Object> violation : validator.validate(bean)) {
+      String path = join(root.prefix, violation.getPropertyPath().toString());
+      Unit unit = find(root, units, path);
+      unit.state.violations.add(unit.violation(path, violation.getMessage()));
+    }
+    if (enforceDependencyCheck) {
+      for (ConstraintViolation<Object> violation :
+          validator.validate(bean, ServiceDependencyValidationGroup.class)) {
+        String path = join(root.prefix, violation.getPropertyPath().toString());
+        Unit unit = find(root, units, path);
+        unit.state.dependencyViolations.add(unit.violation(path, violation.getMessage()));
+      }
+    }
+  }
+
+  /**
+   * Validates the constraints of a list whose owner didn't change. They
+   * replace the violations of the list in the owner.
+   */
+  private void validateList(UnitList list) {
+    UnitState state = list.owner.state;
+    state.violations = withoutList(state.violations, list.path);
+    for (ConstraintViolation<Object> violation :
+        validator.validateProperty(list.bean, list.property)) {
+      state.violations.add(new Violation(list.path,
+          join(list.beanPath, violation.getPropertyPath().toString()),
+          violation.getMessage()));
+    }
+    if (enforceDependencyCheck) {
+      state.dependencyViolations = withoutList(state.dependencyViolations, list.path);
+      for (ConstraintViolation<Object> violation : validator.validateProperty(
+          list.bean, list.property, ServiceDependencyValidationGroup.class)) {
+        state.dependencyViolations.add(new Violation(list.path,
+            join(list.beanPath, violation.getPropertyPath().toString()),
+            violation.getMessage()));
+      }
+    }
+  }
+
+  private static List<Violation> withoutList(List<Violation> violations, String listPath) {
+    List<Violation> ret = Lists.newArrayList();
+    for (Violation violation : violations) {
+      if (!listPath.equals(violation.list)) {
+        ret.add(violation);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Finds the deepest unit below the root that contains a violation.
+   *
+   * @param path the path of the violation, relative to the service.
+   */
+  private static Unit find(Unit root, Map<String, Unit> units, String path) {
+    Unit found = root;
+    for (int i = root.prefix.length(); i < path.length(); i++) {
+      if (path.charAt(i) == ']'
+          && (i + 1 == path.length() || path.charAt(i + 1) == '.')) {
+        Unit unit = units.get(path.substring(0, i + 1));
+        if (unit != null) {
+          found = unit;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Checks the references of the units that changed since the last
+   * check, and of the units in the scope of references that changed.
+   */
+  @SuppressWarnings("unchecked")
+  private void checkReferences(Tree tree) {
+    // The references are only collected from valid descriptors, like
+    // the full validator does, since they need the names of the beans.
+    ReferenceCollector collector = new ReferenceCollector();
+    tree.walk.replay(collector);
+    List<Reference> references = Lists.newArrayList();
+    for (Map.Entry<ReferenceType, DescriptorPath> entry : collector.getResult().entries()) {
+      references.add(new Reference(entry.getKey(), entry.getValue()));
+    }
+
+    // The scopes whose references changed. Additional references are
+    // looked up by bean name anywhere in the descriptor, so the units
+    // that include them are checked again after any change.
+    Set<String> changedScopes = null;
+    boolean changed = true;
+    if (checkedReferences != null) {
+      changedScopes = Sets.newHashSet();
+      Map<String, List<Reference>> before = byScope(checkedReferences);
+      Map<String, List<Reference>> after = byScope(references);
+      for (String scope : Sets.union(before.keySet(), after.keySet())) {
+        if (!after.containsKey(scope) || !after.get(scope).equals(before.get(scope))) {
+          changedScopes.add(scope);
+        }
+      }
+      changed = !references.equals(checkedReferences);
+    }
+
+    boolean[] check = new boolean[tree.units.size()];
+    for (Unit unit : tree.units) {
+      check[unit.index] = changedScopes == null
+          || unit.state.referenceViolations == null
+          || uncheckedUnits.contains(unit.key)
+          || (changed && unit.additionalReferences)
+          || inScope(unit, changedScopes);
+      if (check[unit.index]) {
+        unit.state.referenceViolations = Lists.newArrayList();
+        checkedUnits++;
+      }
+    }
+
+    ConstraintViolationCollector<ServiceDescriptor> listener =
+        new ConstraintViolationCollector<ServiceDescriptor>(
+            collector.getIndex(),
+            ImmutableList.<ReferenceConstraint<ServiceDescriptor>>of(
+                new ReferencedEntityConstraint<ServiceDescriptor>(),
+                new SubstitutionConstraint<ServiceDescriptor>(interpolator)));
+    replay(tree, check, listener);
+
+    checkedReferences = references;
+    uncheckedUnits = Sets.newHashSet();
+  }
+
+  private static Map<String, List<Reference>> byScope(List<Reference> references) {
+    Map<String, List<Reference>> ret = Maps.newHashMap();
+    for (Reference reference : references) {
+      List<Reference> scope = ret.get(reference.scope);
+      if (scope == null) {
+        scope = Lists.newArrayList();
+        ret.put(reference.scope, scope);
+      }
+      scope.add(reference);
+    }
+    return ret;
+  }
+
+  /**
+   * A node sees the references of its own bean and of the beans above
+   * it, so a unit is affected by the references of the scopes above it
+   * and below it.
+   */
+  private static boolean inScope(Unit unit, Set<String> changedScopes) {
+    for (String scope : changedScopes) {
+      if (isPrefix(scope, unit.beanPath) || isPrefix(unit.beanPath, scope)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isPrefix(String prefix, String path) {
+    return path.startsWith(prefix)
+        && (prefix.isEmpty()
+            || path.length() == prefix.length()
+            || path.charAt(prefix.length()) == '.');
+  }
+
+  /**
+   * Replays the nodes of the checked units into the listener. The
+   * ancestors of those nodes are only entered, to set up the references
+   * in their scope, and the other subtrees are skipped.
+   */
+  private static void replay(Tree tree,
+                             boolean[] check,
+                             ConstraintViolationCollector<ServiceDescriptor> listener) {
+    DescriptorWalk walk = tree.walk;
+    int size = walk.size();
+    boolean[] needed = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      if (check[tree.unitOf[i].index]) {
+        for (int j = walk.getParent(i); j >= 0 && !needed[j]; j = walk.getParent(j)) {
+          needed[j] = true;
+        }
+      }
+    }
+
+    Set<ConstraintViolation<ServiceDescriptor>> found = listener.getResult();
+    Deque<Integer> open = new ArrayDeque<Integer>();
+    int i = 0;
+    while (i < size) {
+      while (!open.isEmpty() && tree.end[open.peek()] <= i) {
+        int node = open.pop();
+        listener.afterNode(walk.getObject(node), walk.getPath(node));
+      }
+      Unit unit = tree.unitOf[i];
+      if (check[unit.index]) {
+        listener.beforeNode(walk.getObject(i), walk.getPath(i));
+        for (ConstraintViolation<ServiceDescriptor> violation : found) {
+          unit.state.referenceViolations.add(ServiceDescriptorValidatorImpl.formatViolation(
+              violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        found.clear();
+        open.push(i++);
+      } else if (needed[i]) {
+        listener.enterNode(walk.getObject(i), walk.getPath(i));
+        open.push(i++);
+      } else {
+        i = tree.end[i];
+      }
+    }
+    while (!open.isEmpty()) {
+      int node = open.pop();
+      listener.afterNode(walk.getObject(node), walk.getPath(node));
+    }
+  }
+
+  private static String join(String prefix, String path) {
+    if (prefix.isEmpty()) {
+      return path;
+    }
+    if (path.isEmpty()) {
+      return prefix;
+    }
+    return prefix + "." + path;
+  }
+
+  private static boolean isClouderaType(@Nullable Class<?> type) {
+    if (type == null) {
+      return false;
+    }
+    if (type.getName().startsWith("com.cloudera.")) {
+      return true;
+    }
+    for (Class<?> iface : type.getInterfaces()) {
+      if (isClouderaType(iface)) {
+        return true;
+      }
+    }
+    return isClouderaType(type.getSuperclass());
+  }
+
+  private static boolean isDescriptorBean(Object obj) {
+    return DESCRIPTOR_BEANS.get(obj.getClass());
+  }
+
+  /**
+   * Compares property values. Descriptor beans don't implement equals,
+   * so they are compared property by property.
+   */
+  private static boolean deepEquals(@Nullable Object a, @Nullable Object b) {
+    if (a == b) {
+      return true;
+    }
+    if (a == null || b == null) {
+      return false;
+    }
+    if (a instanceof List && b instanceof List) {
+      return elementsEqual((List<?>) a, (List<?>) b);
+    }
+    if (a instanceof Set && b instanceof Set) {
+      // Sets of descriptor beans keep the order they were parsed in.
+      return elementsEqual((Set<?>) a, (Set<?>) b);
+    }
+    if (a instanceof Map && b instanceof Map) {
+      Map<?, ?> am = (Map<?, ?>) a;
+      Map<?, ?> bm = (Map<?, ?>) b;
+      if (!am.keySet().equals(bm.keySet())) {
+        return false;
+      }
+      for (Map.Entry<?, ?> entry : am.entrySet()) {
+        if (!deepEquals(entry.getValue(), bm.get(entry.getKey()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (a.getClass().isArray() && b.getClass().isArray()) {
+      return Arrays.deepEquals(new Object[] { a }, new Object[] { b });
+    }
+    if (isDescriptorBean(a)) {
+      if (a.getClass() != b.getClass()) {
+        return false;
+      }
+      for (Getter getter : ReflectionHelper.classMetadata(a.getClass()).getGetters()) {
+        if (!deepEquals(getter.invoke(a), getter.invoke(b))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return a.equals(b);
+  }
+
+  private static boolean elementsEqual(Collection<?> a, Collection<?> b) {
+    if (a.size() != b.size()) {
+      return false;
+    }
+    Iterator<?> ai = a.iterator();
+    Iterator<?> bi = b.iterator();
+    while (ai.hasNext()) {
+      if (!deepEquals(ai.next(), bi.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The units and the lists of units of a walk, matched with those of
+   * the previous version.
+   */
+  private final class Tree {
+    private final DescriptorWalk walk;
+    /** The units in walk order, so a unit comes before its children. */
+    private final List<Unit> units = Lists.newArrayList();
+    private final List<UnitList> unitLists = Lists.newArrayList();
+    /** The unit of every node. */
+    private final Unit[] unitOf;
+    /** The end of the subtree of every node, exclusive. */
+    private final int[] end;
+
+    private Tree(DescriptorWalk walk) {
+      this.walk = walk;
+      int size = walk.size();
+      unitOf = new Unit[size];
+      end = new int[size];
+      // The path of every node relative to its unit, in the format of
+      // the bean validation paths.
+      String[] paths = new String[size];
+      UnitList[] listOf = new UnitList[size];
+      int[] elements = new int[size];
+
+      for (int i = 0; i < size; i++) {
+        end[i] = i + 1;
+        Object obj = walk.getObject(i);
+        DescriptorNode head = walk.getPath(i).getHeadNode();
+        int parent = walk.getParent(i);
+
+        if (parent < 0) {
+          unitOf[i] = addUnit(null, "", "", i, obj);
+          paths[i] = "";
+        } else if (head.getKind() == ElementKind.BEAN) {
+          int element = elements[parent]++;
+          UnitList list = listOf[parent];
+          if (list != null) {
+            Unit unit = addUnit(list, list.id(name(obj), element),
+                list.path + "[" + element + "]", i, obj);
+            unitOf[i] = unit;
+            paths[i] = "";
+          } else {
+            unitOf[i] = unitOf[parent];
+            paths[i] = paths[parent] + (walk.getPath(parent).getHeadNode().isInIterable() ? "[]" : "");
+            unitOf[i].content.add(isDescriptorBean(obj) ? obj.getClass() : obj);
+          }
+        } else {
+          Unit unit = unitOf[parent];
+          unitOf[i] = unit;
+          Method method = head.as(PropertyDescriptorNode.class).getMethod();
+          Getter getter = ReflectionHelper.classMetadata(obj.getClass()).getGetter(method);
+          String name = head.getName();
+          paths[i] = join(paths[parent], name);
+          unit.content.add(name);
+          boolean valid = (getter != null)
+              ? getter.isValid()
+              : ReflectionHelper.hasAnnotation(method, Valid.class);
+          Object value = (getter != null)
+              ? getter.invoke(obj)
+              : ReflectionHelper.invokeMethod(method, obj);
+          if (!valid) {
+            unit.content.add(value);
+          } else if (isUnitList(value, paths[i])) {
+            UnitList list = new UnitList(unit, obj, name, paths[parent], paths[i]);
+            listOf[i] = list;
+            unitLists.add(list);
+            unit.listPaths.add(list.path);
+          }
+        }
+      }
+
+      for (int i = size - 1; i > 0; i--) {
+        int parent = walk.getParent(i);
+        end[parent] = Math.max(end[parent], end[i]);
+      }
+
+      for (Unit unit : units) {
+        UnitState state = states.get(unit.key);
+        unit.changed = (state == null) || !elementsEqual(state.content, unit.content);
+        unit.state = (state == null) ? new UnitState(unit.content, null) : state;
+      }
+      for (UnitList list : unitLists) {
+        boolean changed = !list.members.equals(lists.get(list.key));
+        for (Unit member : list.units) {
+          changed |= member.changed;
+        }
+        list.changed = changed;
+      }
+    }
+
+    private Unit addUnit(@Nullable UnitList list, String id, String path, int node, Object obj) {
+      Unit parent = (list == null) ? null : list.owner;
+      String key = (list == null) ? id : list.key + "/" + id;
+      String prefix = (parent == null) ? path : join(parent.prefix, path);
+      Unit unit = new Unit(units.size(), key, prefix, node);
+      unit.content.add(obj.getClass());
+      unit.beanPath = walk.getPath(node).onlyInclude(ElementKind.BEAN).toString();
+      unit.additionalReferences =
+          ReflectionHelper.classMetadata(obj.getClass()).getIncludeAdditionalReferences() != null;
+      if (list != null) {
+        parent.children.add(unit);
+        list.units.add(unit);
+        list.members.add(key);
+      }
+      units.add(unit);
+      return unit;
+    }
+
+    @Nullable
+    private String name(Object obj) {
+      ClassMetadata metadata = ReflectionHelper.classMetadata(obj.getClass());
+      Named named = metadata.getNamed();
+      if (named == null) {
+        return null;
+      }
+      Object name = metadata.propertyValue(obj, named.value());
+      return (name == null) ? null : name.toString();
+    }
+
+    /**
+     * Only the descriptor beans of lists are units, since the elements
+     * of other collections have no index in the bean validation paths.
+     * Lists below such collections are not split into units either.
+     */
+    private boolean isUnitList(@Nullable Object value, String path) {
+      if (!(value instanceof List) || path.indexOf('[') >= 0) {
+        return false;
+      }
+      for (Object element : (List<?>) value) {
+        if (element == null || !isDescriptorBean(element)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * A bean that is validated on its own: the service or an element of
+   * a list. It owns the nodes below it up to the next units.
+   */
+  private static final class Unit {
+    private final int index;
+    private final String key;
+    /** The bean validation path of the unit, relative to the service. */
+    private final String prefix;
+    private final int node;
+    private final List<Unit> children = Lists.newArrayList();
+    /** The paths of the lists of units of this unit. */
+    private final List<String> listPaths = Lists.newArrayList();
+    /** The classes and property values of the nodes of the unit. */
+    private final List<Object> content = Lists.newArrayList();
+    private String beanPath;
+    private boolean additionalReferences;
+    private boolean changed;
+    private boolean recomputed;
+    private UnitState state;
+
+    private Unit(int index, String key, String prefix, int node) {
+      this.index = index;
+      this.key = key;
+      this.prefix = prefix;
+      this.node = node;
+    }
+
+    /**
+     * Converts a violation in this unit to a violation relative to the
+     * unit. Violations of the constraints of the lists of the unit are
+     * marked with the list, so that they can be replaced when only the
+     * list is validated again.
+     *
+     * @param path the path of the violation, relative to the service.
+     */
+    private Violation violation(String path, String message) {
+      String relative;
+      if (prefix.isEmpty()) {
+        relative = path;
+      } else if (path.length() == prefix.length()) {
+        relative = "";
+      } else {
+        relative = path.substring(prefix.length() + 1);
+      }
+      String list = null;
+      for (String listPath : listPaths) {
+        if (relative.startsWith(listPath)
+            && (relative.length() == listPath.length()
+                || relative.charAt(listPath.length()) == '['
+                || relative.charAt(listPath.length()) == '.')) {
+          list = listPath;
+          break;
+        }
+      }
+      return new Violation(list, relative, message);
+    }
+  }
+
+  /**
+   * A list of units. The owner is the unit of the bean with the list.
+   */
+  private static final class UnitList {
+    private final Unit owner;
+    private final Object bean;
+    private final String property;
+    /** The path of the bean with the list, relative to the owner. */
+    private final String beanPath;
+    /** The path of the list, relative to the owner. */
+    private final String path;
+    private final String key;
+    private final List<String> members = Lists.newArrayList();
+    private final List<Unit> units = Lists.newArrayList();
+    private final Map<String, Integer> ids = Maps.newHashMap();
+    private boolean changed;
+
+    private UnitList(Unit owner, Object bean, String property, String beanPath, String path) {
+      this.owner = owner;
+      this.bean = bean;
+      this.property = property;
+      this.beanPath = beanPath;
+      this.path = path;
+      this.key = owner.key + "/" + path;
+    }
+
+    /**
+     * @return the id of an element in the list, unique even if the
+     *     names are not.
+     */
+    private String id(@Nullable String name, int element) {
+      String id = (name == null) ? "#" + element : name;
+      Integer count = ids.get(id);
+      ids.put(id, (count == null) ? 1 : count + 1);
+      return (count == null) ? id : id + "~" + count;
+    }
+  }
+
+  /**
+   * The results of a unit, kept for the next version.
+   */
+  private static final class UnitState {
+    private final List<Object> content;
+    private List<Violation> violations = Lists.newArrayList();
+    private List<Violation> dependencyViolations = Lists.newArrayList();
+    /** The reference violations, or null if they were never checked. */
+    @Nullable
+    private List<String> referenceViolations;
+
+    private UnitState(List<Object> content, @Nullable UnitState previous) {
+      this.content = content;
+      if (previous != null) {
+        this.referenceViolations = previous.referenceViolations;
+      }
+    }
+  }
+
+  /**
+   * A bean validation violation, with its path relative to its unit.
+   */
+  private static final class Violation {
+    /** The path of the list whose constraint this is, or null. */
+    @Nullable
+    private final String list;
+    private final String path;
+    private final String message;
+
+    private Violation(@Nullable String list, String path, String message) {
+      this.list = list;
+      this.path = path;
+      this.message = message;
+    }
+  }
+
+  /**
+   * A reference found in the descriptor, with the bean-only path of
+   * the bean that owns it.
+   */
+  private static final class Reference {
+    private final ReferenceType type;
+    private final String path;
+    private final String scope;
+
+    private Reference(ReferenceType type, DescriptorPath path) {
+      this.type = type;
+      this.path = path.toString();
+      this.scope = path.removeFromHead().toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Reference)) {
+        return false;
+      }
+      Reference other = (Reference) o;
+      return type == other.type && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * type.hashCode() + path.hashCode();
+    }
+  }
+}
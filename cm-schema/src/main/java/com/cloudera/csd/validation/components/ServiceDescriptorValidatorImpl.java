@@ -20,13 +20,17 @@ import com.cloudera.csd.validation.constraints.ServiceDependencyValidationGroup;
 import com.cloudera.csd.validation.references.ReferenceValidator;
 import com.cloudera.validation.DescriptorValidator;
 import com.cloudera.validation.DescriptorValidatorImpl;
+import com.cloudera.validation.ValidationMetrics;
+import com.cloudera.validation.ValidationMetrics.Phase;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 
+import java.util.List;
 import java.util.Set;
 
+import javax.annotation.Nullable;
 import javax.validation.ConstraintViolation;
+import javax.validation.Path;
 import javax.validation.Validator;
 
 /**
@@ -37,43 +41,34 @@ public class ServiceDescriptorValidatorImpl extends
     DescriptorValidatorImpl<ServiceDescriptor> implements
     DescriptorValidator<ServiceDescriptor> {
 
-  private final Validator validator;
   private final ReferenceValidator refValidator;
-  private final boolean enforceDependencyCheck;
-  private Set<String> dependencyViolationStringSet;
+  @Nullable
+  private final SparseGroupValidator dependencyValidator;
 
   public ServiceDescriptorValidatorImpl(
       Validator validator,
       ReferenceValidator refValidator,
       boolean enforceDependencyCheck) {
-    super(validator, "service");
-    this.validator = validator;
+    this(validator, refValidator, enforceDependencyCheck, ValidationMetrics.DISABLED);
+  }
+
+  public ServiceDescriptorValidatorImpl(
+      Validator validator,
+      ReferenceValidator refValidator,
+      boolean enforceDependencyCheck,
+      ValidationMetrics metrics) {
+    super(validator, "service", metrics);
     this.refValidator = refValidator;
-    this.enforceDependencyCheck = enforceDependencyCheck;
-    this.dependencyViolationStringSet = Sets.newHashSet();
+    this.dependencyValidator = enforceDependencyCheck
+        ? new SparseGroupValidator(validator, ServiceDependencyValidationGroup.class)
+        : null;
   }
 
   @VisibleForTesting
   public Set<ConstraintViolation<ServiceDescriptor>> getViolations(
       ServiceDescriptor descriptor) {
     Set<ConstraintViolation<ServiceDescriptor>> violations =
-        validator.validate(descriptor);
-    if (enforceDependencyCheck) {
-      Set<ConstraintViolation<ServiceDescriptor>> dependencyViolations =
-          validator.validate(
-              descriptor,
-              ServiceDependencyValidationGroup.class);
-      for (ConstraintViolation<ServiceDescriptor> violation : dependencyViolations) {
-        String message = violation.getMessage();
-        String[] propertyPathSections =
-            violation.getPropertyPath().toString().split("\\.");
-        dependencyViolationStringSet.add(
-            String.format("%s %s",
-                propertyPathSections[propertyPathSections.length - 1],
-                message));
-      }
-    }
-
+        validateConstraints(descriptor);
     if (!violations.isEmpty()) {
       return violations;
     }
@@ -82,17 +77,53 @@ public class ServiceDescriptorValidatorImpl extends
 
   @Override
   public Set<String> validate(ServiceDescriptor descriptor) {
-    Set<ConstraintViolation<ServiceDescriptor>> constraintViolations;
-    constraintViolations = getViolations(descriptor);
-
     ImmutableSet.Builder<String> violations = ImmutableSet.builder();
-    for (ConstraintViolation<ServiceDescriptor> violation : constraintViolations) {
-      String message = violation.getMessage();
-      String relativePath = violation.getPropertyPath().toString();
-      violations.add(String.format("%s.%s %s", "service", relativePath, message));
+    for (ConstraintViolation<ServiceDescriptor> violation : getViolations(descriptor)) {
+      violations.add(formatViolation(
+          violation.getPropertyPath().toString(),
+          violation.getMessage()));
+    }
+    if (dependencyValidator != null) {
+      long start = System.nanoTime();
+      List<ConstraintViolation<Object>> dependencyViolations =
+          dependencyValidator.validate(descriptor);
+      getMetrics().recordTime(Phase.BEAN_VALIDATION, System.nanoTime() - start);
+      for (ConstraintViolation<Object> violation : dependencyViolations) {
+        violations.add(formatDependencyViolation(
+            violation.getPropertyPath(),
+            violation.getMessage()));
+      }
     }
-    violations.addAll(dependencyViolationStringSet);
-    dependencyViolationStringSet.clear();
     return violations.build();
   }
+
+  /**
+   * @param path the path of a violation, relative to the service.
+   * @param message the message of the violation.
+   * @return the violation as reported by {@link #validate(ServiceDescriptor)}.
+   */
+  static String formatViolation(String path, String message) {
+    return "service." + path + " " + message;
+  }
+
+  /**
+   * Dependency violations only report the last section of their path.
+   */
+  static String formatDependencyViolation(String path, String message) {
+    return path.substring(path.lastIndexOf('.') + 1) + " " + message;
+  }
+
+  /**
+   * Dependency violations only report the name of the last node of
+   * their path, which is the name of the unknown service type.
+   */
+  static String formatDependencyViolation(Path path, String message) {
+    String name = null;
+    for (Path.Node node : path) {
+      if (node.getName() != null) {
+        name = node.getName();
+      }
+    }
+    return name + " " + message;
+  }
 }
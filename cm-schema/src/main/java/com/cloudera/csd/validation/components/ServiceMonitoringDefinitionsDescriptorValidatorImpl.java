@@ -22,30 +22,28 @@ import com.cloudera.csd.descriptors.RoleMonitoringDefinitionsDescriptor;
 import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
 import com.cloudera.csd.validation.monitoring.AbstractMonitoringValidator;
 import com.cloudera.csd.validation.monitoring.MonitoringValidationContext;
-import com.cloudera.csd.validation.monitoring.constraints.AdditionalAttributesReferToExistingAttributesValidator;
-import com.cloudera.csd.validation.monitoring.constraints.AttributeNamePrefixedWithServiceNameValidator;
-import com.cloudera.csd.validation.monitoring.constraints.AttributesReferToExistingAttributesValidator;
-import com.cloudera.csd.validation.monitoring.constraints.ConsistentMetricDefinitionValidator;
-import com.cloudera.csd.validation.monitoring.constraints.CounterMetricNameValidator;
-import com.cloudera.csd.validation.monitoring.constraints.DenominatorValidator;
-import com.cloudera.csd.validation.monitoring.constraints.EntityNamePrefixedWithServiceNameValidator;
-import com.cloudera.csd.validation.monitoring.constraints.EntityParentsReferToExistingEntitiesValidator;
-import com.cloudera.csd.validation.monitoring.constraints.MetricNamePrefixedWithServiceNameValidator;
-import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesIsUniqueValidator;
-import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesPrefixedWithServiceNameValidator;
-import com.cloudera.csd.validation.monitoring.constraints.ParentsAreReachableUsingAttributesValidator;
-import com.cloudera.csd.validation.monitoring.constraints.WeightingMetricValidator;
+import com.cloudera.csd.validation.monitoring.MonitoringValidatorPipeline;
 import com.cloudera.csd.validation.references.ReferenceValidator;
 import com.cloudera.csd.validation.references.components.DescriptorPathImpl;
 import com.cloudera.validation.DescriptorValidator;
 import com.cloudera.validation.DescriptorValidatorImpl;
+import com.cloudera.validation.ValidationMetrics;
+import com.cloudera.validation.ValidationMetrics.Phase;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
+import java.io.Closeable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.Nullable;
 import javax.validation.ConstraintViolation;
@@ -53,22 +51,33 @@ import javax.validation.Validator;
 
 /**
  * A class that implements the DescriptorValidator interface
- * for ServiceMonitoringDefinitionsDescriptor objects.
+ * for ServiceMonitoringDefinitionsDescriptor objects. The monitoring
+ * validators are run by a {@link MonitoringValidatorPipeline} that is
+ * created once with the validator.
  */
 public class ServiceMonitoringDefinitionsDescriptorValidatorImpl
   extends DescriptorValidatorImpl<ServiceMonitoringDefinitionsDescriptor>
-  implements DescriptorValidator<ServiceMonitoringDefinitionsDescriptor> {
+  implements DescriptorValidator<ServiceMonitoringDefinitionsDescriptor>, Closeable {
 
   private static final String NAME_FOR_CROSS_ENTITY_AGGREGATE_METRICS =
       "nameForCrossEntityAggregateMetrics";
 
   private static final Boolean SERVICE_NODE = true;
-  private final Validator validator;
+
+  /** The number of metric definitions validated by one task. */
+  private static final int METRICS_PER_TASK = 1000;
+
+  /**
+   * MDLs with fewer metric definitions are validated on the calling
+   * thread, since splitting them costs more than it saves.
+   */
+  private static final int PARALLEL_THRESHOLD = 4000;
+
   private final ReferenceValidator refValidator;
-  private final ImmutableSet<String> builtInNamesForCrossEntityAggregateMetrics;
-  private final ImmutableSet<String> builtInEntityTypes;
-  private final ImmutableSet<String> builtInAttributes;
-  private final ImmutableSet<String> builtInRoleTypes;
+  private final MonitoringValidatorPipeline pipeline;
+  @Nullable
+  private volatile ForkJoinPool pool;
+  private volatile int parallelThreshold = PARALLEL_THRESHOLD;
 
   public ServiceMonitoringDefinitionsDescriptorValidatorImpl(
       Validator validator,
@@ -77,25 +86,46 @@ public class ServiceMonitoringDefinitionsDescriptorValidatorImpl
       Set<String> builtInNamesForCrossEntityAggregateMetrics,
       Set<String> builtInEntityTypes,
       Set<String> builtInAttributes) {
-    super(validator, "service");
-    Preconditions.checkNotNull(builtInRoleTypes);
-    Preconditions.checkNotNull(builtInNamesForCrossEntityAggregateMetrics);
-    Preconditions.checkNotNull(builtInEntityTypes);
-    Preconditions.checkNotNull(builtInAttributes);
-    this.validator = validator;
+    this(validator,
+         refValidator,
+         new MonitoringValidatorPipeline(
+             builtInRoleTypes,
+             builtInNamesForCrossEntityAggregateMetrics,
+             builtInEntityTypes,
+             builtInAttributes));
+  }
+
+  public ServiceMonitoringDefinitionsDescriptorValidatorImpl(
+      Validator validator,
+      ReferenceValidator refValidator,
+      MonitoringValidatorPipeline pipeline) {
+    this(validator, refValidator, pipeline, ValidationMetrics.DISABLED);
+  }
+
+  public ServiceMonitoringDefinitionsDescriptorValidatorImpl(
+      Validator validator,
+      ReferenceValidator refValidator,
+      MonitoringValidatorPipeline pipeline,
+      ValidationMetrics metrics) {
+    super(validator, "service", metrics);
+    Preconditions.checkNotNull(pipeline);
     this.refValidator = refValidator;
-    this.builtInRoleTypes = ImmutableSet.copyOf(builtInRoleTypes);
-    this.builtInNamesForCrossEntityAggregateMetrics =
-        ImmutableSet.copyOf(builtInNamesForCrossEntityAggregateMetrics);
-    this.builtInAttributes = ImmutableSet.copyOf(builtInAttributes);
-    this.builtInEntityTypes = ImmutableSet.copyOf(builtInEntityTypes);
+    this.pipeline = pipeline;
+  }
+
+  /**
+   * @return the pipeline of monitoring validators, to enable, disable
+   *     or time them.
+   */
+  public MonitoringValidatorPipeline getPipeline() {
+    return pipeline;
   }
 
   @Override
   public Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
       getViolations(ServiceMonitoringDefinitionsDescriptor descriptor) {
     Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> violations =
-        validator.validate(descriptor);
+        validateConstraints(descriptor);
     if (!violations.isEmpty()) {
       return violations;
     }
@@ -103,7 +133,60 @@ public class ServiceMonitoringDefinitionsDescriptorValidatorImpl
     if (!violations.isEmpty()) {
       return violations;
     }
-    return validateDescriptor(descriptor);
+    long start = System.nanoTime();
+    try {
+      return validateDescriptor(descriptor);
+    } finally {
+      getMetrics().recordTime(Phase.MONITORING, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Validates the roles, the entity types and chunks of the metric
+   * definitions of large MDLs on a fork-join pool of the given size. The
+   * violations are merged in the same order as a sequential validation.
+   * Pass 1 to validate sequentially, which is the default. The current
+   * pool is kept if it already has the given size.
+   * <p>
+   * The validator is shared, so a validation that is already running
+   * may still be using a replaced pool. That pool is therefore not shut
+   * down; its threads are daemon threads and exit once idle. Only the
+   * current pool is shut down, by {@link #close()}.
+   *
+   * @param parallelism the number of threads.
+   */
+  public synchronized void setParallelism(int parallelism) {
+    Preconditions.checkArgument(parallelism > 0);
+    if (parallelism == getParallelism()) {
+      return;
+    }
+    pool = (parallelism > 1) ? new ForkJoinPool(parallelism) : null;
+  }
+
+  /**
+   * Shuts the pool down. Later validations run sequentially, and
+   * validations that are running finish on their calling threads.
+   */
+  @Override
+  public synchronized void close() {
+    ForkJoinPool current = pool;
+    pool = null;
+    if (current != null) {
+      current.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  void setParallelThreshold(int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * @return the number of threads used to validate an MDL.
+   */
+  public int getParallelism() {
+    ForkJoinPool current = pool;
+    return (current == null) ? 1 : current.getParallelism();
   }
 
   /**
@@ -116,246 +199,212 @@ public class ServiceMonitoringDefinitionsDescriptorValidatorImpl
     Preconditions.checkNotNull(descriptor);
     MonitoringValidationContext context =
         new MonitoringValidationContext(descriptor);
+    List<Task> tasks = Lists.newArrayList();
+    addTasks(context, descriptor, tasks);
+
     Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret =
         Sets.newLinkedHashSet();
-    DescriptorPathImpl root = new DescriptorPathImpl();
-    root = root.addBeanNode(descriptor);
-    ret.addAll(validateMetrics(
+    ForkJoinPool current = pool;
+    List<Future<List<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>>> results =
+        null;
+    if (current != null && context.metricsDefined.size() >= parallelThreshold) {
+      try {
+        results = current.invokeAll(tasks);
+      } catch (RejectedExecutionException e) {
+        // The validator was closed meanwhile; validate on this thread instead.
+        results = null;
+      }
+    }
+    if (results == null) {
+      for (Task task : tasks) {
+        task.run(ret);
+      }
+    } else {
+      for (Future<List<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>> result :
+          results) {
+        ret.addAll(getResult(result));
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Splits the validation into tasks, in the order of a sequential
+   * validation. Each task builds its paths from an immutable parent path,
+   * so tasks don't share any mutable state.
+   */
+  private void addTasks(
+      final MonitoringValidationContext context,
+      final ServiceMonitoringDefinitionsDescriptor descriptor,
+      List<Task> tasks) {
+    final DescriptorPathImpl root = new DescriptorPathImpl().addBeanNode(descriptor);
+    addMetricTasks(context, descriptor.getMetricDefinitions(), root, tasks);
+    addNameTask(
         context,
-        descriptor.getMetricDefinitions(),
-        root));
-    root = AbstractMonitoringValidator.getPathFromProperty(
         descriptor,
-        NAME_FOR_CROSS_ENTITY_AGGREGATE_METRICS,
-        root);
-    ret.addAll(validateNameForCrossEntityAggregates(
-        context,
         descriptor.getNameForCrossEntityAggregateMetrics(),
         root,
-        SERVICE_NODE));
-    root = root.removeFromHead();
+        SERVICE_NODE,
+        tasks);
     if (null != descriptor.getRoles()) {
-      for (RoleMonitoringDefinitionsDescriptor role : descriptor.getRoles()) {
-        root = root.addBeanNode(role);
-        ret.addAll(validateRole(
-            context,
-            role,
-            descriptor,
-            root));
-        ret.addAll(validateMetrics(
+      for (final RoleMonitoringDefinitionsDescriptor role : descriptor.getRoles()) {
+        final DescriptorPathImpl path = root.addBeanNode(role);
+        tasks.add(new Task() {
+          @Override
+          void run(Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret) {
+            pipeline.validateRole(context, role, path, ret);
+          }
+        });
+        addMetricTasks(context, role.getMetricDefinitions(), path, tasks);
+        addNameTask(
             context,
-            role.getMetricDefinitions(),
-            root));
-        root = AbstractMonitoringValidator.getPathFromProperty(
             role,
-            NAME_FOR_CROSS_ENTITY_AGGREGATE_METRICS,
-            root);
-        ret.addAll(validateNameForCrossEntityAggregates(
-            context,
             role.getNameForCrossEntityAggregateMetrics(),
-            root,
-            !SERVICE_NODE));
-        root = root.removeFromHead();
-        root = root.removeFromHead();
+            path,
+            !SERVICE_NODE,
+            tasks);
       }
     }
     if (null != descriptor.getMetricEntityTypeDefinitions()) {
-      for (MetricEntityTypeDescriptor entity :
+      for (final MetricEntityTypeDescriptor entity :
           descriptor.getMetricEntityTypeDefinitions()) {
-        root = root.addBeanNode(entity);
-        ret.addAll(validateEntity(
-            context,
-            entity,
-            descriptor,
-            root));
-        ret.addAll(validateMetrics(
+        final DescriptorPathImpl path = root.addBeanNode(entity);
+        // The built in CMSERVER entity violates a number of our rules: it has
+        // no name format and no immutable attributes for one. We skip
+        // validating it.
+        if (!entity.getName().equals("CMSERVER")) {
+          tasks.add(new Task() {
+            @Override
+            void run(Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret) {
+              pipeline.validateEntity(context, entity, path, ret);
+            }
+          });
+        }
+        addMetricTasks(context, entity.getMetricDefinitions(), path, tasks);
+        addNameTask(
             context,
-            entity.getMetricDefinitions(),
-            root));
-        root = AbstractMonitoringValidator.getPathFromProperty(
             entity,
-            NAME_FOR_CROSS_ENTITY_AGGREGATE_METRICS,
-            root);
-        ret.addAll(validateNameForCrossEntityAggregates(
-            context,
             entity.getNameForCrossEntityAggregateMetrics(),
-            root,
-            !SERVICE_NODE));
-        root = root.removeFromHead();
-        root = root.removeFromHead();
+            path,
+            !SERVICE_NODE,
+            tasks);
       }
     }
-    if (null != descriptor.getMetricEntityAttributeDefinitions()) {
-      for (MetricEntityAttributeDescriptor attribute :
-           descriptor.getMetricEntityAttributeDefinitions()) {
-        root = root.addBeanNode(attribute);
-        ret.addAll(validateAttribute(
+    tasks.add(new Task() {
+      @Override
+      void run(Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret) {
+        if (null != descriptor.getMetricEntityAttributeDefinitions()) {
+          for (MetricEntityAttributeDescriptor attribute :
+               descriptor.getMetricEntityAttributeDefinitions()) {
+            pipeline.validateAttribute(context, attribute, root.addBeanNode(attribute), ret);
+          }
+        }
+        pipeline.validateNamesForCrossEntityAggregates(
             context,
-            attribute,
             descriptor,
-            root));
-        root = root.removeFromHead();
+            root,
+            ret);
       }
-    }
-
-    ret.addAll(validateNamesForCrossEntityAggregates(
-        context,
-        descriptor,
-        root));
-
-    return ret;
+    });
   }
 
-  private Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
-    validateRole(MonitoringValidationContext context,
-                 RoleMonitoringDefinitionsDescriptor role,
-                 ServiceMonitoringDefinitionsDescriptor descriptor,
-                 DescriptorPathImpl path) {
-  Preconditions.checkNotNull(context);
-  Preconditions.checkNotNull(role);
-  Preconditions.checkNotNull(descriptor);
-  Preconditions.checkNotNull(path);
-  Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret =
-      Sets.newLinkedHashSet();
-  for (AbstractMonitoringValidator<RoleMonitoringDefinitionsDescriptor> validator :
-       ImmutableList.of(
-          new AdditionalAttributesReferToExistingAttributesValidator(
-              builtInAttributes))) {
-      ret.addAll(validator.<ServiceMonitoringDefinitionsDescriptor>validate(
-        context,
-        role,
-        path));
-    }
-    return ret;
-  }
-
-  private Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
-    validateAttribute(MonitoringValidationContext context,
-                      MetricEntityAttributeDescriptor attribute,
-                      ServiceMonitoringDefinitionsDescriptor descriptor,
-                      DescriptorPathImpl path) {
-    Preconditions.checkNotNull(context);
-    Preconditions.checkNotNull(attribute);
-    Preconditions.checkNotNull(descriptor);
-    Preconditions.checkNotNull(path);
-    Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret =
-        Sets.newLinkedHashSet();
-    for (AbstractMonitoringValidator<MetricEntityAttributeDescriptor> validator :
-         ImmutableList.of(
-            new AttributeNamePrefixedWithServiceNameValidator(
-                builtInAttributes))) {
-      ret.addAll(validator.<ServiceMonitoringDefinitionsDescriptor>validate(
-          context,
-          attribute,
-          path));
-    }
-    return ret;
+  private void addNameTask(
+      final MonitoringValidationContext context,
+      final Object node,
+      @Nullable final String nameForCrossEntityAggregateMetrics,
+      final DescriptorPathImpl path,
+      final boolean serviceNode,
+      List<Task> tasks) {
+    tasks.add(new Task() {
+      @Override
+      void run(Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret) {
+        validateNameForCrossEntityAggregates(
+            context, node, nameForCrossEntityAggregateMetrics, path, serviceNode, ret);
+      }
+    });
   }
 
-  private Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
-    validateEntity(MonitoringValidationContext context,
-                   MetricEntityTypeDescriptor entity,
-                   ServiceMonitoringDefinitionsDescriptor descriptor,
-                   DescriptorPathImpl path) {
-    Preconditions.checkNotNull(context);
-    Preconditions.checkNotNull(entity);
-    Preconditions.checkNotNull(descriptor);
-    Preconditions.checkNotNull(path);
-    Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret =
-        Sets.newLinkedHashSet();
-    // The built in CMSERVER entity violates a number of our rules: it has no
-    // name format and no immutable attributes for one. We skip validating it.
-    if (entity.getName().equals("CMSERVER")) {
-      return ret;
+  private void addMetricTasks(
+      final MonitoringValidationContext context,
+      @Nullable List<MetricDescriptor> metricDefinitions,
+      final DescriptorPathImpl path,
+      List<Task> tasks) {
+    if (null == metricDefinitions) {
+      return;
     }
-    for (AbstractMonitoringValidator<MetricEntityTypeDescriptor> validator :
-         ImmutableList.of(
-            new EntityNamePrefixedWithServiceNameValidator(builtInEntityTypes),
-            new EntityParentsReferToExistingEntitiesValidator(
-                builtInRoleTypes,
-                builtInEntityTypes),
-            new ParentsAreReachableUsingAttributesValidator(),
-            new AttributesReferToExistingAttributesValidator(
-                builtInAttributes))) {
-      ret.addAll(validator.<ServiceMonitoringDefinitionsDescriptor>validate(
-          context,
-          entity,
-          path));
+    for (final List<MetricDescriptor> chunk :
+        Lists.partition(metricDefinitions, METRICS_PER_TASK)) {
+      tasks.add(new Task() {
+        @Override
+        void run(Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret) {
+          validateMetrics(context, chunk, path, ret);
+        }
+      });
     }
-    return ret;
   }
 
-  private List<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
-    validateNamesForCrossEntityAggregates(
-        MonitoringValidationContext context,
-        ServiceMonitoringDefinitionsDescriptor descriptor,
-        DescriptorPathImpl root) {
-    Preconditions.checkNotNull(context);
-    Preconditions.checkNotNull(descriptor);
-    Preconditions.checkNotNull(root);
-    NameForCrossEntityAggregatesIsUniqueValidator validator =
-        new NameForCrossEntityAggregatesIsUniqueValidator();
-    return validator.validate(context, descriptor, root);
+  private static <T> T getResult(Future<T> result) {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
   }
 
-  private Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
-    validateNameForCrossEntityAggregates(
+  /**
+   * The path of the property is only built if there is a name, since
+   * a missing name is always valid.
+   */
+  private void validateNameForCrossEntityAggregates(
       MonitoringValidationContext context,
+      Object node,
       @Nullable String nameForCrossEntityAggregateMetrics,
       DescriptorPathImpl path,
-      boolean serviceNode) {
-    Preconditions.checkNotNull(context);
-    NameForCrossEntityAggregatesPrefixedWithServiceNameValidator validator =
-        new NameForCrossEntityAggregatesPrefixedWithServiceNameValidator(
-            builtInNamesForCrossEntityAggregateMetrics,
-            serviceNode);
-    Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret =
-        Sets.newLinkedHashSet();
-    ret.addAll(validator.<ServiceMonitoringDefinitionsDescriptor>validate(
-        context, nameForCrossEntityAggregateMetrics, path));
-    return ret;
+      boolean serviceNode,
+      Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret) {
+    if (null != nameForCrossEntityAggregateMetrics) {
+      path = AbstractMonitoringValidator.getPathFromProperty(
+          node,
+          NAME_FOR_CROSS_ENTITY_AGGREGATE_METRICS,
+          path);
+    }
+    pipeline.validateNameForCrossEntityAggregates(
+        context, nameForCrossEntityAggregateMetrics, path, serviceNode, ret);
   }
 
-  private Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
-    validateMetrics(
+  private void validateMetrics(
       MonitoringValidationContext context,
       @Nullable List<MetricDescriptor> metricDefinitions,
-      DescriptorPathImpl path) {
+      DescriptorPathImpl path,
+      Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret) {
     Preconditions.checkNotNull(context);
     Preconditions.checkNotNull(path);
     if (null == metricDefinitions) {
-      return ImmutableSet.of();
+      return;
     }
-
-    Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret =
-        Sets.newLinkedHashSet();
     for (MetricDescriptor metric : metricDefinitions) {
-      ret.addAll(validateMetric(context, metric, path));
+      pipeline.validateMetric(context, metric, path.addBeanNode(metric), ret);
     }
-    return ret;
   }
 
-  private Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>
-    validateMetric(
-      MonitoringValidationContext context,
-      MetricDescriptor metric,
-      DescriptorPathImpl path) {
-    Preconditions.checkNotNull(context);
-    Preconditions.checkNotNull(metric);
-    Preconditions.checkNotNull(path);
-    Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret =
-        Sets.newLinkedHashSet();
-    path = path.addBeanNode(metric);
-    for (AbstractMonitoringValidator<MetricDescriptor> validator :
-         ImmutableList.of(
-             new MetricNamePrefixedWithServiceNameValidator(),
-             new CounterMetricNameValidator(),
-             new DenominatorValidator(),
-             new WeightingMetricValidator(),
-             new ConsistentMetricDefinitionValidator())) {
-      ret.addAll(validator.<ServiceMonitoringDefinitionsDescriptor>validate(
-          context, metric, path));
+  /**
+   * A part of the validation of an MDL. It adds its violations to the
+   * given collection when run on the calling thread, and returns them
+   * when run on the pool.
+   */
+  private abstract static class Task
+      implements Callable<List<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>>> {
+
+    abstract void run(Collection<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret);
+
+    @Override
+    public List<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> call() {
+      List<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> ret = Lists.newArrayList();
+      run(ret);
+      return ret;
     }
-    return ret;
   }
-}
\ No newline at end of file
+}
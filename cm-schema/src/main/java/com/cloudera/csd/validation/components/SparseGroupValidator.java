@@ -0,0 +1,129 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.components;
+
+import com.cloudera.csd.validation.references.components.ClassMetadata;
+import com.cloudera.csd.validation.references.components.ClassMetadata.Getter;
+import com.cloudera.csd.validation.references.components.ReflectionHelper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+
+/**
+ * Validates a group whose constraints are on a few classes only, like
+ * the service dependency checks. Validating such a group with the
+ * {@link Validator} cascades through the whole descriptor again. This
+ * follows the {@link javax.validation.Valid} getters itself and only
+ * validates the beans whose class has constraints in the group, in the
+ * order of the descriptor. The violations are the same, but their
+ * paths are relative to the bean that has the constraint.
+ */
+class SparseGroupValidator {
+
+  private final Validator validator;
+  private final Class<?> group;
+  private final ClassValue<Boolean> constrained = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return hasGroupConstraints(type);
+    }
+  };
+
+  SparseGroupValidator(Validator validator, Class<?> group) {
+    Preconditions.checkNotNull(validator);
+    Preconditions.checkNotNull(group);
+    this.validator = validator;
+    this.group = group;
+  }
+
+  /**
+   * @param root the bean to validate, with everything it cascades to.
+   * @return the violations of the group.
+   */
+  List<ConstraintViolation<Object>> validate(Object root) {
+    Preconditions.checkNotNull(root);
+    List<ConstraintViolation<Object>> violations = ImmutableList.of();
+    Deque<Object> pending = new ArrayDeque<Object>();
+    List<Object> children = Lists.newArrayList();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      Object bean = pending.pop();
+      Class<?> type = bean.getClass();
+      if (constrained.get(type)) {
+        if (violations.isEmpty()) {
+          violations = Lists.newArrayList();
+        }
+        violations.addAll(validator.validate(bean, group));
+      }
+      ClassMetadata metadata = ReflectionHelper.classMetadata(type);
+      for (Getter getter : metadata.getGetters()) {
+        if (getter.isValid()) {
+          addCascaded(getter.invoke(bean), children);
+        }
+      }
+      // Visit the beans in the order of the descriptor.
+      for (Object child : Lists.reverse(children)) {
+        pending.push(child);
+      }
+      children.clear();
+    }
+    return violations;
+  }
+
+  private static void addCascaded(Object value, List<Object> children) {
+    if (value == null) {
+      return;
+    }
+    if (value instanceof Iterable) {
+      for (Object element : (Iterable<?>) value) {
+        addCascaded(element, children);
+      }
+    } else if (value instanceof Map) {
+      for (Object element : ((Map<?, ?>) value).values()) {
+        addCascaded(element, children);
+      }
+    } else if (value instanceof Object[]) {
+      for (Object element : (Object[]) value) {
+        addCascaded(element, children);
+      }
+    } else {
+      children.add(value);
+    }
+  }
+
+  private boolean hasGroupConstraints(Class<?> type) {
+    BeanDescriptor descriptor = validator.getConstraintsForClass(type);
+    if (descriptor.findConstraints().unorderedAndMatchingGroups(group).hasConstraints()) {
+      return true;
+    }
+    for (PropertyDescriptor property : descriptor.getConstrainedProperties()) {
+      if (property.findConstraints().unorderedAndMatchingGroups(group).hasConstraints()) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -18,6 +18,7 @@ package com.cloudera.csd.validation.constraints.components;
 import com.cloudera.csd.descriptors.parameters.MemoryParameter;
 import com.cloudera.csd.validation.constraints.AutoConfigSharesValid;
 import com.cloudera.csd.validation.constraints.AutoConfigSharesValidValidator;
+import com.cloudera.validation.StatelessValidator;
 import com.google.common.annotations.VisibleForTesting;
 
 import java.util.Collection;
@@ -26,6 +27,7 @@ import javax.validation.ConstraintValidatorContext;
 /**
  * The implementation of the AutoConfigSharesValidValidator
  */
+@StatelessValidator
 public class AutoConfigSharesValidValidatorImpl implements AutoConfigSharesValidValidator {
 
   @Override
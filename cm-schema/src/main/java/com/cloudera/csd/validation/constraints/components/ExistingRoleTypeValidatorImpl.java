@@ -17,6 +17,7 @@ package com.cloudera.csd.validation.constraints.components;
 
 import com.cloudera.csd.validation.constraints.ExistingRoleType;
 import com.cloudera.csd.validation.constraints.ExistingRoleTypeValidator;
+import com.cloudera.validation.StatelessValidator;
 
 import java.util.Set;
 
@@ -26,6 +27,7 @@ import javax.validation.ConstraintValidatorContext;
  * Implementation of ExistingRoleType constraint based on a static list of role
  * types.
  */
+@StatelessValidator
 public class ExistingRoleTypeValidatorImpl
   implements ExistingRoleTypeValidator {
 
@@ -17,6 +17,7 @@ package com.cloudera.csd.validation.constraints.components;
 
 import com.cloudera.csd.validation.constraints.ExistingServiceType;
 import com.cloudera.csd.validation.constraints.ExistingServiceTypeValidator;
+import com.cloudera.validation.StatelessValidator;
 
 import java.util.Set;
 
@@ -26,6 +27,7 @@ import javax.validation.ConstraintValidatorContext;
  * Implementation of ExistingServiceType constraint based on a static list of
  * service types.
  */
+@StatelessValidator
 public class ExistingServiceTypeValidatorImpl
   implements ExistingServiceTypeValidator {
 
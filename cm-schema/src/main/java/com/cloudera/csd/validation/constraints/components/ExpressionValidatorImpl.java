@@ -19,30 +19,60 @@ import com.cloudera.csd.descriptors.parameters.Parameter;
 import com.cloudera.csd.validation.constraints.Expression;
 import com.cloudera.csd.validation.constraints.ExpressionValidator;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+
+import java.util.concurrent.ConcurrentMap;
 
 import javax.validation.ConstraintValidatorContext;
 
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 /**
- * The implementation of the ExpressionValidator
+ * The implementation of the ExpressionValidator.
+ *
+ * Hibernate Validator creates a validator per constraint, so the parsed
+ * expressions are cached by their text and shared between them. SpEL
+ * caches the property accessors it resolves in the expression tree,
+ * which only pays off while the tree sees beans of a single class, so
+ * each text keeps one parsed tree per bean class. The trees are kept in
+ * a {@link ClassValue}, since they refer to the classes through their
+ * accessors and would otherwise keep classes that are no longer used,
+ * like the ones materialized for other object mappers, from being
+ * unloaded. Evaluation uses a single shared evaluation context, passing
+ * the bean as root object.
  */
 public class ExpressionValidatorImpl implements ExpressionValidator {
 
   private static final ExpressionParser PARSER = new SpelExpressionParser();
-  private Expression expression;
+  private static final StandardEvaluationContext EVALUATION_CONTEXT =
+      new StandardEvaluationContext();
+  private static final ConcurrentMap<String, ParsedExpression> CACHE =
+      new MapMaker().makeMap();
+
+  static {
+    // Initializes the lazily created accessor and resolver lists, so
+    // concurrent evaluations only read the context.
+    EVALUATION_CONTEXT.getPropertyAccessors();
+    EVALUATION_CONTEXT.getMethodResolvers();
+    EVALUATION_CONTEXT.getConstructorResolvers();
+    EVALUATION_CONTEXT.getTypeLocator();
+    EVALUATION_CONTEXT.getTypeConverter();
+  }
+
+  private ParsedExpression expression;
 
   @Override
   public void initialize(Expression constraintAnnotation) {
-    this.expression = constraintAnnotation;
+    this.expression = ParsedExpression.of(constraintAnnotation.value());
   }
 
   @Override
   public boolean isValid(Object bean, ConstraintValidatorContext context) {
-    boolean result = PARSER
-        .parseExpression(expression.value())
-        .getValue(bean, Boolean.class);
+    boolean result = expression
+        .forClass(bean.getClass())
+        .getValue(EVALUATION_CONTEXT, bean, Boolean.class);
     if (!result) {
       // XXX: Hacky way to get the "name" of the bean that didn't satisfy the
       // expression.
@@ -58,6 +88,40 @@ public class ExpressionValidatorImpl implements ExpressionValidator {
     return result;
   }
 
+  /**
+   * The parsed trees of an expression text, one per bean class.
+   */
+  private static class ParsedExpression {
+    private final ClassValue<org.springframework.expression.Expression> byClass;
+
+    private ParsedExpression(final String text) {
+      this.byClass = new ClassValue<org.springframework.expression.Expression>() {
+        @Override
+        protected org.springframework.expression.Expression computeValue(Class<?> beanClass) {
+          return PARSER.parseExpression(text);
+        }
+      };
+      // Parsing up front reports syntax errors when the constraint is set up.
+      PARSER.parseExpression(text);
+    }
+
+    static ParsedExpression of(String text) {
+      ParsedExpression parsed = CACHE.get(text);
+      if (parsed == null) {
+        parsed = new ParsedExpression(text);
+        ParsedExpression existing = CACHE.putIfAbsent(text, parsed);
+        if (existing != null) {
+          parsed = existing;
+        }
+      }
+      return parsed;
+    }
+
+    org.springframework.expression.Expression forClass(Class<?> beanClass) {
+      return byClass.get(beanClass);
+    }
+  }
+
   /**
    * Adds a violation with the property name in the context.
    * @param context the context
@@ -17,17 +17,16 @@ package com.cloudera.csd.validation.constraints.components;
 
 import com.cloudera.csd.validation.constraints.UniqueField;
 import com.cloudera.csd.validation.constraints.UniqueFieldValidator;
+import com.cloudera.csd.validation.references.components.ClassMetadata.Getter;
+import com.cloudera.csd.validation.references.components.ReflectionHelper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
 
-import java.beans.PropertyDescriptor;
 import java.util.Collection;
 import java.util.Set;
 import javax.validation.ConstraintValidatorContext;
 import javax.validation.ValidationException;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
 /**
  * The implementation of the UniqueFieldValidator
  */
@@ -45,17 +44,17 @@ public class UniqueFieldValidatorImpl implements UniqueFieldValidator {
   @Override
   public boolean isValid(Collection<?> list, ConstraintValidatorContext context) {
     if (list != null) {
-      Set<Object> seenSoFar = Sets.newHashSet();
+      PropertyReader reader = new PropertyReader(uniqueField.value());
+      Set<Object> seenSoFar = Sets.newHashSetWithExpectedSize(list.size());
       for (Object obj : list) {
-        Object value = propertyValue(obj, uniqueField.value());
+        Object value = reader.read(obj);
         if ((value == null) && this.skipNulls) {
           continue;
         }
-        if (seenSoFar.contains(value)) {
+        if (!seenSoFar.add(value)) {
           addViolation(context, uniqueField.value());
           return false;
         }
-        seenSoFar.add(value);
       }
     }
     return true;
@@ -80,11 +79,41 @@ public class UniqueFieldValidatorImpl implements UniqueFieldValidator {
    */
   @VisibleForTesting
   Object propertyValue(Object obj, String property) {
-    try {
-      PropertyDescriptor desc = PropertyUtils.getPropertyDescriptor(obj, property);
-      return desc.getReadMethod().invoke(obj, new Object[]{});
-    } catch( Exception e) {
-      throw new ValidationException(e);
+    return new PropertyReader(property).read(obj);
+  }
+
+  /**
+   * Reads a property of the elements of a collection. The getter comes
+   * from the cached class metadata and is reused for as long as the
+   * elements have the same class, which they usually do. A reader is
+   * not thread safe, so use one per call.
+   */
+  static final class PropertyReader {
+    private final String property;
+    private Class<?> type;
+    private Getter getter;
+
+    PropertyReader(String property) {
+      this.property = property;
+    }
+
+    Object read(Object obj) {
+      if (obj == null) {
+        throw new ValidationException("Can't read " + property + " of a null element");
+      }
+      if (obj.getClass() != type) {
+        Getter found = ReflectionHelper.classMetadata(obj.getClass()).getGetter(property);
+        if (found == null) {
+          throw new ValidationException(obj.getClass() + " has no property " + property);
+        }
+        type = obj.getClass();
+        getter = found;
+      }
+      try {
+        return getter.invoke(obj);
+      } catch (RuntimeException e) {
+        throw new ValidationException(e);
+      }
     }
   }
 }
@@ -0,0 +1,101 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.constraints.components;
+
+import com.cloudera.csd.validation.constraints.UniqueFields;
+import com.cloudera.csd.validation.constraints.UniqueFieldsValidator;
+import com.cloudera.csd.validation.constraints.components.UniqueFieldValidatorImpl.PropertyReader;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import javax.validation.ConstraintValidatorContext;
+
+/**
+ * The implementation of the UniqueFieldsValidator. All the fields
+ * are checked in a single iteration over the collection, and a field
+ * stops being read once it has a duplicate.
+ */
+public class UniqueFieldsValidatorImpl implements UniqueFieldsValidator {
+
+  private String[] fields;
+  private boolean skipNulls;
+
+  @Override
+  public void initialize(UniqueFields constraintAnnotation) {
+    this.fields = constraintAnnotation.value();
+    this.skipNulls = constraintAnnotation.skipNulls();
+  }
+
+  @Override
+  public boolean isValid(Collection<?> list, ConstraintValidatorContext context) {
+    if (list == null || list.isEmpty()) {
+      return true;
+    }
+    PropertyReader[] readers = new PropertyReader[fields.length];
+    List<Set<Object>> seenSoFar = Lists.newArrayListWithCapacity(fields.length);
+    for (int i = 0; i < fields.length; i++) {
+      readers[i] = new PropertyReader(fields[i]);
+      seenSoFar.add(Sets.<Object>newHashSetWithExpectedSize(list.size()));
+    }
+
+    boolean[] duplicate = new boolean[fields.length];
+    int remaining = fields.length;
+    for (Object obj : list) {
+      for (int i = 0; i < fields.length; i++) {
+        if (duplicate[i]) {
+          continue;
+        }
+        Object value = readers[i].read(obj);
+        if ((value == null) && this.skipNulls) {
+          continue;
+        }
+        if (!seenSoFar.get(i).add(value)) {
+          duplicate[i] = true;
+          seenSoFar.set(i, null);
+          remaining--;
+        }
+      }
+      if (remaining == 0) {
+        break;
+      }
+    }
+
+    for (int i = 0; i < fields.length; i++) {
+      if (duplicate[i]) {
+        addViolation(context, fields[i]);
+      }
+    }
+    return remaining == fields.length;
+  }
+
+  /**
+   * Adds a violation with the field in the context.
+   * @param context the context
+   * @param fieldName the field name.
+   */
+  @VisibleForTesting
+  void addViolation(ConstraintValidatorContext context, String fieldName) {
+    context.disableDefaultConstraintViolation();
+    context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate())
+           .addPropertyNode(fieldName)
+           .inIterable()
+           .addConstraintViolation();
+  }
+}
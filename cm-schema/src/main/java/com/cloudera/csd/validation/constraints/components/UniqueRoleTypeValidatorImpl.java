@@ -17,6 +17,7 @@ package com.cloudera.csd.validation.constraints.components;
 
 import com.cloudera.csd.validation.constraints.UniqueRoleType;
 import com.cloudera.csd.validation.constraints.UniqueRoleTypeValidator;
+import com.cloudera.validation.StatelessValidator;
 
 import java.util.Set;
 
@@ -26,6 +27,7 @@ import javax.validation.ConstraintValidatorContext;
  * Implementation of UniqueRoleType constraint based
  * on a static list of role types.
  */
+@StatelessValidator
 public class UniqueRoleTypeValidatorImpl implements UniqueRoleTypeValidator {
 
   private final Set<String> builtInRoleTypes;
@@ -17,6 +17,7 @@ package com.cloudera.csd.validation.constraints.components;
 
 import com.cloudera.csd.validation.constraints.UniqueServiceType;
 import com.cloudera.csd.validation.constraints.UniqueServiceTypeValidator;
+import com.cloudera.validation.StatelessValidator;
 
 import java.util.Set;
 
@@ -26,6 +27,7 @@ import javax.validation.ConstraintValidatorContext;
  * Implementation of UniqueServiceType constraint based
  * on a static list of service types.
  */
+@StatelessValidator
 public class UniqueServiceTypeValidatorImpl implements UniqueServiceTypeValidator {
 
   private final Set<String> builtInServiceTypes;
@@ -17,6 +17,7 @@ package com.cloudera.csd.validation.constraints.components;
 
 import com.cloudera.csd.validation.constraints.ValidServiceDependency;
 import com.cloudera.csd.validation.constraints.ValidServiceDependencyValidator;
+import com.cloudera.validation.StatelessValidator;
 
 import java.util.Set;
 import javax.validation.ConstraintValidatorContext;
@@ -25,6 +26,7 @@ import javax.validation.ConstraintValidatorContext;
  * Implementation of ValidServiceDependency constraint based
  * on a static list of dependencies.
  */
+@StatelessValidator
 public class ValidServiceDependencyValidatorImpl implements ValidServiceDependencyValidator {
 
   private final Set<String> validServiceTypes;
@@ -0,0 +1,322 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.monitoring;
+
+import com.cloudera.csd.descriptors.MetricDescriptor;
+import com.cloudera.csd.descriptors.MetricEntityAttributeDescriptor;
+import com.cloudera.csd.descriptors.MetricEntityTypeDescriptor;
+import com.cloudera.csd.descriptors.RoleMonitoringDefinitionsDescriptor;
+import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
+import com.cloudera.csd.validation.monitoring.constraints.AdditionalAttributesReferToExistingAttributesValidator;
+import com.cloudera.csd.validation.monitoring.constraints.AttributeNamePrefixedWithServiceNameValidator;
+import com.cloudera.csd.validation.monitoring.constraints.AttributesReferToExistingAttributesValidator;
+import com.cloudera.csd.validation.monitoring.constraints.ConsistentMetricDefinitionValidator;
+import com.cloudera.csd.validation.monitoring.constraints.CounterMetricNameValidator;
+import com.cloudera.csd.validation.monitoring.constraints.DenominatorValidator;
+import com.cloudera.csd.validation.monitoring.constraints.EntityNamePrefixedWithServiceNameValidator;
+import com.cloudera.csd.validation.monitoring.constraints.EntityParentsReferToExistingEntitiesValidator;
+import com.cloudera.csd.validation.monitoring.constraints.MetricNamePrefixedWithServiceNameValidator;
+import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesIsUniqueValidator;
+import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesPrefixedWithServiceNameValidator;
+import com.cloudera.csd.validation.monitoring.constraints.ParentsAreReachableUsingAttributesValidator;
+import com.cloudera.csd.validation.monitoring.constraints.WeightingMetricValidator;
+import com.cloudera.csd.validation.references.components.DescriptorPathImpl;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.validation.ConstraintViolation;
+
+/**
+ * The monitoring validators, grouped by the type of node they check.
+ * The validators are stateless, so they are created once and shared by
+ * every validation and every thread.
+ *
+ * Each validator runs in a {@link Stage} that can be disabled. When
+ * timing is enabled, the stages also record how often they ran, how
+ * long they took and how many violations they found. Timing is off by
+ * default, so a validation does not pay for the clock reads.
+ */
+public class MonitoringValidatorPipeline {
+
+  private final List<Stage<RoleMonitoringDefinitionsDescriptor>> roleStages;
+  private final List<Stage<MetricEntityTypeDescriptor>> entityStages;
+  private final List<Stage<MetricEntityAttributeDescriptor>> attributeStages;
+  private final List<Stage<MetricDescriptor>> metricStages;
+  private final Stage<String> serviceNameForCrossEntityAggregatesStage;
+  private final Stage<String> nameForCrossEntityAggregatesStage;
+  private final Stage<ServiceMonitoringDefinitionsDescriptor> namesForCrossEntityAggregatesStage;
+  private final List<Stage<?>> stages;
+  private volatile boolean timingEnabled = false;
+
+  public MonitoringValidatorPipeline(
+      Set<String> builtInRoleTypes,
+      Set<String> builtInNamesForCrossEntityAggregateMetrics,
+      Set<String> builtInEntityTypes,
+      Set<String> builtInAttributes) {
+    Preconditions.checkNotNull(builtInRoleTypes);
+    Preconditions.checkNotNull(builtInNamesForCrossEntityAggregateMetrics);
+    Preconditions.checkNotNull(builtInEntityTypes);
+    Preconditions.checkNotNull(builtInAttributes);
+    ImmutableSet<String> roleTypes = ImmutableSet.copyOf(builtInRoleTypes);
+    ImmutableSet<String> names =
+        ImmutableSet.copyOf(builtInNamesForCrossEntityAggregateMetrics);
+    ImmutableSet<String> entityTypes = ImmutableSet.copyOf(builtInEntityTypes);
+    ImmutableSet<String> attributes = ImmutableSet.copyOf(builtInAttributes);
+
+    this.roleStages = ImmutableList.of(
+        stage(new AdditionalAttributesReferToExistingAttributesValidator(
+            attributes)));
+    this.entityStages = ImmutableList.of(
+        stage(new EntityNamePrefixedWithServiceNameValidator(entityTypes)),
+        stage(new EntityParentsReferToExistingEntitiesValidator(
+            roleTypes,
+            entityTypes)),
+        stage(new ParentsAreReachableUsingAttributesValidator()),
+        stage(new AttributesReferToExistingAttributesValidator(
+            attributes)));
+    this.attributeStages = ImmutableList.of(
+        stage(new AttributeNamePrefixedWithServiceNameValidator(
+            attributes)));
+    this.metricStages = ImmutableList.of(
+        stage(new MetricNamePrefixedWithServiceNameValidator()),
+        stage(new CounterMetricNameValidator()),
+        stage(new DenominatorValidator()),
+        stage(new WeightingMetricValidator()),
+        stage(new ConsistentMetricDefinitionValidator()));
+    this.serviceNameForCrossEntityAggregatesStage = stage(
+        new NameForCrossEntityAggregatesPrefixedWithServiceNameValidator(
+            names, true));
+    this.nameForCrossEntityAggregatesStage = stage(
+        new NameForCrossEntityAggregatesPrefixedWithServiceNameValidator(
+            names, false));
+    this.namesForCrossEntityAggregatesStage = stage(
+        new NameForCrossEntityAggregatesIsUniqueValidator());
+
+    this.stages = ImmutableList.<Stage<?>>builder()
+        .addAll(roleStages)
+        .addAll(entityStages)
+        .addAll(attributeStages)
+        .addAll(metricStages)
+        .add(serviceNameForCrossEntityAggregatesStage)
+        .add(nameForCrossEntityAggregatesStage)
+        .add(namesForCrossEntityAggregatesStage)
+        .build();
+  }
+
+  /**
+   * @return all the stages, in the order they run for each node type.
+   */
+  public List<Stage<?>> getStages() {
+    return stages;
+  }
+
+  /**
+   * Enables or disables all the stages that run a validator of the class.
+   *
+   * @param validatorClass the validator class.
+   * @param enabled whether the validator should run.
+   * @return the number of stages changed.
+   */
+  public int setEnabled(Class<? extends AbstractMonitoringValidator<?>> validatorClass,
+                        boolean enabled) {
+    Preconditions.checkNotNull(validatorClass);
+    int changed = 0;
+    for (Stage<?> stage : stages) {
+      if (validatorClass.isInstance(stage.validator)) {
+        stage.setEnabled(enabled);
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  public boolean isTimingEnabled() {
+    return timingEnabled;
+  }
+
+  public void setTimingEnabled(boolean timingEnabled) {
+    this.timingEnabled = timingEnabled;
+  }
+
+  /**
+   * Clears the counters of all the stages.
+   */
+  public void resetTimings() {
+    for (Stage<?> stage : stages) {
+      stage.reset();
+    }
+  }
+
+  public <T> void validateRole(MonitoringValidationContext context,
+                               RoleMonitoringDefinitionsDescriptor role,
+                               DescriptorPathImpl path,
+                               Collection<ConstraintViolation<T>> violations) {
+    run(roleStages, context, role, path, violations);
+  }
+
+  public <T> void validateEntity(MonitoringValidationContext context,
+                                 MetricEntityTypeDescriptor entity,
+                                 DescriptorPathImpl path,
+                                 Collection<ConstraintViolation<T>> violations) {
+    run(entityStages, context, entity, path, violations);
+  }
+
+  public <T> void validateAttribute(MonitoringValidationContext context,
+                                    MetricEntityAttributeDescriptor attribute,
+                                    DescriptorPathImpl path,
+                                    Collection<ConstraintViolation<T>> violations) {
+    run(attributeStages, context, attribute, path, violations);
+  }
+
+  public <T> void validateMetric(MonitoringValidationContext context,
+                                 MetricDescriptor metric,
+                                 DescriptorPathImpl path,
+                                 Collection<ConstraintViolation<T>> violations) {
+    run(metricStages, context, metric, path, violations);
+  }
+
+  /**
+   * @param serviceNode true if the name belongs to the service, false if
+   *     it belongs to a role or an entity.
+   */
+  public <T> void validateNameForCrossEntityAggregates(
+      MonitoringValidationContext context,
+      @Nullable String nameForCrossEntityAggregateMetrics,
+      DescriptorPathImpl path,
+      boolean serviceNode,
+      Collection<ConstraintViolation<T>> violations) {
+    run(serviceNode ? serviceNameForCrossEntityAggregatesStage : nameForCrossEntityAggregatesStage,
+        context, nameForCrossEntityAggregateMetrics, path, violations);
+  }
+
+  public <T> void validateNamesForCrossEntityAggregates(
+      MonitoringValidationContext context,
+      ServiceMonitoringDefinitionsDescriptor descriptor,
+      DescriptorPathImpl path,
+      Collection<ConstraintViolation<T>> violations) {
+    run(namesForCrossEntityAggregatesStage, context, descriptor, path, violations);
+  }
+
+  private <T, V> void run(List<Stage<V>> stages,
+                          MonitoringValidationContext context,
+                          V node,
+                          DescriptorPathImpl path,
+                          Collection<ConstraintViolation<T>> violations) {
+    for (int i = 0; i < stages.size(); i++) {
+      run(stages.get(i), context, node, path, violations);
+    }
+  }
+
+  private <T, V> void run(Stage<V> stage,
+                          MonitoringValidationContext context,
+                          V node,
+                          DescriptorPathImpl path,
+                          Collection<ConstraintViolation<T>> violations) {
+    if (!stage.enabled) {
+      return;
+    }
+    if (!timingEnabled) {
+      violations.addAll(stage.validator.<T>validate(context, node, path));
+      return;
+    }
+    long start = System.nanoTime();
+    List<ConstraintViolation<T>> found = stage.validator.<T>validate(context, node, path);
+    stage.record(System.nanoTime() - start, found.size());
+    violations.addAll(found);
+  }
+
+  private static <V> Stage<V> stage(AbstractMonitoringValidator<V> validator) {
+    return new Stage<V>(validator);
+  }
+
+  /**
+   * A validator of the pipeline with its flag and counters.
+   */
+  public static final class Stage<V> {
+    private final AbstractMonitoringValidator<V> validator;
+    private volatile boolean enabled = true;
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong violations = new AtomicLong();
+
+    private Stage(AbstractMonitoringValidator<V> validator) {
+      this.validator = validator;
+    }
+
+    public AbstractMonitoringValidator<V> getValidator() {
+      return validator;
+    }
+
+    public String getName() {
+      return validator.getClass().getSimpleName();
+    }
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * @return how often the validator ran while timing was enabled.
+     */
+    public long getInvocations() {
+      return invocations.get();
+    }
+
+    /**
+     * @return the time spent in the validator while timing was enabled.
+     */
+    public long getNanos() {
+      return nanos.get();
+    }
+
+    /**
+     * @return the violations found while timing was enabled.
+     */
+    public long getViolations() {
+      return violations.get();
+    }
+
+    private void record(long elapsed, int found) {
+      invocations.incrementAndGet();
+      nanos.addAndGet(elapsed);
+      violations.addAndGet(found);
+    }
+
+    private void reset() {
+      invocations.set(0);
+      nanos.set(0);
+      violations.set(0);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s, %d calls, %.3f ms, %d violations",
+          getName(), enabled ? "enabled" : "disabled",
+          getInvocations(), getNanos() / 1e6, getViolations());
+    }
+  }
+}
@@ -18,6 +18,7 @@ package com.cloudera.csd.validation.monitoring.components;
 import com.cloudera.csd.validation.monitoring.MonitoringConventions;
 import com.cloudera.csd.validation.monitoring.constraints.MetricNameFormat;
 import com.cloudera.csd.validation.monitoring.constraints.MetricNameFormatValidator;
+import com.cloudera.validation.StatelessValidator;
 
 import javax.validation.ConstraintValidatorContext;
 
@@ -26,6 +27,7 @@ import javax.validation.ConstraintValidatorContext;
  * are syntactic. More validations on the name is done using additional context
  * (e.g., if the metric is a counter or not) in additional validators.
  */
+@StatelessValidator
 public class MetricNameFormatValidatorImpl implements MetricNameFormatValidator {
 
   @Override
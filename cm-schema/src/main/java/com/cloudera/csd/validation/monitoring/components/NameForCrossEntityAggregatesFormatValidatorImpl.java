@@ -18,6 +18,7 @@ package com.cloudera.csd.validation.monitoring.components;
 import com.cloudera.csd.validation.monitoring.MonitoringConventions;
 import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesFormat;
 import com.cloudera.csd.validation.monitoring.constraints.NameForCrossEntityAggregatesFormatValidator;
+import com.cloudera.validation.StatelessValidator;
 
 import javax.validation.ConstraintValidatorContext;
 
@@ -25,6 +26,7 @@ import javax.validation.ConstraintValidatorContext;
  * Validates that a names for cross entity aggregates conforms to the format
  * rules. The format rules are similar to metric names.
  */
+@StatelessValidator
 public class NameForCrossEntityAggregatesFormatValidatorImpl
     implements NameForCrossEntityAggregatesFormatValidator {
   @Override
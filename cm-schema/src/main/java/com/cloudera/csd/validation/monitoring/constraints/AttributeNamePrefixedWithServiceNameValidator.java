@@ -57,7 +57,6 @@ public class AttributeNamePrefixedWithServiceNameValidator extends
     Preconditions.checkNotNull(context);
     Preconditions.checkNotNull(attribute);
     Preconditions.checkNotNull(path);
-    path = constructPathFromProperty(attribute, "name", path);
     String attributeName = attribute.getName();
     String serviceName = context.serviceDescriptor.getName().toLowerCase();
     if (!attributeName.startsWith(serviceName) &&
@@ -66,7 +65,8 @@ public class AttributeNamePrefixedWithServiceNameValidator extends
           "Attribute '%s' does not start with the service name ('%s')",
           attributeName,
           serviceName);
-      return forViolation(msg, attribute, attributeName, path);
+      return forViolation(msg, attribute, attributeName,
+          constructPathFromProperty(attribute, "name", path));
     }
     return noViolations();
   }
@@ -52,13 +52,13 @@ public class CounterMetricNameValidator
     if (!metricDescriptor.isCounter()) {
       return noViolations();
     }
-    path = constructPathFromProperty(metricDescriptor, "name", path);
     String metricName = metricDescriptor.getName();
     if (!MonitoringConventions.isValidEndingForCounterMetric(metricName)) {
        String msg = String.format(
           "Counter metric '%s' ends with " + MonitoringConventions.RATE_SUFFIX,
           metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, metricName, path);
+      return forViolation(msg, metricDescriptor, metricName,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
 
     String userVisibleName =
@@ -70,7 +70,8 @@ public class CounterMetricNameValidator
           "User visible name %s for counter metric '%s' does not a valid format",
           userVisibleName,
           metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, metricName, path);
+      return forViolation(msg, metricDescriptor, metricName,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
 
     if (context.metricsDefined.containsKey(userVisibleName)) {
@@ -79,7 +80,8 @@ public class CounterMetricNameValidator
           "defined in the MDL with the same name",
           userVisibleName,
           metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, metricName, path);
+      return forViolation(msg, metricDescriptor, metricName,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
     return noViolations();
   }
@@ -49,7 +49,6 @@ public class DenominatorValidator
     Preconditions.checkNotNull(context);
     Preconditions.checkNotNull(metricDescriptor);
     Preconditions.checkNotNull(path);
-    path = constructPathFromProperty(metricDescriptor, "name", path);
     String metricName = metricDescriptor.getName();
     String denominatorUnit = metricDescriptor.getDenominatorUnit();
     if (!MonitoringConventions.isValidDenominatorForMetricWithRateEnding(
@@ -59,7 +58,8 @@ public class DenominatorValidator
         "Non-counter metric '%s' ends with " +
         MonitoringConventions.RATE_SUFFIX + " but has no denominator",
         metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, metricName, path);
+      return forViolation(msg, metricDescriptor, metricName,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
 
     if (metricDescriptor.isCounter() &&
@@ -68,7 +68,8 @@ public class DenominatorValidator
       String msg = String.format(
         "Counter metric '%s' has a denominator and should not",
         metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, metricName, path);
+      return forViolation(msg, metricDescriptor, metricName,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
     return noViolations();
   }
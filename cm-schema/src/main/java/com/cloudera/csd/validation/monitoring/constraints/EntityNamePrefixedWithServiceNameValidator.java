@@ -56,7 +56,6 @@ public class EntityNamePrefixedWithServiceNameValidator extends
     Preconditions.checkNotNull(context);
     Preconditions.checkNotNull(entity);
     Preconditions.checkNotNull(path);
-    path = constructPathFromProperty(entity, "name", path);
     String entityName = entity.getName();
     String serviceName =
         context.serviceDescriptor.getName().toUpperCase() + "_";
@@ -66,7 +65,8 @@ public class EntityNamePrefixedWithServiceNameValidator extends
           "Entity '%s' does not start with the service name ('%s')",
           entityName,
           serviceName);
-      return forViolation(msg, entity, entityName, path);
+      return forViolation(msg, entity, entityName,
+          constructPathFromProperty(entity, "name", path));
     }
     return noViolations();
   }
@@ -49,7 +49,6 @@ public class MetricNamePrefixedWithServiceNameValidator extends
     Preconditions.checkNotNull(context);
     Preconditions.checkNotNull(metricDescriptor);
     Preconditions.checkNotNull(path);
-    path = constructPathFromProperty(metricDescriptor, "name", path);
     String metricName = metricDescriptor.getName();
     String serviceName =
         context.serviceDescriptor.getName().toLowerCase() + "_";
@@ -57,7 +56,8 @@ public class MetricNamePrefixedWithServiceNameValidator extends
       String msg = String.format(
           "Metric '%s' does not start with the service name",
           metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, metricName, path);
+      return forViolation(msg, metricDescriptor, metricName,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
     return noViolations();
   }
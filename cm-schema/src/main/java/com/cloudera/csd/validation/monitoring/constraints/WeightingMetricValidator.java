@@ -46,7 +46,6 @@ public class WeightingMetricValidator
     Preconditions.checkNotNull(context);
     Preconditions.checkNotNull(metricDescriptor);
     Preconditions.checkNotNull(path);
-    path = constructPathFromProperty(metricDescriptor, "name", path);
     String weightingMetric = metricDescriptor.getWeightingMetricName();
     if (null == weightingMetric || weightingMetric.isEmpty()) {
       return noViolations();
@@ -56,13 +55,15 @@ public class WeightingMetricValidator
         "Weighting metric '%s' for metric '%s' refers to unknown metric. ",
         metricDescriptor.getWeightingMetricName(),
         metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, weightingMetric, path);
+      return forViolation(msg, metricDescriptor, weightingMetric,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
     if (weightingMetric.equals(metricDescriptor.getName())) {
       String msg = String.format(
         "Weighting metric for metric '%s' refers to itself. ",
         metricDescriptor.getName());
-      return forViolation(msg, metricDescriptor, weightingMetric, path);
+      return forViolation(msg, metricDescriptor, weightingMetric,
+          constructPathFromProperty(metricDescriptor, "name", path));
     }
     return noViolations();
   }
@@ -16,8 +16,6 @@
 package com.cloudera.csd.validation.references;
 
 import com.cloudera.csd.validation.references.DescriptorPath.DescriptorNode;
-import com.cloudera.csd.validation.references.annotations.ReferenceType;
-import com.google.common.collect.SetMultimap;
 
 import java.lang.annotation.Annotation;
 import java.util.List;
@@ -48,11 +46,11 @@ public interface ReferenceConstraint<T> {
    * @param annotation the instance of the annotation.
    * @param obj the object
    * @param path the path of the object.
-   * @param allowedRefs all the allowed references.
+   * @param allowedRefs the references allowed in the scope of the node.
    * @return any constraint violations.
    */
   List<ConstraintViolation<T>> checkConstraint(Annotation annotation,
                                                Object obj,
                                                DescriptorPath path,
-                                               SetMultimap<ReferenceType, String> allowedRefs);
+                                               ReferenceScope allowedRefs);
 }
@@ -0,0 +1,44 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references;
+
+import com.cloudera.csd.validation.references.annotations.ReferenceType;
+
+import java.util.List;
+
+/**
+ * An immutable snapshot of the references that are allowed at a
+ * point in the descriptor. A snapshot is only created when the set of
+ * allowed references changes, so every node in the same scope shares it.
+ */
+public interface ReferenceScope {
+
+  /**
+   * @param type the reference type.
+   * @param name the reference name.
+   * @return true if the reference is allowed in this scope.
+   */
+  boolean contains(ReferenceType type, String name);
+
+  /**
+   * Returns the allowed references of a type in the order they were
+   * added. This builds a new list, so it is meant for error messages.
+   *
+   * @param type the reference type.
+   * @return the reference names.
+   */
+  List<String> getReferences(ReferenceType type);
+}
@@ -0,0 +1,304 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import com.cloudera.csd.validation.references.annotations.IncludeAdditionalReferences;
+import com.cloudera.csd.validation.references.annotations.Named;
+import com.cloudera.csd.validation.references.annotations.Referenced;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+import javax.validation.Valid;
+
+import org.springframework.core.annotation.AnnotationUtils;
+
+/**
+ * The reflection metadata of a descriptor class that the reference
+ * validation needs for every node: the getters, which of them are
+ * {@link Valid}, and the reference annotations on the class. It is
+ * computed once per class and shared by all threads. Use
+ * {@link ReflectionHelper#classMetadata(Class)} to get an instance.
+ */
+public final class ClassMetadata {
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final ClassValue<ClassMetadata> CACHE = new ClassValue<ClassMetadata>() {
+    @Override
+    protected ClassMetadata computeValue(Class<?> type) {
+      return new ClassMetadata(type);
+    }
+  };
+
+  private final Class<?> type;
+  private final List<Getter> getters;
+  private final Set<Method> getterMethods;
+  private final Map<Method, Getter> gettersByMethod;
+  private final Map<String, Getter> gettersByProperty;
+  @Nullable private final Named named;
+  @Nullable private final Referenced referenced;
+  @Nullable private final IncludeAdditionalReferences includeAdditionalReferences;
+  private final ConcurrentMap<Class<? extends Annotation>, Optional<Annotation>> annotations =
+      Maps.newConcurrentMap();
+
+  static ClassMetadata of(Class<?> type) {
+    Preconditions.checkNotNull(type);
+    return CACHE.get(type);
+  }
+
+  private ClassMetadata(Class<?> type) {
+    this.type = type;
+    ImmutableList.Builder<Getter> getters = ImmutableList.builder();
+    ImmutableSet.Builder<Method> getterMethods = ImmutableSet.builder();
+    ImmutableMap.Builder<Method, Getter> byMethod = ImmutableMap.builder();
+    ImmutableMap.Builder<String, Getter> byProperty = ImmutableMap.builder();
+    try {
+      BeanInfo info = Introspector.getBeanInfo(type);
+      for (PropertyDescriptor p : info.getPropertyDescriptors()) {
+        Method method = p.getReadMethod();
+        // Don't want to include any of the methods inherited from object.
+        if (method != null && !method.getDeclaringClass().equals(Object.class)) {
+          Getter getter = new Getter(method);
+          getters.add(getter);
+          getterMethods.add(method);
+          byMethod.put(method, getter);
+          byProperty.put(p.getName(), getter);
+        }
+      }
+    } catch (IntrospectionException e) {
+      throw new IllegalStateException("Could not introspect on " + type, e);
+    }
+    this.getters = getters.build();
+    this.getterMethods = getterMethods.build();
+    this.gettersByMethod = byMethod.build();
+    this.gettersByProperty = byProperty.build();
+    this.named = AnnotationUtils.findAnnotation(type, Named.class);
+    this.referenced = AnnotationUtils.findAnnotation(type, Referenced.class);
+    this.includeAdditionalReferences =
+        AnnotationUtils.findAnnotation(type, IncludeAdditionalReferences.class);
+  }
+
+  /**
+   * @return the getters of the class, in introspection order.
+   */
+  public List<Getter> getGetters() {
+    return getters;
+  }
+
+  /**
+   * @return the getter methods of the class, in introspection order.
+   */
+  public Set<Method> getGetterMethods() {
+    return getterMethods;
+  }
+
+  /**
+   * @param method a getter method of the class.
+   * @return the getter, or null if the method is not a getter of the class.
+   */
+  @Nullable
+  public Getter getGetter(Method method) {
+    return gettersByMethod.get(method);
+  }
+
+  /**
+   * @param propertyName a property of the class.
+   * @return the getter, or null if the class has no such property.
+   */
+  @Nullable
+  public Getter getGetter(String propertyName) {
+    return gettersByProperty.get(propertyName);
+  }
+
+  /**
+   * @return the {@link Named} annotation of the class or null.
+   */
+  @Nullable
+  public Named getNamed() {
+    return named;
+  }
+
+  /**
+   * @return the {@link Referenced} annotation of the class or null.
+   */
+  @Nullable
+  public Referenced getReferenced() {
+    return referenced;
+  }
+
+  /**
+   * @return the {@link IncludeAdditionalReferences} annotation of the class or null.
+   */
+  @Nullable
+  public IncludeAdditionalReferences getIncludeAdditionalReferences() {
+    return includeAdditionalReferences;
+  }
+
+  /**
+   * Finds the annotation by searching the entire class hierarchy.
+   * The result is cached.
+   *
+   * @param annotationType the annotation class.
+   * @param <A> the annotation type.
+   * @return the annotation if it exists. Null otherwise.
+   */
+  @Nullable
+  public <A extends Annotation> A findAnnotation(Class<A> annotationType) {
+    return annotationType.cast(lookup(annotations, annotationType, type, null));
+  }
+
+  /**
+   * Returns the value of a property of the target object.
+   *
+   * @param target an instance of this class.
+   * @param propertyName the property name.
+   * @return the value of the property.
+   */
+  @Nullable
+  public Object propertyValue(Object target, String propertyName) {
+    Getter getter = gettersByProperty.get(propertyName);
+    if (getter == null) {
+      throw new IllegalStateException("Could not invoke " + propertyName);
+    }
+    return getter.invoke(target);
+  }
+
+  private static Annotation lookup(ConcurrentMap<Class<? extends Annotation>, Optional<Annotation>> cache,
+                                   Class<? extends Annotation> annotationType,
+                                   @Nullable Class<?> type,
+                                   @Nullable Method method) {
+    Optional<Annotation> annotation = cache.get(annotationType);
+    if (annotation == null) {
+      Annotation found = (method != null)
+          ? AnnotationUtils.findAnnotation(method, annotationType)
+          : AnnotationUtils.findAnnotation(type, annotationType);
+      annotation = Optional.<Annotation>fromNullable(found);
+      cache.putIfAbsent(annotationType, annotation);
+    }
+    return annotation.orNull();
+  }
+
+  /**
+   * A getter of a descriptor class.
+   */
+  public static final class Getter {
+    private final Method method;
+    private final MethodHandle handle;
+    private final String propertyName;
+    private final boolean valid;
+    private final boolean collection;
+    private final ConcurrentMap<Class<? extends Annotation>, Optional<Annotation>> annotations =
+        Maps.newConcurrentMap();
+
+    private Getter(Method method) {
+      this.method = method;
+      this.handle = unreflect(method);
+      this.propertyName = ReflectionHelper.propertyNameOfGetter(method);
+      this.valid = AnnotationUtils.findAnnotation(method, Valid.class) != null;
+      this.collection = Collection.class.isAssignableFrom(method.getReturnType());
+    }
+
+    public Method getMethod() {
+      return method;
+    }
+
+    public String getPropertyName() {
+      return propertyName;
+    }
+
+    /**
+     * @return true if the getter or any of its super methods is {@link Valid}.
+     */
+    public boolean isValid() {
+      return valid;
+    }
+
+    /**
+     * @return true if the declared return type is a collection.
+     */
+    public boolean returnsCollection() {
+      return collection;
+    }
+
+    /**
+     * Finds the annotation by searching the entire method hierarchy.
+     * The result is cached.
+     *
+     * @param annotationType the annotation class.
+     * @param <A> the annotation type.
+     * @return the annotation if it is found. Null otherwise.
+     */
+    @Nullable
+    public <A extends Annotation> A findAnnotation(Class<A> annotationType) {
+      return annotationType.cast(lookup(annotations, annotationType, null, method));
+    }
+
+    /**
+     * Invokes the getter on the target.
+     *
+     * @param target the object to call the getter on.
+     * @return the result of the call.
+     */
+    @Nullable
+    public Object invoke(Object target) {
+      try {
+        return handle.invokeExact(target);
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IllegalStateException("Could not invoke " + method, t);
+      }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+      MethodHandle handle;
+      try {
+        handle = MethodHandles.publicLookup().unreflect(method);
+      } catch (IllegalAccessException e) {
+        // e.g. a public method of a class that is not public.
+        method.setAccessible(true);
+        try {
+          handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e2) {
+          throw new IllegalStateException("Could not access " + method, e2);
+        }
+      }
+      return handle.asType(GETTER_TYPE);
+    }
+  }
+}
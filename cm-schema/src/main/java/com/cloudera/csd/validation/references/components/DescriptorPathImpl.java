@@ -23,24 +23,57 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
+import com.google.common.collect.Iterators;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.validation.ElementKind;
 
 /**
- * An implementation of a DescriptorPath
+ * An implementation of a DescriptorPath.
+ *
+ * The path is a persistent list: each path holds its head node and a
+ * pointer to the path it was created from. Adding or removing the head
+ * is O(1) and shares the rest of the path. The hash code follows the
+ * {@link java.util.List#hashCode()} contract over the nodes from tail to
+ * head and is computed once when the path is created.
  */
 public class DescriptorPathImpl implements DescriptorPath {
 
-  private final LinkedList<DescriptorNodeImpl> list = Lists.newLinkedList();
   private static final Joiner JOINER = Joiner.on(".");
 
+  private final DescriptorNodeImpl head;
+  private final DescriptorPathImpl parent;
+  private final DescriptorNodeImpl tail;
+  private final int size;
+  private final int hashCode;
+
+  /** Lazily computed bean-only view, see {@link #onlyInclude}. */
+  private DescriptorPathImpl beanPath;
+
+  /**
+   * Creates an empty path.
+   */
+  public DescriptorPathImpl() {
+    this.head = null;
+    this.parent = null;
+    this.tail = null;
+    this.size = 0;
+    this.hashCode = 1;
+  }
+
+  private DescriptorPathImpl(DescriptorPathImpl parent, DescriptorNodeImpl head) {
+    this.head = head;
+    this.parent = parent;
+    this.tail = parent.size == 0 ? head : parent.tail;
+    this.size = parent.size + 1;
+    this.hashCode = 31 * parent.hashCode + head.hashCode();
+  }
+
   public static class DescriptorNodeImpl implements DescriptorPath.DescriptorNode {
 
     private final String name;
@@ -107,7 +140,7 @@ public class DescriptorPathImpl implements DescriptorPath {
 
     @Override
     public int hashCode() {
-      return this.name.hashCode();
+      return Objects.hashCode(this.name);
     }
   }
 
@@ -171,8 +204,10 @@ public class DescriptorPathImpl implements DescriptorPath {
     public boolean equals(Object other) {
       if (other instanceof BeanNode) {
         if (super.equals(other)) {
+          // Beans are compared by identity. Two equal beans in
+          // different places of a descriptor are different nodes.
           BeanNode o = (BeanNode)other;
-          return Objects.equal(this.bean, o.bean);
+          return this.bean == o.bean;
         }
       }
       return false;
@@ -180,36 +215,37 @@ public class DescriptorPathImpl implements DescriptorPath {
 
     @Override
     public int hashCode() {
-      return Objects.hashCode(super.hashCode(), this.bean.hashCode());
+      return Objects.hashCode(super.hashCode(), System.identityHashCode(this.bean));
     }
   }
 
   @Override
   public DescriptorNode getHeadNode() {
-    if (this.list.size() == 0) {
-      return null;
-    }
-    return this.list.getLast();
+    return this.head;
   }
 
   @Override
   public DescriptorNode getTailNode() {
-    if (this.list.size() == 0) {
-      return null;
-    }
-    return this.list.getFirst();
+    return this.tail;
   }
 
   @Override
   public DescriptorPathImpl removeFromHead() {
-    DescriptorPathImpl newPath = makeCopy();
-    newPath.list.removeLast();
-    return newPath;
+    if (this.size == 0) {
+      throw new NoSuchElementException();
+    }
+    return this.parent;
   }
 
   @Override
   public Iterator<Node> iterator() {
-    return ImmutableList.<Node>copyOf(list).iterator();
+    Node[] array = new Node[this.size];
+    DescriptorPathImpl current = this;
+    for (int i = this.size - 1; i >= 0; i--) {
+      array[i] = current.head;
+      current = current.parent;
+    }
+    return Iterators.forArray(array);
   }
 
   /**
@@ -225,6 +261,14 @@ public class DescriptorPathImpl implements DescriptorPath {
     return addToHead(new PropertyNode(name, isIterable, null, method));
   }
 
+  /**
+   * Same as {@link #addPropertyNode(Method, boolean)} with the
+   * property name taken from the cached getter metadata.
+   */
+  DescriptorPathImpl addPropertyNode(ClassMetadata.Getter getter, boolean isIterable) {
+    return addToHead(new PropertyNode(getter.getPropertyName(), isIterable, null, getter.getMethod()));
+  }
+
   /**
    * Given a bean object, creates and adds a bean node to the path.
    *
@@ -233,14 +277,15 @@ public class DescriptorPathImpl implements DescriptorPath {
    */
   public DescriptorPathImpl addBeanNode(Object obj) {
     Preconditions.checkNotNull(obj);
+    ClassMetadata metadata = ReflectionHelper.classMetadata(obj.getClass());
     String[] names = new String[]{obj.getClass().getSimpleName()};
-    Named named = ReflectionHelper.findAnnotation(obj.getClass(), Named.class);
+    Named named = metadata.getNamed();
     if (named != null) {
-      names = new String[]{ReflectionHelper.propertyValueByName(obj, named.value(), String.class)};
+      names = new String[]{(String) metadata.propertyValue(obj, named.value())};
     }
     // If there is a @Referenced annotation and it has a hardcoded "as" value,
     // use that name instead.
-    Referenced referenced = ReflectionHelper.findAnnotation(obj.getClass(), Referenced.class);
+    Referenced referenced = metadata.getReferenced();
     if ((referenced != null) && (referenced.as().length != 0)) {
       names = referenced.as();
     }
@@ -251,20 +296,17 @@ public class DescriptorPathImpl implements DescriptorPath {
 
   @Override
   public DescriptorPathImpl onlyInclude(ElementKind... whitelist) {
-    Set<ElementKind> kinds = ImmutableSet.copyOf(whitelist);
-    DescriptorPathImpl newPath = new DescriptorPathImpl();
-    for (DescriptorNodeImpl node : this.list) {
-      if (kinds.contains(node.getKind())) {
-        newPath.list.add(node);
-      }
+    if (whitelist.length == 1 && whitelist[0] == ElementKind.BEAN) {
+      return beanPath();
     }
-    return newPath;
+    Set<ElementKind> kinds = ImmutableSet.copyOf(whitelist);
+    return filter(kinds);
   }
 
   @Override
   public boolean contains(String name, ElementKind kind) {
-     for (DescriptorNodeImpl node : this.list) {
-      if (kind.equals(node.getKind()) && node.getName().equals(name)) {
+    for (DescriptorPathImpl p = this; p.size > 0; p = p.parent) {
+      if (kind.equals(p.head.getKind()) && p.head.getName().equals(name)) {
         return true;
       }
     }
@@ -273,33 +315,74 @@ public class DescriptorPathImpl implements DescriptorPath {
 
   @Override
   public String toString() {
-    return JOINER.join(list);
+    return JOINER.join(this);
   }
 
   @Override
   public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
     if (o instanceof DescriptorPathImpl) {
       DescriptorPathImpl other = (DescriptorPathImpl)o;
-      return Objects.equal(this.list, other.list);
+      if (this.size != other.size || this.hashCode != other.hashCode) {
+        return false;
+      }
+      DescriptorPathImpl a = this;
+      DescriptorPathImpl b = other;
+      // Stop as soon as both paths share the same parent.
+      while (a != b) {
+        if (!Objects.equal(a.head, b.head)) {
+          return false;
+        }
+        a = a.parent;
+        b = b.parent;
+      }
+      return true;
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    return this.list.hashCode();
+    return this.hashCode;
   }
 
   private DescriptorPathImpl addToHead(DescriptorNodeImpl node) {
-    DescriptorPathImpl newPath = makeCopy();
-    newPath.list.add(node);
-    return newPath;
+    return new DescriptorPathImpl(this, node);
   }
 
-  private DescriptorPathImpl makeCopy() {
-    DescriptorPathImpl newPath = new DescriptorPathImpl();
-    newPath.list.addAll(this.list);
-    return newPath;
+  /**
+   * The bean-only view of this path. If the path only contains
+   * bean nodes, it is its own view. Otherwise the view shares
+   * the bean-only view of the parent.
+   */
+  private DescriptorPathImpl beanPath() {
+    if (this.beanPath == null) {
+      if (this.size == 0) {
+        this.beanPath = this;
+      } else {
+        DescriptorPathImpl parentBeans = this.parent.beanPath();
+        if (this.head.getKind() != ElementKind.BEAN) {
+          this.beanPath = parentBeans;
+        } else if (parentBeans == this.parent) {
+          this.beanPath = this;
+        } else {
+          this.beanPath = parentBeans.addToHead(this.head);
+        }
+      }
+    }
+    return this.beanPath;
   }
 
+  private DescriptorPathImpl filter(Set<ElementKind> kinds) {
+    if (this.size == 0) {
+      return this;
+    }
+    DescriptorPathImpl filtered = this.parent.filter(kinds);
+    if (!kinds.contains(this.head.getKind())) {
+      return filtered;
+    }
+    return filtered == this.parent ? this : filtered.addToHead(this.head);
+  }
 }
@@ -17,13 +17,12 @@ package com.cloudera.csd.validation.references.components;
 
 import com.cloudera.csd.validation.references.DescriptorPath;
 import com.cloudera.csd.validation.references.DescriptorVisitor;
+import com.cloudera.csd.validation.references.components.ClassMetadata.Getter;
 import com.google.common.base.Preconditions;
 
-import java.lang.reflect.Method;
 import java.util.Collection;
 
 import javax.annotation.Nullable;
-import javax.validation.Valid;
 
 /**
  * An Implementation of the DescriptorVisitor.
@@ -67,14 +66,14 @@ public class DescriptorVisitorImpl implements DescriptorVisitor {
     path = path.addBeanNode(obj);
     processor.beforeNode(obj, path);
 
-    for (Method method : ReflectionHelper.getterMethods(clazz)) {
-      Object t = ReflectionHelper.invokeMethod(method, obj);
+    for (Getter getter : ReflectionHelper.classMetadata(clazz).getGetters()) {
+      Object t = getter.invoke(obj);
       if (t != null) {
-        boolean isIterable = (t instanceof Collection<?>);
-        path = path.addPropertyNode(method, isIterable);
+        boolean isIterable = getter.returnsCollection() || (t instanceof Collection<?>);
+        path = path.addPropertyNode(getter, isIterable);
         processor.beforeNode(obj, path);
 
-        if (ReflectionHelper.hasAnnotation(method, Valid.class)) {
+        if (getter.isValid()) {
           if (isIterable) {
             Collection<?> collection = (Collection<?>)t;
             for (Object c : collection) {
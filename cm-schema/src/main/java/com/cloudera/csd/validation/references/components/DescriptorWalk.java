@@ -0,0 +1,162 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import com.cloudera.csd.validation.references.DescriptorPath;
+import com.cloudera.csd.validation.references.DescriptorVisitor.NodeProcessor;
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * A node processor that records a descriptor walk as a flat array of
+ * nodes so that it can be replayed into other node processors without
+ * walking the descriptor again. Each node keeps the object and the path
+ * passed to {@link NodeProcessor#beforeNode} and the index of its parent
+ * node. A separate event array keeps the order of the before and after
+ * calls.
+ *
+ * The processor can forward the recorded walk to a delegate, so the
+ * first processor runs while the walk is being recorded.
+ */
+public class DescriptorWalk implements NodeProcessor<DescriptorWalk> {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  @Nullable
+  private final NodeProcessor<?> delegate;
+
+  private Object[] objects = new Object[INITIAL_CAPACITY];
+  private DescriptorPath[] paths = new DescriptorPath[INITIAL_CAPACITY];
+  private int[] parents = new int[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /** Non-negative values enter that node, negative values ~i leave node i. */
+  private int[] events = new int[INITIAL_CAPACITY * 2];
+  private int eventCount = 0;
+
+  /** The currently open node while recording. */
+  private int current = -1;
+
+  public DescriptorWalk() {
+    this(null);
+  }
+
+  /**
+   * @param delegate a processor that receives every node as it is recorded.
+   */
+  public DescriptorWalk(@Nullable NodeProcessor<?> delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void beforeNode(Object obj, DescriptorPath path) {
+    if (size == objects.length) {
+      int capacity = size * 2;
+      objects = Arrays.copyOf(objects, capacity);
+      paths = Arrays.copyOf(paths, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+    }
+    objects[size] = obj;
+    paths[size] = path;
+    parents[size] = current;
+    current = size;
+    addEvent(size++);
+    if (delegate != null) {
+      delegate.beforeNode(obj, path);
+    }
+  }
+
+  @Override
+  public void afterNode(Object obj, DescriptorPath oldPath) {
+    Preconditions.checkState(current >= 0);
+    addEvent(~current);
+    current = parents[current];
+    if (delegate != null) {
+      delegate.afterNode(obj, oldPath);
+    }
+  }
+
+  @Override
+  public DescriptorWalk getResult() {
+    return this;
+  }
+
+  /**
+   * Replays the recorded walk into the processor in the same order
+   * as the descriptor visitor would have called it.
+   *
+   * @param processor the processor.
+   * @param <T> the result type.
+   * @return the result of the processor.
+   */
+  public <T> T replay(NodeProcessor<T> processor) {
+    Preconditions.checkNotNull(processor);
+    Preconditions.checkState(current == -1, "The walk is not complete");
+    for (int i = 0; i < eventCount; i++) {
+      int event = events[i];
+      if (event >= 0) {
+        processor.beforeNode(objects[event], paths[event]);
+      } else {
+        processor.afterNode(objects[~event], paths[~event]);
+      }
+    }
+    return processor.getResult();
+  }
+
+  /**
+   * @return the number of recorded nodes.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param index the node index.
+   * @return the index of the parent node, or -1 for the root.
+   */
+  public int getParent(int index) {
+    Preconditions.checkElementIndex(index, size);
+    return parents[index];
+  }
+
+  /**
+   * @param index the node index.
+   * @return the object of the node.
+   */
+  public Object getObject(int index) {
+    Preconditions.checkElementIndex(index, size);
+    return objects[index];
+  }
+
+  /**
+   * @param index the node index.
+   * @return the path of the node.
+   */
+  public DescriptorPath getPath(int index) {
+    Preconditions.checkElementIndex(index, size);
+    return paths[index];
+  }
+
+  private void addEvent(int event) {
+    if (eventCount == events.length) {
+      events = Arrays.copyOf(events, eventCount * 2);
+    }
+    events[eventCount++] = event;
+  }
+}
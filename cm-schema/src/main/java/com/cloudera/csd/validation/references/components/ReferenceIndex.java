@@ -0,0 +1,227 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import com.cloudera.csd.validation.references.DescriptorPath;
+import com.cloudera.csd.validation.references.DescriptorPath.BeanDescriptorNode;
+import com.cloudera.csd.validation.references.DescriptorPath.DescriptorNode;
+import com.cloudera.csd.validation.references.annotations.ReferenceType;
+import com.cloudera.csd.validation.references.annotations.Referenced;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.validation.ElementKind;
+import javax.validation.Path.Node;
+
+/**
+ * An index over all the references found in a descriptor. References
+ * are stored in a trie keyed by the bean-only path of the bean that
+ * owns them, so a node can look up the references in its scope
+ * without scanning every reference in the descriptor. A second index
+ * keyed by bean name serves the
+ * {@link com.cloudera.csd.validation.references.annotations.IncludeAdditionalReferences}
+ * scope.
+ *
+ * The index preserves the order in which references were added.
+ */
+public class ReferenceIndex {
+
+  private final TrieNode root = new TrieNode();
+  private final Map<String, List<Entry>> byBeanName = Maps.newHashMap();
+  private final Map<DescriptorPath, TrieNode> resolved = Maps.newHashMap();
+  private int size = 0;
+
+  /**
+   * Builds an index from a multimap of bean-only reference paths.
+   *
+   * @param references the references.
+   * @return the index.
+   */
+  public static ReferenceIndex of(SetMultimap<ReferenceType, DescriptorPath> references) {
+    ReferenceIndex index = new ReferenceIndex();
+    for (Map.Entry<ReferenceType, DescriptorPath> entry : references.entries()) {
+      index.add(entry.getKey(), entry.getValue());
+    }
+    return index;
+  }
+
+  /**
+   * Adds a reference to the index. The path must only
+   * contain bean nodes and the head node is the referenced bean.
+   *
+   * @param type the reference type.
+   * @param refPath the bean-only path of the referenced bean.
+   */
+  public void add(ReferenceType type, DescriptorPath refPath) {
+    Preconditions.checkNotNull(type);
+    Preconditions.checkNotNull(refPath);
+    DescriptorNode headNode = refPath.getHeadNode();
+    Preconditions.checkNotNull(headNode);
+
+    Entry entry = new Entry(size++, type, referenceNames(headNode));
+    resolved.clear();
+
+    List<Node> nodes = Lists.newArrayList(refPath);
+    TrieNode current = root;
+    Set<String> beanNames = Sets.newHashSet();
+    for (int i = 0; i < nodes.size(); i++) {
+      Node node = nodes.get(i);
+      beanNames.add(node.getName());
+      // The trie is keyed by the parent path, so skip the head node.
+      if (i < nodes.size() - 1) {
+        current = current.child(node);
+      }
+    }
+    current.entries.add(entry);
+
+    for (String beanName : beanNames) {
+      List<Entry> entries = byBeanName.get(beanName);
+      if (entries == null) {
+        entries = Lists.newArrayList();
+        byBeanName.put(beanName, entries);
+      }
+      entries.add(entry);
+    }
+  }
+
+  /**
+   * Returns the references that are in scope for the path. These are
+   * all the references whose parent is the bean-only version of the
+   * path, and all the references with a bean named additionalScope
+   * in their path.
+   *
+   * @param path the current path.
+   * @param additionalScope the additional scope, may be null.
+   * @return the references, by type, in the order they were added.
+   */
+  public SetMultimap<ReferenceType, String> getRelatedReferences(DescriptorPath path,
+                                                                @Nullable String additionalScope) {
+    List<Entry> direct = lookup(path);
+    List<Entry> scoped = null;
+    if (additionalScope != null) {
+      scoped = byBeanName.get(additionalScope);
+    }
+    if (scoped == null) {
+      scoped = ImmutableList.of();
+    }
+
+    // Merge by insertion order so the references come out
+    // in the same order as they were found in the descriptor.
+    SetMultimap<ReferenceType, String> refs = LinkedHashMultimap.create();
+    int i = 0;
+    int j = 0;
+    while (i < direct.size() || j < scoped.size()) {
+      Entry next;
+      if (j >= scoped.size()) {
+        next = direct.get(i++);
+      } else if (i >= direct.size()) {
+        next = scoped.get(j++);
+      } else if (direct.get(i).order < scoped.get(j).order) {
+        next = direct.get(i++);
+      } else if (direct.get(i).order > scoped.get(j).order) {
+        next = scoped.get(j++);
+      } else {
+        next = direct.get(i++);
+        j++;
+      }
+      refs.putAll(next.type, next.names);
+    }
+    return refs;
+  }
+
+  /**
+   * @return the number of references in the index.
+   */
+  public int size() {
+    return size;
+  }
+
+  private List<Entry> lookup(DescriptorPath path) {
+    TrieNode node = resolve(path.onlyInclude(ElementKind.BEAN));
+    return node == null ? Collections.<Entry>emptyList() : node.entries;
+  }
+
+  /**
+   * Finds the trie node of a bean-only path. Resolved nodes are
+   * memoized, so sibling paths share the lookup of their parent.
+   */
+  @Nullable
+  private TrieNode resolve(DescriptorPath beanPath) {
+    DescriptorNode head = beanPath.getHeadNode();
+    if (head == null) {
+      return root;
+    }
+    TrieNode node = resolved.get(beanPath);
+    if (node == null && !resolved.containsKey(beanPath)) {
+      TrieNode parent = resolve(beanPath.removeFromHead());
+      node = parent == null ? null : parent.children.get(head);
+      resolved.put(beanPath, node);
+    }
+    return node;
+  }
+
+  /**
+   * If there is a @Referenced annotation and it has a hardcoded "as" value,
+   * those are the names of the reference. Otherwise it is the node name.
+   */
+  private static List<String> referenceNames(DescriptorNode headNode) {
+    if (ElementKind.BEAN.equals(headNode.getKind())) {
+      Referenced referenced = ReflectionHelper.classMetadata(
+          headNode.as(BeanDescriptorNode.class).getBean().getClass()).getReferenced();
+      if (null != referenced && referenced.as().length > 0) {
+        return ImmutableList.copyOf(referenced.as());
+      }
+    }
+    return ImmutableList.of(headNode.getName());
+  }
+
+  private static class TrieNode {
+    private final Map<Node, TrieNode> children = Maps.newHashMap();
+    private final List<Entry> entries = Lists.newArrayList();
+
+    private TrieNode child(Node node) {
+      TrieNode child = children.get(node);
+      if (child == null) {
+        child = new TrieNode();
+        children.put(node, child);
+      }
+      return child;
+    }
+  }
+
+  private static class Entry {
+    private final int order;
+    private final ReferenceType type;
+    private final List<String> names;
+
+    private Entry(int order, ReferenceType type, List<String> names) {
+      this.order = order;
+      this.type = type;
+      this.names = names;
+    }
+  }
+}
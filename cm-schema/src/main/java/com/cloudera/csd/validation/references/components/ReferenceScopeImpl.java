@@ -0,0 +1,100 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import com.cloudera.csd.validation.references.ReferenceScope;
+import com.cloudera.csd.validation.references.annotations.ReferenceType;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The implementation of the ReferenceScope. Each scope keeps an
+ * immutable set of the allowed names per reference type, in the order
+ * they were added. A derived scope copies only the sets of the types it
+ * adds to and shares the others with its parent, and every node in the
+ * same scope shares the scope itself.
+ */
+public class ReferenceScopeImpl implements ReferenceScope {
+
+  private static final ReferenceScopeImpl EMPTY = createEmpty();
+
+  private final ImmutableSet<String>[] members;
+
+  private ReferenceScopeImpl(ImmutableSet<String>[] members) {
+    this.members = members;
+  }
+
+  /**
+   * @return a scope without references.
+   */
+  public static ReferenceScopeImpl empty() {
+    return EMPTY;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ReferenceScopeImpl createEmpty() {
+    ImmutableSet<String>[] members = new ImmutableSet[ReferenceType.values().length];
+    Arrays.fill(members, ImmutableSet.<String>of());
+    return new ReferenceScopeImpl(members);
+  }
+
+  /**
+   * Returns a scope that also allows the given references. If all of
+   * them are already allowed, this scope is returned.
+   *
+   * @param refs the references to add.
+   * @return the derived scope.
+   */
+  public ReferenceScopeImpl with(SetMultimap<ReferenceType, String> refs) {
+    ImmutableSet<String>[] newMembers = null;
+    for (Map.Entry<ReferenceType, Collection<String>> entry : refs.asMap().entrySet()) {
+      int type = entry.getKey().ordinal();
+      ImmutableSet<String> current = members[type];
+      if (current.containsAll(entry.getValue())) {
+        continue;
+      }
+      if (newMembers == null) {
+        newMembers = members.clone();
+      }
+      newMembers[type] = ImmutableSet.<String>builder()
+          .addAll(current)
+          .addAll(entry.getValue())
+          .build();
+    }
+    if (newMembers == null) {
+      return this;
+    }
+    return new ReferenceScopeImpl(newMembers);
+  }
+
+  @Override
+  public boolean contains(ReferenceType type, String name) {
+    Preconditions.checkNotNull(type);
+    return members[type.ordinal()].contains(name);
+  }
+
+  @Override
+  public List<String> getReferences(ReferenceType type) {
+    return Lists.newArrayList(members[type.ordinal()]);
+  }
+}
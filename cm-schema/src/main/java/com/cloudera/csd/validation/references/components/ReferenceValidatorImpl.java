@@ -26,24 +26,26 @@ import com.cloudera.csd.validation.references.annotations.IncludeAdditionalRefer
 import com.cloudera.csd.validation.references.annotations.Named;
 import com.cloudera.csd.validation.references.annotations.ReferenceType;
 import com.cloudera.csd.validation.references.annotations.Referenced;
-import com.cloudera.csd.validation.references.components.DescriptorPathImpl.BeanNode;
+import com.cloudera.csd.validation.references.components.ClassMetadata.Getter;
 import com.cloudera.csd.validation.references.components.DescriptorPathImpl.PropertyNode;
 import com.cloudera.csd.validation.references.components.DescriptorVisitorImpl.AbstractNodeProcessor;
 import com.cloudera.csd.validation.references.constraints.ReferencedEntityConstraint;
 import com.cloudera.csd.validation.references.constraints.SubstitutionConstraint;
+import com.cloudera.validation.ValidationMetrics;
+import com.cloudera.validation.ValidationMetrics.Counter;
+import com.cloudera.validation.ValidationMetrics.Phase;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import javax.validation.ConstraintViolation;
@@ -56,34 +58,84 @@ public class ReferenceValidatorImpl implements ReferenceValidator {
 
   private final DescriptorVisitor visitor;
   private final StringInterpolator interpolator;
+  private final ValidationMetrics metrics;
 
   public ReferenceValidatorImpl(DescriptorVisitor visitor, StringInterpolator interpolator) {
+    this(visitor, interpolator, ValidationMetrics.DISABLED);
+  }
+
+  /**
+   * @param metrics the metrics to report the walks and the checks to.
+   */
+  public ReferenceValidatorImpl(DescriptorVisitor visitor,
+                                StringInterpolator interpolator,
+                                ValidationMetrics metrics) {
+    Preconditions.checkNotNull(metrics);
     this.visitor = visitor;
     this.interpolator = interpolator;
+    this.metrics = metrics;
   }
 
+  /**
+   * Validates the descriptor with a single walk. The references are
+   * collected while the walk is recorded, and the constraints are
+   * checked by replaying the recorded walk, so no getter is called twice.
+   */
   @Override
   public <T> Set<ConstraintViolation<T>> validate(T descriptor) {
+    long start = System.nanoTime();
 
     ReferenceCollector collector = new ReferenceCollector();
-    SetMultimap<ReferenceType, DescriptorPath> references = visitor.visit(descriptor, collector);
+    DescriptorWalk walk = visitor.visit(descriptor, new DescriptorWalk(collector));
 
-    ConstraintViolationCollector<T> listener = new ConstraintViolationCollector<T>(references,
-                                                                                   new ReferencedEntityConstraint(),
-                                                                                   new SubstitutionConstraint(interpolator));
-    return visitor.visit(descriptor, listener);
+    long walked = System.nanoTime();
+    metrics.recordTime(Phase.REFERENCE_WALK, walked - start);
+
+    ConstraintViolationCollector<T> listener =
+        new ConstraintViolationCollector<T>(collector.getIndex(),
+                                            ImmutableList.<ReferenceConstraint<T>>of(
+                                                new ReferencedEntityConstraint<T>(),
+                                                new SubstitutionConstraint<T>(interpolator)));
+    Set<ConstraintViolation<T>> violations = walk.replay(listener);
+
+    metrics.recordTime(Phase.REFERENCE_CHECK, System.nanoTime() - walked);
+    if (metrics.isEnabled()) {
+      recordCounts(walk, listener);
+    }
+    return violations;
+  }
+
+  /**
+   * Counts the nodes of the walk, the getters the visitor invoked on its
+   * beans, which are all the getters of their classes, and the
+   * constraints the listener checked.
+   */
+  private void recordCounts(DescriptorWalk walk, ConstraintViolationCollector<?> listener) {
+    long getters = 0;
+    for (int i = 0; i < walk.size(); i++) {
+      if (walk.getPath(i).getHeadNode().getKind() == ElementKind.BEAN) {
+        getters += ReflectionHelper.classMetadata(walk.getObject(i).getClass())
+                                   .getGetters().size();
+      }
+    }
+    metrics.increment(Counter.REFERENCE_NODES_VISITED, walk.size());
+    metrics.increment(Counter.REFERENCE_GETTERS_INVOKED, getters);
+    metrics.increment(Counter.REFERENCE_CONSTRAINTS_CHECKED, listener.getConstraintsChecked());
   }
 
   /**
    * A node processor that collects all the available references
    * in the descriptor. These references are fed into the reference
-   * constraints to check it a reference is valid.
+   * constraints to check it a reference is valid. The references are
+   * also indexed by scope as they are collected.
    */
   public static class ReferenceCollector extends AbstractNodeProcessor<SetMultimap<ReferenceType, DescriptorPath>> {
     private final SetMultimap<ReferenceType, DescriptorPath> references;
+    private final ReferenceIndex index;
 
     public ReferenceCollector() {
       references = LinkedHashMultimap.create();
+      index = new ReferenceIndex();
     }
 
     @Override
@@ -91,20 +143,31 @@ public class ReferenceValidatorImpl implements ReferenceValidator {
       return references;
     }
 
+    /**
+     * @return the references indexed by scope.
+     */
+    public ReferenceIndex getIndex() {
+      return index;
+    }
+
     @Override
     public void beforeNode(Object obj, DescriptorPath path) {
       if (path.getHeadNode().getKind() != ElementKind.BEAN) {
         return;
       }
       BeanDescriptorNode node = path.getHeadNode().as(BeanDescriptorNode.class);
-      Named named = ReflectionHelper.findAnnotation(node.getBean().getClass(), Named.class);
-      Referenced referenced = ReflectionHelper.findAnnotation(node.getBean().getClass(), Referenced.class);
+      ClassMetadata metadata = ReflectionHelper.classMetadata(node.getBean().getClass());
+      Named named = metadata.getNamed();
+      Referenced referenced = metadata.getReferenced();
       if (referenced != null) {
         if (referenced.as().length == 0 && named == null) {
           throw new IllegalStateException("The @Referenced annotation requires the @Named to also exist.");
         }
         ReferenceType type = referenced.type();
-        references.put(type, path.onlyInclude(ElementKind.BEAN));
+        DescriptorPath refPath = path.onlyInclude(ElementKind.BEAN);
+        if (references.put(type, refPath)) {
+          index.add(type, refPath);
+        }
       }
     }
   }
@@ -117,23 +180,28 @@ public class ReferenceValidatorImpl implements ReferenceValidator {
    */
   public static class ConstraintViolationCollector<T> extends AbstractNodeProcessor<Set<ConstraintViolation<T>>> {
     /**
-     * All current active allowed Refs
+     * The allowed references of the nodes being visited. A node only
+     * pushes a new scope if it adds references, otherwise it shares
+     * the scope of its parent. The bottom of the stack is the empty scope.
      */
-    private final SetMultimap<ReferenceType, String> allowedRefs = LinkedHashMultimap.create();
-    /**
-     * Map from path to which refs were added by that path. Used when removing
-     * refs while backtracking.
-     */
-    private final Map<DescriptorPath, SetMultimap<ReferenceType, String>> refsStack = Maps
-        .newHashMap();
-    private final SetMultimap<ReferenceType, DescriptorPath> allRefs;
+    private final Deque<ReferenceScopeImpl> scopes = new ArrayDeque<ReferenceScopeImpl>();
+    private final ReferenceIndex allRefs;
     private final Set<ConstraintViolation<T>> violations = Sets.newHashSet();
     private final List<ReferenceConstraint<T>> constraints;
+    private long constraintsChecked;
 
+    @SafeVarargs
+    @SuppressWarnings("varargs")
     public ConstraintViolationCollector(SetMultimap<ReferenceType, DescriptorPath> allRefs,
                                         ReferenceConstraint<T>... constraints) {
+      this(ReferenceIndex.of(allRefs), Arrays.asList(constraints));
+    }
+
+    public ConstraintViolationCollector(ReferenceIndex allRefs,
+                                        List<ReferenceConstraint<T>> constraints) {
       this.allRefs = allRefs;
       this.constraints = ImmutableList.copyOf(constraints);
+      this.scopes.push(ReferenceScopeImpl.empty());
     }
 
     @Override
@@ -141,63 +209,40 @@ public class ReferenceValidatorImpl implements ReferenceValidator {
       return this.violations;
     }
 
+    /**
+     * @return the number of times a constraint was checked against a node.
+     */
+    public long getConstraintsChecked() {
+      return constraintsChecked;
+    }
+
     @Override
     public void beforeNode(Object obj, DescriptorPath path) {
-      Preconditions.checkState(!refsStack.containsKey(path));
-
-      SetMultimap<ReferenceType, String> refs = getRelatedPaths(obj, path);
-      SetMultimap<ReferenceType, String> newRefs = LinkedHashMultimap.create();
-
-      for (Map.Entry<ReferenceType, Collection<String>> entry : refs.asMap().entrySet()) {
-        ReferenceType type = entry.getKey();
-        for (String reference : entry.getValue()) {
-          if (!allowedRefs.containsEntry(type, reference)) {
-            newRefs.put(type, reference);
-            allowedRefs.put(type, reference);
-          }
-        }
-      }
-
-      // consolidate into the singleton if it's empty
-      newRefs = newRefs.size() == 0 ? ImmutableSetMultimap
-          .<ReferenceType, String> of() : newRefs;
-      refsStack.put(path, newRefs);
-
+      enterNode(obj, path);
       callReferenceConstraints(obj, path);
     }
 
-    private SetMultimap<ReferenceType, String> getRelatedPaths(Object obj, DescriptorPath path) {
-      SetMultimap<ReferenceType, String> refs = LinkedHashMultimap.create();
+    /**
+     * Enters a node without checking its constraints. This sets up the
+     * allowed references of the nodes below it, so that only some parts
+     * of a walk need to be checked. Leave the node with
+     * {@link #afterNode(Object, DescriptorPath)}.
+     *
+     * @param obj the current object
+     * @param path the current path of the node
+     */
+    public void enterNode(Object obj, DescriptorPath path) {
+      scopes.push(scopes.peek().with(getRelatedPaths(obj, path)));
+    }
 
+    private SetMultimap<ReferenceType, String> getRelatedPaths(Object obj, DescriptorPath path) {
       String additionalScope = "";
-      IncludeAdditionalReferences scope = ReflectionHelper.findAnnotation(obj.getClass(), IncludeAdditionalReferences.class);
+      ClassMetadata metadata = ReflectionHelper.classMetadata(obj.getClass());
+      IncludeAdditionalReferences scope = metadata.getIncludeAdditionalReferences();
       if (scope != null) {
-        additionalScope = ReflectionHelper.propertyValueByName(obj, scope.value(), String.class);
+        additionalScope = (String) metadata.propertyValue(obj, scope.value());
       }
-
-      DescriptorPath trimmedPath = path.onlyInclude(ElementKind.BEAN);
-      for (Map.Entry<ReferenceType, DescriptorPath> entry : allRefs.entries()) {
-        DescriptorPath refPath = entry.getValue();
-        DescriptorPath prefix = refPath.removeFromHead();
-        if (trimmedPath.equals(prefix) || (refPath.contains(additionalScope, ElementKind.BEAN))) {
-          DescriptorNode headNode = refPath.getHeadNode();
-          boolean addedNames = false;
-          if (ElementKind.BEAN.equals(headNode.getKind())) {
-            Referenced referenced = ReflectionHelper.findAnnotation(
-                ((BeanNode) headNode).getBean().getClass(), Referenced.class);
-            if (null != referenced && referenced.as().length > 0) {
-              for (String name : referenced.as()) {
-                refs.put(entry.getKey(), name);
-              }
-              addedNames = true;
-            }
-          }
-          if (!addedNames) {
-            refs.put(entry.getKey(), headNode.getName());
-          }
-        }
-      }
-      return refs;
+      return allRefs.getRelatedReferences(path, additionalScope);
     }
 
     private void callReferenceConstraints(Object obj, DescriptorPath path) {
@@ -209,11 +254,15 @@ public class ReferenceValidatorImpl implements ReferenceValidator {
 
         Annotation annotation;
         Class<? extends  Annotation> annClass = constraint.getAnnotationType();
+        ClassMetadata metadata = ReflectionHelper.classMetadata(obj.getClass());
         if (node.getKind() == ElementKind.BEAN) {
-          annotation = ReflectionHelper.findAnnotation(obj.getClass(), annClass);
+          annotation = metadata.findAnnotation(annClass);
         } else if (node.getKind() == ElementKind.PROPERTY) {
           Method method = node.as(PropertyNode.class).getMethod();
-          annotation = ReflectionHelper.findAnnotation(method, annClass);
+          Getter getter = metadata.getGetter(method);
+          annotation = (getter != null)
+              ? getter.findAnnotation(annClass)
+              : ReflectionHelper.findAnnotation(method, annClass);
         } else {
           throw new IllegalStateException(node.getKind() + " is an unsupported type.");
         }
@@ -222,18 +271,15 @@ public class ReferenceValidatorImpl implements ReferenceValidator {
           continue;
         }
 
-        this.violations.addAll(constraint.checkConstraint(annotation, obj, path, allowedRefs));
+        constraintsChecked++;
+        this.violations.addAll(constraint.checkConstraint(annotation, obj, path, scopes.peek()));
       }
     }
 
     @Override
     public void afterNode(Object obj, DescriptorPath path) {
-      Preconditions.checkState(refsStack.containsKey(path));
-      SetMultimap<ReferenceType, String> refs = refsStack.remove(path);
-      for (Map.Entry<ReferenceType, Collection<String>> entry : refs.asMap().entrySet()) {
-        ReferenceType type = entry.getKey();
-        allowedRefs.get(type).removeAll(entry.getValue());
-      }
+      Preconditions.checkState(scopes.size() > 1);
+      scopes.pop();
     }
   }
 }
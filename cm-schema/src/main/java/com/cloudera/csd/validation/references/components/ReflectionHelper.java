@@ -18,8 +18,6 @@ package com.cloudera.csd.validation.references.components;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
@@ -103,23 +101,19 @@ public class ReflectionHelper {
    * @return the set of getter methods.
    */
   public static Set<Method> getterMethods(Class<?> clazz) {
-    Preconditions.checkNotNull(clazz);
-    try {
-      ImmutableSet.Builder<Method> builder = ImmutableSet.builder();
-      BeanInfo info = Introspector.getBeanInfo(clazz);
-      for (PropertyDescriptor p : info.getPropertyDescriptors()) {
-        Method getter = p.getReadMethod();
-        if (getter != null) {
-          // Don't want to include any of the methods inherited from object.
-          if (!getter.getDeclaringClass().equals(Object.class)) {
-            builder.add(getter);
-          }
-        }
-      }
-      return builder.build();
-    } catch (IntrospectionException e) {
-      throw new IllegalStateException("Could not introspect on " + clazz, e);
-    }
+    return classMetadata(clazz).getGetterMethods();
+  }
+
+  /**
+   * Returns the cached getters and reference annotations of the class.
+   * The metadata is computed on first use and kept for the lifetime
+   * of the class.
+   *
+   * @param clazz the class.
+   * @return the class metadata.
+   */
+  public static ClassMetadata classMetadata(Class<?> clazz) {
+    return ClassMetadata.of(clazz);
   }
 
   /**
@@ -166,6 +160,7 @@ public class ReflectionHelper {
 
   /**
    * Returns the property getter method if one exists, 'null' otherwise.
+   * The getter comes from the cached class metadata.
    * @param obj The object which has the property 'propertyName'
    * @param propertyName The property name, e.g., "name".
    * @return
@@ -174,25 +169,7 @@ public class ReflectionHelper {
   public static Method propertyGetter(Object obj, String propertyName) {
     Preconditions.checkNotNull(obj);
     Preconditions.checkNotNull(propertyName);
-    try {
-      PropertyDescriptor desc =
-          PropertyUtils.getPropertyDescriptor(obj, propertyName);
-      return desc.getReadMethod();
-    } catch (IllegalAccessException e) {
-      throw new IllegalStateException(
-          "Could not access " + propertyName + " of " +
-          obj.getClass().getSimpleName(),
-          e);
-    } catch (InvocationTargetException e) {
-      throw new IllegalStateException(
-          "Could not access " + propertyName + " of " +
-          obj.getClass().getSimpleName(),
-          e);
-    } catch (NoSuchMethodException e) {
-      throw new IllegalStateException(
-          "No such property " + propertyName + " for " +
-          obj.getClass().getSimpleName(),
-          e);
-    }
+    ClassMetadata.Getter getter = classMetadata(obj.getClass()).getGetter(propertyName);
+    return (getter == null) ? null : getter.getMethod();
   }
 }
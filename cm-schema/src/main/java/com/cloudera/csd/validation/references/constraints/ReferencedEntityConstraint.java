@@ -18,19 +18,17 @@ package com.cloudera.csd.validation.references.constraints;
 import com.cloudera.csd.validation.references.DescriptorPath;
 import com.cloudera.csd.validation.references.DescriptorPath.DescriptorNode;
 import com.cloudera.csd.validation.references.DescriptorPath.PropertyDescriptorNode;
+import com.cloudera.csd.validation.references.ReferenceScope;
 import com.cloudera.csd.validation.references.annotations.Referencing;
-import com.cloudera.csd.validation.references.annotations.ReferenceType;
 import com.cloudera.csd.validation.references.components.DescriptorPathImpl.PropertyNode;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
-import com.google.common.collect.SetMultimap;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.List;
-import java.util.Set;
 
 import javax.validation.ConstraintViolation;
 
@@ -59,22 +57,21 @@ public class ReferencedEntityConstraint<T> extends AbstractReferenceConstraint<T
   public List<ConstraintViolation<T>> checkConstraint(Annotation annotation,
                                                       Object obj,
                                                       DescriptorPath path,
-                                                      SetMultimap<ReferenceType, String> allowedRefs) {
+                                                      ReferenceScope allowedRefs) {
     Referencing ref = (Referencing)annotation;
     Method method = path.getHeadNode().as(PropertyNode.class).getMethod();
     Collection<String> ids = getIds(method, obj);
 
-    Set<String> candidates = allowedRefs.get(ref.type());
     List<ConstraintViolation<T>> errors = Lists.newArrayList();
     for (String id : ids) {
-      if (!candidates.contains(id)) {
-        errors.add(createViolation(id, path, candidates));
+      if (!allowedRefs.contains(ref.type(), id)) {
+        errors.add(createViolation(id, path, allowedRefs.getReferences(ref.type())));
       }
     }
     return errors;
   }
 
-  private ConstraintViolation<T> createViolation(String id, DescriptorPath path, Set<String> candidates) {
+  private ConstraintViolation<T> createViolation(String id, DescriptorPath path, List<String> candidates) {
     return ReferenceConstraintViolation.forViolation(String.format(ERROR_MSG, id, JOINER.join(candidates)),
                                                      path.getHeadNode(),
                                                      id,
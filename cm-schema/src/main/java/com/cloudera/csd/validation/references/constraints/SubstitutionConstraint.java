@@ -19,14 +19,14 @@ import com.cloudera.csd.StringInterpolator;
 import com.cloudera.csd.validation.references.DescriptorPath;
 import com.cloudera.csd.validation.references.DescriptorPath.DescriptorNode;
 import com.cloudera.csd.validation.references.DescriptorPath.PropertyDescriptorNode;
+import com.cloudera.csd.validation.references.ReferenceScope;
 import com.cloudera.csd.validation.references.annotations.AvailableSubstitutions;
 import com.cloudera.csd.validation.references.annotations.ReferenceType;
 import com.cloudera.csd.validation.references.annotations.SubstitutionType;
 import com.cloudera.csd.validation.references.components.DescriptorPathImpl.PropertyNode;
 import com.google.common.base.Joiner;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import java.lang.annotation.Annotation;
@@ -34,6 +34,7 @@ import java.lang.annotation.ElementType;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.validation.ConstraintViolation;
@@ -52,6 +53,14 @@ public class SubstitutionConstraint<T> extends AbstractReferenceConstraint<T> {
 
   private static final Joiner JOINER = Joiner.on(", ");
   private static final String ERROR_MSG = "has invalid substitutions [%s]. Substitutions available: [%s]";
+  private static final Map<SubstitutionType, String> NAMES;
+
+  static {
+    NAMES = Maps.newEnumMap(SubstitutionType.class);
+    for (SubstitutionType type : SubstitutionType.values()) {
+      NAMES.put(type, type.toString().toLowerCase());
+    }
+  }
 
   public SubstitutionConstraint(StringInterpolator interpolator) {
     this.interpolator = interpolator;
@@ -71,34 +80,58 @@ public class SubstitutionConstraint<T> extends AbstractReferenceConstraint<T> {
   public List<ConstraintViolation<T>> checkConstraint(Annotation annotation,
                                                       Object obj,
                                                       DescriptorPath path,
-                                                      SetMultimap<ReferenceType, String> allowedRefs) {
+                                                      ReferenceScope allowedRefs) {
 
     AvailableSubstitutions ref = (AvailableSubstitutions)annotation;
     Method method = path.getHeadNode().as(PropertyNode.class).getMethod();
 
-    Set<SubstitutionType> types = ImmutableSet.copyOf(ref.type());
+    SubstitutionType[] types = ref.type();
+    boolean parameters = false;
+    Set<String> names = Sets.newHashSet();
+    for (SubstitutionType type : types) {
+      if (type == SubstitutionType.PARAMETERS) {
+        parameters = true;
+      } else {
+        names.add(NAMES.get(type));
+      }
+    }
     Collection<String> templates = getIds(method, obj);
 
     List<ConstraintViolation<T>> errors = Lists.newArrayList();
     for (String template : templates) {
-      Set<String> variables = interpolator.getVariables(template);
-
-      Set<String> candidates = Sets.newLinkedHashSet();
-      for (SubstitutionType type : types) {
-        if (type == SubstitutionType.PARAMETERS) {
-          candidates.addAll(allowedRefs.get(ReferenceType.PARAMETER));
-        } else {
-          candidates.add(type.toString().toLowerCase());
+      Set<String> badVars = null;
+      for (String variable : interpolator.getVariables(template)) {
+        if (names.contains(variable)
+            || (parameters && allowedRefs.contains(ReferenceType.PARAMETER, variable))) {
+          continue;
         }
+        if (badVars == null) {
+          badVars = Sets.newLinkedHashSet();
+        }
+        badVars.add(variable);
       }
-      Set<String> badVars = Sets.difference(variables, candidates);
-      if (!badVars.isEmpty()) {
-        errors.add(createViolation(template, path, badVars, candidates));
+      if (badVars != null) {
+        errors.add(createViolation(template, path, badVars, candidates(types, allowedRefs)));
       }
     }
     return errors;
   }
 
+  /**
+   * Lists the available substitutions for an error message.
+   */
+  private static Set<String> candidates(SubstitutionType[] types, ReferenceScope allowedRefs) {
+    Set<String> candidates = Sets.newLinkedHashSet();
+    for (SubstitutionType type : types) {
+      if (type == SubstitutionType.PARAMETERS) {
+        candidates.addAll(allowedRefs.getReferences(ReferenceType.PARAMETER));
+      } else {
+        candidates.add(NAMES.get(type));
+      }
+    }
+    return candidates;
+  }
+
   private ConstraintViolation<T> createViolation(String id,
                                                  DescriptorPath path,
                                                  Set<String> badVariables,
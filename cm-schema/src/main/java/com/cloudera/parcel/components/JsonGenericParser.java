@@ -15,6 +15,7 @@
 // limitations under the License.
 package com.cloudera.parcel.components;
 
+import com.cloudera.common.GeneratedImplementationsModule;
 import com.cloudera.common.Parser;
 import com.fasterxml.jackson.core.JsonParser.Feature;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -35,6 +36,7 @@ public class JsonGenericParser<T> implements Parser<T> {
   protected static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
   static {
     OBJECT_MAPPER.registerModule(new MrBeanModule());
+    OBJECT_MAPPER.registerModule(new GeneratedImplementationsModule());
     OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
                             true);
     // The CM agent doesn't accept comments when it reads the json
@@ -17,6 +17,7 @@ package com.cloudera.parcel.validation.components;
 
 import com.cloudera.parcel.descriptors.AlternativesDescriptor;
 import com.cloudera.validation.DescriptorValidatorImpl;
+import com.cloudera.validation.ValidationMetrics;
 
 import javax.validation.Validator;
 
@@ -27,6 +28,10 @@ import javax.validation.Validator;
 public class AlternativesDescriptorValidatorImpl extends DescriptorValidatorImpl<AlternativesDescriptor> {
 
   public AlternativesDescriptorValidatorImpl(Validator validator) {
-    super(validator, "alternatives");
+    this(validator, ValidationMetrics.DISABLED);
+  }
+
+  public AlternativesDescriptorValidatorImpl(Validator validator, ValidationMetrics metrics) {
+    super(validator, "alternatives", metrics);
   }
 }
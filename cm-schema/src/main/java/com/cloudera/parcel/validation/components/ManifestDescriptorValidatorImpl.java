@@ -17,6 +17,7 @@ package com.cloudera.parcel.validation.components;
 
 import com.cloudera.parcel.descriptors.ManifestDescriptor;
 import com.cloudera.validation.DescriptorValidatorImpl;
+import com.cloudera.validation.ValidationMetrics;
 import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class ManifestDescriptorValidatorImpl extends DescriptorValidatorImpl<ManifestDescriptor> {
 
   public ManifestDescriptorValidatorImpl(Validator validator) {
-    super(validator, "manifest");
+    this(validator, ValidationMetrics.DISABLED);
+  }
+
+  public ManifestDescriptorValidatorImpl(Validator validator, ValidationMetrics metrics) {
+    super(validator, "manifest", metrics);
   }
 }
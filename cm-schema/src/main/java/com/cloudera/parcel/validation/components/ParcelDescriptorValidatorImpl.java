@@ -17,6 +17,7 @@ package com.cloudera.parcel.validation.components;
 
 import com.cloudera.parcel.descriptors.ParcelDescriptor;
 import com.cloudera.validation.DescriptorValidatorImpl;
+import com.cloudera.validation.ValidationMetrics;
 import javax.validation.Validator;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class ParcelDescriptorValidatorImpl extends DescriptorValidatorImpl<ParcelDescriptor> {
 
   public ParcelDescriptorValidatorImpl(Validator validator) {
-    super(validator, "parcel");
+    this(validator, ValidationMetrics.DISABLED);
+  }
+
+  public ParcelDescriptorValidatorImpl(Validator validator, ValidationMetrics metrics) {
+    super(validator, "parcel", metrics);
   }
 }
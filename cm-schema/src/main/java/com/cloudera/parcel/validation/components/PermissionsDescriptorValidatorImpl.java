@@ -17,6 +17,7 @@ package com.cloudera.parcel.validation.components;
 
 import com.cloudera.parcel.descriptors.PermissionsDescriptor;
 import com.cloudera.validation.DescriptorValidatorImpl;
+import com.cloudera.validation.ValidationMetrics;
 
 import javax.validation.Validator;
 
@@ -29,6 +30,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class PermissionsDescriptorValidatorImpl extends DescriptorValidatorImpl<PermissionsDescriptor> {
 
   public PermissionsDescriptorValidatorImpl(Validator validator) {
-    super(validator, "permissions");
+    this(validator, ValidationMetrics.DISABLED);
+  }
+
+  public PermissionsDescriptorValidatorImpl(Validator validator, ValidationMetrics metrics) {
+    super(validator, "permissions", metrics);
   }
 }
@@ -16,8 +16,10 @@
 package com.cloudera.validation;
 
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentMap;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorFactory;
 
@@ -26,10 +28,18 @@ import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 /**
  * A Constraint Validation Factory that uses a Spring bean factory
  * to construct validators.
+ * <p>
+ * The bean names of the validator types are looked up once. Validators
+ * annotated with {@link StatelessValidator} are created once per type
+ * and shared, and they are never destroyed. Every other validator is a
+ * new prototype bean.
  */
 public class BeanConstraintValidatorFactory implements ConstraintValidatorFactory {
 
   private final ConfigurableListableBeanFactory beanFactory;
+  private final ConcurrentMap<Class<?>, String[]> beanNames = Maps.newConcurrentMap();
+  private final ConcurrentMap<Class<?>, ConstraintValidator<?, ?>> sharedValidators =
+      Maps.newConcurrentMap();
 
   public BeanConstraintValidatorFactory(ConfigurableListableBeanFactory beanFactory) {
     this.beanFactory = beanFactory;
@@ -37,6 +47,21 @@ public class BeanConstraintValidatorFactory implements ConstraintValidatorFactor
 
   @Override
   public <T extends ConstraintValidator<?, ?>> T getInstance(Class<T> key) {
+    ConstraintValidator<?, ?> shared = sharedValidators.get(key);
+    if (shared != null) {
+      return key.cast(shared);
+    }
+    T validator = createInstance(key);
+    if (isStateless(validator)) {
+      shared = sharedValidators.putIfAbsent(key, validator);
+      if (shared != null) {
+        return key.cast(shared);
+      }
+    }
+    return validator;
+  }
+
+  private <T extends ConstraintValidator<?, ?>> T createInstance(Class<T> key) {
     try {
       String beanName = getBeanName(key);
       if (!beanFactory.isPrototype(beanName)) {
@@ -52,12 +77,23 @@ public class BeanConstraintValidatorFactory implements ConstraintValidatorFactor
 
   @Override
   public void releaseInstance(ConstraintValidator <?, ?> instance) {
+    if (isStateless(instance)) {
+      return;
+    }
     String beanName = getBeanName(instance.getClass());
     beanFactory.destroyBean(beanName, instance);
   }
 
+  private static boolean isStateless(ConstraintValidator<?, ?> validator) {
+    return validator.getClass().isAnnotationPresent(StatelessValidator.class);
+  }
+
   private String getBeanName(Class<?> key) {
-    String[] beanNames = beanFactory.getBeanNamesForType(key);
-    return Iterators.getOnlyElement(Iterators.forArray(beanNames));
+    String[] names = beanNames.get(key);
+    if (names == null) {
+      names = beanFactory.getBeanNamesForType(key);
+      beanNames.put(key, names);
+    }
+    return Iterators.getOnlyElement(Iterators.forArray(names));
   }
 }
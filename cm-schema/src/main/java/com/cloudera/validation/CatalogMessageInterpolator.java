@@ -0,0 +1,123 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.cloudera.csd.StringInterpolator;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Locale;
+import java.util.Map;
+
+import javax.validation.MessageInterpolator;
+
+/**
+ * Does the work of a {@link MessageSourceInterpolator} followed by a
+ * {@link TemplateMessageInterpolator}, and remembers the result.
+ * <p>
+ * The message of a violation only depends on its template and on the
+ * attributes of its constraint annotation, unless the rendered message
+ * still has something for the bean validation interpolator to resolve.
+ * Those messages, which may depend on the validated value, are handed to
+ * the fallback interpolator every time. All the others are rendered once
+ * per (template, attributes) and looked up afterwards, which matters when
+ * a descriptor has thousands of violations.
+ */
+public class CatalogMessageInterpolator implements MessageInterpolator {
+
+  private static final int MAX_CACHED_MESSAGES = 10000;
+
+  /** Characters that the bean validation interpolator would act on. */
+  private static final CharMatcher UNRESOLVED = CharMatcher.anyOf("{}$\\");
+
+  private final MessageCatalog catalog;
+  private final StringInterpolator stringInterpolator;
+  private final MessageInterpolator fallback;
+  private final Cache<Key, String> messages = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_MESSAGES)
+      .build();
+
+  public CatalogMessageInterpolator(MessageCatalog catalog,
+                                    StringInterpolator stringInterpolator,
+                                    MessageInterpolator fallback) {
+    this.catalog = catalog;
+    this.stringInterpolator = stringInterpolator;
+    this.fallback = fallback;
+  }
+
+  @Override
+  public String interpolate(String messageTemplate, Context context) {
+    return interpolate(messageTemplate, context, Locale.getDefault());
+  }
+
+  @Override
+  public String interpolate(String messageTemplate, Context context,
+      Locale locale) {
+    Map<String, Object> attributes = context.getConstraintDescriptor()
+                                            .getAttributes();
+    Key key = new Key(messageTemplate, attributes);
+    String message = messages.getIfPresent(key);
+    if (message != null) {
+      return message;
+    }
+    message = stringInterpolator.interpolate(catalog.translate(messageTemplate),
+                                             attributes);
+    if (UNRESOLVED.matchesAnyOf(message)) {
+      return fallback.interpolate(message, context, locale);
+    }
+    messages.put(key, message);
+    return message;
+  }
+
+  @VisibleForTesting
+  long getCachedMessages() {
+    return messages.size();
+  }
+
+  /**
+   * A message template and the attributes of the annotation it
+   * is rendered with.
+   */
+  private static final class Key {
+    private final String template;
+    private final Map<String, Object> attributes;
+
+    Key(String template, Map<String, Object> attributes) {
+      this.template = template;
+      this.attributes = attributes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return template.equals(other.template) && attributes.equals(other.attributes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(template, attributes);
+    }
+  }
+}
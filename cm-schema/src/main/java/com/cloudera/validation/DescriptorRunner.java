@@ -16,16 +16,21 @@
 package com.cloudera.validation;
 
 import com.cloudera.common.Parser;
+import com.cloudera.validation.ValidationMetrics.Counter;
+import com.cloudera.validation.ValidationMetrics.Phase;
 import com.fasterxml.jackson.databind.JsonMappingException.Reference;
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.List;
-import java.util.Set;
+
+import javax.annotation.Nullable;
 
 import org.apache.commons.io.IOUtils;
 
@@ -35,13 +40,45 @@ import org.apache.commons.io.IOUtils;
  */
 public class DescriptorRunner<T> implements ValidationRunner {
 
-  private Parser<T> parser;
-  private DescriptorValidator<T> validator;
+  private final Parser<T> parser;
+  private final DescriptorValidator<T> validator;
+  @Nullable
+  private final ResultCache cache;
+  private final String namespace;
+  private final ValidationMetrics metrics;
 
   public DescriptorRunner(Parser<T> parser,
                           DescriptorValidator<T> validator) {
+    this(parser, validator, null, "");
+  }
+
+  public DescriptorRunner(Parser<T> parser,
+                          DescriptorValidator<T> validator,
+                          @Nullable ResultCache cache,
+                          String namespace) {
+    this(parser, validator, cache, namespace, ValidationMetrics.DISABLED);
+  }
+
+  /**
+   * @param cache the cache of validation results, or null to always
+   *     validate.
+   * @param namespace what this runner validates, to tell its results
+   *     apart from those of other runners in the cache.
+   * @param metrics the metrics to report the bytes read and the time
+   *     spent parsing to.
+   */
+  public DescriptorRunner(Parser<T> parser,
+                          DescriptorValidator<T> validator,
+                          @Nullable ResultCache cache,
+                          String namespace,
+                          ValidationMetrics metrics) {
+    Preconditions.checkNotNull(namespace);
+    Preconditions.checkNotNull(metrics);
     this.parser = parser;
     this.validator = validator;
+    this.cache = cache;
+    this.namespace = namespace;
+    this.metrics = metrics;
   }
 
   @Override
@@ -51,7 +88,9 @@ public class DescriptorRunner<T> implements ValidationRunner {
     FileInputStream stream = null;
     try {
       stream = new FileInputStream(target);
-      return run(target, IOUtils.toByteArray(stream), writer);
+      byte[] data = IOUtils.toByteArray(stream);
+      metrics.increment(Counter.BYTES_READ, data.length);
+      return run(target, data, writer);
     } catch (Exception e) {
       writer.write(String.format("==> %s\n", e.getMessage()));
       return false;
@@ -61,7 +100,10 @@ public class DescriptorRunner<T> implements ValidationRunner {
   }
 
   /**
-   * Run the validation against a byte array.
+   * Run the validation against a byte array. With a cache, data that was
+   * validated before isn't parsed again. Only the results of completed
+   * parses and validations are cached: an unexpected exception, e.g. from
+   * a bug in a validator, is reported but not cached.
    *
    * @param name The name of the target that was loaded into the byte array.
    * @param data The byte array
@@ -71,27 +113,52 @@ public class DescriptorRunner<T> implements ValidationRunner {
    */
   public boolean run(String name, byte[] data, Writer writer)
         throws IOException {
+    writer.write("Validating: " + name + "\n");
+    List<String> errors = null;
+    String key = null;
+    if (cache != null) {
+      key = cache.key(namespace, data);
+      errors = cache.get(key);
+    }
+    if (errors == null) {
+      try {
+        errors = check(data);
+        if (cache != null) {
+          cache.put(key, errors);
+        }
+      } catch (RuntimeException e) {
+        errors = ImmutableList.of(String.valueOf(e.getMessage()));
+      }
+    }
+    for (String error : errors) {
+      writer.write(String.format("==> %s\n", error));
+    }
+    return errors.isEmpty();
+  }
+
+  /**
+   * Parses and validates the data.
+   *
+   * @return the validation errors, including those of the parser.
+   * @throws RuntimeException if the parser or the validator fails.
+   */
+  private List<String> check(byte[] data) {
     try {
-      writer.write("Validating: " + name + "\n");
+      long start = System.nanoTime();
       T descriptor = parser.parse(data);
-      Set<String> errors = validator.validate(descriptor);
-      for (String error : errors) {
-        writer.write(String.format("==> %s\n", error));
-      }
-      return errors.isEmpty();
+      metrics.recordTime(Phase.PARSE, System.nanoTime() - start);
+      return ImmutableList.copyOf(validator.validate(descriptor));
     } catch (UnrecognizedPropertyException e) {
       List<String> elements = Lists.newArrayList();
       for (Reference r : e.getPath()) {
         elements.add(r.getFieldName());
       }
-      writer.write(String.format(
-          "==> Unrecognized field \"%s\". Recognized fields are \"%s\"\n",
+      return ImmutableList.of(String.format(
+          "Unrecognized field \"%s\". Recognized fields are \"%s\"",
           Joiner.on('.').join(elements),
           e.getKnownPropertyIds().toString()));
-      return false;
-    } catch (Exception e) {
-      writer.write(String.format("==> %s\n", e.getMessage()));
-      return false;
+    } catch (IOException e) {
+      return ImmutableList.of(String.valueOf(e.getMessage()));
     }
   }
 }
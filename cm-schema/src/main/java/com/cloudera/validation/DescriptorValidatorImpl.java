@@ -15,7 +15,9 @@
 // limitations under the License.
 package com.cloudera.validation;
 
+import com.cloudera.validation.ValidationMetrics.Phase;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 
 import java.util.Set;
@@ -30,16 +32,44 @@ public class DescriptorValidatorImpl<T> implements DescriptorValidator<T> {
 
   private final Validator validator;
   private final String errorPrefix;
-  private final static String ERROR_FORMAT = "%s.%s %s";
+  private final ValidationMetrics metrics;
 
   public DescriptorValidatorImpl(Validator validator, String errorPrefix) {
+    this(validator, errorPrefix, ValidationMetrics.DISABLED);
+  }
+
+  /**
+   * @param metrics the metrics to report the time spent validating to.
+   */
+  public DescriptorValidatorImpl(Validator validator,
+                                 String errorPrefix,
+                                 ValidationMetrics metrics) {
+    Preconditions.checkNotNull(metrics);
     this.validator = validator;
     this.errorPrefix = errorPrefix;
+    this.metrics = metrics;
+  }
+
+  protected ValidationMetrics getMetrics() {
+    return metrics;
   }
 
   @VisibleForTesting
   public Set<ConstraintViolation<T>> getViolations(T descriptor) {
-    return validator.validate(descriptor);
+    return validateConstraints(descriptor);
+  }
+
+  /**
+   * Checks the bean validation constraints of the descriptor, and records
+   * the time it took as {@link Phase#BEAN_VALIDATION}.
+   */
+  protected Set<ConstraintViolation<T>> validateConstraints(T descriptor) {
+    long start = System.nanoTime();
+    try {
+      return validator.validate(descriptor);
+    } finally {
+      metrics.recordTime(Phase.BEAN_VALIDATION, System.nanoTime() - start);
+    }
   }
 
   @Override
@@ -51,7 +81,7 @@ public class DescriptorValidatorImpl<T> implements DescriptorValidator<T> {
     for (ConstraintViolation<T> violation : constraintViolations) {
       String message = violation.getMessage();
       String relativePath = violation.getPropertyPath().toString();
-      violations.add(String.format(ERROR_FORMAT, errorPrefix, relativePath, message));
+      violations.add(errorPrefix + "." + relativePath + " " + message);
     }
     return violations.build();
   }
@@ -0,0 +1,108 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The constraint messages of the schema, read once from a properties file
+ * on the classpath. The catalog is immutable: unlike a reloadable message
+ * source it does no locale resolution or reload checks on lookups.
+ */
+public final class MessageCatalog {
+
+  /** The messages used by the validators of this module. */
+  public static final String DEFAULT_RESOURCE = "schema.validation_en.properties";
+
+  private static final class DefaultHolder {
+    private static final MessageCatalog INSTANCE = load(DEFAULT_RESOURCE);
+  }
+
+  private final ImmutableMap<String, String> messages;
+
+  public MessageCatalog(Map<String, String> messages) {
+    this.messages = ImmutableMap.copyOf(messages);
+  }
+
+  /**
+   * @return the catalog of {@link #DEFAULT_RESOURCE}.
+   */
+  public static MessageCatalog getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Reads a UTF-8 encoded properties file from the classpath.
+   *
+   * @param resource the name of the resource.
+   * @return the catalog of the messages in the resource.
+   */
+  public static MessageCatalog load(String resource) {
+    InputStream in = MessageCatalog.class.getClassLoader().getResourceAsStream(resource);
+    Preconditions.checkArgument(in != null, "No such resource: " + resource);
+    try {
+      Properties properties = new Properties();
+      properties.load(new InputStreamReader(in, Charsets.UTF_8));
+      ImmutableMap.Builder<String, String> messages = ImmutableMap.builder();
+      for (String key : properties.stringPropertyNames()) {
+        messages.put(key, properties.getProperty(key));
+      }
+      return new MessageCatalog(messages.build());
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not read " + resource, e);
+    } finally {
+      IOUtils.closeQuietly(in);
+    }
+  }
+
+  /**
+   * @param key the message key.
+   * @return the message, or null if there is no message for the key.
+   */
+  @Nullable
+  public String getMessage(String key) {
+    return messages.get(key);
+  }
+
+  /**
+   * Returns the message of a template key. Keys may be wrapped in {..}
+   * brackets, as they are in constraint annotations. Keys without a
+   * message are returned as they are, without the brackets.
+   *
+   * @param templateKey the template key.
+   * @return the translated string.
+   */
+  public String translate(String templateKey) {
+    // remove wrapping {..} brackets
+    if (templateKey.startsWith("{") && templateKey.endsWith("}")) {
+      templateKey = templateKey.substring(1, templateKey.length() - 1);
+    }
+    String message = messages.get(templateKey);
+    return message != null ? message : templateKey;
+  }
+}
@@ -17,31 +17,19 @@ package com.cloudera.validation;
 
 import com.google.common.annotations.VisibleForTesting;
 
-import java.util.Locale;
 import javax.validation.MessageInterpolator;
 
-import org.springframework.context.MessageSource;
-import org.springframework.context.NoSuchMessageException;
-import org.springframework.context.support.ReloadableResourceBundleMessageSource;
-
 /**
- * A message interpolator that delegates to the a Spring message source to
- * do the translation.
+ * A message interpolator that looks the message up in a
+ * {@link MessageCatalog} to do the translation.
  */
 public class MessageSourceInterpolator extends DelegatingMessageInterpolator {
 
-  private final MessageSource source;
+  private final MessageCatalog catalog;
 
   public MessageSourceInterpolator(MessageInterpolator delegate) {
     super(delegate);
-    this.source = messageSource();
-  }
-
-  private MessageSource messageSource() {
-    ReloadableResourceBundleMessageSource bean = new ReloadableResourceBundleMessageSource();
-    bean.setBasename("classpath:schema.validation");
-    bean.setDefaultEncoding("UTF-8");
-    return bean;
+    this.catalog = MessageCatalog.getDefault();
   }
 
   @Override
@@ -59,16 +47,6 @@ public class MessageSourceInterpolator extends DelegatingMessageInterpolator {
    */
   @VisibleForTesting
   String translate(String templateKey) {
-    // remove wrapping {..} brackets
-    if (templateKey.startsWith("{") && templateKey.endsWith("}")) {
-      templateKey = templateKey.substring(1, templateKey.length() - 1);
-    }
-
-    try {
-      Object[] args = {};
-      return source.getMessage(templateKey, args, Locale.getDefault());
-    } catch (NoSuchMessageException e) {
-      return templateKey;
-    }
+    return catalog.translate(templateKey);
   }
 }
@@ -0,0 +1,81 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the measurements to a Codahale {@link MetricRegistry}, for
+ * applications that embed the validators. Each phase is a {@link Timer}
+ * and each counter a {@link com.codahale.metrics.Counter}, named after
+ * the prefix, e.g. "validation.beanValidation" and
+ * "validation.bytesRead".
+ * <p>
+ * The metrics library is an optional dependency. Only applications
+ * that use this class need it on their classpath.
+ */
+public class MetricRegistryMetrics implements ValidationMetrics {
+
+  public static final String DEFAULT_PREFIX = "validation";
+
+  private final Map<Phase, Timer> timers = Maps.newEnumMap(Phase.class);
+  private final Map<Counter, com.codahale.metrics.Counter> counters =
+      Maps.newEnumMap(Counter.class);
+
+  public MetricRegistryMetrics(MetricRegistry registry) {
+    this(registry, DEFAULT_PREFIX);
+  }
+
+  /**
+   * Registers the timers and counters, or reuses them if they are
+   * already registered.
+   *
+   * @param registry the registry.
+   * @param prefix the prefix of the metric names.
+   */
+  public MetricRegistryMetrics(MetricRegistry registry, String prefix) {
+    Preconditions.checkNotNull(registry);
+    Preconditions.checkNotNull(prefix);
+    for (Phase phase : Phase.values()) {
+      timers.put(phase, registry.timer(MetricRegistry.name(prefix, ValidationStats.name(phase))));
+    }
+    for (Counter counter : Counter.values()) {
+      counters.put(counter,
+          registry.counter(MetricRegistry.name(prefix, ValidationStats.name(counter))));
+    }
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public void recordTime(Phase phase, long nanos) {
+    timers.get(phase).update(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void increment(Counter counter, long delta) {
+    counters.get(counter).inc(delta);
+  }
+}
@@ -0,0 +1,396 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.CountingInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.security.CodeSource;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on-disk cache of validation results, keyed by a digest of the
+ * validated bytes. The digest also covers a namespace, usually the parser
+ * and validator used, and the configuration of the cache: the validator
+ * version and whatever else changes the result of a validation, like the
+ * strict mode and the known service types.
+ *
+ * The results are kept in an append-only log in the cache directory and
+ * loaded into memory when the cache is opened. Every record has a
+ * checksum; a corrupt or truncated record ends the log, and the log is
+ * truncated there. A log written by another version of the validator is
+ * stale and discarded, as is a log with mostly superseded records, which
+ * is compacted instead.
+ *
+ * The cache is thread safe. Several processes can share a cache
+ * directory: they take a lock on {@link #LOCK_NAME} around loading,
+ * compacting and appending to the log. The log is compacted in place, so
+ * the appenders of other processes keep writing to the same file.
+ */
+public class ResultCache implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ResultCache.class);
+
+  /** The name of the log in the cache directory. */
+  public static final String LOG_NAME = "results.log";
+
+  /** The name of the file that is locked around the uses of the log. */
+  public static final String LOCK_NAME = "results.lock";
+
+  /**
+   * The caches of this process take turns locking, since a process can't
+   * hold overlapping locks on a file.
+   */
+  private static final Object PROCESS_LOCK = new Object();
+
+  private static final int MAGIC = 0x43535652;
+  private static final int FORMAT = 1;
+  private static final HashFunction DIGEST = Hashing.sha256();
+  private static final int DIGEST_BYTES = DIGEST.bits() / 8;
+  private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+  private final File logFile;
+  private final RandomAccessFile lockFile;
+  private final String version;
+  private final String configuration;
+  private final Map<String, List<String>> results = Maps.newHashMap();
+  @Nullable
+  private DataOutputStream out;
+
+  private ResultCache(File logFile,
+                      RandomAccessFile lockFile,
+                      String version,
+                      String configuration) {
+    this.logFile = logFile;
+    this.lockFile = lockFile;
+    this.version = version;
+    this.configuration = configuration;
+  }
+
+  /**
+   * Opens the cache in a directory, creating it if needed.
+   *
+   * @param dir the cache directory.
+   * @param configuration a description of everything besides the bytes
+   *     and the namespace that the results depend on.
+   * @return the cache.
+   * @throws IOException if the directory can't be created or read.
+   */
+  public static ResultCache open(File dir, String configuration) throws IOException {
+    return open(dir, validatorVersion(), configuration);
+  }
+
+  /**
+   * Opens the cache in a directory for a given validator version. Logs
+   * of other versions are discarded.
+   */
+  public static ResultCache open(File dir, String version, String configuration)
+      throws IOException {
+    Preconditions.checkNotNull(version);
+    Preconditions.checkNotNull(configuration);
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IOException("Can't create the cache directory " + dir);
+    }
+    RandomAccessFile lockFile = new RandomAccessFile(new File(dir, LOCK_NAME), "rw");
+    ResultCache cache = new ResultCache(new File(dir, LOG_NAME), lockFile, version, configuration);
+    try {
+      synchronized (PROCESS_LOCK) {
+        FileLock lock = lockFile.getChannel().lock();
+        try {
+          cache.load();
+        } finally {
+          lock.release();
+        }
+      }
+    } catch (IOException e) {
+      cache.close();
+      throw e;
+    }
+    return cache;
+  }
+
+  /**
+   * @param namespace what validates the data, e.g. the parser and the
+   *     validator.
+   * @param data the bytes to validate.
+   * @return the key of the result for the data.
+   */
+  public String key(String namespace, byte[] data) {
+    return DIGEST.newHasher()
+        .putString(version, Charsets.UTF_8)
+        .putByte((byte) 0)
+        .putString(configuration, Charsets.UTF_8)
+        .putByte((byte) 0)
+        .putString(namespace, Charsets.UTF_8)
+        .putByte((byte) 0)
+        .putBytes(data)
+        .hash()
+        .toString();
+  }
+
+  /**
+   * @param key a key from {@link #key(String, byte[])}.
+   * @return the cached validation errors, or null if there are none.
+   */
+  @Nullable
+  public synchronized List<String> get(String key) {
+    return results.get(key);
+  }
+
+  /**
+   * Caches the validation errors of a key. Failures to write the log
+   * are logged and disable the writes, since a missing result is only
+   * validated again.
+   *
+   * @param key a key from {@link #key(String, byte[])}.
+   * @param errors the validation errors.
+   */
+  public synchronized void put(String key, List<String> errors) {
+    List<String> copy = ImmutableList.copyOf(errors);
+    if (copy.equals(results.put(key, copy)) || out == null) {
+      return;
+    }
+    try {
+      synchronized (PROCESS_LOCK) {
+        FileLock lock = lockFile.getChannel().lock();
+        try {
+          writeRecord(out, key, copy);
+          out.flush();
+        } finally {
+          lock.release();
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to write to the result cache " + logFile
+          + ", results will no longer be cached", e);
+      IOUtils.closeQuietly(out);
+      out = null;
+    }
+  }
+
+  /**
+   * @return the number of cached results.
+   */
+  public synchronized int size() {
+    return results.size();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      if (out != null) {
+        out.close();
+        out = null;
+      }
+    } finally {
+      lockFile.close();
+    }
+  }
+
+  /**
+   * The version of the validator: the implementation version from the
+   * jar manifest and the time the jar or the classes were built, so that
+   * snapshot builds of the same version don't share results.
+   */
+  static String validatorVersion() {
+    Package pkg = ResultCache.class.getPackage();
+    String version = (pkg == null) ? null : pkg.getImplementationVersion();
+    StringBuilder sb = new StringBuilder((version == null) ? "dev" : version);
+    CodeSource source = ResultCache.class.getProtectionDomain().getCodeSource();
+    if (source != null && "file".equals(source.getLocation().getProtocol())) {
+      sb.append('-').append(new File(source.getLocation().getPath()).lastModified());
+    }
+    return sb.toString();
+  }
+
+  private void load() throws IOException {
+    int records = 0;
+    long valid = 0;
+    boolean current = false;
+    if (logFile.exists()) {
+      long length = logFile.length();
+      CountingInputStream counter = new CountingInputStream(
+          new BufferedInputStream(new FileInputStream(logFile)));
+      DataInputStream in = new DataInputStream(counter);
+      try {
+        current = readHeader(in);
+        valid = counter.getCount();
+        while (current && readRecord(in, length - counter.getCount())) {
+          records++;
+          valid = counter.getCount();
+        }
+      } catch (EOFException e) {
+        // A header or record cut short; everything before it is kept.
+      } finally {
+        in.close();
+      }
+    }
+
+    if (!current) {
+      if (logFile.exists()) {
+        LOG.info("Discarding the stale result cache {}", logFile);
+      }
+      rewrite();
+    } else if (records > 2 * results.size() + 1000) {
+      rewrite();
+    } else {
+      if (valid < logFile.length()) {
+        LOG.warn("Evicting corrupt results at offset {} of {}", valid, logFile);
+        RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+        try {
+          file.setLength(valid);
+        } finally {
+          file.close();
+        }
+      }
+      out = new DataOutputStream(new FileOutputStream(logFile, true));
+    }
+  }
+
+  /**
+   * Overwrites the log with only the current results. The log isn't
+   * replaced by a new file, which the appenders of other processes
+   * wouldn't see. If the process dies while rewriting, the next load
+   * keeps the records written so far.
+   */
+  private void rewrite() throws IOException {
+    DataOutputStream rewriteOut = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(logFile)));
+    try {
+      writeHeader(rewriteOut);
+      for (Map.Entry<String, List<String>> entry : results.entrySet()) {
+        writeRecord(rewriteOut, entry.getKey(), entry.getValue());
+      }
+    } finally {
+      rewriteOut.close();
+    }
+    out = new DataOutputStream(new FileOutputStream(logFile, true));
+  }
+
+  private void writeHeader(DataOutputStream stream) throws IOException {
+    stream.writeInt(MAGIC);
+    stream.writeInt(FORMAT);
+    stream.writeUTF(version);
+  }
+
+  private boolean readHeader(DataInputStream in) throws IOException {
+    return in.readInt() == MAGIC
+        && in.readInt() == FORMAT
+        && in.readUTF().equals(version);
+  }
+
+  /**
+   * A record is the length of its payload, the payload and the CRC32 of
+   * the payload. The payload is the digest, the number of errors and the
+   * UTF-8 bytes of each error prefixed with their length.
+   */
+  private static void writeRecord(DataOutputStream stream, String key, List<String> errors)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream payload = new DataOutputStream(bytes);
+    payload.write(HEX.decode(key));
+    payload.writeInt(errors.size());
+    for (String error : errors) {
+      byte[] utf8 = error.getBytes(Charsets.UTF_8);
+      payload.writeInt(utf8.length);
+      payload.write(utf8);
+    }
+    payload.close();
+
+    byte[] data = bytes.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    ByteArrayOutputStream record = new ByteArrayOutputStream(data.length + 8);
+    DataOutputStream recordOut = new DataOutputStream(record);
+    recordOut.writeInt(data.length);
+    recordOut.write(data);
+    recordOut.writeInt((int) crc.getValue());
+    recordOut.close();
+    // One write per record, so that a crash leaves at most one partial record.
+    stream.write(record.toByteArray());
+  }
+
+  /**
+   * Reads the next record into the results.
+   *
+   * @param remaining the number of bytes left in the log.
+   * @return false at the end of the log or at a corrupt record.
+   */
+  private boolean readRecord(DataInputStream in, long remaining) throws IOException {
+    if (remaining == 0) {
+      return false;
+    }
+    int length = in.readInt();
+    if (length < DIGEST_BYTES + 4 || length > remaining - 8) {
+      return false;
+    }
+    byte[] data = new byte[length];
+    in.readFully(data);
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    if (in.readInt() != (int) crc.getValue()) {
+      return false;
+    }
+
+    DataInputStream payload = new DataInputStream(new ByteArrayInputStream(data));
+    byte[] digest = new byte[DIGEST_BYTES];
+    payload.readFully(digest);
+    int count = payload.readInt();
+    if (count < 0) {
+      return false;
+    }
+    ImmutableList.Builder<String> errors = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      int size = payload.readInt();
+      if (size < 0 || size > payload.available()) {
+        return false;
+      }
+      byte[] utf8 = new byte[size];
+      payload.readFully(utf8);
+      errors.add(new String(utf8, Charsets.UTF_8));
+    }
+    results.put(HEX.encode(digest), errors.build());
+    return true;
+  }
+}
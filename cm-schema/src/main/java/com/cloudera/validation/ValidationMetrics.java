@@ -0,0 +1,99 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+/**
+ * Receives the measurements of validations: the time spent in each
+ * {@link Phase} and the {@link Counter}s. The parsers, validators and
+ * runners that report measurements take the metrics as a constructor
+ * argument, and default to {@link #DISABLED}. Validations run on several
+ * threads at once, so implementations must be thread-safe.
+ */
+public interface ValidationMetrics {
+
+  /** Metrics that throw everything away. */
+  public static final ValidationMetrics DISABLED = new ValidationMetrics() {
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+
+    @Override
+    public void recordTime(Phase phase, long nanos) {}
+
+    @Override
+    public void increment(Counter counter, long delta) {}
+  };
+
+  /**
+   * The phases of a validation that are timed.
+   */
+  public static enum Phase {
+    /** Parsing a descriptor from json. */
+    PARSE,
+    /** Checking the bean validation constraints of a descriptor. */
+    BEAN_VALIDATION,
+    /** Walking a descriptor to collect its references. */
+    REFERENCE_WALK,
+    /** Checking the references of the recorded walk. */
+    REFERENCE_CHECK,
+    /** Running the monitoring validators of an MDL. */
+    MONITORING,
+    /** Reading, decompressing and hashing a parcel file. */
+    PARCEL_READ;
+  }
+
+  /**
+   * The things that are counted.
+   */
+  public static enum Counter {
+    /**
+     * Beans and properties visited by the walks of the reference
+     * validator. Bean validation walks the descriptors separately and
+     * isn't counted.
+     */
+    REFERENCE_NODES_VISITED,
+    /**
+     * Getters invoked by the walks of the reference validator, which
+     * invoke every getter of every bean they visit.
+     */
+    REFERENCE_GETTERS_INVOKED,
+    /** Reference constraints checked against the visited nodes. */
+    REFERENCE_CONSTRAINTS_CHECKED,
+    /** Bytes of descriptor and parcel files read. */
+    BYTES_READ;
+  }
+
+  /**
+   * @return false if the measurements are thrown away, so that callers
+   *     can skip measurements that cost more than a clock read.
+   */
+  boolean isEnabled();
+
+  /**
+   * Records one run of a phase.
+   *
+   * @param phase the phase.
+   * @param nanos how long it took.
+   */
+  void recordTime(Phase phase, long nanos);
+
+  /**
+   * @param counter the counter.
+   * @param delta the amount to add.
+   */
+  void increment(Counter counter, long delta);
+}
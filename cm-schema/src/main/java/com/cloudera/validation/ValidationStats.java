@@ -0,0 +1,120 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.CaseFormat;
+import com.google.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link ValidationMetrics} that add up the measurements in memory, to
+ * report them at the end of a run as text or json.
+ */
+public class ValidationStats implements ValidationMetrics {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final AtomicLongArray runs = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray counts = new AtomicLongArray(Counter.values().length);
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+
+  @Override
+  public void recordTime(Phase phase, long elapsed) {
+    runs.incrementAndGet(phase.ordinal());
+    nanos.addAndGet(phase.ordinal(), elapsed);
+  }
+
+  @Override
+  public void increment(Counter counter, long delta) {
+    counts.addAndGet(counter.ordinal(), delta);
+  }
+
+  /**
+   * @return how often the phase ran.
+   */
+  public long getRuns(Phase phase) {
+    return runs.get(phase.ordinal());
+  }
+
+  /**
+   * @return the total time spent in the phase, over all threads.
+   */
+  public long getNanos(Phase phase) {
+    return nanos.get(phase.ordinal());
+  }
+
+  public long getCount(Counter counter) {
+    return counts.get(counter.ordinal());
+  }
+
+  /**
+   * @return one line per phase and per counter.
+   */
+  public String toSummary() {
+    StringBuilder sb = new StringBuilder("Statistics:\n");
+    for (Phase phase : Phase.values()) {
+      sb.append(String.format("  %-28s %8d runs %12.3f ms\n",
+          name(phase), getRuns(phase), getNanos(phase) / 1e6));
+    }
+    for (Counter counter : Counter.values()) {
+      sb.append(String.format("  %-28s %8d\n", name(counter), getCount(counter)));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return a json object with a "phases" object, which has the runs and
+   *     the milliseconds of each phase, and a "counters" object.
+   */
+  public String toJson() {
+    Map<String, Object> phases = Maps.newLinkedHashMap();
+    for (Phase phase : Phase.values()) {
+      Map<String, Object> values = Maps.newLinkedHashMap();
+      values.put("runs", getRuns(phase));
+      values.put("millis", getNanos(phase) / 1e6);
+      phases.put(name(phase), values);
+    }
+    Map<String, Object> counters = Maps.newLinkedHashMap();
+    for (Counter counter : Counter.values()) {
+      counters.put(name(counter), getCount(counter));
+    }
+    Map<String, Object> json = Maps.newLinkedHashMap();
+    json.put("phases", phases);
+    json.put("counters", counters);
+    try {
+      return MAPPER.writeValueAsString(json);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return the name of a phase or a counter in reports, e.g.
+   *     beanValidation for BEAN_VALIDATION.
+   */
+  static String name(Enum<?> value) {
+    return CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, value.name());
+  }
+}
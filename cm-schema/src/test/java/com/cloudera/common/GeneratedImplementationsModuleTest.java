@@ -0,0 +1,100 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.common;
+
+import com.cloudera.csd.descriptors.GeneratedRoleDescriptor;
+import com.cloudera.csd.descriptors.GeneratedServiceDescriptor;
+import com.cloudera.csd.descriptors.PlacementRuleDescriptor.AlwaysWithRule;
+import com.cloudera.csd.descriptors.RoleDescriptor;
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.descriptors.parameters.GeneratedStringParameter;
+import com.cloudera.csd.descriptors.parameters.Parameter;
+import com.cloudera.csd.descriptors.parameters.StringParameter;
+import com.cloudera.csd.validation.SdlTestUtils;
+import com.cloudera.parcel.components.JsonParcelParser;
+import com.cloudera.parcel.descriptors.GeneratedParcelDescriptor;
+import com.cloudera.parcel.descriptors.ParcelDescriptor;
+import com.cloudera.parcel.validation.ParcelTestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.mrbean.MrBeanModule;
+import com.google.common.base.Charsets;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GeneratedImplementationsModuleTest {
+
+  public interface UnknownDescriptor {
+    String getName();
+  }
+
+  @Test
+  public void testImplementationOf() {
+    assertEquals(GeneratedServiceDescriptor.class,
+                 GeneratedImplementationsModule.implementationOf(ServiceDescriptor.class));
+    assertEquals("com.cloudera.csd.descriptors.GeneratedPlacementRuleDescriptorAlwaysWithRule",
+                 GeneratedImplementationsModule.implementationOf(AlwaysWithRule.class).getName());
+    // Interfaces with type parameters are materialized at runtime.
+    assertNull(GeneratedImplementationsModule.implementationOf(Parameter.class));
+    assertNull(GeneratedImplementationsModule.implementationOf(UnknownDescriptor.class));
+    assertNull(GeneratedImplementationsModule.implementationOf(GeneratedServiceDescriptor.class));
+  }
+
+  @Test
+  public void testParseSdl() {
+    ServiceDescriptor descriptor = SdlTestUtils.getParserSdl("service_full.sdl");
+    assertEquals(GeneratedServiceDescriptor.class, descriptor.getClass());
+    RoleDescriptor role = descriptor.getRoles().get(0);
+    assertEquals(GeneratedRoleDescriptor.class, role.getClass());
+    for (Parameter<?> parameter : descriptor.getParameters()) {
+      if (parameter instanceof StringParameter) {
+        assertEquals(GeneratedStringParameter.class, parameter.getClass());
+      }
+    }
+    // Like the materialized classes, equal descriptors are still distinct.
+    assertFalse(descriptor.equals(SdlTestUtils.getParserSdl("service_full.sdl")));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testUnmodifiableCollections() {
+    ServiceDescriptor descriptor = SdlTestUtils.getParserSdl("service_full.sdl");
+    descriptor.getRoles().clear();
+  }
+
+  @Test
+  public void testParseParcel() throws IOException {
+    ParcelDescriptor parcel = new JsonParcelParser().parse(
+        ParcelTestUtils.getParcelJson("good_parcel.json"));
+    assertEquals(GeneratedParcelDescriptor.class, parcel.getClass());
+  }
+
+  @Test
+  public void testFallback() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.registerModule(new MrBeanModule());
+    mapper.registerModule(new GeneratedImplementationsModule());
+    UnknownDescriptor unknown = mapper.readValue(
+        "{\"name\":\"foo\"}".getBytes(Charsets.UTF_8), UnknownDescriptor.class);
+    assertEquals("foo", unknown.getName());
+    ServiceDescriptor descriptor = mapper.readValue(
+        "{\"name\":\"FOO\"}".getBytes(Charsets.UTF_8), ServiceDescriptor.class);
+    assertEquals(GeneratedServiceDescriptor.class, descriptor.getClass());
+    assertEquals("FOO", descriptor.getName());
+  }
+}
@@ -0,0 +1,192 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.config;
+
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
+import com.cloudera.csd.validation.SdlTestUtils;
+import com.cloudera.parcel.descriptors.ParcelDescriptor;
+import com.cloudera.parcel.validation.ParcelTestUtils;
+import com.cloudera.validation.DescriptorValidator;
+import com.cloudera.validation.ValidationMetrics;
+import com.cloudera.validation.ValidationMetrics.Counter;
+import com.cloudera.validation.ValidationMetrics.Phase;
+import com.cloudera.validation.ValidationStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.validation.ConstraintValidator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import static org.junit.Assert.*;
+
+@ContextConfiguration({"classpath:spring-config.xml"})
+@RunWith(SpringJUnit4ClassRunner.class)
+public class ValidatorKitTest {
+
+  @Qualifier("serviceDescriptorValidatorWithDependencyCheck")
+  @Autowired
+  private DescriptorValidator<ServiceDescriptor> sdlValidator;
+
+  @Qualifier("serviceDescriptorValidatorWithoutDependencyCheck")
+  @Autowired
+  private DescriptorValidator<ServiceDescriptor> sdlValidatorWithoutDependencyCheck;
+
+  @Qualifier("serviceMonitoringDefinitionsDescriptorValidator")
+  @Autowired
+  private DescriptorValidator<ServiceMonitoringDefinitionsDescriptor> mdlValidator;
+
+  @Qualifier("parcelDescriptorValidator")
+  @Autowired
+  private DescriptorValidator<ParcelDescriptor> parcelValidator;
+
+  @Autowired
+  private ConfigurableListableBeanFactory beanFactory;
+
+  private final ValidatorKit kit = new ValidatorKit();
+
+  @Test
+  public void testSameSdlViolations() throws Exception {
+    for (String path : Arrays.asList(SdlTestUtils.SDL_VALIDATOR_RESOURCE_PATH,
+                                     SdlTestUtils.SDL_REFERENCE_VALIDATOR_RESOURCE_PATH)) {
+      for (String name : list(path, ".sdl")) {
+        ServiceDescriptor descriptor = SdlTestUtils.parseSDL(path + name);
+        assertEquals(name,
+            ImmutableSet.copyOf(sdlValidator.validate(descriptor)),
+            ImmutableSet.copyOf(kit.getServiceDescriptorValidator(true).validate(descriptor)));
+        assertEquals(name,
+            ImmutableSet.copyOf(sdlValidatorWithoutDependencyCheck.validate(descriptor)),
+            ImmutableSet.copyOf(kit.getServiceDescriptorValidator(false).validate(descriptor)));
+      }
+    }
+  }
+
+  @Test
+  public void testSameMdlViolations() throws Exception {
+    String path = SdlTestUtils.SDL_VALIDATOR_RESOURCE_PATH + "monitoring/";
+    List<String> names = list(path, ".mdl");
+    assertFalse(names.isEmpty());
+    for (String name : names) {
+      ServiceMonitoringDefinitionsDescriptor descriptor;
+      try {
+        descriptor = SdlTestUtils.parseMDL(path + name);
+      } catch (RuntimeException e) {
+        // Some of the fixtures test the parser.
+        continue;
+      }
+      assertEquals(name,
+          ImmutableSet.copyOf(mdlValidator.validate(descriptor)),
+          ImmutableSet.copyOf(
+              kit.getServiceMonitoringDefinitionsDescriptorValidator().validate(descriptor)));
+    }
+  }
+
+  @Test
+  public void testSameParcelViolations() throws Exception {
+    for (String name : list(ParcelTestUtils.PARCEL_VALIDATOR_RESOURCE_PATH, ".json")) {
+      if (name.contains("alternatives") || name.contains("permissions")
+          || name.contains("manifest")) {
+        continue;
+      }
+      ParcelDescriptor descriptor = ParcelTestUtils.getValidatorJson(name);
+      assertEquals(name,
+          ImmutableSet.copyOf(parcelValidator.validate(descriptor)),
+          ImmutableSet.copyOf(kit.getParcelDescriptorValidator().validate(descriptor)));
+    }
+  }
+
+  @Test
+  public void testExtraServiceTypes() {
+    ServiceDescriptor descriptor = SdlTestUtils.getValidatorSdl("service_badDependencyType.sdl");
+    assertFalse(kit.getServiceDescriptorValidator(true).validate(descriptor).isEmpty());
+    ValidatorKit extraKit = new ValidatorKit(
+        ImmutableSet.<String>builder()
+            .addAll(BuiltIns.SERVICE_TYPES)
+            .add("foo")
+            .build(),
+        false);
+    assertEquals(ImmutableSet.copyOf(kit.getServiceDescriptorValidator(false).validate(descriptor)),
+                 ImmutableSet.copyOf(extraKit.getServiceDescriptorValidator(true).validate(descriptor)));
+  }
+
+  @Test
+  public void testShared() {
+    assertSame(kit.getSdlParser(), kit.getSdlParser());
+    assertSame(kit.getValidator(), kit.getValidator());
+    assertSame(kit.getServiceDescriptorValidator(true), kit.getServiceDescriptorValidator(true));
+    assertNotSame(kit.getServiceDescriptorValidator(true), kit.getServiceDescriptorValidator(false));
+  }
+
+  @Test
+  public void testSameConstraintValidators() {
+    Set<Class<?>> beanTypes = Sets.newHashSet();
+    for (String name : beanFactory.getBeanNamesForType(ConstraintValidator.class)) {
+      Class<?> type = beanFactory.getType(name);
+      assertTrue(name, ConstraintValidators.FACTORIES.containsKey(type));
+      assertEquals(name,
+          beanFactory.getBean(name).getClass(),
+          ConstraintValidators.FACTORIES.get(type)
+              .create(BuiltIns.SERVICE_TYPES, BuiltIns.ROLE_TYPES).getClass());
+      beanTypes.add(type);
+    }
+    assertEquals(ConstraintValidators.FACTORIES.keySet(), beanTypes);
+  }
+
+  @Test
+  public void testMetrics() {
+    ValidationStats stats = new ValidationStats();
+    ValidatorKit statsKit = new ValidatorKit(BuiltIns.SERVICE_TYPES, false, stats);
+    assertSame(stats, statsKit.getMetrics());
+    ServiceDescriptor descriptor = SdlTestUtils.getParserSdl("service_full.sdl");
+    statsKit.getServiceDescriptorValidator(true).validate(descriptor);
+    assertEquals(2, stats.getRuns(Phase.BEAN_VALIDATION));
+    assertEquals(1, stats.getRuns(Phase.REFERENCE_WALK));
+    assertEquals(1, stats.getRuns(Phase.REFERENCE_CHECK));
+    long nodes = stats.getCount(Counter.REFERENCE_NODES_VISITED);
+    assertTrue(nodes > 0);
+    assertTrue(stats.getCount(Counter.REFERENCE_GETTERS_INVOKED) > 0);
+
+    // Other kits don't report to the same metrics.
+    kit.getServiceDescriptorValidator(true).validate(descriptor);
+    assertSame(ValidationMetrics.DISABLED, kit.getMetrics());
+    assertEquals(nodes, stats.getCount(Counter.REFERENCE_NODES_VISITED));
+  }
+
+  private static List<String> list(String path, final String suffix) throws URISyntaxException {
+    File dir = new File(ValidatorKitTest.class.getResource(path).toURI());
+    List<String> result = Lists.newArrayList();
+    for (String name : dir.list()) {
+      if (name.endsWith(suffix)) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+}
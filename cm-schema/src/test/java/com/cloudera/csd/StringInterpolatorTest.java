@@ -97,13 +97,65 @@ public class StringInterpolatorTest {
                  "This is a ${var} and ${var2} and ${var}"));
   }
 
+  @Test
+  public void testInterpolateSpecialCharacters() {
+    Map<String, String> values = ImmutableMap.of(
+        "dollar", "$1 and $$",
+        "backslash", "C:\\dir\\",
+        "nested", "${var1}",
+        "var1", "value1");
+    assertEquals("$1 and $$, C:\\dir\\, ${var1} and value1",
+        interpolator.interpolate("${dollar}, ${backslash}, ${nested} and ${var1}",
+                                 new MapVariableProvider(values)));
+  }
+
+  @Test
+  public void testNotVariables() {
+    assertEquals("${} and $value1 and ${var1",
+                 format("${} and $${var1} and ${var1"));
+    assertEquals(ImmutableSet.of("var1"), interpolator.getVariables("${} ${var1} ${var2"));
+  }
+
+  @Test
+  public void testCompile() {
+    StringInterpolator.Template template = interpolator.compile("a ${var1} b ${var2}");
+    assertSame(template, interpolator.compile("a ${var1} b ${var2}"));
+    assertEquals(ImmutableSet.of("var1", "var2"), template.getVariables());
+
+    StringBuilder sb = new StringBuilder("> ");
+    template.renderTo(sb, provider);
+    template.renderTo(sb, provider);
+    assertEquals("> a value1 b value2a value1 b value2", sb.toString());
+  }
+
+  @Test
+  public void testMissingVariableMessage() {
+    try {
+      format("My ${badArg}");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("The variable [${badArg}] does not have a corresponding value.",
+                   e.getMessage());
+    }
+  }
+
   private String format(String template) {
     return interpolator.interpolate(template, objects);
   }
 
   public class MapVariableProvider implements VariableProvider {
+    private final Map<String, String> values;
+
+    public MapVariableProvider() {
+      this(objects);
+    }
+
+    public MapVariableProvider(Map<String, String> values) {
+      this.values = values;
+    }
+
     public String provide(String variableName) {
-      return objects.get(variableName);
+      return values.get(variableName);
     }
   }
 }
@@ -0,0 +1,206 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+
+/**
+ * Generates valid service and monitoring descriptors of any size. The
+ * same arguments always give the same document, so results of different
+ * runs can be compared. Shared with the benchmarks module through the
+ * test jar.
+ */
+public final class SyntheticDescriptors {
+
+  private static final String[] BOUNDED_TYPES = { "long", "memory", "double" };
+
+  private SyntheticDescriptors() {}
+
+  /**
+   * Generates a valid SDL with the given number of parameters spread
+   * across the service and the roles. Every role references the service
+   * parameters and its own parameters from its config writer and its
+   * start runner.
+   *
+   * @param params the number of parameters.
+   * @param roles the number of roles.
+   * @return the SDL.
+   */
+  public static String sdl(int params, int roles) {
+    Preconditions.checkArgument(params > 0);
+    Preconditions.checkArgument(roles > 0);
+    int perScope = Math.max(1, params / (roles + 1));
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"name\":\"SYNTHETIC\",\"label\":\"Synthetic\",")
+      .append("\"description\":\"A synthetic service\",\"version\":1,")
+      .append("\"runAs\":{\"user\":\"synthetic\",\"group\":\"synthetic\"},");
+    sb.append("\"parameters\":");
+    appendParameters(sb, "service", perScope);
+    sb.append(",\"roles\":[");
+    for (int r = 0; r < roles; r++) {
+      String prefix = "role" + r;
+      if (r > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"name\":\"SYNTHETIC_ROLE_").append(r).append("\",")
+        .append("\"label\":\"Role ").append(r).append("\",")
+        .append("\"pluralLabel\":\"Roles ").append(r).append("\",")
+        .append("\"startRunner\":{\"program\":\"scripts/control.sh\",")
+        .append("\"args\":[\"${service_0}\",\"${").append(prefix).append("_0}\"]},")
+        .append("\"parameters\":");
+      appendParameters(sb, prefix, perScope);
+      sb.append(",\"configWriter\":{\"generators\":[{")
+        .append("\"filename\":\"").append(prefix).append(".properties\",")
+        .append("\"configFormat\":\"properties\",\"includedParams\":[");
+      for (int p = 0; p < perScope; p++) {
+        if (p > 0) {
+          sb.append(',');
+        }
+        sb.append('"').append(prefix).append('_').append(p).append('"');
+      }
+      sb.append("]}]}}");
+    }
+    sb.append("]}");
+    return sb.toString();
+  }
+
+  /**
+   * Generates a valid SDL with the given number of service parameters,
+   * cycling through the long, memory and double types. Every parameter
+   * has all four bounds, so each one is checked by several @Expression
+   * constraints.
+   *
+   * @param params the number of parameters.
+   * @return the SDL.
+   */
+  public static String boundedSdl(int params) {
+    Preconditions.checkArgument(params > 0);
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"name\":\"SYNTHETIC\",\"label\":\"Synthetic\",")
+      .append("\"description\":\"A synthetic service\",\"version\":1,")
+      .append("\"runAs\":{\"user\":\"synthetic\",\"group\":\"synthetic\"},")
+      .append("\"parameters\":[");
+    for (int p = 0; p < params; p++) {
+      if (p > 0) {
+        sb.append(',');
+      }
+      String type = BOUNDED_TYPES[p % BOUNDED_TYPES.length];
+      sb.append("{\"name\":\"param_").append(p).append("\",")
+        .append("\"label\":\"Label\",\"description\":\"Description\",")
+        .append("\"type\":\"").append(type).append("\",")
+        .append("\"default\":5,\"min\":1,\"softMin\":2,\"softMax\":8,\"max\":10}");
+    }
+    sb.append("],\"roles\":[]}");
+    return sb.toString();
+  }
+
+  /**
+   * Generates a valid MDL with the given number of metrics. The service,
+   * each role and each entity type define their own share of the
+   * metrics, and every fourth metric is a counter.
+   *
+   * @param metrics the number of metrics.
+   * @param roles the number of roles.
+   * @param entities the number of metric entity types.
+   * @return the MDL.
+   */
+  public static String mdl(int metrics, int roles, int entities) {
+    Preconditions.checkArgument(metrics > 0);
+    int perScope = Math.max(1, metrics / (roles + entities + 1));
+    int next = 0;
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"name\":\"SYNTHETIC\",\"version\":1,\"metricDefinitions\":[");
+    next = appendMetrics(sb, next, perScope);
+    sb.append("],\"roles\":[");
+    for (int r = 0; r < roles; r++) {
+      if (r > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"name\":\"ROLE_").append(r).append("\",\"metricDefinitions\":[");
+      next = appendMetrics(sb, next, perScope);
+      sb.append("]}");
+    }
+    sb.append("],\"metricEntityTypeDefinitions\":[");
+    for (int e = 0; e < entities; e++) {
+      if (e > 0) {
+        sb.append(',');
+      }
+      // Entity type names may not contain digits.
+      String suffix = letters(e);
+      sb.append("{\"name\":\"SYNTHETIC_ENTITY_").append(suffix).append("\",")
+        .append("\"nameForCrossEntityAggregateMetrics\":\"synthetic_entity_")
+        .append(suffix.toLowerCase()).append("s\",")
+        .append("\"label\":\"Label\",\"labelPlural\":\"Labels\",")
+        .append("\"description\":\"Description\",")
+        .append("\"immutableAttributeNames\":[\"serviceName\"],")
+        .append("\"entityNameFormat\":[\"serviceName\"],")
+        .append("\"parentMetricEntityTypeNames\":[\"SYNTHETIC\"],")
+        .append("\"metricDefinitions\":[");
+      next = appendMetrics(sb, next, perScope);
+      sb.append("]}");
+    }
+    sb.append("]}");
+    return sb.toString();
+  }
+
+  public static byte[] bytes(String json) {
+    return json.getBytes(Charsets.UTF_8);
+  }
+
+  /**
+   * @return A for 0, B for 1, ..., AA for 26 and so on.
+   */
+  private static String letters(int index) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = index; i >= 0; i = i / 26 - 1) {
+      sb.append((char) ('A' + i % 26));
+    }
+    return sb.reverse().toString();
+  }
+
+  private static void appendParameters(StringBuilder sb, String prefix, int count) {
+    sb.append('[');
+    for (int p = 0; p < count; p++) {
+      if (p > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"name\":\"").append(prefix).append('_').append(p).append("\",")
+        .append("\"label\":\"Label\",\"description\":\"Description\",")
+        .append("\"type\":\"string\",\"default\":\"value\"}");
+    }
+    sb.append(']');
+  }
+
+  private static int appendMetrics(StringBuilder sb, int next, int count) {
+    for (int m = 0; m < count; m++) {
+      if (m > 0) {
+        sb.append(',');
+      }
+      boolean counter = (next % 4 == 0);
+      sb.append("{\"name\":\"synthetic_metric_").append(next).append("\",")
+        .append("\"label\":\"Label ").append(next).append("\",")
+        .append("\"description\":\"Description\",")
+        .append("\"numeratorUnit\":\"bytes\"");
+      if (counter) {
+        sb.append(",\"counter\":true");
+      }
+      sb.append('}');
+      next++;
+    }
+    return next;
+  }
+}
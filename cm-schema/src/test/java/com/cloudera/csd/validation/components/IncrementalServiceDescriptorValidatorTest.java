@@ -0,0 +1,220 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.components;
+
+import com.cloudera.csd.descriptors.ServiceDescriptor;
+import com.cloudera.csd.validation.SdlTestUtils;
+import com.cloudera.csd.validation.SyntheticDescriptors;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import static org.junit.Assert.*;
+
+@ContextConfiguration({"classpath:spring-config.xml"})
+@RunWith(SpringJUnit4ClassRunner.class)
+public class IncrementalServiceDescriptorValidatorTest {
+
+  private static final String PARAMETER =
+      "{\"name\":\"%s\",\"label\":\"Label\",\"description\":\"Description\"," +
+      "\"type\":\"string\",\"default\":\"value\"}";
+
+  private static final List<String> FIXTURES = ImmutableList.of(
+      "service_badAutoConfigShares.sdl",
+      "service_badBoundsParameter.sdl",
+      "service_badCompatibility.sdl",
+      "service_badDependencyType.sdl",
+      "service_badHdfsDirPerm.sdl",
+      "service_badSslClientRef.sdl",
+      "service_badSslServerRef.sdl",
+      "service_badparcelurl.sdl",
+      "service_emptyName.sdl",
+      "service_emptyRequiredCollection.sdl",
+      "service_goodAutoConfigShares.sdl",
+      "service_goodBoundsParameter.sdl",
+      "service_missingName.sdl",
+      "service_missingRunAsUser.sdl",
+      "service_multipleErrors.sdl",
+      "service_nonUniqueRoleGlobal.sdl",
+      "service_nonUniqueServiceGlobal.sdl",
+      "service_nonunique.sdl",
+      "service_nonuniqueMultiple.sdl",
+      "service_serviceTypeNotUppercase.sdl",
+      "service_topologyRangeCheck.sdl",
+      "service_valid.sdl");
+
+  private static final List<String> REFERENCE_FIXTURES = ImmutableList.of(
+      "service_configWriter.sdl",
+      "service_externalLinks.sdl",
+      "service_gracefulStop.sdl",
+      "service_peerGeneratorAndPlacementRule.sdl",
+      "service_scopeConfigWriter.sdl",
+      "service_scopeGracefulStop.sdl",
+      "service_scopeServiceCmd.sdl",
+      "service_serviceCmd.sdl",
+      "service_serviceInit.sdl",
+      "service_subsCreateHdfsDir.sdl",
+      "service_subsExternalLinks.sdl",
+      "service_subsGracefulStop.sdl",
+      "service_subsLoggingDir.sdl",
+      "service_subsProcessRunner.sdl");
+
+  @Qualifier("serviceDescriptorValidatorWithDependencyCheck")
+  @Autowired
+  private ServiceDescriptorValidatorImpl fullValidator;
+
+  @Autowired
+  private IncrementalServiceDescriptorValidator validator;
+
+  private String sdl;
+
+  @Before
+  public void setUp() {
+    sdl = SyntheticDescriptors.sdl(400, 25);
+  }
+
+  @Test
+  public void testFixtures() {
+    for (String fixture : FIXTURES) {
+      assertSameViolations(SdlTestUtils.getValidatorSdl(fixture));
+    }
+    for (String fixture : REFERENCE_FIXTURES) {
+      assertSameViolations(SdlTestUtils.getReferenceValidatorSdl(fixture));
+    }
+    assertSameViolations(SdlTestUtils.getParserSdl("service_full.sdl"));
+    assertSameViolations(SdlTestUtils.getParserSdl("service_kms.sdl"));
+  }
+
+  @Test
+  public void testUnchanged() throws IOException {
+    assertTrue(validate(sdl).isEmpty());
+    assertTrue(validate(sdl).isEmpty());
+    assertEquals(0, validator.getValidatedUnits());
+    assertEquals(0, validator.getCheckedUnits());
+  }
+
+  @Test
+  public void testChangedDefault() throws IOException {
+    validate(sdl);
+    edit("\"name\":\"role3_2\",\"label\":\"Label\",\"description\":\"Description\"," +
+         "\"type\":\"string\",\"default\":\"value\"",
+         "\"name\":\"role3_2\",\"label\":\"Label\",\"description\":\"Description\"," +
+         "\"type\":\"string\",\"default\":\"other\"");
+    assertEquals(1, validator.getValidatedUnits());
+    assertEquals(1, validator.getCheckedUnits());
+  }
+
+  @Test
+  public void testRenamedParameter() throws IOException {
+    validate(sdl);
+    assertFalse(edit(name("role3_2"), name("role3_renamed")).isEmpty());
+    // The role, whose config writer refers to the parameter, and the
+    // parameters of the role are checked again.
+    assertEquals(1, validator.getValidatedUnits());
+    assertTrue(validator.getCheckedUnits() < 100);
+    assertTrue(edit(name("role3_renamed"), name("role3_2")).isEmpty());
+  }
+
+  @Test
+  public void testAddedAndRemovedParameter() throws IOException {
+    validate(sdl);
+    edit(String.format(PARAMETER, "role5_0") + ",",
+         String.format(PARAMETER, "role5_new") + "," + String.format(PARAMETER, "role5_0") + ",");
+    assertEquals(1, validator.getValidatedUnits());
+    edit(String.format(PARAMETER, "role5_new") + ",", "");
+    assertEquals(0, validator.getValidatedUnits());
+    edit(String.format(PARAMETER, "role5_1") + ",", "");
+  }
+
+  @Test
+  public void testDuplicateName() throws IOException {
+    validate(sdl);
+    assertFalse(edit(name("role7_3"), name("role7_4")).isEmpty());
+    assertTrue(edit(name("role7_4"), name("role7_3")).isEmpty());
+  }
+
+  @Test
+  public void testInvalidThenFixed() throws IOException {
+    validate(sdl);
+    edit(name("service_1"), name("bad name"));
+    edit("\"label\":\"Role 4\"", "\"label\":\"\"");
+    edit(name("bad name"), name("service_1"));
+    assertTrue(edit("\"label\":\"\"", "\"label\":\"Role 4\"").isEmpty());
+  }
+
+  @Test
+  public void testReorderedRoles() throws IOException {
+    validate(sdl);
+    int start = sdl.indexOf("{\"name\":\"SYNTHETIC_ROLE_1\"");
+    int middle = sdl.indexOf("{\"name\":\"SYNTHETIC_ROLE_2\"");
+    int end = sdl.indexOf("{\"name\":\"SYNTHETIC_ROLE_3\"");
+    String reordered = sdl.substring(0, start)
+        + sdl.substring(middle, end - 1) + "," + sdl.substring(start, middle - 1) + ","
+        + sdl.substring(end);
+    assertTrue(validateAndCompare(reordered).isEmpty());
+    assertEquals(0, validator.getValidatedUnits());
+  }
+
+  @Test
+  public void testReset() throws IOException {
+    validate(sdl);
+    validator.reset();
+    validate(sdl);
+    assertTrue(validator.getValidatedUnits() > 400);
+  }
+
+  private static String name(String name) {
+    return "\"name\":\"" + name + "\"";
+  }
+
+  /**
+   * Replaces the first occurrence of the text in the SDL and validates
+   * the result.
+   */
+  private Set<String> edit(String from, String to) throws IOException {
+    int index = sdl.indexOf(from);
+    assertTrue(from, index >= 0);
+    return validateAndCompare(sdl.substring(0, index) + to + sdl.substring(index + from.length()));
+  }
+
+  private Set<String> validateAndCompare(String edited) throws IOException {
+    sdl = edited;
+    return validate(sdl);
+  }
+
+  private Set<String> validate(String json) throws IOException {
+    return assertSameViolations(SdlTestUtils.SDL_PARSER.parse(json.getBytes(Charsets.UTF_8)));
+  }
+
+  private Set<String> assertSameViolations(ServiceDescriptor descriptor) {
+    Set<String> violations = validator.validate(descriptor);
+    assertEquals(ImmutableSet.copyOf(fullValidator.validate(descriptor)),
+                 ImmutableSet.copyOf(violations));
+    return violations;
+  }
+}
@@ -20,12 +20,17 @@ import com.cloudera.csd.descriptors.parameters.BoundedParameter;
 import com.cloudera.csd.validation.SdlTestUtils;
 import com.cloudera.csd.validation.constraints.EntityTypeFormat;
 import com.cloudera.csd.validation.constraints.Expression;
+import com.cloudera.csd.validation.constraints.ServiceDependencyValidationGroup;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 
 import java.util.Set;
 
 import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import javax.validation.metadata.ConstraintDescriptor;
 
 import org.hibernate.validator.constraints.NotBlank;
@@ -46,6 +51,9 @@ public class ServiceDescriptorValidatorImplTest {
   @Autowired
   private ServiceDescriptorValidatorImpl validator;
 
+  @Autowired
+  private Validator beanValidator;
+
   @Test
   public void testFullSdl() {
     assertEquals(ImmutableSet.of(),
@@ -142,6 +150,35 @@ public class ServiceDescriptorValidatorImplTest {
     assertEquals("foo must be a valid service type", Iterables.getOnlyElement(errors));
   }
 
+  @Test
+  public void testBadServiceDependencies() throws Exception {
+    ServiceDescriptor descriptor = SdlTestUtils.SDL_PARSER.parse((
+        "{\"name\":\"ECHO\",\"label\":\"\",\"description\":\"The echo service\"," +
+        "\"version\":1,\"runAs\":{\"user\":\"echo\",\"group\":\"echo\"}," +
+        "\"serviceDependencies\":[{\"name\":\"foo\"},{\"name\":\"HDFS\"},{\"name\":\"bar\"}]}")
+        .getBytes(Charsets.UTF_8));
+    assertEquals(ImmutableList.of(
+            "service.label must be present and not blank",
+            "foo must be a valid service type",
+            "bar must be a valid service type"),
+        ImmutableList.copyOf(validator.validate(descriptor)));
+
+    Set<String> expected = Sets.newHashSet();
+    for (ConstraintViolation<ServiceDescriptor> violation :
+        beanValidator.validate(descriptor, ServiceDependencyValidationGroup.class)) {
+      expected.add(ServiceDescriptorValidatorImpl.formatDependencyViolation(
+          violation.getPropertyPath().toString(), violation.getMessage()));
+    }
+    Set<String> actual = Sets.newHashSet();
+    for (ConstraintViolation<Object> violation :
+        new SparseGroupValidator(beanValidator, ServiceDependencyValidationGroup.class)
+            .validate(descriptor)) {
+      actual.add(ServiceDescriptorValidatorImpl.formatDependencyViolation(
+          violation.getPropertyPath(), violation.getMessage()));
+    }
+    assertEquals(expected, actual);
+  }
+
   @Test
   public void testNonUniqueRoleGlobally() {
     Set<String> errors = validate("service_nonUniqueRoleGlobal.sdl");
@@ -21,8 +21,20 @@ import static org.junit.Assert.assertTrue;
 
 import com.cloudera.csd.descriptors.ServiceMonitoringDefinitionsDescriptor;
 import com.cloudera.csd.validation.SdlTestUtils;
-
+import com.cloudera.csd.validation.SyntheticDescriptors;
+import com.cloudera.csd.validation.monitoring.MonitoringValidatorPipeline;
+import com.cloudera.csd.validation.monitoring.MonitoringValidatorPipeline.Stage;
+import com.cloudera.csd.validation.monitoring.constraints.MetricNamePrefixedWithServiceNameValidator;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.validation.ConstraintViolation;
 
@@ -235,4 +247,145 @@ public class ServiceMonitoringDefinitionsDescriptorValidatorImplTest {
         validator.validate(SdlTestUtils.getValidatorMdl(
             "monitoring/unknown_additional_mutable_attribute.mdl")).size());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testDisabledValidator() {
+    MonitoringValidatorPipeline pipeline = validator.getPipeline();
+    assertEquals(1, pipeline.setEnabled(
+        MetricNamePrefixedWithServiceNameValidator.class, false));
+    try {
+      assertTrue(validator.getViolations(SdlTestUtils.getValidatorMdl(
+          "monitoring/service_with_bad_prefixes.mdl")).isEmpty());
+    } finally {
+      pipeline.setEnabled(MetricNamePrefixedWithServiceNameValidator.class, true);
+    }
+    assertEquals(2, validator.getViolations(SdlTestUtils.getValidatorMdl(
+        "monitoring/service_with_bad_prefixes.mdl")).size());
+  }
+
+  @Test
+  public void testTiming() {
+    MonitoringValidatorPipeline pipeline = validator.getPipeline();
+    pipeline.resetTimings();
+    pipeline.setTimingEnabled(true);
+    try {
+      validator.getViolations(SdlTestUtils.getValidatorMdl(
+          "monitoring/service_with_bad_prefixes.mdl"));
+    } finally {
+      pipeline.setTimingEnabled(false);
+    }
+    Stage<?> prefixStage = null;
+    for (Stage<?> stage : pipeline.getStages()) {
+      if (stage.getValidator() instanceof MetricNamePrefixedWithServiceNameValidator) {
+        prefixStage = stage;
+      }
+    }
+    assertNotNull(prefixStage);
+    assertTrue(prefixStage.getInvocations() > 0);
+    assertEquals(2, prefixStage.getViolations());
+
+    pipeline.resetTimings();
+    assertEquals(0, prefixStage.getInvocations());
+  }
+
+  @Test
+  public void testParallelMatchesSequential() throws Exception {
+    List<ServiceMonitoringDefinitionsDescriptor> descriptors = Lists.newArrayList();
+    for (String mdl : ImmutableList.of(
+        "monitoring/service_full.mdl",
+        "monitoring/service_with_bad_prefixes.mdl",
+        "monitoring/service_badAttributeName.mdl",
+        "monitoring/service_bad_entity_name.mdl",
+        "monitoring/inconsistent_metric_label.mdl",
+        "monitoring/echo_overriding_service_and_role_name_for_aggregates.mdl")) {
+      descriptors.add(SdlTestUtils.getValidatorMdl(mdl));
+    }
+    String generated = SyntheticDescriptors.mdl(5000, 10, 10)
+        .replace("synthetic_metric_1", "bad_metric_1");
+    descriptors.add(SdlTestUtils.MDL_PARSER.parse(generated.getBytes(Charsets.UTF_8)));
+
+    List<List<String>> sequential = Lists.newArrayList();
+    for (ServiceMonitoringDefinitionsDescriptor descriptor : descriptors) {
+      sequential.add(describe(validator.validateDescriptor(descriptor)));
+    }
+    assertTrue(sequential.get(descriptors.size() - 1).size() > 1000);
+
+    validator.setParallelism(4);
+    validator.setParallelThreshold(0);
+    try {
+      assertEquals(4, validator.getParallelism());
+      for (int i = 0; i < descriptors.size(); i++) {
+        assertEquals(sequential.get(i),
+            describe(validator.validateDescriptor(descriptors.get(i))));
+      }
+    } finally {
+      validator.setParallelism(1);
+      validator.setParallelThreshold(4000);
+    }
+    assertEquals(1, validator.getParallelism());
+  }
+
+  @Test
+  public void testSetParallelismDuringValidation() throws Exception {
+    String generated = SyntheticDescriptors.mdl(5000, 10, 10)
+        .replace("synthetic_metric_1", "bad_metric_1");
+    final ServiceMonitoringDefinitionsDescriptor descriptor =
+        SdlTestUtils.MDL_PARSER.parse(generated.getBytes(Charsets.UTF_8));
+    final List<String> expected = describe(validator.validateDescriptor(descriptor));
+
+    validator.setParallelism(4);
+    validator.setParallelThreshold(0);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> validations = executor.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          int runs = 0;
+          for (; runs < 20; runs++) {
+            assertEquals(expected, describe(validator.validateDescriptor(descriptor)));
+          }
+          return runs;
+        }
+      });
+      while (!validations.isDone()) {
+        validator.setParallelism(2);
+        validator.setParallelism(4);
+      }
+      assertEquals(20, validations.get().intValue());
+    } finally {
+      executor.shutdownNow();
+      validator.setParallelism(1);
+      validator.setParallelThreshold(4000);
+    }
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    ServiceMonitoringDefinitionsDescriptor descriptor = SdlTestUtils.MDL_PARSER.parse(
+        SyntheticDescriptors.mdl(5000, 10, 10).getBytes(Charsets.UTF_8));
+    List<String> expected = describe(validator.validateDescriptor(descriptor));
+
+    validator.setParallelism(4);
+    validator.setParallelism(4);
+    assertEquals(4, validator.getParallelism());
+    validator.close();
+    assertEquals(1, validator.getParallelism());
+    assertEquals(expected, describe(validator.validateDescriptor(descriptor)));
+    // A closed validator can still be given a new pool.
+    validator.setParallelism(2);
+    try {
+      assertEquals(2, validator.getParallelism());
+    } finally {
+      validator.close();
+    }
+  }
+
+  private static List<String> describe(
+      Set<ConstraintViolation<ServiceMonitoringDefinitionsDescriptor>> violations) {
+    List<String> ret = Lists.newArrayList();
+    for (ConstraintViolation<ServiceMonitoringDefinitionsDescriptor> violation : violations) {
+      ret.add(violation.getPropertyPath() + ": " + violation.getMessage());
+    }
+    return ret;
+  }
+}
@@ -33,6 +33,7 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelParseException;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ExpressionValidatorImplTest {
@@ -62,9 +63,37 @@ public class ExpressionValidatorImplTest {
     }
   }
 
+  @Expression("field1 < field2 and field2 < field3")
+  public static class OtherBean {
+    private final int field1;
+    private final int field2;
+    private final int field3;
+
+    public OtherBean(int field1, int field2, int field3) {
+      this.field1 = field1;
+      this.field2 = field2;
+      this.field3 = field3;
+    }
+
+    public int getField1() {
+      return field1;
+    }
+
+    public int getField2() {
+      return field2;
+    }
+
+    public int getField3() {
+      return field3;
+    }
+  }
+
   @Expression("garbage123")
   public static class BadExpressionBean {}
 
+  @Expression("field1 <")
+  public static class UnparseableExpressionBean {}
+
   @Expression("field1 < 5")
   public static class NotComparableBean {
     public Collection<String> field1; // not Comparable
@@ -104,6 +133,24 @@ public class ExpressionValidatorImplTest {
     verify(validator).addViolation(eq(context), anyString());
   }
 
+  @Test
+  public void testSharedExpressionDifferentClasses() {
+    validator.initialize(TestBean.class.getAnnotation(Expression.class));
+    ExpressionValidatorImpl other = new ExpressionValidatorImpl();
+    other.initialize(OtherBean.class.getAnnotation(Expression.class));
+    for (int i = 0; i < 3; i++) {
+      assertTrue(validator.isValid(new TestBean("a", "b", "c"), context));
+      assertTrue(other.isValid(new OtherBean(1, 2, 3), context));
+      assertTrue(validator.isValid(new OtherBean(1, 2, 3), context));
+      assertFalse(validator.isValid(new OtherBean(3, 2, 1), context));
+    }
+  }
+
+  @Test(expected=SpelParseException.class)
+  public void testUnparseableExpression() {
+    validator.initialize(UnparseableExpressionBean.class.getAnnotation(Expression.class));
+  }
+
   @Test(expected=SpelEvaluationException.class)
   public void testBadExpression() {
     validator.initialize(BadExpressionBean.class.getAnnotation(Expression.class));
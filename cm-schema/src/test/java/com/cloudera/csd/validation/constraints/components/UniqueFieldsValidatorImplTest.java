@@ -0,0 +1,127 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.constraints.components;
+
+import com.cloudera.csd.validation.constraints.UniqueFields;
+import com.cloudera.csd.validation.constraints.components.UniqueFieldValidatorImplTest.TestBean;
+import com.google.common.collect.ImmutableList;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.ValidationException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UniqueFieldsValidatorImplTest {
+
+  @Mock
+  private ConstraintValidatorContext context;
+
+  @Spy
+  @InjectMocks
+  private UniqueFieldsValidatorImpl validator;
+
+  @UniqueFields({ "field1", "field2" })
+  public List<TestBean> beans = ImmutableList.of();
+
+  @UniqueFields(value = { "field1", "field2" }, skipNulls = false)
+  public List<TestBean> beans2 = ImmutableList.of();
+
+  @UniqueFields({ "field1", "missing" })
+  public List<TestBean> beans3 = ImmutableList.of();
+
+  @Test
+  public void testNoDuplicate() {
+    beans = ImmutableList.of(new TestBean("a", "b"), new TestBean("b", "a"));
+    doNothing().when(validator).addViolation(eq(context), anyString());
+    validator.initialize(getAnnotation("beans"));
+    assertTrue(validator.isValid(beans, context));
+    verify(validator, never()).addViolation(eq(context), anyString());
+  }
+
+  @Test
+  public void testOneDuplicateField() {
+    beans = ImmutableList.of(new TestBean("a", "b"), new TestBean("c", "d"), new TestBean("e", "b"));
+    doNothing().when(validator).addViolation(eq(context), anyString());
+    validator.initialize(getAnnotation("beans"));
+    assertFalse(validator.isValid(beans, context));
+    verify(validator).addViolation(context, "field2");
+    verify(validator, never()).addViolation(context, "field1");
+  }
+
+  @Test
+  public void testAllFieldsDuplicate() {
+    beans = ImmutableList.of(new TestBean("a", "b"), new TestBean("a", "c"),
+                             new TestBean("d", "c"), new TestBean("a", "c"));
+    doNothing().when(validator).addViolation(eq(context), anyString());
+    validator.initialize(getAnnotation("beans"));
+    assertFalse(validator.isValid(beans, context));
+    verify(validator, times(1)).addViolation(context, "field1");
+    verify(validator, times(1)).addViolation(context, "field2");
+  }
+
+  @Test
+  public void testNullValuesSkipped() {
+    beans = ImmutableList.of(new TestBean(null, "a"), new TestBean(null, "b"));
+    doNothing().when(validator).addViolation(eq(context), anyString());
+    validator.initialize(getAnnotation("beans"));
+    assertTrue(validator.isValid(beans, context));
+    verify(validator, never()).addViolation(eq(context), anyString());
+  }
+
+  @Test
+  public void testNullValuesNotSkipped() {
+    beans2 = ImmutableList.of(new TestBean(null, "a"), new TestBean(null, "b"));
+    doNothing().when(validator).addViolation(eq(context), anyString());
+    validator.initialize(getAnnotation("beans2"));
+    assertFalse(validator.isValid(beans2, context));
+    verify(validator).addViolation(context, "field1");
+    verify(validator, never()).addViolation(context, "field2");
+  }
+
+  @Test
+  public void testNullCollection() {
+    validator.initialize(getAnnotation("beans"));
+    assertTrue(validator.isValid(null, context));
+  }
+
+  @Test(expected = ValidationException.class)
+  public void testMissingProperty() {
+    beans3 = ImmutableList.of(new TestBean("a", "b"));
+    validator.initialize(getAnnotation("beans3"));
+    validator.isValid(beans3, context);
+  }
+
+  private UniqueFields getAnnotation(String fieldName) {
+    try {
+      Field field = UniqueFieldsValidatorImplTest.class.getField(fieldName);
+      field.setAccessible(true);
+      return field.getAnnotation(UniqueFields.class);
+    } catch (NoSuchFieldException e) {
+      return null;
+    }
+  }
+}
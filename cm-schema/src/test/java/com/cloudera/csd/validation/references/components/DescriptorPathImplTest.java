@@ -0,0 +1,151 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import static org.junit.Assert.*;
+
+import com.cloudera.csd.validation.references.annotations.Named;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.lang.reflect.Method;
+import java.util.NoSuchElementException;
+
+import javax.validation.ElementKind;
+import javax.validation.Path.Node;
+
+import org.junit.Test;
+import org.springframework.util.ReflectionUtils;
+
+public class DescriptorPathImplTest {
+
+  private final Root root = new Root();
+  private final Child child = new Child("child");
+  private final Method getter = ReflectionUtils.findMethod(Child.class, "getName");
+
+  @Test
+  public void testPushAndPop() {
+    DescriptorPathImpl empty = new DescriptorPathImpl();
+    DescriptorPathImpl rootPath = empty.addBeanNode(root);
+    DescriptorPathImpl propPath = rootPath.addPropertyNode(getter, false);
+    DescriptorPathImpl childPath = propPath.addBeanNode(child);
+
+    assertEquals("Root.name.child", childPath.toString());
+    assertEquals("child", childPath.getHeadNode().getName());
+    assertEquals("Root", childPath.getTailNode().getName());
+    assertSame(propPath, childPath.removeFromHead());
+    assertSame(empty, rootPath.removeFromHead());
+    assertNull(empty.getHeadNode());
+    assertNull(empty.getTailNode());
+    // The original path is untouched.
+    assertEquals("Root.name", propPath.toString());
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testPopEmpty() {
+    new DescriptorPathImpl().removeFromHead();
+  }
+
+  @Test
+  public void testEqualsAndHashCode() {
+    DescriptorPathImpl a = new DescriptorPathImpl()
+        .addBeanNode(root).addPropertyNode(getter, false).addBeanNode(child);
+    DescriptorPathImpl b = new DescriptorPathImpl()
+        .addBeanNode(root).addPropertyNode(getter, false).addBeanNode(child);
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    // Same hash code as a list of the same nodes.
+    assertEquals(Lists.newArrayList(a).hashCode(), a.hashCode());
+
+    DescriptorPathImpl other = new DescriptorPathImpl()
+        .addBeanNode(root).addPropertyNode(getter, false).addBeanNode(new Child("other"));
+    assertFalse(a.equals(other));
+    assertFalse(a.equals(a.removeFromHead()));
+  }
+
+  @Test
+  public void testBeansComparedByIdentity() {
+    DescriptorPathImpl a = new DescriptorPathImpl()
+        .addBeanNode(root).addPropertyNode(getter, false).addBeanNode(new ValueChild("child"));
+    DescriptorPathImpl b = new DescriptorPathImpl()
+        .addBeanNode(root).addPropertyNode(getter, false).addBeanNode(new ValueChild("child"));
+    assertFalse(a.equals(b));
+  }
+
+  @Test
+  public void testOnlyInclude() {
+    DescriptorPathImpl rootPath = new DescriptorPathImpl().addBeanNode(root);
+    DescriptorPathImpl propPath = rootPath.addPropertyNode(getter, false);
+    DescriptorPathImpl childPath = propPath.addBeanNode(child);
+
+    DescriptorPathImpl beans = childPath.onlyInclude(ElementKind.BEAN);
+    assertEquals("Root.child", beans.toString());
+    assertSame(beans, childPath.onlyInclude(ElementKind.BEAN));
+    assertSame(rootPath, rootPath.onlyInclude(ElementKind.BEAN));
+    assertSame(rootPath, propPath.onlyInclude(ElementKind.BEAN));
+    assertEquals(new DescriptorPathImpl().addBeanNode(root).addBeanNode(child), beans);
+
+    assertEquals("name", childPath.onlyInclude(ElementKind.PROPERTY).toString());
+    assertSame(childPath, childPath.onlyInclude(ElementKind.BEAN, ElementKind.PROPERTY));
+  }
+
+  @Test
+  public void testIteratorAndContains() {
+    DescriptorPathImpl path = new DescriptorPathImpl()
+        .addBeanNode(root).addPropertyNode(getter, false).addBeanNode(child);
+    ImmutableList<String> names = ImmutableList.of("Root", "name", "child");
+    int i = 0;
+    for (Node node : path) {
+      assertEquals(names.get(i++), node.getName());
+    }
+    assertEquals(3, i);
+    assertTrue(path.contains("child", ElementKind.BEAN));
+    assertTrue(path.contains("name", ElementKind.PROPERTY));
+    assertFalse(path.contains("name", ElementKind.BEAN));
+  }
+
+  public static class Root {
+  }
+
+  @Named
+  public static class Child {
+    private final String name;
+
+    public Child(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  public static class ValueChild extends Child {
+    public ValueChild(String name) {
+      super(name);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return (o instanceof ValueChild) && getName().equals(((ValueChild) o).getName());
+    }
+
+    @Override
+    public int hashCode() {
+      return getName().hashCode();
+    }
+  }
+}
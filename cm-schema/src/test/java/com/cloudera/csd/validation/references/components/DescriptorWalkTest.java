@@ -0,0 +1,93 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import static org.junit.Assert.*;
+
+import com.cloudera.csd.validation.references.DescriptorPath;
+import com.cloudera.csd.validation.references.components.DescriptorVisitorImpl.AbstractNodeProcessor;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+import javax.validation.Valid;
+
+import org.junit.Test;
+
+public class DescriptorWalkTest {
+
+  private final DescriptorVisitorImpl visitor = new DescriptorVisitorImpl();
+
+  @Test
+  public void testReplayMatchesVisit() {
+    Descriptor descriptor = new Descriptor();
+    List<String> visited = visitor.visit(descriptor, new EventLog());
+
+    EventLog delegate = new EventLog();
+    DescriptorWalk walk = visitor.visit(descriptor, new DescriptorWalk(delegate));
+    assertEquals(visited, delegate.getResult());
+    assertEquals(visited, walk.replay(new EventLog()));
+    // Replaying twice gives the same walk.
+    assertEquals(visited, walk.replay(new EventLog()));
+  }
+
+  @Test
+  public void testNodes() {
+    DescriptorWalk walk = visitor.visit(new Descriptor(), new DescriptorWalk());
+    // Descriptor, subs, Sub, name, Sub, name
+    assertEquals(6, walk.size());
+    assertEquals(-1, walk.getParent(0));
+    assertEquals(0, walk.getParent(1));
+    assertEquals(1, walk.getParent(2));
+    assertEquals(2, walk.getParent(3));
+    assertEquals(1, walk.getParent(4));
+    assertEquals("Descriptor.subs.Sub.name", walk.getPath(3).toString());
+    assertTrue(walk.getObject(2) instanceof Sub);
+  }
+
+  private static class EventLog extends AbstractNodeProcessor<List<String>> {
+    private final List<String> events = Lists.newArrayList();
+
+    @Override
+    public void beforeNode(Object obj, DescriptorPath path) {
+      events.add("before " + path);
+    }
+
+    @Override
+    public void afterNode(Object obj, DescriptorPath oldPath) {
+      events.add("after " + oldPath);
+    }
+
+    @Override
+    public List<String> getResult() {
+      return events;
+    }
+  }
+
+  public static class Descriptor {
+    @Valid
+    public List<Sub> getSubs() {
+      return ImmutableList.of(new Sub(), new Sub());
+    }
+  }
+
+  public static class Sub {
+    public String getName() {
+      return "sub";
+    }
+  }
+}
@@ -0,0 +1,158 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import static org.junit.Assert.*;
+
+import com.cloudera.csd.validation.references.DescriptorPath;
+import com.cloudera.csd.validation.references.annotations.Named;
+import com.cloudera.csd.validation.references.annotations.ReferenceType;
+import com.cloudera.csd.validation.references.annotations.Referenced;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
+import java.lang.reflect.Method;
+
+import javax.validation.ElementKind;
+
+import org.junit.Test;
+import org.springframework.util.ReflectionUtils;
+
+public class ReferenceIndexTest {
+
+  private final Root root = new Root();
+  private final Role roleA = new Role("A");
+  private final Role roleB = new Role("B");
+  private final Param serviceParam = new Param("service_param");
+  private final Param paramA = new Param("a_param");
+  private final Param paramB = new Param("b_param");
+  private final Logging logging = new Logging();
+
+  private final Method getter = ReflectionUtils.findMethod(Role.class, "getName");
+
+  private final DescriptorPathImpl rootPath = new DescriptorPathImpl().addBeanNode(root);
+  private final DescriptorPathImpl roleAPath = rootPath.addBeanNode(roleA);
+  private final DescriptorPathImpl roleBPath = rootPath.addBeanNode(roleB);
+
+  @Test
+  public void testParentScope() {
+    ReferenceIndex index = buildIndex();
+    assertEquals(6, index.size());
+
+    SetMultimap<ReferenceType, String> rootRefs = index.getRelatedReferences(rootPath, "");
+    assertEquals(ImmutableList.of("service_param"),
+                 ImmutableList.copyOf(rootRefs.get(ReferenceType.PARAMETER)));
+    assertEquals(ImmutableList.of("A", "B"),
+                 ImmutableList.copyOf(rootRefs.get(ReferenceType.ROLE)));
+
+    SetMultimap<ReferenceType, String> roleRefs = index.getRelatedReferences(roleAPath, "");
+    assertEquals(ImmutableList.of("a_param", "log_dir"),
+                 ImmutableList.copyOf(roleRefs.get(ReferenceType.PARAMETER)));
+    assertTrue(roleRefs.get(ReferenceType.ROLE).isEmpty());
+  }
+
+  @Test
+  public void testPropertyNodesAreIgnored() {
+    ReferenceIndex index = buildIndex();
+    DescriptorPathImpl propertyPath = roleBPath.addPropertyNode(getter, false);
+    assertEquals(ImmutableList.of("b_param"),
+                 ImmutableList.copyOf(index.getRelatedReferences(propertyPath, "")
+                                           .get(ReferenceType.PARAMETER)));
+  }
+
+  @Test
+  public void testAdditionalScope() {
+    ReferenceIndex index = buildIndex();
+    SetMultimap<ReferenceType, String> refs = index.getRelatedReferences(roleBPath, "A");
+    // Everything with role A in its path, plus role B's own references,
+    // in the order they were added.
+    assertEquals(ImmutableList.of("a_param", "log_dir", "b_param"),
+                 ImmutableList.copyOf(refs.get(ReferenceType.PARAMETER)));
+    assertEquals(ImmutableList.of("A"),
+                 ImmutableList.copyOf(refs.get(ReferenceType.ROLE)));
+  }
+
+  @Test
+  public void testUnknownScope() {
+    ReferenceIndex index = buildIndex();
+    DescriptorPathImpl unknown = rootPath.addBeanNode(new Role("C"));
+    assertTrue(index.getRelatedReferences(unknown, "D").isEmpty());
+    assertTrue(index.getRelatedReferences(unknown, null).isEmpty());
+  }
+
+  @Test
+  public void testMatchesCollector() {
+    SetMultimap<ReferenceType, DescriptorPath> refs = LinkedHashMultimap.create();
+    refs.put(ReferenceType.PARAMETER, beanPath(rootPath.addBeanNode(serviceParam)));
+    refs.put(ReferenceType.PARAMETER, beanPath(roleAPath.addBeanNode(paramA)));
+    ReferenceIndex index = ReferenceIndex.of(refs);
+    assertEquals(2, index.size());
+    assertEquals(ImmutableList.of("a_param"),
+                 ImmutableList.copyOf(index.getRelatedReferences(roleAPath, "")
+                                           .get(ReferenceType.PARAMETER)));
+  }
+
+  private ReferenceIndex buildIndex() {
+    ReferenceIndex index = new ReferenceIndex();
+    index.add(ReferenceType.PARAMETER, beanPath(rootPath.addBeanNode(serviceParam)));
+    index.add(ReferenceType.ROLE, beanPath(roleAPath));
+    index.add(ReferenceType.PARAMETER, beanPath(roleAPath.addBeanNode(paramA)));
+    index.add(ReferenceType.PARAMETER, beanPath(roleAPath.addBeanNode(logging)));
+    index.add(ReferenceType.ROLE, beanPath(roleBPath));
+    index.add(ReferenceType.PARAMETER, beanPath(roleBPath.addBeanNode(paramB)));
+    return index;
+  }
+
+  private static DescriptorPath beanPath(DescriptorPathImpl path) {
+    return path.onlyInclude(ElementKind.BEAN);
+  }
+
+  public static class Root {
+  }
+
+  @Named
+  @Referenced(type = ReferenceType.ROLE)
+  public static class Role {
+    private final String name;
+
+    public Role(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  @Named
+  @Referenced(type = ReferenceType.PARAMETER)
+  public static class Param {
+    private final String name;
+
+    public Param(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  @Referenced(type = ReferenceType.PARAMETER, as = {"log_dir"})
+  public static class Logging {
+  }
+}
@@ -0,0 +1,75 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.csd.validation.references.components;
+
+import static org.junit.Assert.*;
+
+import com.cloudera.csd.validation.references.annotations.ReferenceType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSetMultimap;
+
+import org.junit.Test;
+
+public class ReferenceScopeImplTest {
+
+  @Test
+  public void testEmpty() {
+    ReferenceScopeImpl scope = ReferenceScopeImpl.empty();
+    assertFalse(scope.contains(ReferenceType.PARAMETER, "a"));
+    assertTrue(scope.getReferences(ReferenceType.PARAMETER).isEmpty());
+  }
+
+  @Test
+  public void testWith() {
+    ReferenceScopeImpl root = ReferenceScopeImpl.empty();
+    ReferenceScopeImpl service = root.with(ImmutableSetMultimap.of(
+        ReferenceType.PARAMETER, "b",
+        ReferenceType.PARAMETER, "a",
+        ReferenceType.ROLE, "role"));
+    ReferenceScopeImpl role = service.with(ImmutableSetMultimap.of(
+        ReferenceType.PARAMETER, "c",
+        ReferenceType.PARAMETER, "a"));
+
+    assertTrue(service.contains(ReferenceType.PARAMETER, "a"));
+    assertFalse(service.contains(ReferenceType.PARAMETER, "c"));
+    assertFalse(service.contains(ReferenceType.ROLE, "a"));
+    assertTrue(role.contains(ReferenceType.PARAMETER, "c"));
+    assertTrue(role.contains(ReferenceType.ROLE, "role"));
+    assertFalse(root.contains(ReferenceType.PARAMETER, "a"));
+
+    assertEquals(ImmutableList.of("b", "a"), service.getReferences(ReferenceType.PARAMETER));
+    assertEquals(ImmutableList.of("b", "a", "c"), role.getReferences(ReferenceType.PARAMETER));
+    assertEquals(ImmutableList.of("role"), role.getReferences(ReferenceType.ROLE));
+  }
+
+  @Test
+  public void testSharedWhenNothingIsAdded() {
+    ReferenceScopeImpl service = ReferenceScopeImpl.empty().with(
+        ImmutableSetMultimap.of(ReferenceType.PARAMETER, "a"));
+    assertSame(service, service.with(ImmutableSetMultimap.of(ReferenceType.PARAMETER, "a")));
+    assertSame(service, service.with(ImmutableSetMultimap.<ReferenceType, String>of()));
+  }
+
+  @Test
+  public void testSiblingScopes() {
+    ReferenceScopeImpl root = ReferenceScopeImpl.empty();
+    ReferenceScopeImpl first = root.with(ImmutableSetMultimap.of(ReferenceType.PARAMETER, "a"));
+    ReferenceScopeImpl second = root.with(ImmutableSetMultimap.of(ReferenceType.PARAMETER, "b"));
+    assertFalse(first.contains(ReferenceType.PARAMETER, "b"));
+    assertFalse(second.contains(ReferenceType.PARAMETER, "a"));
+    assertEquals(ImmutableList.of("b"), second.getReferences(ReferenceType.PARAMETER));
+  }
+}
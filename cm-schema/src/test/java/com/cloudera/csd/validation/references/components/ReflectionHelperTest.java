@@ -144,6 +144,30 @@ public class ReflectionHelperTest {
     assertEquals(2, ReflectionHelper.getterMethods(childB).size());
   }
 
+  @Test
+  public void testClassMetadata() {
+    ClassMetadata metadata = ReflectionHelper.classMetadata(childA);
+    assertSame(metadata, ReflectionHelper.classMetadata(childA));
+    assertEquals(ReflectionHelper.getterMethods(childA), metadata.getGetterMethods());
+    assertEquals("blah", metadata.getNamed().value());
+    assertNull(metadata.getReferenced());
+    assertNotNull(metadata.findAnnotation(Component.class));
+    assertNull(metadata.findAnnotation(Scope.class));
+    assertEquals("var", metadata.propertyValue(childAObj, "var"));
+
+    ClassMetadata.Getter getter = metadata.getGetter(childAgetVar);
+    assertEquals("var", getter.getPropertyName());
+    assertEquals("var", getter.invoke(childAObj));
+    assertFalse(getter.isValid());
+    assertFalse(getter.returnsCollection());
+    assertNull(metadata.getGetter(childABar));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testClassMetadataUnknownProperty() {
+    ReflectionHelper.classMetadata(childA).propertyValue(childAObj, "missing");
+  }
+
   @Test
   public void testPropetyNameOfGetter() {
     assertEquals("var", ReflectionHelper.propertyNameOfGetter(childAgetVar));
@@ -94,6 +94,22 @@ public class ParcelDescriptorValidatorImplTest {
     assertEquals("parcel.scripts.defines must be present and not blank", Iterables.getOnlyElement(violations));
   }
 
+  @Test
+  public void testDuplicatePackage() {
+    assertEquals(2, ParcelTestUtils.getValidatorJson("duplicate_package.json").getPackages().size());
+    Set<String> violations = validate("duplicate_package.json");
+    assertEquals(1, violations.size());
+    assertEquals("parcel.packages[].name must be unique in list", Iterables.getOnlyElement(violations));
+  }
+
+  @Test
+  public void testDuplicateComponent() {
+    assertEquals(2, ParcelTestUtils.getValidatorJson("duplicate_component.json").getComponents().size());
+    Set<String> violations = validate("duplicate_component.json");
+    assertEquals(1, violations.size());
+    assertEquals("parcel.components[].name must be unique in list", Iterables.getOnlyElement(violations));
+  }
+
   private void assertConstraint(ConstraintViolation<?> violation, Class<?> constraint) {
     ConstraintDescriptor<?> descriptor = violation.getConstraintDescriptor();
     assertEquals(constraint, descriptor.getAnnotation().annotationType());
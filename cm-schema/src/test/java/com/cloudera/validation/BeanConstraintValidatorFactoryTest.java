@@ -80,6 +80,47 @@ public class BeanConstraintValidatorFactoryTest {
     verify(beanFactory).destroyBean(validatorBeanName, validator);
   }
 
+  @Test
+  public void testBeanNamesCached() {
+    String[] names = {validatorBeanName};
+    when(beanFactory.getBeanNamesForType(validatorType)).thenReturn(names);
+    when(beanFactory.isPrototype(validatorBeanName)).thenReturn(true);
+    when(beanFactory.getBean(validatorBeanName, validatorType)).thenReturn(validator);
+    factory.getInstance(validatorType);
+    factory.getInstance(validatorType);
+    verify(beanFactory, times(1)).getBeanNamesForType(validatorType);
+    verify(beanFactory, times(2)).getBean(validatorBeanName, validatorType);
+  }
+
+  @Test
+  public void testStatelessValidatorShared() {
+    Class<StatelessTestConstraintValidator> type = StatelessTestConstraintValidator.class;
+    StatelessTestConstraintValidator stateless = new StatelessTestConstraintValidator();
+    String[] names = {validatorBeanName};
+    when(beanFactory.getBeanNamesForType(type)).thenReturn(names);
+    when(beanFactory.isPrototype(validatorBeanName)).thenReturn(true);
+    when(beanFactory.getBean(validatorBeanName, type)).thenReturn(stateless);
+    assertSame(stateless, factory.getInstance(type));
+    assertSame(stateless, factory.getInstance(type));
+    verify(beanFactory, times(1)).getBean(validatorBeanName, type);
+
+    factory.releaseInstance(stateless);
+    verify(beanFactory, never()).destroyBean(anyString(), any());
+  }
+
+  @Test
+  public void testStatelessValidatorNotInherited() {
+    Class<StatefulTestConstraintValidator> type = StatefulTestConstraintValidator.class;
+    String[] names = {validatorBeanName};
+    when(beanFactory.getBeanNamesForType(type)).thenReturn(names);
+    when(beanFactory.isPrototype(validatorBeanName)).thenReturn(true);
+    when(beanFactory.getBean(validatorBeanName, type))
+        .thenReturn(new StatefulTestConstraintValidator());
+    factory.getInstance(type);
+    factory.getInstance(type);
+    verify(beanFactory, times(2)).getBean(validatorBeanName, type);
+  }
+
   public static class TestConstraintValidator implements ConstraintValidator<Annotation, Object> {
 
     @Override
@@ -90,4 +131,11 @@ public class BeanConstraintValidatorFactoryTest {
       return true;
     }
   }
+
+  @StatelessValidator
+  public static class StatelessTestConstraintValidator extends TestConstraintValidator {
+  }
+
+  public static class StatefulTestConstraintValidator extends StatelessTestConstraintValidator {
+  }
 }
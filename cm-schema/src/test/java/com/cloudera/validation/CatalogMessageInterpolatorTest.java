@@ -0,0 +1,125 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.cloudera.csd.StringInterpolator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.validation.MessageInterpolator;
+import javax.validation.MessageInterpolator.Context;
+import javax.validation.Validation;
+import javax.validation.metadata.ConstraintDescriptor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CatalogMessageInterpolatorTest {
+
+  private static final String MIN = "{javax.validation.constraints.Min.message}";
+  private static final String PATTERN = "{javax.validation.constraints.Pattern.message}";
+
+  private final Locale locale = Locale.getDefault();
+
+  private final StringInterpolator stringInterpolator = new StringInterpolator();
+
+  @Mock
+  private MessageInterpolator fallback;
+
+  @Mock
+  private Context context;
+
+  @Mock
+  private ConstraintDescriptor<?> descriptor;
+
+  private CatalogMessageInterpolator interpolator;
+
+  @Before
+  public void setUp() {
+    doReturn(descriptor).when(context).getConstraintDescriptor();
+    interpolator = new CatalogMessageInterpolator(MessageCatalog.getDefault(),
+                                                  stringInterpolator,
+                                                  fallback);
+  }
+
+  @Test
+  public void testCachedMessage() {
+    attributes(ImmutableMap.<String, Object>of("value", 5L));
+    assertEquals("must be more than 5", interpolator.interpolate(MIN, context, locale));
+    assertEquals("must be more than 5", interpolator.interpolate(MIN, context, locale));
+    assertEquals(1, interpolator.getCachedMessages());
+
+    attributes(ImmutableMap.<String, Object>of("value", 7L));
+    assertEquals("must be more than 7", interpolator.interpolate(MIN, context, locale));
+    assertEquals(2, interpolator.getCachedMessages());
+    verifyZeroInteractions(fallback);
+  }
+
+  @Test
+  public void testUnresolvedMessage() {
+    attributes(ImmutableMap.<String, Object>of("regexp", "[a-z]{3}"));
+    when(fallback.interpolate("must match [a-z]{3}", context, locale)).thenReturn("resolved");
+    assertEquals("resolved", interpolator.interpolate(PATTERN, context, locale));
+    assertEquals("resolved", interpolator.interpolate(PATTERN, context, locale));
+    assertEquals(0, interpolator.getCachedMessages());
+    verify(fallback, times(2)).interpolate("must match [a-z]{3}", context, locale);
+  }
+
+  @Test
+  public void testSameAsChain() {
+    MessageInterpolator defaultInterpolator =
+        Validation.byDefaultProvider().configure().getDefaultMessageInterpolator();
+    MessageInterpolator chain = new MessageSourceInterpolator(
+        new TemplateMessageInterpolator(defaultInterpolator, stringInterpolator));
+    interpolator = new CatalogMessageInterpolator(MessageCatalog.getDefault(),
+                                                  stringInterpolator,
+                                                  defaultInterpolator);
+    List<String> templates = ImmutableList.of(
+        MIN,
+        PATTERN,
+        "{custom.validation.constraints.ParcelName.message}",
+        "{org.hibernate.validator.constraints.Range.message}",
+        "{someKey}",
+        "a plain message");
+    List<Map<String, Object>> attributeMaps = ImmutableList.<Map<String, Object>>of(
+        ImmutableMap.<String, Object>of("value", 5L, "min", 1, "max", 10, "regexp", "[a-z]*"),
+        ImmutableMap.<String, Object>of("value", 0L, "min", 0, "max", 0, "regexp", "[A-Z_]+"));
+    for (Map<String, Object> attributes : attributeMaps) {
+      attributes(attributes);
+      for (String template : templates) {
+        for (int i = 0; i < 2; i++) {
+          assertEquals(chain.interpolate(template, context, locale),
+                       interpolator.interpolate(template, context, locale));
+        }
+      }
+    }
+  }
+
+  private void attributes(Map<String, Object> attributes) {
+    doReturn(attributes).when(descriptor).getAttributes();
+  }
+}
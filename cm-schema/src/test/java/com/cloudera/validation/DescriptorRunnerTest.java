@@ -0,0 +1,117 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import static org.junit.Assert.*;
+
+import com.cloudera.common.Parser;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DescriptorRunnerTest {
+
+  private static final byte[] DATA = "{}".getBytes(Charsets.UTF_8);
+
+  private File dir;
+  private ResultCache cache;
+  private int parses;
+
+  private final Parser<String> parser = new Parser<String>() {
+    @Override
+    public String parse(byte[] data) throws IOException {
+      parses++;
+      String text = new String(data, Charsets.UTF_8);
+      if (text.equals("bad")) {
+        throw new IOException("Malformed");
+      }
+      return text;
+    }
+  };
+
+  private final DescriptorValidator<String> failingValidator = new DescriptorValidator<String>() {
+    @Override
+    public Set<String> validate(String descriptor) {
+      throw new IllegalStateException("Validator failed");
+    }
+  };
+
+  private final DescriptorValidator<String> passingValidator = new DescriptorValidator<String>() {
+    @Override
+    public Set<String> validate(String descriptor) {
+      return ImmutableSet.of();
+    }
+  };
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDir();
+    cache = ResultCache.open(dir, "1", "");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    cache.close();
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testCachedResult() throws IOException {
+    DescriptorRunner<String> runner =
+        new DescriptorRunner<String>(parser, passingValidator, cache, "test");
+    assertTrue(runner.run("first", DATA, new StringWriter()));
+    assertTrue(runner.run("second", DATA, new StringWriter()));
+    assertEquals(1, parses);
+    assertEquals(ImmutableList.of(), cache.get(cache.key("test", DATA)));
+  }
+
+  @Test
+  public void testParseErrorIsCached() throws IOException {
+    DescriptorRunner<String> runner =
+        new DescriptorRunner<String>(parser, passingValidator, cache, "test");
+    byte[] bad = "bad".getBytes(Charsets.UTF_8);
+    StringWriter writer = new StringWriter();
+    assertFalse(runner.run("bad", bad, writer));
+    assertTrue(writer.toString().contains("==> Malformed\n"));
+    assertEquals(ImmutableList.of("Malformed"), cache.get(cache.key("test", bad)));
+  }
+
+  @Test
+  public void testUnexpectedFailureIsNotCached() throws IOException {
+    DescriptorRunner<String> runner =
+        new DescriptorRunner<String>(parser, failingValidator, cache, "test");
+    StringWriter writer = new StringWriter();
+    assertFalse(runner.run("first", DATA, writer));
+    assertTrue(writer.toString().contains("==> Validator failed\n"));
+    assertEquals(0, cache.size());
+
+    // The data is validated again once the validator works.
+    runner = new DescriptorRunner<String>(parser, passingValidator, cache, "test");
+    assertTrue(runner.run("second", DATA, new StringWriter()));
+    assertEquals(2, parses);
+  }
+}
@@ -0,0 +1,59 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MessageCatalogTest {
+
+  private final MessageCatalog catalog = MessageCatalog.getDefault();
+
+  @Test
+  public void testDefault() {
+    assertSame(catalog, MessageCatalog.getDefault());
+    assertEquals("must be more than ${value}",
+                 catalog.getMessage("javax.validation.constraints.Min.message"));
+    assertEquals("must not contain any '-' characters",
+                 catalog.getMessage("custom.validation.constraints.ParcelName.message"));
+    assertNull(catalog.getMessage("someKey"));
+  }
+
+  @Test
+  public void testTranslate() {
+    assertEquals("must be present",
+                 catalog.translate("{javax.validation.constraints.NotNull.message}"));
+    assertEquals("must be present",
+                 catalog.translate("javax.validation.constraints.NotNull.message"));
+    assertEquals("someKey", catalog.translate("{someKey}"));
+    assertEquals("some message", catalog.translate("some message"));
+  }
+
+  @Test
+  public void testMessages() {
+    MessageCatalog custom = new MessageCatalog(ImmutableMap.of("key", "message"));
+    assertEquals("message", custom.translate("{key}"));
+    assertEquals("other", custom.translate("other"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingResource() {
+    MessageCatalog.load("no_such.properties");
+  }
+}
@@ -0,0 +1,50 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.cloudera.validation.ValidationMetrics.Counter;
+import com.cloudera.validation.ValidationMetrics.Phase;
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricRegistryMetricsTest {
+
+  private final MetricRegistry registry = new MetricRegistry();
+
+  @Test
+  public void testRegister() {
+    MetricRegistryMetrics metrics = new MetricRegistryMetrics(registry);
+    assertTrue(metrics.isEnabled());
+    metrics.recordTime(Phase.PARSE, 1000);
+    metrics.increment(Counter.BYTES_READ, 10);
+    assertEquals(1, registry.timer("validation.parse").getCount());
+    assertEquals(10, registry.counter("validation.bytesRead").getCount());
+    assertEquals(Phase.values().length, registry.getTimers().size());
+    assertEquals(Counter.values().length, registry.getCounters().size());
+  }
+
+  @Test
+  public void testPrefix() {
+    MetricRegistryMetrics first = new MetricRegistryMetrics(registry, "schema");
+    MetricRegistryMetrics second = new MetricRegistryMetrics(registry, "schema");
+    first.increment(Counter.REFERENCE_NODES_VISITED, 1);
+    second.increment(Counter.REFERENCE_NODES_VISITED, 2);
+    assertEquals(3, registry.counter("schema.referenceNodesVisited").getCount());
+  }
+}
@@ -0,0 +1,173 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import static org.junit.Assert.*;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCacheTest {
+
+  private static final byte[] DATA = "{\"name\":\"ECHO\"}".getBytes(Charsets.UTF_8);
+  private static final List<String> ERRORS =
+      ImmutableList.of("name must be valid", "version: ünknown");
+
+  private File dir;
+
+  @Before
+  public void setUp() {
+    dir = Files.createTempDir();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testKeys() throws IOException {
+    ResultCache cache = ResultCache.open(dir, "1", "strict=false");
+    ResultCache strict = ResultCache.open(dir, "1", "strict=true");
+    ResultCache newer = ResultCache.open(dir, "2", "strict=false");
+    String key = cache.key("sdl", DATA);
+    assertEquals(key, cache.key("sdl", DATA.clone()));
+    assertFalse(key.equals(cache.key("mdl", DATA)));
+    assertFalse(key.equals(cache.key("sdl", "{}".getBytes(Charsets.UTF_8))));
+    assertFalse(key.equals(strict.key("sdl", DATA)));
+    assertFalse(key.equals(newer.key("sdl", DATA)));
+    cache.close();
+    strict.close();
+    newer.close();
+  }
+
+  @Test
+  public void testReopen() throws IOException {
+    ResultCache cache = ResultCache.open(dir, "1", "");
+    String bad = cache.key("sdl", DATA);
+    String good = cache.key("mdl", DATA);
+    assertNull(cache.get(bad));
+    cache.put(bad, ERRORS);
+    cache.put(good, ImmutableList.<String>of());
+    assertEquals(ERRORS, cache.get(bad));
+    cache.close();
+
+    cache = ResultCache.open(dir, "1", "");
+    assertEquals(2, cache.size());
+    assertEquals(ERRORS, cache.get(bad));
+    assertEquals(ImmutableList.of(), cache.get(good));
+    cache.close();
+  }
+
+  @Test
+  public void testCorruptRecordsAreEvicted() throws IOException {
+    ResultCache cache = ResultCache.open(dir, "1", "");
+    String first = cache.key("sdl", DATA);
+    String second = cache.key("mdl", DATA);
+    cache.put(first, ERRORS);
+    cache.close();
+    File log = new File(dir, ResultCache.LOG_NAME);
+    long firstEnd = log.length();
+
+    cache = ResultCache.open(dir, "1", "");
+    cache.put(second, ERRORS);
+    cache.close();
+
+    // Flip a byte in the second record, then cut the log in the middle of it.
+    RandomAccessFile file = new RandomAccessFile(log, "rw");
+    try {
+      file.seek(log.length() - 6);
+      int b = file.read();
+      file.seek(log.length() - 6);
+      file.write(b ^ 0xff);
+    } finally {
+      file.close();
+    }
+    cache = ResultCache.open(dir, "1", "");
+    assertEquals(ERRORS, cache.get(first));
+    assertNull(cache.get(second));
+    assertEquals(firstEnd, log.length());
+
+    // New results are appended after the last good record.
+    cache.put(second, ERRORS);
+    cache.close();
+    file = new RandomAccessFile(log, "rw");
+    try {
+      file.setLength(log.length() - 3);
+    } finally {
+      file.close();
+    }
+    cache = ResultCache.open(dir, "1", "");
+    assertEquals(1, cache.size());
+    assertEquals(firstEnd, log.length());
+    cache.close();
+  }
+
+  @Test
+  public void testStaleLogIsDiscarded() throws IOException {
+    ResultCache cache = ResultCache.open(dir, "1", "");
+    cache.put(cache.key("sdl", DATA), ERRORS);
+    cache.close();
+
+    cache = ResultCache.open(dir, "2", "");
+    assertEquals(0, cache.size());
+    cache.close();
+    cache = ResultCache.open(dir, "1", "");
+    assertEquals(0, cache.size());
+    cache.close();
+  }
+
+  @Test
+  public void testGarbageLogIsDiscarded() throws IOException {
+    Files.write("not a log".getBytes(Charsets.UTF_8), new File(dir, ResultCache.LOG_NAME));
+    ResultCache cache = ResultCache.open(dir, "1", "");
+    assertEquals(0, cache.size());
+    String key = cache.key("sdl", DATA);
+    cache.put(key, ERRORS);
+    cache.close();
+    cache = ResultCache.open(dir, "1", "");
+    assertEquals(ERRORS, cache.get(key));
+    cache.close();
+  }
+
+  @Test
+  public void testSharedDirectory() throws IOException {
+    ResultCache first = ResultCache.open(dir, "1", "");
+    ResultCache second = ResultCache.open(dir, "1", "");
+    String sdl = first.key("sdl", DATA);
+    String mdl = first.key("mdl", DATA);
+    first.put(sdl, ERRORS);
+    second.put(mdl, ImmutableList.<String>of());
+    first.close();
+    second.close();
+
+    ResultCache cache = ResultCache.open(dir, "1", "");
+    assertEquals(ERRORS, cache.get(sdl));
+    assertEquals(ImmutableList.of(), cache.get(mdl));
+    cache.close();
+  }
+}
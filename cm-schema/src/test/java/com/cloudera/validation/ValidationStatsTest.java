@@ -0,0 +1,67 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.validation;
+
+import com.cloudera.validation.ValidationMetrics.Counter;
+import com.cloudera.validation.ValidationMetrics.Phase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ValidationStatsTest {
+
+  private final ValidationStats stats = new ValidationStats();
+
+  @Test
+  public void testRecord() {
+    stats.recordTime(Phase.PARSE, 1000);
+    stats.recordTime(Phase.PARSE, 2000);
+    stats.increment(Counter.BYTES_READ, 10);
+    stats.increment(Counter.BYTES_READ, 5);
+    assertEquals(2, stats.getRuns(Phase.PARSE));
+    assertEquals(3000, stats.getNanos(Phase.PARSE));
+    assertEquals(0, stats.getRuns(Phase.MONITORING));
+    assertEquals(15, stats.getCount(Counter.BYTES_READ));
+    assertEquals(0, stats.getCount(Counter.REFERENCE_NODES_VISITED));
+  }
+
+  @Test
+  public void testSummary() {
+    stats.recordTime(Phase.BEAN_VALIDATION, 2500000);
+    stats.increment(Counter.REFERENCE_NODES_VISITED, 42);
+    String summary = stats.toSummary();
+    assertTrue(summary.startsWith("Statistics:\n"));
+    assertTrue(summary.contains("  beanValidation                      1 runs        2.500 ms\n"));
+    assertTrue(summary.contains("  referenceNodesVisited              42\n"));
+  }
+
+  @Test
+  public void testJson() {
+    stats.recordTime(Phase.REFERENCE_WALK, 1500000);
+    stats.increment(Counter.REFERENCE_GETTERS_INVOKED, 7);
+    String json = stats.toJson();
+    assertTrue(json.startsWith("{\"phases\":{\"parse\":{\"runs\":0,\"millis\":0.0}"));
+    assertTrue(json.contains("\"referenceWalk\":{\"runs\":1,\"millis\":1.5}"));
+    assertTrue(json.contains("\"counters\":{\"referenceNodesVisited\":0,\"referenceGettersInvoked\":7,"));
+  }
+
+  @Test
+  public void testDisabled() {
+    assertTrue(stats.isEnabled());
+    assertFalse(ValidationMetrics.DISABLED.isEnabled());
+  }
+}
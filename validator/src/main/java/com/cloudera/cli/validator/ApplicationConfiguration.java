@@ -22,28 +22,32 @@ import com.cloudera.common.Parser;
 import com.cloudera.config.DefaultValidatorConfiguration;
 import com.cloudera.validation.DescriptorRunner;
 import com.cloudera.validation.DescriptorValidator;
+import com.cloudera.validation.ResultCache;
 import com.cloudera.validation.ValidationRunner;
+import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
+import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Arrays;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @ComponentScan("com.cloudera.cli.validator.components")
-public class ApplicationConfiguration extends DefaultValidatorConfiguration {
+public class ApplicationConfiguration extends DefaultValidatorConfiguration
+    implements DisposableBean {
 
   private static final Logger LOG = LoggerFactory.getLogger(ApplicationConfiguration.class);
 
+  private ResultCache resultCache;
+  private boolean resultCacheOpened;
+
   private <T> DescriptorRunner<T> createValidationRunner(String parserName, String validatorName) {
     @SuppressWarnings("unchecked")
     Parser<T> parser = ctx.getBean(parserName, Parser.class);
@@ -51,7 +55,58 @@ public class ApplicationConfiguration extends DefaultValidatorConfiguration {
     @SuppressWarnings("unchecked")
     DescriptorValidator<T> validator =
         ctx.getBean(validatorName, DescriptorValidator.class);
-    return new DescriptorRunner<T>(parser, validator);
+    return new DescriptorRunner<T>(parser,
+                                   validator,
+                                   getResultCache(),
+                                   parserName + "/" + validatorName,
+                                   getValidationMetrics());
+  }
+
+  /**
+   * Opens the result cache the first time it is needed, if there is a
+   * cache directory.
+   *
+   * @return the result cache, or null if results aren't cached.
+   */
+  private synchronized ResultCache getResultCache() {
+    if (!resultCacheOpened && ctx.containsBean(CommandLineOptions.BEAN_NAME)) {
+      resultCacheOpened = true;
+      CommandLineOptions cmdOptions = ctx.getBean(CommandLineOptions.BEAN_NAME,
+          CommandLineOptions.class);
+      resultCache = openResultCache(cmdOptions, builtInServiceTypes());
+    }
+    return resultCache;
+  }
+
+  /**
+   * Opens the result cache in the cache directory of the command line,
+   * if there is one. The results depend on the strict mode and on the
+   * known service types, so they are part of the cache configuration.
+   *
+   * @return the result cache, or null if results aren't cached.
+   */
+  static ResultCache openResultCache(CommandLineOptions cmdOptions, Set<String> serviceTypes) {
+    File cacheDir = cmdOptions.getCacheDir();
+    if (cacheDir == null) {
+      return null;
+    }
+    String configuration = "strict=" + cmdOptions.getStrictMode()
+        + ",serviceTypes=" + Ordering.natural().sortedCopy(serviceTypes);
+    try {
+      return ResultCache.open(cacheDir, configuration);
+    } catch (IOException e) {
+      LOG.error("Failed to open the result cache in {}, results will not be cached",
+          cacheDir,
+          e);
+      return null;
+    }
+  }
+
+  @Override
+  public synchronized void destroy() throws IOException {
+    if (resultCache != null) {
+      resultCache.close();
+    }
   }
 
   @Override
@@ -60,32 +115,7 @@ public class ApplicationConfiguration extends DefaultValidatorConfiguration {
     if (ctx.containsBean(CommandLineOptions.BEAN_NAME)) {
       CommandLineOptions cmdOptions = ctx.getBean(CommandLineOptions.BEAN_NAME,
           CommandLineOptions.class);
-      String extraServiceTypeFileName = cmdOptions.getOptionValue(
-          CommandLineOptions.EXTRA_SERVICE_TYPE_FILE);
-      String extraServiceTypeList = cmdOptions.getOptionValue(
-          CommandLineOptions.EXTRA_SERVICE_TYPES);
-
-      if (extraServiceTypeFileName != null) {
-        try {
-          validServiceTypes.addAll(
-              Files.readAllLines(
-                  Paths.get(extraServiceTypeFileName),
-                  Charset.defaultCharset()));
-        } catch (IOException e) {
-          LOG.error("Failed to read extra service type file: {}",
-              extraServiceTypeFileName,
-              e);
-        }
-      } else if (extraServiceTypeList != null) {
-        try {
-          validServiceTypes.addAll(
-              Arrays.asList(extraServiceTypeList.split(" ")));
-        } catch (Exception e) {
-          LOG.error("Failed to parse extra service type list: {}",
-              extraServiceTypeList,
-              e);
-        }
-      }
+      validServiceTypes.addAll(cmdOptions.getExtraServiceTypes());
     }
     return validServiceTypes;
   }
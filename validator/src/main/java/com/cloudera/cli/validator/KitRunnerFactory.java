@@ -0,0 +1,169 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator;
+
+import com.cloudera.cli.validator.components.CommandLineOptions;
+import com.cloudera.cli.validator.components.CommandLineOptions.Mode;
+import com.cloudera.cli.validator.components.ManifestBuilder;
+import com.cloudera.cli.validator.components.ParcelDirectoryRunner;
+import com.cloudera.cli.validator.components.ParcelFileRunner;
+import com.cloudera.common.Parser;
+import com.cloudera.config.ValidatorKit;
+import com.cloudera.parcel.descriptors.AlternativesDescriptor;
+import com.cloudera.parcel.descriptors.ManifestDescriptor;
+import com.cloudera.parcel.descriptors.ParcelDescriptor;
+import com.cloudera.parcel.descriptors.PermissionsDescriptor;
+import com.cloudera.validation.DescriptorRunner;
+import com.cloudera.validation.DescriptorValidator;
+import com.cloudera.validation.ResultCache;
+import com.cloudera.validation.ValidationRunner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Builds the same runners as {@link ApplicationConfiguration} from a
+ * {@link ValidatorKit}, without an application context. A runner and
+ * the parsers and validators it needs are only built the first time
+ * its mode is asked for.
+ */
+public class KitRunnerFactory implements RunnerFactory, Closeable {
+
+  private final ValidatorKit kit;
+  @Nullable
+  private final CommandLineOptions cmdOptions;
+  private final Map<Mode, ValidationRunner> runners = Maps.newEnumMap(Mode.class);
+  private ResultCache resultCache;
+  private boolean resultCacheOpened;
+
+  /**
+   * @param kit the parsers and validators.
+   * @param cmdOptions the command line options, or null if there is no
+   *     command line.
+   */
+  public KitRunnerFactory(ValidatorKit kit, @Nullable CommandLineOptions cmdOptions) {
+    Preconditions.checkNotNull(kit);
+    this.kit = kit;
+    this.cmdOptions = cmdOptions;
+  }
+
+  public ValidatorKit getKit() {
+    return kit;
+  }
+
+  @Override
+  public synchronized ValidationRunner getRunner(Mode mode) {
+    Preconditions.checkNotNull(mode);
+    ValidationRunner runner = runners.get(mode);
+    if (runner == null) {
+      runner = createRunner(mode);
+      runners.put(mode, runner);
+    }
+    return runner;
+  }
+
+  private ValidationRunner createRunner(Mode mode) {
+    switch (mode) {
+      case SDL_FILE:
+        return createDescriptorRunner(kit.getSdlParser(),
+            kit.getServiceDescriptorValidator(true),
+            "sdlParser/serviceDescriptorValidatorWithDependencyCheck");
+      case MDL_FILE:
+        return createDescriptorRunner(kit.getMdlParser(),
+            kit.getServiceMonitoringDefinitionsDescriptorValidator(),
+            "mdlParser/serviceMonitoringDefinitionsDescriptorValidator");
+      case PARCEL_JSON:
+        return createDescriptorRunner(kit.getParcelParser(),
+            kit.getParcelDescriptorValidator(),
+            "parcelParser/parcelDescriptorValidator");
+      case ALTERNATIVES_JSON:
+        return createDescriptorRunner(kit.getAlternativesParser(),
+            kit.getAlternativesDescriptorValidator(),
+            "alternativesParser/alternativesDescriptorValidator");
+      case PERMISSIONS_JSON:
+        return createDescriptorRunner(kit.getPermissionsParser(),
+            kit.getPermissionsDescriptorValidator(),
+            "permissionsParser/permissionsDescriptorValidator");
+      case MANIFEST_JSON:
+        return createDescriptorRunner(kit.getManifestParser(),
+            kit.getManifestDescriptorValidator(),
+            "manifestParser/manifestDescriptorValidator");
+      case PARCEL_DIR:
+        return new ParcelDirectoryRunner(kit.getParcelParser(),
+            kit.getAlternativesParser(),
+            kit.getPermissionsParser(),
+            getRunner(Mode.PARCEL_JSON),
+            getRunner(Mode.ALTERNATIVES_JSON),
+            getRunner(Mode.PERMISSIONS_JSON));
+      case PARCEL_FILE:
+        return new ParcelFileRunner(kit.getParcelParser(),
+            kit.getAlternativesParser(),
+            kit.getPermissionsParser(),
+            this.<ParcelDescriptor>getDescriptorRunner(Mode.PARCEL_JSON),
+            this.<AlternativesDescriptor>getDescriptorRunner(Mode.ALTERNATIVES_JSON),
+            this.<PermissionsDescriptor>getDescriptorRunner(Mode.PERMISSIONS_JSON),
+            cmdOptions,
+            kit.getMetrics());
+      case MAKE_MANIFEST:
+        return new ManifestBuilder(
+            this.<ManifestDescriptor>getDescriptorRunner(Mode.MANIFEST_JSON),
+            cmdOptions,
+            kit.getMetrics());
+      default:
+        throw new IllegalArgumentException("Unknown mode: " + mode);
+    }
+  }
+
+  /**
+   * The namespaces are the ones of {@link ApplicationConfiguration}, so
+   * both share the results in the cache.
+   */
+  private <T> DescriptorRunner<T> createDescriptorRunner(Parser<T> parser,
+                                                         DescriptorValidator<T> validator,
+                                                         String namespace) {
+    return new DescriptorRunner<T>(parser, validator, getResultCache(), namespace,
+                                   kit.getMetrics());
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> DescriptorRunner<T> getDescriptorRunner(Mode mode) {
+    return (DescriptorRunner<T>) getRunner(mode);
+  }
+
+  private ResultCache getResultCache() {
+    if (!resultCacheOpened && cmdOptions != null) {
+      resultCacheOpened = true;
+      resultCache = ApplicationConfiguration.openResultCache(cmdOptions, kit.getServiceTypes());
+    }
+    return resultCache;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      if (resultCache != null) {
+        resultCache.close();
+      }
+    } finally {
+      kit.close();
+    }
+  }
+}
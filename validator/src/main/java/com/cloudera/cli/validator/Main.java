@@ -16,15 +16,33 @@
 package com.cloudera.cli.validator;
 
 import com.cloudera.cli.validator.components.CommandLineOptions;
+import com.cloudera.cli.validator.components.CommandLineOptions.Mode;
+import com.cloudera.cli.validator.components.CommandLineOptions.StatsFormat;
+import com.cloudera.cli.validator.components.CommandLineOptions.Target;
 import com.cloudera.cli.validator.components.Constants;
+import com.cloudera.config.BuiltIns;
 import com.cloudera.config.DefaultValidatorConfiguration;
+import com.cloudera.config.ValidatorKit;
 import com.cloudera.csd.components.JsonSdlObjectMapper;
+import com.cloudera.csd.validation.components.ServiceMonitoringDefinitionsDescriptorValidatorImpl;
+import com.cloudera.validation.ValidationMetrics;
 import com.cloudera.validation.ValidationRunner;
+import com.cloudera.validation.ValidationStats;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +50,6 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.BeanInstantiationException;
 import org.springframework.beans.factory.BeanCreationException;
-import org.springframework.beans.factory.config.BeanDefinition;
-import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 /**
@@ -65,32 +81,68 @@ public class Main {
    */
   public int run(String[] args) throws IOException {
     Writer writer = new OutputStreamWriter(outStream, Constants.CHARSET_UTF_8);
-    AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
+    AnnotationConfigApplicationContext ctx = null;
+    KitRunnerFactory kitRunners = null;
+    ValidationStats stats = null;
     try {
-      BeanDefinition cmdOptsbeanDefinition = BeanDefinitionBuilder
-          .rootBeanDefinition(CommandLineOptions.class)
-          .addConstructorArgValue(appName)
-          .addConstructorArgValue(args)
-          .getBeanDefinition();
-      ctx.registerBeanDefinition(CommandLineOptions.BEAN_NAME, cmdOptsbeanDefinition);
-      ctx.register(ApplicationConfiguration.class);
-      ctx.refresh();
-      CommandLineOptions cmdOptions = ctx.getBean(CommandLineOptions.BEAN_NAME, CommandLineOptions.class);
-      CommandLineOptions.Mode mode = cmdOptions.getMode();
-      if (mode == null) {
+      CommandLineOptions cmdOptions = new CommandLineOptions(appName, args);
+      Integer port = cmdOptions.getServerPort();
+      List<Target> targets = cmdOptions.getTargets();
+      if (targets.isEmpty() && port == null) {
         throw new ParseException("No valid command line arguments");
       }
+      // A server never finishes, so it has nothing to report.
+      StatsFormat statsFormat = cmdOptions.getStatsFormat();
+      if (statsFormat != null && port == null) {
+        stats = new ValidationStats();
+      }
+      ValidationMetrics metrics = (stats != null) ? stats : ValidationMetrics.DISABLED;
 
-      JsonSdlObjectMapper mapper =
-          ctx.getBean(DefaultValidatorConfiguration.OBJECT_MAPPER_BEAN_NAME,
-                      JsonSdlObjectMapper.class);
-      mapper.setFailOnUnknownProperties(cmdOptions.getStrictMode());
+      RunnerFactory runners;
+      if (cmdOptions.getFastStart()) {
+        Set<String> serviceTypes = Sets.newHashSet(BuiltIns.SERVICE_TYPES);
+        serviceTypes.addAll(cmdOptions.getExtraServiceTypes());
+        kitRunners = new KitRunnerFactory(
+            new ValidatorKit(serviceTypes, cmdOptions.getStrictMode(), metrics), cmdOptions);
+        runners = kitRunners;
+      } else {
+        ctx = new AnnotationConfigApplicationContext();
+        ctx.getBeanFactory().registerSingleton(CommandLineOptions.BEAN_NAME, cmdOptions);
+        ctx.getBeanFactory().registerSingleton(
+            DefaultValidatorConfiguration.VALIDATION_METRICS_BEAN_NAME, metrics);
+        ctx.register(ApplicationConfiguration.class);
+        ctx.refresh();
+        JsonSdlObjectMapper mapper =
+            ctx.getBean(DefaultValidatorConfiguration.OBJECT_MAPPER_BEAN_NAME,
+                        JsonSdlObjectMapper.class);
+        mapper.setFailOnUnknownProperties(cmdOptions.getStrictMode());
+        runners = new ContextRunnerFactory(ctx);
+      }
 
-      ValidationRunner runner = ctx.getBean(mode.runnerName, ValidationRunner.class);
-      boolean success = runner.run(cmdOptions.getCommandLineOptionActiveTarget(), writer);
+      int threads = cmdOptions.getThreads();
+      if (port != null) {
+        return runServer(runners, port, threads, writer);
+      }
+      if (cmdOptions.isBatch()) {
+        int ret = runBatch(runners, targets, threads, writer);
+        writeStats(stats, statsFormat, writer);
+        return ret;
+      }
+
+      // A single MDL is split across the threads instead.
+      Target target = targets.get(0);
+      if (target.getMode() == Mode.MDL_FILE) {
+        ServiceMonitoringDefinitionsDescriptorValidatorImpl mdlValidator = (kitRunners != null)
+            ? kitRunners.getKit().getServiceMonitoringDefinitionsDescriptorValidator()
+            : ctx.getBean(ServiceMonitoringDefinitionsDescriptorValidatorImpl.class);
+        mdlValidator.setParallelism(threads);
+      }
+      ValidationRunner runner = runners.getRunner(target.getMode());
+      boolean success = runner.run(target.getTarget(), writer);
       if (success) {
         writer.write("Validation succeeded.\n");
       }
+      writeStats(stats, statsFormat, writer);
       return success ? 0 : -1;
     } catch (BeanCreationException e) {
       String cause = e.getMessage();
@@ -113,10 +165,149 @@ public class Main {
       if (ctx != null) {
         ctx.close();
       }
+      if (kitRunners != null) {
+        kitRunners.close();
+      }
       writer.close();
     }
   }
 
+  /**
+   * Writes the statistics of the run, if they were asked for.
+   */
+  private static void writeStats(ValidationStats stats,
+                                 StatsFormat format,
+                                 Writer writer) throws IOException {
+    if (stats == null) {
+      return;
+    }
+    switch (format) {
+      case JSON:
+        writer.write(stats.toJson() + "\n");
+        break;
+      default:
+        writer.write(stats.toSummary());
+        break;
+    }
+  }
+
+  /**
+   * Serves validation requests with the runners until
+   * the process is terminated.
+   *
+   * @return 0 once the server has stopped.
+   */
+  private int runServer(RunnerFactory runners,
+                        int port,
+                        int threads,
+                        Writer writer) throws IOException {
+    final ValidationServer server = new ValidationServer(runners, port, threads);
+    server.start();
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        server.stop();
+      }
+    });
+    writer.write(String.format("Listening on %s\n", server.getUrl()));
+    writer.flush();
+    try {
+      server.awaitStop();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      server.stop();
+    }
+    return 0;
+  }
+
+  /**
+   * Validates every target with the runner of its mode, reusing the
+   * runners. Targets are validated in parallel, each
+   * into its own buffer, and the buffers are written out in the order
+   * of the targets. A failure in one target doesn't stop the others.
+   * Each target gets a result line, and a summary line is written at
+   * the end.
+   *
+   * @return 0 if every target passed, -1 otherwise.
+   */
+  private int runBatch(final RunnerFactory runners,
+                       List<Target> targets,
+                       int threads,
+                       Writer writer) throws IOException {
+    ForkJoinPool pool = new ForkJoinPool(Math.min(threads, targets.size()));
+    try {
+      List<Future<TargetResult>> results = Lists.newArrayList();
+      for (final Target target : targets) {
+        results.add(pool.submit(new Callable<TargetResult>() {
+          @Override
+          public TargetResult call() {
+            return validate(runners, target);
+          }
+        }));
+      }
+
+      int failed = 0;
+      for (int i = 0; i < targets.size(); i++) {
+        TargetResult result = getResult(results.get(i));
+        if (!result.success) {
+          failed++;
+        }
+        writer.write(result.output);
+        writer.write(String.format("%s: %s\n",
+            result.success ? "PASSED" : "FAILED", targets.get(i).getTarget()));
+        writer.flush();
+      }
+      writer.write(String.format("Validated %d targets: %d passed, %d failed.\n",
+          targets.size(), targets.size() - failed, failed));
+      return failed == 0 ? 0 : -1;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static TargetResult validate(RunnerFactory runners, Target target) {
+    StringWriter buffer = new StringWriter();
+    boolean success;
+    try {
+      ValidationRunner runner = runners.getRunner(target.getMode());
+      success = runner.run(target.getTarget(), buffer);
+    } catch (IOException e) {
+      LOG.debug("Exception", e);
+      buffer.write("==> " + e.getMessage() + "\n");
+      success = false;
+    } catch (RuntimeException e) {
+      LOG.debug("Exception", e);
+      buffer.write("==> " + e.getMessage() + "\n");
+      success = false;
+    }
+    return new TargetResult(success, buffer.toString());
+  }
+
+  private static TargetResult getResult(Future<TargetResult> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while validating", e);
+    } catch (ExecutionException e) {
+      // validate() catches everything but errors.
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * The buffered output and result of validating one target.
+   */
+  private static class TargetResult {
+    private final boolean success;
+    private final String output;
+
+    TargetResult(boolean success, String output) {
+      this.success = success;
+      this.output = output;
+    }
+  }
+
   public static void main(String[] args) throws IOException {
     String appName = System.getProperty("app.name", "app");
     Main app = new Main(appName, System.out, System.err);
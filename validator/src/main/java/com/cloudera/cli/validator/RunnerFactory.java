@@ -0,0 +1,31 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator;
+
+import com.cloudera.cli.validator.components.CommandLineOptions.Mode;
+import com.cloudera.validation.ValidationRunner;
+
+/**
+ * Provides the runners that validate the targets of each mode.
+ */
+public interface RunnerFactory {
+
+  /**
+   * @param mode the mode of the targets.
+   * @return the runner for the mode, which may be shared by threads.
+   */
+  ValidationRunner getRunner(Mode mode);
+}
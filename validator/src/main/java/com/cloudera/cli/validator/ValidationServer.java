@@ -0,0 +1,328 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator;
+
+import com.cloudera.cli.validator.components.CommandLineOptions.Mode;
+import com.cloudera.cli.validator.components.Constants;
+import com.cloudera.validation.DescriptorRunner;
+import com.cloudera.validation.ValidationRunner;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Serves validation requests over HTTP on the loopback interface, so
+ * that the validators, the validator metadata and the generated
+ * descriptor classes are only built once.
+ *
+ * Requests go to {@value #VALIDATE_PATH} with these query parameters:
+ * <ul>
+ * <li><tt>mode</tt>: the target option, e.g. "sdl" or "parcel-json".</li>
+ * <li><tt>path</tt>: the file or directory to validate. If there is no
+ * path, the body of a POST request is validated instead, which works
+ * for every mode that validates a single json file. Bodies larger
+ * than {@value #MAX_BODY_SIZE} bytes get a 413 response.</li>
+ * <li><tt>name</tt>: optional, the name to report for a POST body.</li>
+ * </ul>
+ * The response is a json object with the target, the mode, whether it
+ * passed, the errors and the complete output. Malformed requests get
+ * a 400 response with an "error" field. Modes that write files, like
+ * make-manifest, are not served.
+ * <p>
+ * Only requests for the loopback host on the server port are served,
+ * and requests that carry an <tt>Origin</tt> header are refused with a
+ * 403 response. This keeps web pages, including pages that rebind
+ * their DNS name to the loopback address, from reading local files
+ * through the server.
+ */
+public class ValidationServer {
+
+  public static final String VALIDATE_PATH = "/validate";
+
+  private static final Logger LOG = LoggerFactory.getLogger(ValidationServer.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final String ERROR_PREFIX = "==> ";
+  private static final Splitter QUERY_SPLITTER = Splitter.on('&').omitEmptyStrings();
+  /** Modes that write to the target, which any local web page could trigger. */
+  private static final Set<Mode> WRITING_MODES = EnumSet.of(Mode.MAKE_MANIFEST);
+  /** The largest content accepted in a POST body. */
+  @VisibleForTesting
+  static final int MAX_BODY_SIZE = 4 * 1024 * 1024;
+  private static final Set<String> LOOPBACK_HOSTS =
+      ImmutableSet.of("localhost", "127.0.0.1", "[::1]");
+
+  private final RunnerFactory runners;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final CountDownLatch stopped = new CountDownLatch(1);
+
+  /**
+   * @param ctx the context with the validation runners.
+   * @param port the port to listen on, 0 for any free port.
+   * @param threads the number of requests served in parallel.
+   * @throws IOException if the server can't listen on the port.
+   */
+  public ValidationServer(ApplicationContext ctx, int port, int threads) throws IOException {
+    this(new ContextRunnerFactory(ctx), port, threads);
+  }
+
+  /**
+   * @param runners the validation runners.
+   * @param port the port to listen on, 0 for any free port.
+   * @param threads the number of requests served in parallel.
+   * @throws IOException if the server can't listen on the port.
+   */
+  public ValidationServer(RunnerFactory runners, int port, int threads) throws IOException {
+    Preconditions.checkNotNull(runners);
+    Preconditions.checkArgument(threads > 0);
+    this.runners = runners;
+    this.server = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("validation-server-%d")
+        .build());
+    server.setExecutor(executor);
+    server.createContext(VALIDATE_PATH, new ValidateHandler());
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Stops accepting requests and waits briefly for the running ones.
+   */
+  public void stop() {
+    server.stop(1);
+    executor.shutdownNow();
+    stopped.countDown();
+  }
+
+  /**
+   * Blocks until {@link #stop()} is called.
+   */
+  public void awaitStop() throws InterruptedException {
+    stopped.await();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * @return the URL of the validate endpoint.
+   */
+  public String getUrl() {
+    return String.format("http://%s:%d%s",
+        server.getAddress().getAddress().getHostAddress(), getPort(), VALIDATE_PATH);
+  }
+
+  private class ValidateHandler implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        if (!isLocalRequest(exchange)) {
+          sendError(exchange, 403, "Only local requests without an Origin are served");
+          return;
+        }
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"POST".equals(method)) {
+          sendError(exchange, 405, "Use GET or POST");
+          return;
+        }
+        Map<String, String> params;
+        try {
+          params = parseQuery(exchange.getRequestURI().getRawQuery());
+        } catch (IllegalArgumentException e) {
+          sendError(exchange, 400, "Malformed query: " + e.getMessage());
+          return;
+        }
+        String modeName = params.get("mode");
+        Mode mode = (modeName != null) ? Mode.forName(modeName) : null;
+        if (mode == null) {
+          sendError(exchange, 400, "Unknown or missing mode: " + modeName);
+          return;
+        }
+        if (WRITING_MODES.contains(mode)) {
+          sendError(exchange, 400, "Mode " + modeName + " is not available in server mode");
+          return;
+        }
+        ValidationRunner runner = runners.getRunner(mode);
+
+        String path = params.get("path");
+        StringWriter output = new StringWriter();
+        long start = System.nanoTime();
+        String target;
+        boolean passed;
+        if (path != null) {
+          target = path;
+          passed = runner.run(path, output);
+        } else {
+          byte[] body = readBody(exchange);
+          if (body == null) {
+            sendError(exchange, 413, "The content is larger than " + MAX_BODY_SIZE + " bytes");
+            return;
+          } else if (body.length == 0) {
+            sendError(exchange, 400, "Pass a path or POST the content to validate");
+            return;
+          } else if (!(runner instanceof DescriptorRunner)) {
+            sendError(exchange, 400, "Mode " + modeName + " only validates paths");
+            return;
+          }
+          target = params.containsKey("name") ? params.get("name") : "request";
+          passed = ((DescriptorRunner<?>) runner).run(target, body, output);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("target", target);
+        response.put("mode", mode.name());
+        response.put("passed", passed);
+        ArrayNode errors = response.putArray("errors");
+        for (String line : output.toString().split("\n")) {
+          if (line.startsWith(ERROR_PREFIX)) {
+            errors.add(line.substring(ERROR_PREFIX.length()));
+          }
+        }
+        response.put("output", output.toString());
+        response.put("millis", millis);
+        send(exchange, 200, response);
+      } catch (IOException | RuntimeException e) {
+        if (exchange.getResponseCode() < 0) {
+          LOG.debug("Exception", e);
+          sendError(exchange, 500, String.valueOf(e.getMessage()));
+        } else {
+          // The response headers are out, most likely the client went away.
+          LOG.warn("Failed to send the response", e);
+        }
+      } finally {
+        exchange.close();
+      }
+    }
+
+    /**
+     * @return the request body, or null if it is larger than
+     *     {@link #MAX_BODY_SIZE}.
+     */
+    @Nullable
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+      String length = exchange.getRequestHeaders().getFirst("Content-Length");
+      if (length != null) {
+        Long declared = Longs.tryParse(length.trim());
+        if (declared != null && declared > MAX_BODY_SIZE) {
+          return null;
+        }
+      }
+      byte[] body = ByteStreams.toByteArray(
+          ByteStreams.limit(exchange.getRequestBody(), MAX_BODY_SIZE + 1));
+      return (body.length > MAX_BODY_SIZE) ? null : body;
+    }
+
+    /**
+     * @return whether the request names a loopback host on our port and
+     *     wasn't sent by a web page.
+     */
+    private boolean isLocalRequest(HttpExchange exchange) {
+      Headers headers = exchange.getRequestHeaders();
+      if (headers.containsKey("Origin")) {
+        return false;
+      }
+      String host = headers.getFirst("Host");
+      if (host == null) {
+        return false;
+      }
+      int colon = host.lastIndexOf(':');
+      if (colon < 0 || colon < host.lastIndexOf(']')) {
+        return false;
+      }
+      return LOOPBACK_HOSTS.contains(host.substring(0, colon).toLowerCase(Locale.ROOT))
+          && host.substring(colon + 1).equals(String.valueOf(getPort()));
+    }
+  }
+
+  /**
+   * @throws IllegalArgumentException if an escape is malformed.
+   */
+  @VisibleForTesting
+  static Map<String, String> parseQuery(String query) throws IOException {
+    Map<String, String> params = Maps.newHashMap();
+    if (query == null) {
+      return params;
+    }
+    for (String param : QUERY_SPLITTER.split(query)) {
+      int equals = param.indexOf('=');
+      String key = (equals < 0) ? param : param.substring(0, equals);
+      String value = (equals < 0) ? "" : param.substring(equals + 1);
+      params.put(URLDecoder.decode(key, Constants.CHARSET_UTF_8),
+                 URLDecoder.decode(value, Constants.CHARSET_UTF_8));
+    }
+    return params;
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    ObjectNode response = MAPPER.createObjectNode();
+    response.put("error", message);
+    send(exchange, status, response);
+  }
+
+  private static void send(HttpExchange exchange, int status, ObjectNode response)
+      throws IOException {
+    byte[] data = MAPPER.writeValueAsBytes(response);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, data.length);
+    OutputStream out = exchange.getResponseBody();
+    try {
+      out.write(data);
+    } finally {
+      out.close();
+    }
+  }
+}
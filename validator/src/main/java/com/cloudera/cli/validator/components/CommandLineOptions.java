@@ -16,14 +16,24 @@
 package com.cloudera.cli.validator.components;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 
 import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -33,12 +43,16 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Encapsulates parsing the command line arguments.
  */
 public class CommandLineOptions {
 
+  private static final Logger LOG = LoggerFactory.getLogger(CommandLineOptions.class);
+
   public static final String BEAN_NAME = "commandLineOptionsBean";
 
   private final CommandLine cmdLine;
@@ -107,6 +121,37 @@ public class CommandLineOptions {
       .isRequired(false)
       .create("f");
 
+  @SuppressWarnings("static-access")
+  private static final Option MAKE_MANIFEST_OPTION = OptionBuilder.withLongOpt("make-manifest")
+      .withArgName("DIRECTORY")
+      .hasArg()
+      .withDescription("Build and validate the manifest.json of a parcel "
+          + "repository directory, reusing the entries of unchanged parcels")
+      .isRequired(false)
+      .create("g");
+
+  @SuppressWarnings("static-access")
+  private static final Option BATCH_FILE_OPTION = OptionBuilder.withLongOpt("batch")
+      .withArgName("FILE")
+      .hasArg()
+      .withDescription("A file listing targets to validate, one per line as "
+          + "\"<option> <target>\", e.g. \"sdl path/to/service.sdl\". The "
+          + "option can be left out for .sdl, .mdl and .parcel files and parcel "
+          + "directories. Lines starting with # are ignored")
+      .isRequired(false)
+      .create("b");
+
+  @SuppressWarnings("static-access")
+  private static final Option THREADS_OPTION = OptionBuilder.withLongOpt("threads")
+      .withArgName("NUMBER")
+      .hasArg()
+      .withDescription("The number of targets to validate in parallel when "
+          + "there is more than one target, the threads used to validate a "
+          + "single large MDL, or parcels to read when building a "
+          + "manifest. Defaults to the number of processors")
+      .isRequired(false)
+      .create("j");
+
   @SuppressWarnings("static-access")
   public static final Option EXTRA_SERVICE_TYPE_FILE = OptionBuilder.withLongOpt("service-type-file")
       .withArgName("FILE")
@@ -132,6 +177,57 @@ public class CommandLineOptions {
       .isRequired(false)
       .create("x");
 
+  @SuppressWarnings("static-access")
+  private static final Option SERVER_OPTION = OptionBuilder.withLongOpt("server")
+      .withArgName("PORT")
+      .hasArg()
+      .withDescription("Keep running and serve validation requests over HTTP on "
+          + "the loopback interface at /validate. Use port 0 for any free port")
+      .isRequired(false)
+      .create("e");
+
+  @SuppressWarnings("static-access")
+  private static final Option CACHE_DIR_OPTION = OptionBuilder.withLongOpt("cache-dir")
+      .withArgName("DIR")
+      .hasArg()
+      .withDescription("Cache the results of SDL, MDL and parcel metadata files "
+          + "in this directory, so files that didn't change aren't parsed and "
+          + "validated again")
+      .isRequired(false)
+      .create("k");
+
+  @SuppressWarnings("static-access")
+  private static final Option VERBOSE_OPTION = OptionBuilder.withLongOpt("verbose")
+      .withDescription("Print additional information, such as how fast "
+          + "parcel files were read")
+      .isRequired(false)
+      .create("v");
+
+  @SuppressWarnings("static-access")
+  private static final Option FAST_START_OPTION = OptionBuilder.withLongOpt("fast-start")
+      .withDescription("Wire the validators directly instead of starting an "
+          + "application context, and only build the ones the targets need. "
+          + "This makes short runs start faster")
+      .isRequired(false)
+      .create("q");
+
+  @SuppressWarnings("static-access")
+  private static final Option STATS_OPTION = OptionBuilder.withLongOpt("stats")
+      .withArgName("FORMAT")
+      .hasOptionalArg()
+      .withDescription("Print how long each validation phase took and how "
+          + "much work it did, as text (the default) or json")
+      .isRequired(false)
+      .create("t");
+
+  /**
+   * The formats of the statistics printed with --stats.
+   */
+  public static enum StatsFormat {
+    TEXT,
+    JSON;
+  }
+
   public static enum Mode {
     SDL_FILE(SDL_FILE_OPTION, "sdlRunner"),
     MDL_FILE(MDL_FILE_OPTION, "mdlRunner"),
@@ -140,7 +236,8 @@ public class CommandLineOptions {
     PERMISSIONS_JSON(PERMISSIONS_JSON_OPTION, "permissionsRunner"),
     MANIFEST_JSON(MANIFEST_JSON_OPTION, "manifestRunner"),
     PARCEL_DIR(PARCEL_DIR_OPTION, "parcelDirectoryRunner"),
-    PARCEL_FILE(PARCEL_FILE_OPTION, "parcelFileRunner");
+    PARCEL_FILE(PARCEL_FILE_OPTION, "parcelFileRunner"),
+    MAKE_MANIFEST(MAKE_MANIFEST_OPTION, "manifestBuilder");
 
     private static final Map<Option, Mode> optionMap;
 
@@ -159,6 +256,25 @@ public class CommandLineOptions {
       return optionMap.get(option);
     }
 
+    /**
+     * Looks up a mode by the short or long name of its option,
+     * with or without the leading dashes.
+     *
+     * @param name the option name.
+     * @return the mode or null if there is no such mode.
+     */
+    public static Mode forName(String name) {
+      Preconditions.checkNotNull(name);
+      String stripped = name.replaceFirst("^--?", "");
+      for (Mode mode : Mode.values()) {
+        if (stripped.equals(mode.option.getOpt()) ||
+            stripped.equals(mode.option.getLongOpt())) {
+          return mode;
+        }
+      }
+      return null;
+    }
+
     Mode(Option option, String runnerName) {
       Preconditions.checkNotNull(option);
       Preconditions.checkNotNull(runnerName);
@@ -171,15 +287,29 @@ public class CommandLineOptions {
     }
   }
 
-  private static final Options OPTIONS = new Options();
-  static {
-    for (Mode e : Mode.values()) {
-      OPTIONS.addOption(e.option);
-    }
+  /**
+   * All the options. They are collected in a holder class so that
+   * using {@link Mode} before this class doesn't run into the
+   * initialization of the Mode constants.
+   */
+  private static class AllOptions {
+    private static final Options OPTIONS = new Options();
+    static {
+      for (Mode e : Mode.values()) {
+        OPTIONS.addOption(e.option);
+      }
 
-    OPTIONS.addOption(EXTRA_SERVICE_TYPES);
-    OPTIONS.addOption(EXTRA_SERVICE_TYPE_FILE);
-    OPTIONS.addOption(STRICT_MODE);
+      OPTIONS.addOption(BATCH_FILE_OPTION);
+      OPTIONS.addOption(THREADS_OPTION);
+      OPTIONS.addOption(EXTRA_SERVICE_TYPES);
+      OPTIONS.addOption(EXTRA_SERVICE_TYPE_FILE);
+      OPTIONS.addOption(STRICT_MODE);
+      OPTIONS.addOption(CACHE_DIR_OPTION);
+      OPTIONS.addOption(VERBOSE_OPTION);
+      OPTIONS.addOption(SERVER_OPTION);
+      OPTIONS.addOption(FAST_START_OPTION);
+      OPTIONS.addOption(STATS_OPTION);
+    }
   }
 
   /**
@@ -193,7 +323,7 @@ public class CommandLineOptions {
     Preconditions.checkNotNull(appName);
     Preconditions.checkNotNull(args);
     CommandLineParser cliParser = new DefaultParser();
-    this.cmdLine = cliParser.parse(OPTIONS, args);
+    this.cmdLine = cliParser.parse(AllOptions.OPTIONS, args);
   }
 
   public Mode getMode() {
@@ -210,15 +340,236 @@ public class CommandLineOptions {
     return cmdLine.getOptionValue(getMode().getOpt());
   }
 
+  /**
+   * Returns true if more than one target should be validated, either
+   * because a batch file was given or because there are several
+   * target options on the command line.
+   */
+  public boolean isBatch() {
+    if (cmdLine.hasOption(BATCH_FILE_OPTION.getOpt())) {
+      return true;
+    }
+    int count = 0;
+    for (Option option : cmdLine.getOptions()) {
+      if (Mode.getMode(option) != null) {
+        count++;
+      }
+    }
+    return count > 1;
+  }
+
+  /**
+   * Returns all the targets to validate: the target options on the
+   * command line, in order, followed by the entries of the batch file.
+   *
+   * @return the targets.
+   * @throws ParseException if the batch file can't be read or parsed.
+   */
+  public List<Target> getTargets() throws ParseException {
+    ImmutableList.Builder<Target> targets = ImmutableList.builder();
+    for (Option option : cmdLine.getOptions()) {
+      Mode mode = Mode.getMode(option);
+      if (mode != null) {
+        targets.add(new Target(mode, option.getValue()));
+      }
+    }
+    String batchFile = cmdLine.getOptionValue(BATCH_FILE_OPTION.getOpt());
+    if (batchFile != null) {
+      targets.addAll(readBatchFile(batchFile));
+    }
+    return targets.build();
+  }
+
+  private static List<Target> readBatchFile(String batchFile) throws ParseException {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(Paths.get(batchFile), Charset.forName(Constants.CHARSET_UTF_8));
+    } catch (IOException e) {
+      throw new ParseException("Could not read batch file " + batchFile + ": " + e.getMessage());
+    }
+    ImmutableList.Builder<Target> targets = ImmutableList.builder();
+    int lineNumber = 0;
+    for (String line : lines) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] parts = line.split("\\s+", 2);
+      Mode mode;
+      String target;
+      if (parts.length == 2) {
+        mode = Mode.forName(parts[0]);
+        target = parts[1];
+        if (mode == null) {
+          throw new ParseException(String.format("Unknown option '%s' at %s:%d",
+              parts[0], batchFile, lineNumber));
+        }
+      } else {
+        target = parts[0];
+        mode = guessMode(target);
+        if (mode == null) {
+          throw new ParseException(String.format("No option given for '%s' at %s:%d",
+              target, batchFile, lineNumber));
+        }
+      }
+      targets.add(new Target(mode, target));
+    }
+    return targets.build();
+  }
+
+  private static Mode guessMode(String target) {
+    if (target.endsWith(".sdl")) {
+      return Mode.SDL_FILE;
+    } else if (target.endsWith(".mdl")) {
+      return Mode.MDL_FILE;
+    } else if (target.endsWith(".parcel")) {
+      return Mode.PARCEL_FILE;
+    } else if (new File(target).isDirectory()) {
+      return Mode.PARCEL_DIR;
+    }
+    return null;
+  }
+
+  /**
+   * @return the number of targets to validate in parallel.
+   * @throws ParseException if the value is not a positive number.
+   */
+  public int getThreads() throws ParseException {
+    String threads = cmdLine.getOptionValue(THREADS_OPTION.getOpt());
+    if (threads == null) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+    try {
+      int value = Integer.parseInt(threads);
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // fall through
+    }
+    throw new ParseException("The number of threads must be a positive number: " + threads);
+  }
+
   public boolean getStrictMode() {
     return cmdLine.hasOption(STRICT_MODE.getOpt());
   }
 
+  /**
+   * @return the port to serve validation requests on, or null if
+   *     the validator should not run as a server.
+   * @throws ParseException if the value is not a valid port.
+   */
+  public Integer getServerPort() throws ParseException {
+    String port = cmdLine.getOptionValue(SERVER_OPTION.getOpt());
+    if (port == null) {
+      return null;
+    }
+    try {
+      int value = Integer.parseInt(port);
+      if (value >= 0 && value <= 65535) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // fall through
+    }
+    throw new ParseException("The server port must be a number from 0 to 65535: " + port);
+  }
+
+  /**
+   * @return the directory to cache validation results in, or null if
+   *     results should not be cached.
+   */
+  public File getCacheDir() {
+    String dir = cmdLine.getOptionValue(CACHE_DIR_OPTION.getOpt());
+    return (dir == null) ? null : new File(dir);
+  }
+
+  public boolean getVerbose() {
+    return cmdLine.hasOption(VERBOSE_OPTION.getOpt());
+  }
+
+  public boolean getFastStart() {
+    return cmdLine.hasOption(FAST_START_OPTION.getOpt());
+  }
+
+  /**
+   * @return the format to print validation statistics in, or null if
+   *     they should not be printed.
+   * @throws ParseException if the format is unknown.
+   */
+  public StatsFormat getStatsFormat() throws ParseException {
+    if (!cmdLine.hasOption(STATS_OPTION.getOpt())) {
+      return null;
+    }
+    String format = cmdLine.getOptionValue(STATS_OPTION.getOpt());
+    if (format == null) {
+      return StatsFormat.TEXT;
+    }
+    for (StatsFormat value : StatsFormat.values()) {
+      if (value.name().equalsIgnoreCase(format)) {
+        return value;
+      }
+    }
+    throw new ParseException("The statistics format must be text or json: " + format);
+  }
+
+  /**
+   * Returns the service types given in the extra service type file, or
+   * else in the extra service type list. A file that can't be read is
+   * logged and ignored.
+   *
+   * @return the extra service types, empty if there are none.
+   */
+  public Set<String> getExtraServiceTypes() {
+    Set<String> serviceTypes = Sets.newHashSet();
+    String extraServiceTypeFileName = getOptionValue(EXTRA_SERVICE_TYPE_FILE);
+    String extraServiceTypeList = getOptionValue(EXTRA_SERVICE_TYPES);
+    if (extraServiceTypeFileName != null) {
+      try {
+        serviceTypes.addAll(
+            Files.readAllLines(
+                Paths.get(extraServiceTypeFileName),
+                Charset.defaultCharset()));
+      } catch (IOException e) {
+        LOG.error("Failed to read extra service type file: {}",
+            extraServiceTypeFileName,
+            e);
+      }
+    } else if (extraServiceTypeList != null) {
+      serviceTypes.addAll(Arrays.asList(extraServiceTypeList.split(" ")));
+    }
+    return serviceTypes;
+  }
+
   public String getOptionValue(Option option) {
     Preconditions.checkNotNull(option);
     return cmdLine.getOptionValue(option.getOpt());
   }
 
+  /**
+   * A validation target and the mode to validate it with.
+   */
+  public static class Target {
+    private final Mode mode;
+    private final String target;
+
+    public Target(Mode mode, String target) {
+      Preconditions.checkNotNull(mode);
+      Preconditions.checkNotNull(target);
+      this.mode = mode;
+      this.target = target;
+    }
+
+    public Mode getMode() {
+      return mode;
+    }
+
+    public String getTarget() {
+      return target;
+    }
+  }
+
   /**
    * Writes usage message to outputstream.
    *
@@ -238,7 +589,7 @@ public class CommandLineOptions {
                           HelpFormatter.DEFAULT_WIDTH,
                           appName,
                           header,
-                          OPTIONS,
+                          AllOptions.OPTIONS,
                           HelpFormatter.DEFAULT_LEFT_PAD,
                           HelpFormatter.DEFAULT_DESC_PAD,
                           footer,
@@ -0,0 +1,411 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator.components;
+
+import com.cloudera.config.DefaultValidatorConfiguration;
+import com.cloudera.parcel.descriptors.ManifestDescriptor;
+import com.cloudera.validation.DescriptorRunner;
+import com.cloudera.validation.ValidationMetrics;
+import com.cloudera.validation.ValidationRunner;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.cli.ParseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * This {@link ValidationRunner} builds the manifest.json of a parcel
+ * repository directory, like make_manifest.py does, and validates it
+ * before writing it.
+ *
+ * Every parcel is read once, with its hash computed while the tar is
+ * scanned for the metadata, and parcels are read in parallel. For each
+ * parcel, the size and modification time seen at the last run are kept
+ * in a {@value #CACHE_FILE} file next to the manifest. If neither has
+ * changed and the parcel's <tt>.sha</tt> file, if any, still matches,
+ * the entry of the existing manifest.json is reused without reading
+ * the parcel.
+ */
+@Component("manifestBuilder")
+public class ManifestBuilder implements ValidationRunner {
+
+  static final String MANIFEST_FILE = "manifest.json";
+  static final String CACHE_FILE = ".manifest.cache";
+
+  private static final String PARCEL_SUFFIX = ".parcel";
+  private static final String PARCEL_NAME = "parcelName";
+  private static final String HASH = "hash";
+  private static final String RELEASE_NOTES = "releaseNotes";
+  // The parcel.json fields copied into the manifest entry.
+  private static final List<String> COPIED_FIELDS = ImmutableList.of(
+      "depends",
+      "replaces",
+      "conflicts",
+      "components",
+      "servicesRestartInfo");
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Joiner TAB_JOINER = Joiner.on('\t');
+  private static final Splitter TAB_SPLITTER = Splitter.on('\t');
+
+  @Autowired
+  @Qualifier("manifestRunner")
+  private DescriptorRunner<ManifestDescriptor> manifestRunner;
+
+  @Autowired(required = false)
+  @Qualifier(CommandLineOptions.BEAN_NAME)
+  private CommandLineOptions cmdOptions;
+
+  @Autowired(required = false)
+  @Qualifier(DefaultValidatorConfiguration.VALIDATION_METRICS_BEAN_NAME)
+  private ValidationMetrics metrics = ValidationMetrics.DISABLED;
+
+  /**
+   * Creates a builder whose collaborators are injected by Spring.
+   */
+  public ManifestBuilder() {
+  }
+
+  /**
+   * @param cmdOptions the command line options, or null if there is no
+   *     command line.
+   * @param metrics the metrics to report the reads of parcels to.
+   */
+  public ManifestBuilder(DescriptorRunner<ManifestDescriptor> manifestRunner,
+                         @Nullable CommandLineOptions cmdOptions,
+                         ValidationMetrics metrics) {
+    this.manifestRunner = manifestRunner;
+    this.cmdOptions = cmdOptions;
+    this.metrics = Preconditions.checkNotNull(metrics);
+  }
+
+  @Override
+  public boolean run(String target, Writer writer) throws IOException {
+    File dir = new File(target);
+    writer.write(String.format("Building manifest: %s\n", dir.getPath()));
+    if (!dir.isDirectory()) {
+      writer.write(String.format("==> %s is not a directory.\n", dir.getPath()));
+      return false;
+    }
+
+    File manifestFile = new File(dir, MANIFEST_FILE);
+    File cacheFile = new File(dir, CACHE_FILE);
+    Map<String, JsonNode> previous = readPreviousEntries(manifestFile, writer);
+    Map<String, CacheEntry> cache = readCache(cacheFile);
+
+    String[] parcels = dir.list(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(PARCEL_SUFFIX);
+      }
+    });
+    if (parcels == null) {
+      writer.write(String.format("==> Could not list %s.\n", dir.getPath()));
+      return false;
+    }
+    Arrays.sort(parcels);
+
+    List<ParcelResult> results = buildEntries(dir, parcels, previous, cache);
+
+    boolean ret = true;
+    ObjectNode manifest = MAPPER.createObjectNode();
+    manifest.put("lastUpdated", System.currentTimeMillis());
+    ArrayNode entries = manifest.putArray("parcels");
+    List<String> cacheLines = Lists.newArrayList();
+    for (ParcelResult result : results) {
+      if (result.entry == null) {
+        writer.write(String.format("==> Skipping %s: %s\n", result.name, result.error));
+        ret = false;
+        continue;
+      }
+      writer.write(String.format("%s parcel %s\n",
+                                 result.reused ? "Reused" : "Found", result.name));
+      entries.add(result.entry);
+      cacheLines.add(result.cacheEntry.toLine());
+    }
+
+    byte[] data = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest);
+    if (!manifestRunner.run(manifestFile.getPath(), data, writer)) {
+      return false;
+    }
+    writeAtomically(manifestFile, data);
+    writeAtomically(cacheFile, Joiner.on('\n').join(cacheLines).getBytes(Charsets.UTF_8));
+    writer.write(String.format("Wrote %s with %d parcels\n",
+                               manifestFile.getPath(), cacheLines.size()));
+    return ret;
+  }
+
+  private List<ParcelResult> buildEntries(final File dir,
+                                          String[] parcels,
+                                          final Map<String, JsonNode> previous,
+                                          final Map<String, CacheEntry> cache)
+      throws IOException {
+    int threads = (cmdOptions != null) ? getThreads(cmdOptions)
+                                       : Runtime.getRuntime().availableProcessors();
+    // Large parcels are decompressed in parallel when there are fewer
+    // parcels than threads.
+    final int threadsPerParcel = Math.max(1, threads / Math.max(1, parcels.length));
+    ExecutorService pool = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(threads, parcels.length)));
+    try {
+      List<Future<ParcelResult>> futures = Lists.newArrayList();
+      for (final String name : parcels) {
+        futures.add(pool.submit(new Callable<ParcelResult>() {
+          @Override
+          public ParcelResult call() throws IOException {
+            File parcel = new File(dir, name);
+            ParcelResult reused = reuse(parcel, previous.get(name), cache.get(name));
+            return (reused != null) ? reused : read(parcel, threadsPerParcel, metrics);
+          }
+        }));
+      }
+      List<ParcelResult> results = Lists.newArrayList();
+      for (Future<ParcelResult> future : futures) {
+        results.add(getResult(future));
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static int getThreads(CommandLineOptions cmdOptions) {
+    try {
+      return cmdOptions.getThreads();
+    } catch (ParseException e) {
+      // Main has already checked the option.
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the previous entry of the parcel if it is still up to
+   * date, null otherwise.
+   */
+  private static ParcelResult reuse(File parcel, JsonNode entry, CacheEntry cached)
+      throws IOException {
+    if (entry == null || cached == null ||
+        cached.size != parcel.length() ||
+        cached.lastModified != parcel.lastModified() ||
+        !cached.hash.equals(entry.path(HASH).asText())) {
+      return null;
+    }
+    File shaFile = new File(parcel.getPath() + ".sha");
+    if (shaFile.isFile()) {
+      String sha = Files.toString(shaFile, Charsets.UTF_8).trim().split("\\s+")[0];
+      if (!sha.equalsIgnoreCase(cached.hash)) {
+        return null;
+      }
+    }
+    return new ParcelResult(parcel.getName(), entry, null, true, cached);
+  }
+
+  /**
+   * Reads the parcel and builds its manifest entry from the metadata
+   * in it.
+   */
+  private static ParcelResult read(File parcel, int threads, ValidationMetrics metrics)
+      throws IOException {
+    String name = parcel.getName();
+    long size = parcel.length();
+    long lastModified = parcel.lastModified();
+
+    Matcher matcher = ParcelFileRunner.PARCEL_PATTERN.matcher(name);
+    if (!matcher.find()) {
+      return ParcelResult.skipped(name, "not a valid parcel filename");
+    }
+    String metaDir = matcher.group(1) + '-' + matcher.group(2) + "/meta/";
+
+    ParcelArchive archive;
+    try {
+      archive = ParcelArchive.read(parcel, threads, ParcelArchive.PARALLEL_THRESHOLD);
+    } catch (IOException e) {
+      return ParcelResult.skipped(name, e.getMessage());
+    }
+    archive.recordRead(metrics);
+
+    ObjectNode entry = MAPPER.createObjectNode();
+    entry.put(PARCEL_NAME, name);
+    entry.put(HASH, archive.getSha1());
+
+    byte[] parcelJson = archive.getMetadata(metaDir + "parcel.json");
+    if (parcelJson == null) {
+      return ParcelResult.skipped(name, "Parcel does not contain parcel.json");
+    }
+    JsonNode parcelNode;
+    try {
+      parcelNode = MAPPER.readTree(parcelJson);
+    } catch (IOException e) {
+      return ParcelResult.skipped(name, "Failed to parse parcel.json: " + e.getMessage());
+    }
+    for (String field : COPIED_FIELDS) {
+      if (parcelNode.has(field)) {
+        entry.put(field, parcelNode.get(field));
+      }
+    }
+
+    byte[] releaseNotes = archive.getMetadata(metaDir + "release-notes.txt");
+    if (releaseNotes != null) {
+      entry.put(RELEASE_NOTES, new String(releaseNotes, Charsets.UTF_8));
+    }
+    return new ParcelResult(name, entry, null, false,
+                            new CacheEntry(name, size, lastModified, archive.getSha1()));
+  }
+
+  private static Map<String, JsonNode> readPreviousEntries(File manifestFile, Writer writer)
+      throws IOException {
+    Map<String, JsonNode> entries = Maps.newHashMap();
+    if (!manifestFile.isFile()) {
+      return entries;
+    }
+    try {
+      for (JsonNode entry : MAPPER.readTree(manifestFile).path("parcels")) {
+        if (entry.has(PARCEL_NAME)) {
+          entries.put(entry.get(PARCEL_NAME).asText(), entry);
+        }
+      }
+    } catch (IOException e) {
+      writer.write(String.format("==> Warning: Could not read %s, reading all parcels: %s\n",
+                                 manifestFile.getPath(), e.getMessage()));
+    }
+    return entries;
+  }
+
+  private static Map<String, CacheEntry> readCache(File cacheFile) throws IOException {
+    Map<String, CacheEntry> cache = Maps.newHashMap();
+    if (!cacheFile.isFile()) {
+      return cache;
+    }
+    for (String line : Files.readLines(cacheFile, Charsets.UTF_8)) {
+      CacheEntry entry = CacheEntry.fromLine(line);
+      if (entry != null) {
+        cache.put(entry.name, entry);
+      }
+    }
+    return cache;
+  }
+
+  private static void writeAtomically(File file, byte[] data) throws IOException {
+    File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+    Files.write(data, tmp);
+    if (!tmp.renameTo(file)) {
+      // Not every platform renames over an existing file.
+      Files.move(tmp, file);
+    }
+  }
+
+  private static ParcelResult getResult(Future<ParcelResult> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while building the manifest", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * The manifest entry of one parcel, or the reason it was skipped.
+   */
+  private static class ParcelResult {
+    private final String name;
+    private final JsonNode entry;
+    private final String error;
+    private final boolean reused;
+    private final CacheEntry cacheEntry;
+
+    ParcelResult(String name, JsonNode entry, String error, boolean reused,
+                 CacheEntry cacheEntry) {
+      this.name = name;
+      this.entry = entry;
+      this.error = error;
+      this.reused = reused;
+      this.cacheEntry = cacheEntry;
+    }
+
+    static ParcelResult skipped(String name, String error) {
+      return new ParcelResult(name, null, error, false, null);
+    }
+  }
+
+  /**
+   * What was seen of a parcel file when its entry was built. Stored
+   * as one tab separated line per parcel.
+   */
+  private static class CacheEntry {
+    private final String name;
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+
+    CacheEntry(String name, long size, long lastModified, String hash) {
+      this.name = name;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+
+    String toLine() {
+      return TAB_JOINER.join(name, size, lastModified, hash);
+    }
+
+    static CacheEntry fromLine(String line) {
+      List<String> fields = ImmutableList.copyOf(TAB_SPLITTER.split(line));
+      if (fields.size() != 4) {
+        return null;
+      }
+      try {
+        return new CacheEntry(fields.get(0),
+                              Long.parseLong(fields.get(1)),
+                              Long.parseLong(fields.get(2)),
+                              fields.get(3));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+  }
+}
@@ -0,0 +1,463 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator.components;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A gzip input stream that decompresses on background threads.
+ *
+ * Reading the compressed input, inflating it and consuming the
+ * decompressed bytes happen on separate threads connected by bounded
+ * queues, so a slow consumer (e.g. a tar parser) overlaps with inflate
+ * and with whatever the compressed input stream does (e.g. hashing).
+ *
+ * A deflate stream can only be inflated sequentially. But if every
+ * gzip member records its own compressed size in a "BC" extra field,
+ * as BGZF files do, the members are split up while reading and
+ * inflated in parallel. Other streams, including plain concatenated
+ * members, are inflated on a single background thread.
+ *
+ * The compressed input is always read to its end, so a digest stream
+ * underneath sees every byte.
+ */
+public class ParallelGzipInputStream extends InputStream {
+
+  /** The mode the stream decompresses in. */
+  public static enum Mode {
+    /** Read and inflate on one background thread each. */
+    PIPELINED,
+    /** Members are inflated in parallel. */
+    PARALLEL
+  }
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+  private static final int GZIP_MAGIC_1 = 0x1f;
+  private static final int GZIP_MAGIC_2 = 0x8b;
+  private static final int FHCRC = 0x02;
+  private static final int FEXTRA = 0x04;
+  private static final int FNAME = 0x08;
+  private static final int FCOMMENT = 0x10;
+  /** ID1 ID2 CM FLG MTIME(4) XFL OS XLEN(2) SI1 SI2 SLEN(2) BSIZE(2) */
+  private static final int BGZF_HEADER_SIZE = 18;
+  /** The largest uncompressed size of a BGZF block. */
+  private static final int BGZF_MAX_BLOCK_SIZE = 65536;
+  private static final byte[] EMPTY = new byte[0];
+  private static final Future<byte[]> END = Futures.immediateFuture(EMPTY);
+
+  private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("gzip-%d")
+      .build();
+
+  private final InputStream in;
+  private final Mode mode;
+  private final BlockingQueue<Future<byte[]>> output;
+  private final ExecutorService stages;
+  private final ExecutorService inflaters;
+
+  private byte[] current = EMPTY;
+  private int position = 0;
+  private boolean finished = false;
+  private volatile boolean closed = false;
+
+  /**
+   * @param in the compressed input. It must support mark/reset.
+   * @param threads the number of threads used to inflate members in parallel.
+   * @throws IOException if the input is not gzip compressed.
+   */
+  public ParallelGzipInputStream(InputStream in, int threads) throws IOException {
+    Preconditions.checkNotNull(in);
+    Preconditions.checkArgument(in.markSupported());
+    Preconditions.checkArgument(threads > 0);
+    this.in = in;
+
+    byte[] header = new byte[BGZF_HEADER_SIZE];
+    in.mark(header.length);
+    int read = IOUtils.read(in, header);
+    in.reset();
+    if (!GzipCompressorInputStream.matches(header, read)) {
+      throw new IOException("Input is not in the .gz format");
+    }
+    boolean blocked = read == header.length && blockSize(header, 0) >= BGZF_HEADER_SIZE + 8;
+    this.mode = (threads > 1 && blocked) ? Mode.PARALLEL : Mode.PIPELINED;
+
+    this.output = new ArrayBlockingQueue<Future<byte[]>>(2 * threads + 2);
+    this.stages = Executors.newFixedThreadPool(2, THREAD_FACTORY);
+    if (mode == Mode.PARALLEL) {
+      this.inflaters = Executors.newFixedThreadPool(threads, THREAD_FACTORY);
+      stages.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          try {
+            splitMembers();
+          } finally {
+            inflaters.shutdown();
+          }
+          return null;
+        }
+      });
+    } else {
+      this.inflaters = null;
+      final BlockingQueue<Future<byte[]>> compressed =
+          new ArrayBlockingQueue<Future<byte[]>>(4);
+      stages.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          readChunks(ParallelGzipInputStream.this.in, compressed);
+          return null;
+        }
+      });
+      stages.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          inflate(new QueueInputStream(compressed));
+          return null;
+        }
+      });
+    }
+    // Let the stage threads exit once their work is done.
+    stages.shutdown();
+  }
+
+  /**
+   * @return the mode the stream decompresses in.
+   */
+  public Mode getMode() {
+    return mode;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    int n = read(b, 0, 1);
+    return n < 0 ? -1 : (b[0] & 0xff);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (position == current.length) {
+      if (finished || !nextChunk()) {
+        return -1;
+      }
+    }
+    int n = Math.min(len, current.length - position);
+    System.arraycopy(current, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return current.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      stages.shutdownNow();
+      if (inflaters != null) {
+        inflaters.shutdownNow();
+      }
+      output.clear();
+    }
+  }
+
+  private boolean nextChunk() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    Future<byte[]> next = take(output);
+    if (next == END) {
+      finished = true;
+      return false;
+    }
+    current = get(next);
+    position = 0;
+    return true;
+  }
+
+  /**
+   * Reads the compressed input in chunks. Runs on its own thread.
+   * Anything but an interrupt is handed to the consumer, so that a
+   * failing stage can't leave the consumer waiting forever.
+   */
+  private void readChunks(InputStream source, BlockingQueue<Future<byte[]>> queue)
+      throws InterruptedException {
+    try {
+      while (true) {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int n = IOUtils.read(source, chunk);
+        if (n > 0) {
+          queue.put(Futures.immediateFuture(n == chunk.length ? chunk : Arrays.copyOf(chunk, n)));
+        }
+        if (n < chunk.length) {
+          queue.put(END);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Throwable t) {
+      queue.put(Futures.<byte[]>immediateFailedFuture(t));
+    }
+  }
+
+  /**
+   * Inflates a sequential gzip stream and then reads the rest of the
+   * input. Runs on its own thread.
+   */
+  private void inflate(InputStream source) throws InterruptedException {
+    try {
+      InputStream gin = new GzipCompressorInputStream(source, true);
+      while (true) {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int n = IOUtils.read(gin, chunk);
+        if (n > 0) {
+          output.put(Futures.immediateFuture(n == chunk.length ? chunk : Arrays.copyOf(chunk, n)));
+        }
+        if (n < chunk.length) {
+          break;
+        }
+      }
+      IOUtils.skip(source, Long.MAX_VALUE);
+      output.put(END);
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Throwable t) {
+      output.put(Futures.<byte[]>immediateFailedFuture(t));
+    }
+  }
+
+  /**
+   * Reads the input one member at a time and submits every member to
+   * the inflater pool. The futures are queued in member order. If a
+   * member doesn't record its size, the rest of the input is inflated
+   * sequentially on this thread. Runs on its own thread.
+   */
+  private void splitMembers() throws InterruptedException {
+    try {
+      while (true) {
+        byte[] header = new byte[BGZF_HEADER_SIZE];
+        int read = IOUtils.read(in, header);
+        if (read == 0) {
+          output.put(END);
+          return;
+        }
+        int size = (read == header.length) ? blockSize(header, 0) : -1;
+        if (size < BGZF_HEADER_SIZE + 8) {
+          inflate(new SequenceInputStream(new ByteArrayInputStream(header, 0, read), in));
+          return;
+        }
+        final byte[] member = Arrays.copyOf(header, size);
+        IOUtils.readFully(in, member, header.length, size - header.length);
+        output.put(inflaters.submit(new Callable<byte[]>() {
+          @Override
+          public byte[] call() throws IOException {
+            return inflateMember(member);
+          }
+        }));
+      }
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (Throwable t) {
+      output.put(Futures.<byte[]>immediateFailedFuture(t));
+    }
+  }
+
+  /**
+   * Returns the total size of the gzip member starting at offset if
+   * its header has a BGZF "BC" extra field, -1 otherwise.
+   */
+  static int blockSize(byte[] header, int offset) {
+    if ((header[offset] & 0xff) != GZIP_MAGIC_1 ||
+        (header[offset + 1] & 0xff) != GZIP_MAGIC_2 ||
+        (header[offset + 3] & FEXTRA) == 0 ||
+        header[offset + 12] != 'B' ||
+        header[offset + 13] != 'C' ||
+        readShort(header, offset + 14) != 2) {
+      return -1;
+    }
+    return readShort(header, offset + 16) + 1;
+  }
+
+  /**
+   * Inflates a complete gzip member and checks its CRC and size. The
+   * size comes from the member, so a size that no BGZF block can have
+   * is not trusted: the member is inflated as a stream instead.
+   */
+  static byte[] inflateMember(byte[] member) throws IOException {
+    int flags = member[3];
+    int pos = 10;
+    if ((flags & FEXTRA) != 0) {
+      pos += 2 + readShort(member, pos);
+    }
+    if ((flags & FNAME) != 0) {
+      while (member[pos++] != 0) { }
+    }
+    if ((flags & FCOMMENT) != 0) {
+      while (member[pos++] != 0) { }
+    }
+    if ((flags & FHCRC) != 0) {
+      pos += 2;
+    }
+    int trailer = member.length - 8;
+    long crc = readInt(member, trailer) & 0xffffffffL;
+    int size = readInt(member, trailer + 4);
+    if (size < 0 || size > BGZF_MAX_BLOCK_SIZE) {
+      return inflateStream(member);
+    }
+
+    byte[] data = new byte[size];
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(member, pos, trailer - pos);
+      int n = 0;
+      while (n < size && !inflater.finished()) {
+        int inflated = inflater.inflate(data, n, size - n);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        n += inflated;
+      }
+      if (n != size || (size > 0 && !inflater.finished())) {
+        throw new IOException("Corrupt gzip member: size mismatch");
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt gzip member: " + e.getMessage(), e);
+    } finally {
+      inflater.end();
+    }
+    CRC32 check = new CRC32();
+    check.update(data);
+    if (check.getValue() != crc) {
+      throw new IOException("Corrupt gzip member: CRC mismatch");
+    }
+    return data;
+  }
+
+  private static byte[] inflateStream(byte[] member) throws IOException {
+    InputStream gin = new GzipCompressorInputStream(new ByteArrayInputStream(member));
+    try {
+      return IOUtils.toByteArray(gin);
+    } finally {
+      IOUtils.closeQuietly(gin);
+    }
+  }
+
+  private static int readShort(byte[] b, int offset) {
+    return (b[offset] & 0xff) | ((b[offset + 1] & 0xff) << 8);
+  }
+
+  private static int readInt(byte[] b, int offset) {
+    return readShort(b, offset) | (readShort(b, offset + 2) << 16);
+  }
+
+  private static Future<byte[]> take(BlockingQueue<Future<byte[]>> queue) throws IOException {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while decompressing", e);
+    }
+  }
+
+  private static byte[] get(Future<byte[]> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while decompressing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * The consuming end of a chunk queue.
+   */
+  private static class QueueInputStream extends InputStream {
+    private final BlockingQueue<Future<byte[]>> queue;
+    private byte[] current = EMPTY;
+    private int position = 0;
+    private boolean finished = false;
+
+    QueueInputStream(BlockingQueue<Future<byte[]>> queue) {
+      this.queue = queue;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      int n = read(b, 0, 1);
+      return n < 0 ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (position == current.length) {
+        if (finished) {
+          return -1;
+        }
+        Future<byte[]> next = take(queue);
+        if (next == END) {
+          finished = true;
+          return -1;
+        }
+        current = get(next);
+        position = 0;
+      }
+      int n = Math.min(len, current.length - position);
+      System.arraycopy(current, position, b, off, n);
+      position += n;
+      return n;
+    }
+  }
+}
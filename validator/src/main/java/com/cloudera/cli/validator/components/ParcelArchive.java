@@ -0,0 +1,322 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator.components;
+
+import com.cloudera.validation.ValidationMetrics;
+import com.cloudera.validation.ValidationMetrics.Counter;
+import com.cloudera.validation.ValidationMetrics.Phase;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.CountingInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The result of reading a parcel file in a single sequential pass.
+ * While the tar is streamed, the compressed bytes are hashed, every
+ * entry name goes into a compact sorted index, and the
+ * <tt>meta/*.json</tt> and <tt>meta/release-notes.txt</tt> entries are
+ * read in full. Nothing else of the parcel is kept in memory.
+ */
+public class ParcelArchive {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** Smaller parcels are decompressed on the calling thread. */
+  static final long PARALLEL_THRESHOLD = 16 * 1024 * 1024;
+  private static final String META_DIR = "/meta/";
+  private static final String JSON_SUFFIX = ".json";
+  private static final String RELEASE_NOTES = "release-notes.txt";
+  private static final String NOT_COMPRESSED = "none";
+  private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+  private final String[] files;
+  private final String[] directories;
+  private final Map<String, byte[]> metadata;
+  private final String sha1;
+  private final String sha256;
+  private final String decompression;
+  private final long compressedSize;
+  private final long uncompressedSize;
+  private final long readNanos;
+
+  private ParcelArchive(String[] files,
+                        String[] directories,
+                        Map<String, byte[]> metadata,
+                        String sha1,
+                        String sha256,
+                        String decompression,
+                        long compressedSize,
+                        long uncompressedSize,
+                        long readNanos) {
+    this.files = files;
+    this.directories = directories;
+    this.metadata = metadata;
+    this.sha1 = sha1;
+    this.sha256 = sha256;
+    this.decompression = decompression;
+    this.compressedSize = compressedSize;
+    this.uncompressedSize = uncompressedSize;
+    this.readNanos = readNanos;
+  }
+
+  /**
+   * Reads the parcel file once.
+   *
+   * @param parcelFile the parcel.
+   * @return the archive.
+   * @throws IOException if the file can't be read or is not a valid tar.
+   */
+  public static ParcelArchive read(File parcelFile) throws IOException {
+    return read(parcelFile, Runtime.getRuntime().availableProcessors(), PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Reads the parcel file once. Compressed parcels of at least
+   * parallelThreshold bytes are decompressed on background threads,
+   * see {@link ParallelGzipInputStream}.
+   */
+  static ParcelArchive read(File parcelFile, int threads, long parallelThreshold)
+      throws IOException {
+    Preconditions.checkNotNull(parcelFile);
+    MessageDigest sha1 = digest("SHA-1");
+    MessageDigest sha256 = digest("SHA-256");
+    long start = System.nanoTime();
+
+    InputStream fin = new FileInputStream(parcelFile);
+    InputStream in = fin;
+    try {
+      InputStream raw = new BufferedInputStream(
+          new DigestInputStream(new DigestInputStream(fin, sha1), sha256), BUFFER_SIZE);
+
+      String decompression;
+      if (!isGzip(raw)) {
+        decompression = NOT_COMPRESSED;
+        in = raw;
+      } else if (threads > 1 && parcelFile.length() >= parallelThreshold) {
+        ParallelGzipInputStream pin = new ParallelGzipInputStream(raw, threads);
+        decompression = pin.getMode().name().toLowerCase();
+        in = pin;
+      } else {
+        decompression = "sequential";
+        in = new GzipCompressorInputStream(raw, true);
+      }
+      CountingInputStream counter = new CountingInputStream(in);
+      TarArchiveInputStream tin = new TarArchiveInputStream(counter);
+
+      List<String> files = Lists.newArrayList();
+      List<String> directories = Lists.newArrayList();
+      // A tar may hold a path more than once, e.g. after "tar -r". The
+      // last entry wins, like it does when the tar is extracted.
+      Map<String, byte[]> metadata = Maps.newHashMap();
+      for (TarArchiveEntry e = tin.getNextTarEntry(); e != null; e = tin.getNextTarEntry()) {
+        String name = e.getName();
+        if (e.isDirectory()) {
+          directories.add(stripTrailingSlash(name));
+        } else {
+          files.add(stripTrailingSlash(name));
+          if (isMetadata(name)) {
+            metadata.put(name, IOUtils.toByteArray(tin));
+          }
+        }
+      }
+
+      // Hash whatever follows the end of the tar: padding and the gzip trailer.
+      drain(counter);
+      drain(raw);
+
+      ParcelArchive archive = new ParcelArchive(sortedArray(files),
+                                                sortedArray(directories),
+                                                ImmutableMap.copyOf(metadata),
+                                                HEX.encode(sha1.digest()),
+                                                HEX.encode(sha256.digest()),
+                                                decompression,
+                                                parcelFile.length(),
+                                                counter.getCount(),
+                                                System.nanoTime() - start);
+      return archive;
+    } finally {
+      IOUtils.closeQuietly(in);
+      IOUtils.closeQuietly(fin);
+    }
+  }
+
+  /**
+   * @param path the entry path, without a trailing '/'.
+   * @return true if the parcel has a file or directory with this path.
+   */
+  public boolean contains(String path) {
+    return isDirectory(path) != null;
+  }
+
+  /**
+   * @param path the entry path, without a trailing '/'.
+   * @return true for a directory, false for a file, null if the entry doesn't exist.
+   */
+  @Nullable
+  public Boolean isDirectory(String path) {
+    if (Arrays.binarySearch(directories, path) >= 0) {
+      return true;
+    } else if (Arrays.binarySearch(files, path) >= 0) {
+      return false;
+    }
+    return null;
+  }
+
+  /**
+   * @return the names of all entries, without trailing '/', in sorted order.
+   */
+  public List<String> getEntryNames() {
+    String[] all = new String[files.length + directories.length];
+    System.arraycopy(files, 0, all, 0, files.length);
+    System.arraycopy(directories, 0, all, files.length, directories.length);
+    Arrays.sort(all);
+    return Collections.unmodifiableList(Arrays.asList(all));
+  }
+
+  /**
+   * Returns the content of a <tt>meta/*.json</tt> or
+   * <tt>meta/release-notes.txt</tt> entry.
+   *
+   * @param path the entry path, e.g. "CDH-5.0.0/meta/parcel.json".
+   * @return the content, or null if there is no such entry.
+   */
+  @Nullable
+  public byte[] getMetadata(String path) {
+    return metadata.get(path);
+  }
+
+  /**
+   * @return the hex SHA-1 of the parcel file, as used in manifest.json.
+   */
+  public String getSha1() {
+    return sha1;
+  }
+
+  /**
+   * @return the hex SHA-256 of the parcel file.
+   */
+  public String getSha256() {
+    return sha256;
+  }
+
+  /**
+   * @return true if the parcel is gzip compressed.
+   */
+  public boolean isCompressed() {
+    return !NOT_COMPRESSED.equals(decompression);
+  }
+
+  /**
+   * @return how the parcel was decompressed: "none", "sequential",
+   *     "pipelined" or "parallel".
+   */
+  public String getDecompression() {
+    return decompression;
+  }
+
+  /**
+   * @return the size of the parcel file in bytes.
+   */
+  public long getCompressedSize() {
+    return compressedSize;
+  }
+
+  /**
+   * @return the size of the tar in bytes.
+   */
+  public long getUncompressedSize() {
+    return uncompressedSize;
+  }
+
+  /**
+   * @return the time it took to read the parcel, in nanoseconds.
+   */
+  public long getReadNanos() {
+    return readNanos;
+  }
+
+  /**
+   * Reports the read of the parcel as {@link Phase#PARCEL_READ}, and
+   * the compressed size as bytes read.
+   */
+  public void recordRead(ValidationMetrics metrics) {
+    metrics.recordTime(Phase.PARCEL_READ, readNanos);
+    metrics.increment(Counter.BYTES_READ, compressedSize);
+  }
+
+  private static boolean isMetadata(String name) {
+    // <parcel dir>/meta/<name>.json or release-notes.txt, directly in the meta directory.
+    int meta = name.indexOf(META_DIR);
+    return meta > 0 &&
+        name.indexOf('/') == meta &&
+        name.indexOf('/', meta + META_DIR.length()) < 0 &&
+        (name.endsWith(JSON_SUFFIX) || name.endsWith(META_DIR + RELEASE_NOTES));
+  }
+
+  private static boolean isGzip(InputStream in) throws IOException {
+    byte[] signature = new byte[2];
+    in.mark(signature.length);
+    int read = IOUtils.read(in, signature);
+    in.reset();
+    return GzipCompressorInputStream.matches(signature, read);
+  }
+
+  private static void drain(InputStream in) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    while (in.read(buffer) >= 0) {
+      // only hashing
+    }
+  }
+
+  private static String stripTrailingSlash(String name) {
+    return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+  }
+
+  private static String[] sortedArray(List<String> names) {
+    String[] array = names.toArray(new String[names.size()]);
+    Arrays.sort(array);
+    return array;
+  }
+
+  private static MessageDigest digest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(algorithm + " is not available", e);
+    }
+  }
+}
@@ -67,6 +67,26 @@ public class ParcelDirectoryRunner implements ValidationRunner {
   @Qualifier("permissionsRunner")
   private ValidationRunner permissionsRunner;
 
+  /**
+   * Creates a runner whose collaborators are injected by Spring.
+   */
+  public ParcelDirectoryRunner() {
+  }
+
+  public ParcelDirectoryRunner(Parser<ParcelDescriptor> parcelParser,
+                               Parser<AlternativesDescriptor> alternativesParser,
+                               Parser<PermissionsDescriptor> permissionsParser,
+                               ValidationRunner parcelRunner,
+                               ValidationRunner alternativesRunner,
+                               ValidationRunner permissionsRunner) {
+    this.parcelParser = parcelParser;
+    this.alternativesParser = alternativesParser;
+    this.permissionsParser = permissionsParser;
+    this.parcelRunner = parcelRunner;
+    this.alternativesRunner = alternativesRunner;
+    this.permissionsRunner = permissionsRunner;
+  }
+
   @Override
   public boolean run(String target, Writer writer) throws IOException {
     File parcelDir = new File(target);
@@ -16,32 +16,32 @@
 package com.cloudera.cli.validator.components;
 
 import com.cloudera.common.Parser;
+import com.cloudera.config.DefaultValidatorConfiguration;
 import com.cloudera.parcel.descriptors.AlternativeDescriptor;
 import com.cloudera.parcel.descriptors.AlternativesDescriptor;
 import com.cloudera.parcel.descriptors.ParcelDescriptor;
 import com.cloudera.parcel.descriptors.PermissionDescriptor;
 import com.cloudera.parcel.descriptors.PermissionsDescriptor;
 import com.cloudera.validation.DescriptorRunner;
+import com.cloudera.validation.ValidationMetrics;
 import com.cloudera.validation.ValidationRunner;
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.io.Files;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Writer;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
-import org.apache.commons.io.IOUtils;
+import javax.annotation.Nullable;
+
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -61,7 +61,7 @@ public class ParcelFileRunner implements ValidationRunner {
    * The group for [version] is greedy so that it captures embedded '-'s.
    * The [product] and [distro] are not allowed to have embedded '-'s.
    */
-  private static final Pattern PARCEL_PATTERN = Pattern.compile("^(.*?)-(.*)-(.*?)\\.parcel$");
+  static final Pattern PARCEL_PATTERN = Pattern.compile("^(.*?)-(.*)-(.*?)\\.parcel$");
 
   // This is the set of distros that CM is currently aware of. Future versions
   // of CM may understand more, and this list should be updated accordingly.
@@ -78,6 +78,8 @@ public class ParcelFileRunner implements ValidationRunner {
       "wheezy",
       "jessie");
 
+  private static final double MEGABYTE = 1024 * 1024;
+
   private static final String PARCEL_JSON_PATH = "/meta/parcel.json";
   private static final String ALTERNATIVES_JSON_PATH = "/meta/alternatives.json";
   private static final String PERMISSIONS_JSON_PATH = "/meta/permissions.json";
@@ -106,6 +108,43 @@ public class ParcelFileRunner implements ValidationRunner {
   @Qualifier("permissionsRunner")
   private DescriptorRunner<PermissionsDescriptor> permissionsRunner;
 
+  @Autowired(required = false)
+  @Qualifier(CommandLineOptions.BEAN_NAME)
+  private CommandLineOptions cmdOptions;
+
+  @Autowired(required = false)
+  @Qualifier(DefaultValidatorConfiguration.VALIDATION_METRICS_BEAN_NAME)
+  private ValidationMetrics metrics = ValidationMetrics.DISABLED;
+
+  /**
+   * Creates a runner whose collaborators are injected by Spring.
+   */
+  public ParcelFileRunner() {
+  }
+
+  /**
+   * @param cmdOptions the command line options, or null if there is no
+   *     command line.
+   * @param metrics the metrics to report the reads of parcels to.
+   */
+  public ParcelFileRunner(Parser<ParcelDescriptor> parcelParser,
+                          Parser<AlternativesDescriptor> alternativesParser,
+                          Parser<PermissionsDescriptor> permissionsParser,
+                          DescriptorRunner<ParcelDescriptor> parcelRunner,
+                          DescriptorRunner<AlternativesDescriptor> alternativesRunner,
+                          DescriptorRunner<PermissionsDescriptor> permissionsRunner,
+                          @Nullable CommandLineOptions cmdOptions,
+                          ValidationMetrics metrics) {
+    this.parcelParser = parcelParser;
+    this.alternativesParser = alternativesParser;
+    this.permissionsParser = permissionsParser;
+    this.parcelRunner = parcelRunner;
+    this.alternativesRunner = alternativesRunner;
+    this.permissionsRunner = permissionsRunner;
+    this.cmdOptions = cmdOptions;
+    this.metrics = Preconditions.checkNotNull(metrics);
+  }
+
   @Override
   public boolean run(String target, Writer writer) throws IOException {
     File parcelFile = new File(target);
@@ -132,77 +171,84 @@ public class ParcelFileRunner implements ValidationRunner {
                                  distro));
     }
 
-    FileInputStream fin = null;
-    BufferedInputStream bin = null;
-    GzipCompressorInputStream gin = null;
-    TarArchiveInputStream tin= null;
+    ParcelArchive archive;
     try {
-      InputStream in = null;
-
-      fin = new FileInputStream(parcelFile);
-      bin = new BufferedInputStream(fin);
-      try {
-        gin = new GzipCompressorInputStream(bin);
-        in = gin;
-      } catch (IOException e) {
-        // It's not compressed. Proceed as if uncompressed tar.
-        writer.write(String.format("==> Warning: Parcel is not compressed with gzip\n"));
-        in = bin;
-      }
-      tin = new TarArchiveInputStream(in);
-
-      byte[] parcelJson = null;
-      byte[] alternativesJson = null;
-      byte[] permissionsJson = null;
-
-      Map<String, Boolean> tarEntries = Maps.newHashMap();
-      Set<String> unexpectedDirs = Sets.newHashSet();
-      for (TarArchiveEntry e = tin.getNextTarEntry(); e != null; e = tin.getNextTarEntry()) {
-        String name = e.getName();
-
-        // Remove trailing '/'
-        tarEntries.put(name.replaceAll("/$", ""), e.isDirectory());
-
-        if (!StringUtils.startsWith(name, expectedDir)) {
-          unexpectedDirs.add(name.split("/")[0]);
-        }
-
-        if (e.getName().equals(expectedDir + PARCEL_JSON_PATH)) {
-          parcelJson = new byte[(int) e.getSize()];
-          tin.read(parcelJson);
-        } else if (e.getName().equals(expectedDir + ALTERNATIVES_JSON_PATH)) {
-          alternativesJson = new byte[(int) e.getSize()];
-          tin.read(alternativesJson);
-        } else if (e.getName().equals(expectedDir + PERMISSIONS_JSON_PATH)) {
-          permissionsJson = new byte[(int) e.getSize()];
-          tin.read(permissionsJson);
-        }
+      archive = ParcelArchive.read(parcelFile);
+    } catch (IOException e) {
+      writer.write(String.format("==> %s: %s\n", e.getClass().getName(), e.getMessage()));
+      return false;
+    }
+    archive.recordRead(metrics);
+
+    if (!archive.isCompressed()) {
+      writer.write(String.format("==> Warning: Parcel is not compressed with gzip\n"));
+    }
+    if (cmdOptions != null && cmdOptions.getVerbose()) {
+      writeReadStats(archive, writer);
+    }
+
+    boolean ret = true;
+
+    Set<String> unexpectedDirs = Sets.newHashSet();
+    for (String name : archive.getEntryNames()) {
+      if (!StringUtils.startsWith(name, expectedDir)) {
+        unexpectedDirs.add(name.split("/")[0]);
       }
+    }
+    if (!unexpectedDirs.isEmpty()) {
+      writer.write(String.format("==> The following unexpected top level directories were observed: %s\n",
+                                 unexpectedDirs.toString()));
+      writer.write(String.format("===> The only valid top level directory, based on parcel filename, is: %s\n",
+                                 expectedDir));
+      ret = false;
+    }
 
-      boolean ret = true;
+    ret &= checkHash(parcelFile, archive, writer);
+    ret &= checkParcelJson(expectedDir, archive.getMetadata(expectedDir + PARCEL_JSON_PATH), archive, writer);
+    ret &= checkAlternatives(expectedDir, archive.getMetadata(expectedDir + ALTERNATIVES_JSON_PATH), archive, writer);
+    ret &= checkPermissions(expectedDir, archive.getMetadata(expectedDir + PERMISSIONS_JSON_PATH), archive, writer);
 
-      if (!unexpectedDirs.isEmpty()) {
-        writer.write(String.format("==> The following unexpected top level directories were observed: %s\n",
-                                   unexpectedDirs.toString()));
-        writer.write(String.format("===> The only valid top level directory, based on parcel filename, is: %s\n",
-                                   expectedDir));
+    return ret;
+  }
+
+  /**
+   * If the parcel has a hash file next to it, as in a parcel repository,
+   * check that it matches the parcel.
+   */
+  private boolean checkHash(File parcelFile, ParcelArchive archive, Writer writer)
+      throws IOException {
+    boolean ret = true;
+    for (Map.Entry<String, String> e : hashFiles(archive).entrySet()) {
+      File hashFile = new File(parcelFile.getPath() + e.getKey());
+      if (!hashFile.isFile()) {
+        continue;
+      }
+      String expected = Files.toString(hashFile, Charsets.UTF_8).trim().split("\\s+")[0];
+      if (!expected.equalsIgnoreCase(e.getValue())) {
+        writer.write(String.format("==> %s does not match the parcel: expected %s but was %s\n",
+                                   hashFile.getName(), expected, e.getValue()));
         ret = false;
       }
+    }
+    return ret;
+  }
 
-      ret &= checkParcelJson(expectedDir, parcelJson, tarEntries, writer);
-      ret &= checkAlternatives(expectedDir, alternativesJson, tarEntries, writer);
-      ret &= checkPermissions(expectedDir, permissionsJson, tarEntries, writer);
+  private static void writeReadStats(ParcelArchive archive, Writer writer) throws IOException {
+    double seconds = Math.max(archive.getReadNanos(), 1) / 1e9;
+    double compressedMb = archive.getCompressedSize() / MEGABYTE;
+    double uncompressedMb = archive.getUncompressedSize() / MEGABYTE;
+    writer.write(String.format(
+        "Read %.1f MB (%.1f MB uncompressed) in %.2f s: %.1f MB/s (%.1f MB/s uncompressed), "
+        + "decompression: %s\n",
+        compressedMb, uncompressedMb, seconds, compressedMb / seconds, uncompressedMb / seconds,
+        archive.getDecompression()));
+  }
 
-      return ret;
-    } catch (IOException e) {
-      writer.write(String.format("==> %s: %s\n", e.getClass().getName(), e.getMessage()));
-      return false;
-    } finally {
-      IOUtils.closeQuietly(tin);
-      IOUtils.closeQuietly(gin);
-      IOUtils.closeQuietly(bin);
-      IOUtils.closeQuietly(fin);
-    }
+  private static Map<String, String> hashFiles(ParcelArchive archive) {
+    return ImmutableMap.of(
+        ".sha", archive.getSha1(),
+        ".sha1", archive.getSha1(),
+        ".sha256", archive.getSha256());
   }
 
   private boolean checkExistence(File file, boolean directory, Writer writer)
@@ -223,11 +269,11 @@ public class ParcelFileRunner implements ValidationRunner {
     return true;
   }
 
-  private boolean checkExistence(Map<String, Boolean> entries, String path, Boolean directory, Writer writer)
+  private boolean checkExistence(ParcelArchive entries, String path, Boolean directory, Writer writer)
         throws IOException {
-    Boolean isDirectory = entries.get(path);
+    Boolean isDirectory = entries.isDirectory(path);
 
-    if (!entries.keySet().contains(path)) {
+    if (isDirectory == null) {
       writer.write(String.format("==> %s does not exist.\n", path));
       return false;
     } else if (directory && !isDirectory) {
@@ -241,7 +287,7 @@ public class ParcelFileRunner implements ValidationRunner {
   }
 
   private boolean checkParcelJson(String dirName, byte[] data,
-                                  Map<String, Boolean> entries, Writer writer)
+                                  ParcelArchive entries, Writer writer)
       throws IOException {
     String jsonPath = new File(dirName, PARCEL_JSON_PATH).getPath();
 
@@ -278,7 +324,7 @@ public class ParcelFileRunner implements ValidationRunner {
   }
 
   private boolean checkAlternatives(String dirName, byte[] data,
-                                    Map<String, Boolean> entries, Writer writer)
+                                    ParcelArchive entries, Writer writer)
       throws IOException {
     if (data == null) {
       return true;
@@ -303,7 +349,7 @@ public class ParcelFileRunner implements ValidationRunner {
   }
 
   private boolean checkPermissions(String dirName, byte[] data,
-                                   Map<String, Boolean> entries, Writer writer)
+                                   ParcelArchive entries, Writer writer)
       throws IOException {
     if (data == null) {
       return true;
@@ -319,7 +365,7 @@ public class ParcelFileRunner implements ValidationRunner {
     PermissionsDescriptor permissions = permissionsParser.parse(data);
     for (Map.Entry<String, PermissionDescriptor> e : permissions.getPermissions().entrySet()) {
       String file = new File(dirName, e.getKey()).getPath();
-      if (!checkExistence(entries, file, entries.get(file), writer)) {
+      if (!checkExistence(entries, file, entries.isDirectory(file), writer)) {
         ret = false;
       }
     }
@@ -15,11 +15,21 @@
 // limitations under the License.
 package com.cloudera.cli.validator;
 
+import com.cloudera.parcel.components.JsonManifestParser;
+import com.cloudera.parcel.descriptors.ManifestDescriptor;
+import com.cloudera.parcel.descriptors.ParcelInfoDescriptor;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -117,6 +127,31 @@ public class MainTest {
     assertTrue(out.toString().contains("Validation succeeded"));
   }
 
+  @Test
+  public void testResultCache() throws IOException {
+    File dir = Files.createTempDir();
+    try {
+      String[] args = {"-s", dependencySdl, "-k", dir.getPath()};
+      app.run(args);
+      String first = out.toString();
+      assertTrue(first.contains("==> FOO must be a valid service type"));
+      assertTrue(new File(dir, "results.log").isFile());
+
+      setup();
+      app.run(args);
+      assertEquals("", err.toString());
+      assertEquals(first, out.toString());
+
+      // The extra service types are part of the cached configuration.
+      setup();
+      app.run(new String[] {"-s", dependencySdl, "-k", dir.getPath(), "-l", "SPARK FOO"});
+      assertEquals("", err.toString());
+      assertTrue(out.toString().contains("Validation succeeded"));
+    } finally {
+      FileUtils.deleteDirectory(dir);
+    }
+  }
+
   @Test
   public void testIgnoreUnknownElements() throws IOException {
     String[] args = {"-s", unknownSdl};
@@ -254,6 +289,83 @@ public class MainTest {
     assertTrue(out.toString().contains("does not appear"));
   }
 
+  @Test
+  public void testParcelHashFile() throws Exception {
+    File dir = Files.createTempDir();
+    try {
+      File parcel = new File(dir, new File(goodParcelFile).getName());
+      Files.copy(new File(goodParcelFile), parcel);
+      Files.write("e0db8273602747bbc1da09e9c414b1dd89456f7b\n", new File(parcel.getPath() + ".sha"),
+                  Charsets.UTF_8);
+      String[] args = {"-f", parcel.getPath()};
+      assertEquals(0, app.run(args));
+      assertEquals("", err.toString());
+
+      setup();
+      Files.write("0000000000000000000000000000000000000000", new File(parcel.getPath() + ".sha"),
+                  Charsets.UTF_8);
+      assertEquals(-1, app.run(args));
+      assertEquals("", err.toString());
+      assertTrue(out.toString().contains(".sha does not match the parcel"));
+    } finally {
+      FileUtils.deleteDirectory(dir);
+    }
+  }
+
+  @Test
+  public void testVerboseParcelFile() throws Exception {
+    String[] args = {"-v", "-f", goodParcelFile};
+    assertEquals(0, app.run(args));
+    assertEquals("", err.toString());
+    assertTrue(out.toString().contains("MB/s"));
+    assertOccurences(out.toString(), "==>", 0);
+  }
+
+  @Test
+  public void testMakeManifest() throws Exception {
+    File dir = Files.createTempDir();
+    try {
+      File parcel = new File(dir, new File(goodParcelFile).getName());
+      Files.copy(new File(goodParcelFile), parcel);
+      Files.copy(new File(wrongParcelFile), new File(dir, new File(wrongParcelFile).getName()));
+      String[] args = {"-g", dir.getPath()};
+      assertEquals(-1, app.run(args));
+      assertEquals("", err.toString());
+      assertTrue(out.toString().contains("Found parcel " + parcel.getName()));
+      assertTrue(out.toString().contains("==> Skipping CDH-5.0.0-0.cdh5b2.p0.280-wheezy.parcel"));
+
+      File manifestFile = new File(dir, "manifest.json");
+      ManifestDescriptor manifest =
+          new JsonManifestParser().parse(Files.toByteArray(manifestFile));
+      assertEquals(1, manifest.getParcels().size());
+      ParcelInfoDescriptor entry = manifest.getParcels().get(0);
+      assertEquals(parcel.getName(), entry.getParcelName());
+      assertEquals("e0db8273602747bbc1da09e9c414b1dd89456f7b", entry.getHash());
+      assertFalse(entry.getComponents().isEmpty());
+
+      // Unchanged parcels are not read again.
+      new File(dir, new File(wrongParcelFile).getName()).delete();
+      setup();
+      assertEquals(0, app.run(args));
+      assertTrue(out.toString().contains("Reused parcel " + parcel.getName()));
+
+      // A changed parcel is.
+      parcel.setLastModified(parcel.lastModified() - 10000);
+      setup();
+      assertEquals(0, app.run(args));
+      assertTrue(out.toString().contains("Found parcel " + parcel.getName()));
+
+      // So is one whose .sha file doesn't match the manifest.
+      Files.write("0000000000000000000000000000000000000000", new File(parcel.getPath() + ".sha"),
+                  Charsets.UTF_8);
+      setup();
+      assertEquals(0, app.run(args));
+      assertTrue(out.toString().contains("Found parcel " + parcel.getName()));
+    } finally {
+      FileUtils.deleteDirectory(dir);
+    }
+  }
+
   @Test
   public void testWrongParcelFilename() throws Exception {
     String[] args = {"-f", wrongParcelFile};
@@ -281,6 +393,163 @@ public class MainTest {
     assertTrue(out.toString().contains("does not exist"));
   }
 
+  @Test
+  public void testMultipleTargets() throws Exception {
+    String[] args = {"-s", goodSdl, "-r", goodPermissions, "-s", badSdl};
+    assertEquals(-1, app.run(args));
+    assertEquals("", err.toString());
+    assertOccurences(out.toString(), "Validating:", 3);
+    assertTrue(out.toString().contains("PASSED: " + goodSdl));
+    assertTrue(out.toString().contains("PASSED: " + goodPermissions));
+    assertTrue(out.toString().contains("FAILED: " + badSdl));
+    assertTrue(out.toString().contains("Validated 3 targets: 2 passed, 1 failed."));
+  }
+
+  @Test
+  public void testBatchFile() throws Exception {
+    File batchFile = writeBatchFile(
+        "# comment",
+        "",
+        goodSdl,
+        "permissions-json " + goodPermissions,
+        "-a " + goodAlternatives,
+        goodParcelFile);
+    String[] args = {"-b", batchFile.getAbsolutePath()};
+    assertEquals(0, app.run(args));
+    assertEquals("", err.toString());
+    assertOccurences(out.toString(), "PASSED: ", 4);
+    assertTrue(out.toString().contains("Validated 4 targets: 4 passed, 0 failed."));
+  }
+
+  @Test
+  public void testBatchFileWithFailures() throws Exception {
+    File batchFile = writeBatchFile(badParcelFile, "mdl foobar", "m " + goodManifest);
+    String[] args = {"-s", goodSdl, "--batch", batchFile.getAbsolutePath()};
+    assertEquals(-1, app.run(args));
+    assertEquals("", err.toString());
+    assertTrue(out.toString().contains("FAILED: " + badParcelFile));
+    assertTrue(out.toString().contains("FAILED: foobar"));
+    assertTrue(out.toString().contains("PASSED: " + goodManifest));
+    assertTrue(out.toString().contains("Validated 4 targets: 2 passed, 2 failed."));
+  }
+
+  @Test
+  public void testParallelOutputOrder() throws Exception {
+    File batchFile = writeBatchFile(
+        badParcelFile, goodSdl, badSdl, goodParcelFile, unknownSdl,
+        badParcelDir, "p " + badParcel, "m " + goodManifest, dependencySdl);
+    String[] args = {"-b", batchFile.getAbsolutePath(), "-j", "1"};
+    assertEquals(-1, app.run(args));
+    String sequential = out.toString();
+
+    for (int i = 0; i < 3; i++) {
+      setup();
+      args = new String[] {"-b", batchFile.getAbsolutePath(), "--threads", "4"};
+      assertEquals(-1, app.run(args));
+      assertEquals("", err.toString());
+      // The order of the violations of a single target is not defined,
+      // but targets are reported in order.
+      assertEquals(targetLines(sequential), targetLines(out.toString()));
+      assertEquals(sortedLines(sequential), sortedLines(out.toString()));
+    }
+  }
+
+  @Test
+  public void testFastStart() throws Exception {
+    String[][] argsList = {
+        {"-s", goodSdl},
+        {"-s", dependencySdl},
+        {"-s", dependencySdl, "-l", "SPARK FOO"},
+        {"-x", "-s", unknownSdl},
+        {"-p", badParcel},
+        {"-p", badParseParcel},
+        {"-a", badAlternatives},
+        {"-r", badPermissions},
+        {"-m", goodManifest},
+        {"-d", badParcelDir},
+        {"-f", goodParcelFile},
+        {"-f", badParcelFile},
+        {"-s", goodSdl, "-d", goodParcelDir, "-p", badParcel, "-j", "2"},
+        {"-w", badSdl}};
+    for (String[] args : argsList) {
+      setup();
+      int expectedCode = app.run(args);
+      String expectedOut = out.toString();
+      String expectedErr = err.toString();
+
+      setup();
+      List<String> fastArgs = Lists.newArrayList("-q");
+      Collections.addAll(fastArgs, args);
+      assertEquals(expectedCode, app.run(fastArgs.toArray(new String[fastArgs.size()])));
+      // The order of the violations of a target is not defined.
+      assertEquals(sortedLines(expectedOut), sortedLines(out.toString()));
+      assertEquals(expectedErr, err.toString());
+    }
+  }
+
+  @Test
+  public void testFastStartVerboseParcelFile() throws Exception {
+    String[] args = {"--fast-start", "-v", "-f", goodParcelFile};
+    assertEquals(0, app.run(args));
+    assertEquals("", err.toString());
+    assertTrue(out.toString().contains("MB/s"));
+  }
+
+  @Test
+  public void testStats() throws Exception {
+    String[] args = {"--stats", "-s", goodSdl};
+    assertEquals(0, app.run(args));
+    assertEquals("", err.toString());
+    String output = out.toString();
+    assertTrue(output.contains("Validation succeeded."));
+    assertTrue(output.contains("Statistics:"));
+    assertTrue(output.contains("beanValidation"));
+    assertTrue(output.contains("referenceGettersInvoked"));
+  }
+
+  @Test
+  public void testJsonStats() throws Exception {
+    String[] args = {"-t", "json", "-f", goodParcelFile};
+    assertEquals(0, app.run(args));
+    assertEquals("", err.toString());
+    String output = out.toString();
+    assertTrue(output.contains("{\"phases\":{"));
+    assertTrue(output.contains("\"parcelRead\":{\"runs\":1,"));
+    assertFalse(output.contains("Statistics:"));
+  }
+
+  @Test
+  public void testBadStats() throws Exception {
+    String[] args = {"--stats", "xml", "-s", goodSdl};
+    assertEquals(-2, app.run(args));
+    assertTrue(err.toString().contains("must be text or json"));
+  }
+
+  @Test
+  public void testBadThreads() throws Exception {
+    String[] args = {"-s", goodSdl, "-s", badSdl, "-j", "0"};
+    assertEquals(-2, app.run(args));
+    assertTrue(err.toString().contains("must be a positive number"));
+  }
+
+  @Test
+  public void testBadBatchFile() throws Exception {
+    File batchFile = writeBatchFile("foo " + goodSdl);
+    String[] args = {"-b", batchFile.getAbsolutePath()};
+    assertEquals(-2, app.run(args));
+    assertEquals("", out.toString());
+    assertTrue(err.toString().contains("Unknown option 'foo'"));
+
+    setup();
+    batchFile = writeBatchFile(goodParcel);
+    assertEquals(-2, app.run(new String[] {"-b", batchFile.getAbsolutePath()}));
+    assertTrue(err.toString().contains("No option given"));
+
+    setup();
+    assertEquals(-2, app.run(new String[] {"-b", "foobar"}));
+    assertTrue(err.toString().contains("Could not read batch file"));
+  }
+
   @Test
   public void testNoArg() throws Exception {
     String[] args = {};
@@ -297,6 +566,36 @@ public class MainTest {
     assertTrue(err.toString().contains("Unrecognized"));
   }
 
+  private static List<String> targetLines(String output) {
+    List<String> lines = Lists.newArrayList();
+    for (String line : output.split("\n")) {
+      if (!line.startsWith("==>")) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private static List<String> sortedLines(String output) {
+    List<String> lines = Lists.newArrayList(output.split("\n"));
+    Collections.sort(lines);
+    return lines;
+  }
+
+  private File writeBatchFile(String... lines) throws IOException {
+    File file = File.createTempFile("batch", ".txt");
+    file.deleteOnExit();
+    FileWriter writer = new FileWriter(file);
+    try {
+      for (String line : lines) {
+        writer.write(line + "\n");
+      }
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+
   private void assertOccurences(String haystack, String needle, int expected) {
     int index = -1;
     int count = 0;
@@ -0,0 +1,236 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator;
+
+import static org.junit.Assert.*;
+
+import com.cloudera.cli.validator.components.CommandLineOptions.Mode;
+import com.cloudera.validation.ValidationRunner;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+public class ValidationServerTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static AnnotationConfigApplicationContext ctx;
+  private static ValidationServer server;
+
+  private final String goodSdl = "src/test/resources/service_good.sdl";
+  private final String badSdl = "src/test/resources/service_bad.sdl";
+  private final String goodParcelFile =
+      "src/test/resources/CDH-5.0.0-0.cdh5b2.p0.282-wheezy.parcel";
+
+  @BeforeClass
+  public static void startServer() throws IOException {
+    ctx = new AnnotationConfigApplicationContext(ApplicationConfiguration.class);
+    server = new ValidationServer(ctx, 0, 2);
+    server.start();
+  }
+
+  @AfterClass
+  public static void stopServer() {
+    server.stop();
+    ctx.close();
+  }
+
+  @Test
+  public void testPostGoodSdl() throws IOException {
+    JsonNode response = post("mode=sdl&name=service.sdl", Files.toByteArray(new File(goodSdl)), 200);
+    assertTrue(response.get("passed").asBoolean());
+    assertEquals("service.sdl", response.get("target").asText());
+    assertEquals("SDL_FILE", response.get("mode").asText());
+    assertEquals(0, response.get("errors").size());
+  }
+
+  @Test
+  public void testPostBadSdl() throws IOException {
+    JsonNode response = post("mode=s", Files.toByteArray(new File(badSdl)), 200);
+    assertFalse(response.get("passed").asBoolean());
+    assertEquals(1, response.get("errors").size());
+    assertEquals("service.label must be present and not blank",
+                 response.get("errors").get(0).asText());
+  }
+
+  @Test
+  public void testParcelPath() throws IOException {
+    JsonNode response = get("mode=parcel&path=" + URLEncoder.encode(goodParcelFile, "UTF-8"), 200);
+    assertTrue(response.get("passed").asBoolean());
+    assertEquals(goodParcelFile, response.get("target").asText());
+    assertTrue(response.get("output").asText().contains("meta/parcel.json"));
+  }
+
+  @Test
+  public void testBadRequests() throws IOException {
+    assertTrue(get("mode=foo&path=x", 400).get("error").asText().contains("foo"));
+    assertTrue(get("path=x", 400).has("error"));
+    assertTrue(get("mode=sdl", 400).has("error"));
+    assertTrue(post("mode=parcel", new byte[] { 1 }, 400).get("error").asText()
+        .contains("only validates paths"));
+    assertTrue(get("mode=make-manifest&path=x", 400).get("error").asText()
+        .contains("not available in server mode"));
+    assertTrue(post("mode=g&path=x", new byte[] { 1 }, 400).get("error").asText()
+        .contains("not available in server mode"));
+  }
+
+  @Test
+  public void testForeignRequests() throws IOException {
+    String query = "mode=parcel&path=" + URLEncoder.encode(goodParcelFile, "UTF-8");
+    int port = server.getPort();
+    assertEquals(200, rawStatus(query, "Host: localhost:" + port));
+    assertEquals(200, rawStatus(query, "Host: [::1]:" + port));
+    assertEquals(403, rawStatus(query, "Host: attacker.example.com:" + port));
+    assertEquals(403, rawStatus(query, "Host: localhost:" + (port + 1)));
+    assertEquals(403, rawStatus(query, "Host: localhost"));
+    assertEquals(403, rawStatus(query,
+        "Host: 127.0.0.1:" + port + "\r\nOrigin: http://attacker.example.com"));
+  }
+
+  @Test
+  public void testBodyTooLarge() throws IOException {
+    String host = "Host: 127.0.0.1:" + server.getPort();
+    assertEquals(413, rawStatus("mode=sdl",
+        host + "\r\nContent-Length: " + (ValidationServer.MAX_BODY_SIZE + 1)));
+  }
+
+  @Test
+  public void testRunnerIOException() throws IOException {
+    ValidationServer failing = new ValidationServer(new RunnerFactory() {
+      @Override
+      public ValidationRunner getRunner(Mode mode) {
+        return new ValidationRunner() {
+          @Override
+          public boolean run(String target, Writer writer) throws IOException {
+            throw new IOException("disk on fire");
+          }
+        };
+      }
+    }, 0, 1);
+    failing.start();
+    try {
+      HttpURLConnection connection =
+          (HttpURLConnection) new URL(failing.getUrl() + "?mode=sdl&path=x").openConnection();
+      try {
+        assertEquals(500, connection.getResponseCode());
+        InputStream in = connection.getErrorStream();
+        try {
+          assertEquals("disk on fire",
+                       MAPPER.readTree(IOUtils.toByteArray(in)).get("error").asText());
+        } finally {
+          in.close();
+        }
+      } finally {
+        connection.disconnect();
+      }
+    } finally {
+      failing.stop();
+    }
+  }
+
+  @Test
+  public void testParseQuery() throws IOException {
+    Map<String, String> params = ValidationServer.parseQuery("mode=sdl&path=a%20b&name");
+    assertEquals("sdl", params.get("mode"));
+    assertEquals("a b", params.get("path"));
+    assertEquals("", params.get("name"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseMalformedQuery() throws IOException {
+    ValidationServer.parseQuery("mode=sdl&path=%zz");
+  }
+
+  private static JsonNode get(String query, int expectedStatus) throws IOException {
+    return request(query, null, expectedStatus);
+  }
+
+  private static JsonNode post(String query, byte[] body, int expectedStatus)
+      throws IOException {
+    return request(query, body, expectedStatus);
+  }
+
+  /**
+   * Sends a GET request with the given headers over a plain socket,
+   * since HttpURLConnection doesn't let us set Host or Origin.
+   */
+  private static int rawStatus(String query, String headers) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    try {
+      OutputStream out = socket.getOutputStream();
+      out.write(String.format("GET %s?%s HTTP/1.1\r\n%s\r\nConnection: close\r\n\r\n",
+          ValidationServer.VALIDATE_PATH, query, headers).getBytes(Charsets.UTF_8));
+      out.flush();
+      BufferedReader in = new BufferedReader(
+          new InputStreamReader(socket.getInputStream(), Charsets.UTF_8));
+      String status = in.readLine();
+      assertNotNull(status);
+      return Integer.parseInt(status.split(" ")[1]);
+    } finally {
+      socket.close();
+    }
+  }
+
+  private static JsonNode request(String query, byte[] body, int expectedStatus)
+      throws IOException {
+    URL url = new URL(server.getUrl() + "?" + query);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    try {
+      if (body != null) {
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        OutputStream out = connection.getOutputStream();
+        try {
+          out.write(body);
+        } finally {
+          out.close();
+        }
+      }
+      assertEquals(expectedStatus, connection.getResponseCode());
+      assertTrue(connection.getContentType().startsWith("application/json"));
+      InputStream in = (expectedStatus < 400)
+          ? connection.getInputStream() : connection.getErrorStream();
+      try {
+        return MAPPER.readTree(IOUtils.toByteArray(in));
+      } finally {
+        in.close();
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
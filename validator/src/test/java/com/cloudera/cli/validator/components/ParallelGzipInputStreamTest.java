@@ -0,0 +1,251 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator.components;
+
+import static org.junit.Assert.*;
+
+import com.cloudera.cli.validator.components.ParallelGzipInputStream.Mode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class ParallelGzipInputStreamTest {
+
+  private static final int BLOCK_SIZE = 60 * 1024;
+
+  private final File goodParcelFile =
+      new File("src/test/resources/CDH-5.0.0-0.cdh5b2.p0.282-wheezy.parcel");
+
+  @Test
+  public void testSingleMember() throws IOException {
+    byte[] data = randomText(3 * 1024 * 1024 + 17);
+    ParallelGzipInputStream in = open(gzip(data), 4);
+    assertEquals(Mode.PIPELINED, in.getMode());
+    assertArrayEquals(data, readAll(in));
+  }
+
+  @Test
+  public void testConcatenatedMembers() throws IOException {
+    byte[] first = randomText(100 * 1024);
+    byte[] second = randomText(1500 * 1024);
+    ParallelGzipInputStream in = open(concat(gzip(first), gzip(second)), 4);
+    assertEquals(Mode.PIPELINED, in.getMode());
+    assertArrayEquals(concat(first, second), readAll(in));
+  }
+
+  @Test
+  public void testBlocks() throws IOException {
+    byte[] data = randomText(BLOCK_SIZE * 20 + 5);
+    ParallelGzipInputStream in = open(bgzf(data), 4);
+    assertEquals(Mode.PARALLEL, in.getMode());
+    assertArrayEquals(data, readAll(in));
+  }
+
+  @Test
+  public void testBlocksOnOneThread() throws IOException {
+    byte[] data = randomText(BLOCK_SIZE * 3);
+    ParallelGzipInputStream in = open(bgzf(data), 1);
+    assertEquals(Mode.PIPELINED, in.getMode());
+    assertArrayEquals(data, readAll(in));
+  }
+
+  @Test
+  public void testBlocksFollowedByPlainMember() throws IOException {
+    byte[] blocks = randomText(BLOCK_SIZE * 2);
+    byte[] plain = randomText(1000);
+    ParallelGzipInputStream in = open(concat(bgzf(blocks), gzip(plain)), 4);
+    assertEquals(Mode.PARALLEL, in.getMode());
+    assertArrayEquals(concat(blocks, plain), readAll(in));
+  }
+
+  @Test
+  public void testCorruptBlock() throws IOException {
+    byte[] compressed = bgzf(randomText(BLOCK_SIZE * 4));
+    // Flip a byte of the CRC of the first block.
+    int firstBlockSize = ParallelGzipInputStream.blockSize(compressed, 0);
+    compressed[firstBlockSize - 8] ^= 0xff;
+    try {
+      readAll(open(compressed, 4));
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("CRC"));
+    }
+  }
+
+  @Test
+  public void testOversizedBlock() throws IOException {
+    byte[] compressed = bgzf(randomText(BLOCK_SIZE * 4));
+    // Claim a size no BGZF block can have.
+    int firstBlockSize = ParallelGzipInputStream.blockSize(compressed, 0);
+    compressed[firstBlockSize - 1] = 0x7f;
+    try {
+      readAll(open(compressed, 4));
+      fail("Expected an IOException");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("size mismatch"));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testFailingInput() throws IOException {
+    for (byte[] compressed : Arrays.asList(gzip(randomText(4 * 1024 * 1024)),
+                                           bgzf(randomText(BLOCK_SIZE * 20)))) {
+      InputStream failing = new BufferedInputStream(
+          new ByteArrayInputStream(compressed, 0, compressed.length / 2) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+              int n = super.read(b, off, len);
+              if (n < 0) {
+                throw new IllegalStateException("Broken input");
+              }
+              return n;
+            }
+          });
+      try {
+        readAll(new ParallelGzipInputStream(failing, 4));
+        fail("Expected an IOException");
+      } catch (IOException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("Broken input"));
+      }
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncated() throws IOException {
+    byte[] compressed = gzip(randomText(1024 * 1024));
+    readAll(open(Arrays.copyOf(compressed, compressed.length / 2), 4));
+  }
+
+  @Test(expected = IOException.class)
+  public void testNotGzip() throws IOException {
+    open(randomText(100), 4);
+  }
+
+  @Test(timeout = 10000)
+  public void testCloseEarly() throws IOException {
+    for (byte[] compressed : Arrays.asList(gzip(randomText(8 * 1024 * 1024)),
+                                           bgzf(randomText(BLOCK_SIZE * 100)))) {
+      ParallelGzipInputStream in = open(compressed, 2);
+      byte[] buffer = new byte[1000];
+      assertEquals(buffer.length, IOUtils.read(in, buffer));
+      in.close();
+    }
+  }
+
+  @Test
+  public void testParcelArchive() throws IOException {
+    ParcelArchive sequential = ParcelArchive.read(goodParcelFile, 1, 0);
+    ParcelArchive pipelined = ParcelArchive.read(goodParcelFile, 2, 0);
+    assertEquals("sequential", sequential.getDecompression());
+    assertEquals("pipelined", pipelined.getDecompression());
+    assertEquals(sequential.getSha1(), pipelined.getSha1());
+    assertEquals(sequential.getSha256(), pipelined.getSha256());
+    assertEquals(sequential.getEntryNames(), pipelined.getEntryNames());
+    assertEquals(sequential.getUncompressedSize(), pipelined.getUncompressedSize());
+    assertEquals(goodParcelFile.length(), pipelined.getCompressedSize());
+    assertTrue(pipelined.getUncompressedSize() > pipelined.getCompressedSize());
+  }
+
+  private static ParallelGzipInputStream open(byte[] compressed, int threads)
+      throws IOException {
+    return new ParallelGzipInputStream(
+        new BufferedInputStream(new ByteArrayInputStream(compressed)), threads);
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    try {
+      return IOUtils.toByteArray(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static byte[] randomText(int size) {
+    Random random = new Random(size);
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return data;
+  }
+
+  private static byte[] concat(byte[] first, byte[] second) {
+    byte[] result = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, result, first.length, second.length);
+    return result;
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    GZIPOutputStream out = new GZIPOutputStream(bytes);
+    out.write(data);
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Compresses the data into BGZF blocks, followed by the empty EOF block.
+   */
+  private static byte[] bgzf(byte[] data) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int offset = 0; offset < data.length; offset += BLOCK_SIZE) {
+      writeBlock(out, Arrays.copyOfRange(data, offset, Math.min(data.length, offset + BLOCK_SIZE)));
+    }
+    writeBlock(out, new byte[0]);
+    return out.toByteArray();
+  }
+
+  private static void writeBlock(ByteArrayOutputStream out, byte[] data) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(data);
+    deflater.finish();
+    byte[] deflated = new byte[data.length + 1024];
+    int length = deflater.deflate(deflated);
+    deflater.end();
+
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    int blockSize = 18 + length + 8;
+    out.write(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0,
+                           'B', 'C', 2, 0 }, 0, 16);
+    writeShort(out, blockSize - 1);
+    out.write(deflated, 0, length);
+    writeInt(out, (int) crc.getValue());
+    writeInt(out, data.length);
+  }
+
+  private static void writeShort(ByteArrayOutputStream out, int value) {
+    out.write(value & 0xff);
+    out.write((value >> 8) & 0xff);
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, int value) {
+    writeShort(out, value & 0xffff);
+    writeShort(out, (value >>> 16) & 0xffff);
+  }
+}
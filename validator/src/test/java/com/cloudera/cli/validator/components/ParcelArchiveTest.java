@@ -0,0 +1,115 @@
+// Licensed to Cloudera, Inc. under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  Cloudera, Inc. licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package com.cloudera.cli.validator.components;
+
+import static org.junit.Assert.*;
+
+import com.google.common.base.Charsets;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class ParcelArchiveTest {
+
+  private static final String DIR = "CDH-5.0.0-0.cdh5b2.p0.282";
+  private final File goodParcelFile =
+      new File("src/test/resources/CDH-5.0.0-0.cdh5b2.p0.282-wheezy.parcel");
+
+  @Test
+  public void testRead() throws IOException {
+    ParcelArchive archive = ParcelArchive.read(goodParcelFile);
+    assertTrue(archive.isCompressed());
+    assertEquals("e0db8273602747bbc1da09e9c414b1dd89456f7b", archive.getSha1());
+    assertEquals("72a34400b5c67045d7b3b1733515b4dcc302028c03584e566a21ab4a4475c3cc",
+                 archive.getSha256());
+
+    assertEquals(11, archive.getEntryNames().size());
+    assertEquals(DIR, archive.getEntryNames().get(0));
+    assertTrue(archive.isDirectory(DIR + "/meta"));
+    assertFalse(archive.isDirectory(DIR + "/bin/avro-tools"));
+    assertTrue(archive.contains(DIR + "/etc/hbase/conf.dist"));
+    assertNull(archive.isDirectory(DIR + "/meta/"));
+    assertFalse(archive.contains(DIR + "/foo"));
+
+    String parcelJson = new String(archive.getMetadata(DIR + "/meta/parcel.json"), Charsets.UTF_8);
+    assertTrue(parcelJson.contains("\"schema_version\""));
+    assertNotNull(archive.getMetadata(DIR + "/meta/alternatives.json"));
+    assertNotNull(archive.getMetadata(DIR + "/meta/permissions.json"));
+    // Only json files are kept.
+    assertNull(archive.getMetadata(DIR + "/meta/cdh_env.sh"));
+  }
+
+  @Test
+  public void testUncompressed() throws IOException {
+    File tar = File.createTempFile("parcel", ".tar");
+    tar.deleteOnExit();
+    InputStream in = new GzipCompressorInputStream(new FileInputStream(goodParcelFile));
+    OutputStream out = new FileOutputStream(tar);
+    try {
+      IOUtils.copy(in, out);
+    } finally {
+      IOUtils.closeQuietly(in);
+      IOUtils.closeQuietly(out);
+    }
+
+    ParcelArchive compressed = ParcelArchive.read(goodParcelFile);
+    ParcelArchive archive = ParcelArchive.read(tar);
+    assertFalse(archive.isCompressed());
+    assertFalse(compressed.getSha1().equals(archive.getSha1()));
+    assertEquals(compressed.getEntryNames(), archive.getEntryNames());
+    assertArrayEquals(compressed.getMetadata(DIR + "/meta/parcel.json"),
+                      archive.getMetadata(DIR + "/meta/parcel.json"));
+  }
+
+  @Test
+  public void testDuplicateMetadata() throws IOException {
+    File tar = File.createTempFile("parcel", ".tar");
+    tar.deleteOnExit();
+    TarArchiveOutputStream out = new TarArchiveOutputStream(new FileOutputStream(tar));
+    try {
+      // What "tar -r" leaves behind after appending a new parcel.json.
+      addFile(out, DIR + "/meta/parcel.json", "{\"old\": true}");
+      addFile(out, DIR + "/meta/parcel.json", "{\"new\": true}");
+    } finally {
+      out.close();
+    }
+
+    ParcelArchive archive = ParcelArchive.read(tar);
+    assertEquals("{\"new\": true}",
+                 new String(archive.getMetadata(DIR + "/meta/parcel.json"), Charsets.UTF_8));
+    assertFalse(archive.isDirectory(DIR + "/meta/parcel.json"));
+  }
+
+  private static void addFile(TarArchiveOutputStream out, String name, String content)
+      throws IOException {
+    byte[] data = content.getBytes(Charsets.UTF_8);
+    TarArchiveEntry entry = new TarArchiveEntry(name);
+    entry.setSize(data.length);
+    out.putArchiveEntry(entry);
+    out.write(data);
+    out.closeArchiveEntry();
+  }
+}